@@ -81,4 +81,13 @@ public interface Dialect {
 	 * @return true if stable ids are supported, false otherwise.
 	 */
 	public boolean supportsStableBnodeIds();
+
+	/**
+	 * Return whether or not the dialect of this language supports SPARQL 1.1 property paths, such as
+	 * <code>rdf:rest*</code>, so that structures like an rdf:List can be retrieved with a single query rather than
+	 * a query per node.
+	 *
+	 * @return true if property paths are supported, false otherwise.
+	 */
+	public boolean supportsPropertyPaths();
 }
@@ -20,8 +20,10 @@ import com.clarkparsia.empire.util.EmpireAnnotationProvider;
 import com.clarkparsia.empire.util.DefaultEmpireModule;
 import com.clarkparsia.empire.util.EmpireModule;
 import com.clarkparsia.empire.config.EmpireConfiguration;
+import com.clarkparsia.empire.annotation.EntityMapping;
 import com.clarkparsia.empire.annotation.RdfGenerator;
 import com.clarkparsia.empire.annotation.RdfsClass;
+import com.clarkparsia.empire.impl.NamedQueryRegistry;
 
 import com.clarkparsia.common.util.PrefixMapping;
 
@@ -39,22 +41,39 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Arrays;
 import java.util.NoSuchElementException;
+import java.util.List;
+import java.util.ArrayList;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.openrdf.model.vocabulary.XMLSchema;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * <p>Access class for the RDF ORM/JPA layer to get the local {@link Empire} instance.</p>
  *
  * @author Michael Grove
  * @since 0.1
- * @version 0.7
+ * @version 0.7.3
  */
 public final class Empire {
 
+	/**
+	 * The logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(Empire.class.getName());
+
 	/**
 	 * "the" instance of Empire
 	 */
-	private static Empire INSTANCE;
+	private static volatile Empire INSTANCE;
 
 	/**
 	 * The Guice injector used by Empire
@@ -71,6 +90,11 @@ public final class Empire {
 	 */
 	private EmpireAnnotationProvider mAnnotationProvider;
 
+	/**
+	 * The named queries of the application
+	 */
+	private volatile NamedQueryRegistry mNamedQueries;
+
 	/**
 	 * The collection of installed modules in Empire.  We only allow one module for each type.  If you install another
 	 * module of the same type later on, it will overwrite the previous module.
@@ -90,13 +114,107 @@ public final class Empire {
 	 * @return Empire
 	 */
 	public static Empire get() {
-		if (INSTANCE == null) {
-			INSTANCE = injector().getInstance(Empire.class);
-			
-			RdfGenerator.init(INSTANCE.getAnnotationProvider().getClassesWithAnnotation(RdfsClass.class));
+		Empire aEmpire = INSTANCE;
+
+		if (aEmpire == null) {
+			synchronized (Empire.class) {
+				aEmpire = INSTANCE;
+
+				if (aEmpire == null) {
+					aEmpire = injector().getInstance(Empire.class);
+					aEmpire.start();
+
+					INSTANCE = aEmpire;
+				}
+			}
 		}
 
-		return INSTANCE;
+		return aEmpire;
+	}
+
+	/**
+	 * Build the metadata Empire needs about the application's classes before it is used: the index of annotated
+	 * classes is read from the annotation provider once, the rdf:type registry and the namespaces are set up, and then
+	 * the named query table and the {@link EntityMapping mappings} of the {@link RdfsClass} classes are built in
+	 * parallel so the first requests do not pay for them.  The time taken by each phase is logged.
+	 */
+	private void start() {
+		long aStart = System.currentTimeMillis();
+
+		final Collection<Class<?>> aClasses = mAnnotationProvider.getClassesWithAnnotation(RdfsClass.class);
+
+		long aIndexed = System.currentTimeMillis();
+
+		// namespaces are registered here, before the mappings are built concurrently, since the global prefix
+		// mapping is not safe to modify from several threads at once
+		RdfGenerator.init(aClasses);
+
+		long aRegistered = System.currentTimeMillis();
+
+		int aThreads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), aClasses.size()));
+		ExecutorService aPool = Executors.newFixedThreadPool(aThreads, new WarmUpThreadFactory());
+
+		try {
+			Future<NamedQueryRegistry> aQueries = aPool.submit(new Callable<NamedQueryRegistry>() {
+				public NamedQueryRegistry call() {
+					return new NamedQueryRegistry(mAnnotationProvider);
+				}
+			});
+
+			List<Future<EntityMapping>> aMappings = new ArrayList<Future<EntityMapping>>(aClasses.size());
+			for (final Class<?> aClass : aClasses) {
+				aMappings.add(aPool.submit(new Callable<EntityMapping>() {
+					public EntityMapping call() {
+						return EntityMapping.of(aClass);
+					}
+				}));
+			}
+
+			mNamedQueries = await(aQueries);
+
+			long aQueried = System.currentTimeMillis();
+
+			for (Future<EntityMapping> aMapping : aMappings) {
+				try {
+					aMapping.get();
+				}
+				catch (ExecutionException e) {
+					// it will fail again, and be reported, when the class is actually used
+					LOGGER.warn("Could not build the mapping of a class at startup", e.getCause());
+				}
+			}
+
+			long aMapped = System.currentTimeMillis();
+
+			if (LOGGER.isInfoEnabled()) {
+				LOGGER.info("Empire started in {} ms: index {} ms, registry {} ms, named queries {} ms, mappings of {} classes {} ms",
+							new Object[] { aMapped - aStart, aIndexed - aStart, aRegistered - aIndexed,
+										   aQueried - aRegistered, aClasses.size(), aMapped - aRegistered });
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			aPool.shutdownNow();
+		}
+	}
+
+	private static <T> T await(final Future<T> theFuture) throws InterruptedException {
+		try {
+			return theFuture.get();
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			else {
+				throw new RuntimeException(e.getCause());
+			}
+		}
 	}
 
 	/**
@@ -126,6 +244,18 @@ public final class Empire {
 		return mAnnotationProvider;
 	}
 
+	/**
+	 * Return the named queries defined by the classes known to the {@link #getAnnotationProvider annotation provider}
+	 * @return the named queries
+	 */
+	public NamedQueryRegistry getNamedQueries() {
+		if (mNamedQueries == null) {
+			mNamedQueries = new NamedQueryRegistry(mAnnotationProvider);
+		}
+
+		return mNamedQueries;
+	}
+
 	/**
 	 * Initialize Empire with the given configuration
 	 * @param theConfig the container configuration for Empire
@@ -203,6 +333,21 @@ public final class Empire {
 		return injector().getInstance(theClass);
 	}
 
+	/**
+	 * Creates the daemon threads the metadata is built on at startup, so an application is never kept alive by them
+	 */
+	private static class WarmUpThreadFactory implements ThreadFactory {
+		/**
+		 * @inheritDoc
+		 */
+		public Thread newThread(final Runnable theRunnable) {
+			Thread aThread = new Thread(theRunnable, "empire-warm-up");
+			aThread.setDaemon(true);
+
+			return aThread;
+		}
+	}
+
 	/**
 	 * Predicate to use for finding an instance of {@link DefaultEmpireModule}
 	 */
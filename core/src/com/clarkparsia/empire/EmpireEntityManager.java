@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire;
+
+import javax.persistence.EntityManager;
+
+/**
+ * <p>Extension of the JPA {@link EntityManager} with operations specific to Empire.  The EntityManagers created by
+ * Empire's persistence provider implement this interface, so the EntityManager can simply be cast to it.</p>
+ *
+ * @author Michael Grove
+ * @since 0.7.3
+ * @version 0.7.3
+ */
+public interface EmpireEntityManager extends EntityManager {
+
+	/**
+	 * The default number of entities written to the data source at a time by {@link #persistAll}
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+	/**
+	 * Make all the given entities managed and persistent.  This is equivalent to calling {@link #persist} for each of
+	 * them, but the entities are processed in chunks of {@link #DEFAULT_CHUNK_SIZE}: whether or not the entities of a
+	 * chunk already exist is checked with a single query, the chunk is converted to RDF in parallel, and all its
+	 * triples are written to the data source at once.  The entities are read from the iterable one chunk at a time so
+	 * they do not all have to be in memory together.
+	 * @param theEntities the entities to persist
+	 * @throws javax.persistence.EntityExistsException if one of the entities already exists.  The chunks before the one
+	 * containing that entity will have been written.
+	 * @throws IllegalArgumentException if one of the objects is not a valid entity
+	 * @throws javax.persistence.PersistenceException if there is an error while writing the entities
+	 */
+	public void persistAll(Iterable<?> theEntities);
+
+	/**
+	 * Make all the given entities managed and persistent, in chunks of the given size.
+	 * @param theEntities the entities to persist
+	 * @param theChunkSize the number of entities written to the data source at a time
+	 * @param theCheckExists true to check that none of the entities already exist, false to skip the check, when the
+	 * caller knows the entities are new
+	 * @throws javax.persistence.EntityExistsException if one of the entities already exists.  The chunks before the one
+	 * containing that entity will have been written.
+	 * @throws IllegalArgumentException if one of the objects is not a valid entity, or the chunk size is not positive
+	 * @throws javax.persistence.PersistenceException if there is an error while writing the entities
+	 * @see #persistAll(Iterable)
+	 */
+	public void persistAll(Iterable<?> theEntities, int theChunkSize, boolean theCheckExists);
+}
@@ -77,4 +77,12 @@ public final class EmpireOptions {
 	 * logged as warnings to the logger.
 	 */
 	public static boolean STRICT_MODE = true;
+
+	/**
+	 * The number of levels of related entities which are fetched up front when an entity is loaded.  Each level is
+	 * retrieved with one query per batch of entities, based on the mapped properties of the entities in the previous
+	 * level, rather than with queries for each referenced entity as it is converted.  Properties with a lazy fetch type,
+	 * and values which are blank nodes, are not fetched ahead.  The default is 0, which disables fetching ahead.
+	 */
+	public static int EAGER_FETCH_DEPTH = 0;
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Annotation for marking the instances of a Java object as eligible for the second-level entity cache shared by
+ * the EntityManagers of a factory.  The cache has to be enabled in the persistence unit configuration for this to
+ * have any effect.</p>
+ * <p>
+ * Usage:<br/>
+ * <code><pre>
+ * &#64;RdfsClass("foaf:Person")
+ * &#64;Cacheable
+ * public class Foo implements SupportsRdfId {
+ *   ...
+ * }
+ * </pre></code>
+ * </p>
+ *
+ * @author Michael Grove
+ * @since 0.7.3
+ * @see com.clarkparsia.empire.impl.EntityCache
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cacheable {
+
+	/**
+	 * Whether or not instances are cached
+	 * @return true if cached, false otherwise
+	 */
+	public boolean value() default true;
+}
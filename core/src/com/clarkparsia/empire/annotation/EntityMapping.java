@@ -0,0 +1,468 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.annotation;
+
+import com.clarkparsia.common.util.PrefixMapping;
+
+import com.clarkparsia.empire.codegen.AccessorGenerator;
+import com.clarkparsia.empire.codegen.PropertyAccessor;
+
+import com.clarkparsia.empire.util.BeanReflectUtil;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import javax.persistence.Transient;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>The mapping of a Java bean class onto RDF: the rdf:type of the class and, for each of its mapped fields and
+ * methods, the RDF property it corresponds to along with everything needed to convert its values to and from RDF.
+ * Mappings are immutable, built once per class on first use and shared from then on, so that converting an
+ * instance does not have to repeat the reflection, annotation lookups and namespace expansion each time.</p>
+ *
+ * @author Michael Grove
+ * @since 0.7.3
+ * @version 0.7.3
+ */
+public final class EntityMapping {
+
+	/**
+	 * Base namespace for the properties of fields which are mapped, but do not have an {@link RdfProperty} annotation
+	 */
+	static final String DEFAULT_BASE = "urn:empire:clark-parsia:";
+
+	private static final ValueFactory FACTORY = new ValueFactoryImpl();
+
+	/**
+	 * The mappings built so far, keyed by the class they were built for.  The keys are weak so that the map does not
+	 * keep a class, or its class loader, from being unloaded.  A mapping refers to its class, so the values are soft
+	 * rather than strong, otherwise they would keep the keys reachable.
+	 */
+	private static final ConcurrentMap<Class<?>, EntityMapping> MAPPINGS = new MapMaker().weakKeys().softValues().makeMap();
+
+	/**
+	 * The class this is the mapping for
+	 */
+	private final Class<?> mClass;
+
+	/**
+	 * The rdf:type of instances of the class, or null if the class does not have an {@link RdfsClass} annotation
+	 */
+	private final URI mType;
+
+	/**
+	 * The annotated fields and getters of the class, the properties which are read from an instance
+	 */
+	private final Collection<PropertyMapping> mProperties;
+
+	/**
+	 * The annotated fields and setters of the class, keyed by the RDF property they are populated from
+	 */
+	private final Map<URI, PropertyMapping> mPropertiesByURI;
+
+	/**
+	 * Fields which are mapped, but not annotated, keyed by the name of the field.  The namespace of the RDF property
+	 * for these depends on the instance, so they cannot be resolved ahead of time.
+	 */
+	private final Map<String, PropertyMapping> mUnannotatedFields;
+
+	private EntityMapping(final Class<?> theClass) {
+		mClass = theClass;
+
+		RdfGenerator.addNamespaces(theClass);
+
+		RdfsClass aRdfsClass = BeanReflectUtil.getAnnotation(theClass, RdfsClass.class);
+		mType = aRdfsClass == null ? null : FACTORY.createURI(PrefixMapping.GLOBAL.uri(aRdfsClass.value()));
+
+		Collection<AccessibleObject> aAccessors = new LinkedHashSet<AccessibleObject>();
+		aAccessors.addAll(BeanReflectUtil.getAnnotatedFields(theClass));
+		aAccessors.addAll(BeanReflectUtil.getAnnotatedGetters(theClass, true));
+
+		ImmutableList.Builder<PropertyMapping> aProperties = ImmutableList.builder();
+		for (AccessibleObject aAccessor : aAccessors) {
+			aProperties.add(new PropertyMapping(theClass, aAccessor));
+		}
+
+		mProperties = aProperties.build();
+
+		Map<URI, PropertyMapping> aByURI = new LinkedHashMap<URI, PropertyMapping>();
+		Map<String, PropertyMapping> aUnannotated = new LinkedHashMap<String, PropertyMapping>();
+
+		for (Field aField : BeanReflectUtil.getAnnotatedFields(theClass)) {
+			PropertyMapping aMapping = new PropertyMapping(theClass, aField);
+
+			if (aMapping.isAnnotated()) {
+				aByURI.put(aMapping.getProperty(), aMapping);
+			}
+			else {
+				aUnannotated.put(aField.getName(), aMapping);
+			}
+		}
+
+		// setters are applied last so they take precedence over a field mapped to the same property
+		for (Method aMethod : BeanReflectUtil.getAnnotatedSetters(theClass, true)) {
+			PropertyMapping aMapping = new PropertyMapping(theClass, aMethod);
+
+			if (aMapping.isAnnotated()) {
+				aByURI.put(aMapping.getProperty(), aMapping);
+			}
+		}
+
+		mPropertiesByURI = ImmutableMap.copyOf(aByURI);
+		mUnannotatedFields = ImmutableMap.copyOf(aUnannotated);
+	}
+
+	/**
+	 * Return the mapping for the given class, building it if this is the first time it has been requested.
+	 * @param theClass the class
+	 * @return the mapping for the class
+	 */
+	public static EntityMapping of(final Class<?> theClass) {
+		EntityMapping aMapping = MAPPINGS.get(theClass);
+
+		if (aMapping == null) {
+			aMapping = new EntityMapping(theClass);
+
+			EntityMapping aExisting = MAPPINGS.putIfAbsent(theClass, aMapping);
+			if (aExisting != null) {
+				aMapping = aExisting;
+			}
+		}
+
+		return aMapping;
+	}
+
+	/**
+	 * Return the class this is the mapping for
+	 * @return the mapped class
+	 */
+	public Class<?> getEntityClass() {
+		return mClass;
+	}
+
+	/**
+	 * Return the rdf:type of instances of the class as specified by its {@link RdfsClass} annotation
+	 * @return the rdf:type, or null if the class is not annotated
+	 */
+	public URI getType() {
+		return mType;
+	}
+
+	/**
+	 * Return the mappings for the fields and getter methods of the class, which are the properties whose values are
+	 * read from an instance.  This includes transient properties, see {@link PropertyMapping#isTransient}.
+	 * @return the readable properties of the class
+	 */
+	public Collection<PropertyMapping> getProperties() {
+		return mProperties;
+	}
+
+	/**
+	 * Return the field or setter method which is populated from the values of the given RDF property.
+	 * @param theProperty the RDF property
+	 * @param theSubject the individual the instance is being populated from, fields without an {@link RdfProperty}
+	 * annotation are mapped to a property in its namespace.
+	 * @return the mapping for the property, or null if the class has no field or method for it
+	 */
+	public PropertyMapping getProperty(final URI theProperty, final Resource theSubject) {
+		PropertyMapping aMapping = mPropertiesByURI.get(theProperty);
+
+		if (aMapping == null && !mUnannotatedFields.isEmpty()) {
+			String aBase = theSubject instanceof URI ? ((URI) theSubject).getNamespace() : DEFAULT_BASE;
+
+			if (aBase.equals(theProperty.getNamespace())) {
+				aMapping = mUnannotatedFields.get(theProperty.getLocalName());
+			}
+		}
+
+		return aMapping;
+	}
+
+	/**
+	 * <p>The mapping of a single field or method of a bean onto an RDF property.</p>
+	 */
+	public static final class PropertyMapping {
+		private final Class<?> mEntityClass;
+		private final AccessibleObject mAccessor;
+		private final RdfProperty mAnnotation;
+		private final URI mProperty;
+
+		private final Class<?> mType;
+		private final Class<?> mElementType;
+		private final boolean mCollection;
+
+		private final boolean mList;
+		private final String mLanguage;
+		private final LanguageSelector mLanguageSelector;
+
+		private final boolean mTransient;
+		private final boolean mLazy;
+
+		private final boolean mPersistCascade;
+		private final boolean mMergeCascade;
+		private final boolean mRemoveCascade;
+		private final boolean mRefreshCascade;
+
+		private final RdfGenerator.AsValueFunction mConverter;
+
+		/**
+		 * The accessors are generated on first use rather than when the mapping is built; creating them more than
+		 * once is harmless, so these are not guarded by a lock.
+		 */
+		private volatile PropertyAccessor mPropertyAccessor;
+		private volatile PropertyAccessor mSetterAccessor;
+		private volatile boolean mSetterResolved;
+
+		private PropertyMapping(final Class<?> theEntityClass, final AccessibleObject theAccessor) {
+			mEntityClass = theEntityClass;
+			mAccessor = theAccessor;
+			mAnnotation = BeanReflectUtil.getAnnotation(theAccessor, RdfProperty.class);
+
+			if (mAnnotation != null) {
+				mProperty = FACTORY.createURI(PrefixMapping.GLOBAL.uri(mAnnotation.value()));
+			}
+			else if (theAccessor instanceof Field) {
+				mProperty = FACTORY.createURI(DEFAULT_BASE + ((Field) theAccessor).getName());
+			}
+			else {
+				mProperty = null;
+			}
+
+			if (theAccessor instanceof Method && ((Method) theAccessor).getParameterTypes().length == 0) {
+				mType = ((Method) theAccessor).getReturnType();
+			}
+			else {
+				mType = BeanReflectUtil.classFrom(theAccessor);
+			}
+
+			mCollection = Collection.class.isAssignableFrom(mType);
+			mElementType = RdfGenerator.elementClass(theAccessor, mType);
+
+			mList = mAnnotation != null && mAnnotation.isList();
+			mLanguage = mAnnotation == null ? "" : mAnnotation.language();
+			mLanguageSelector = new LanguageSelector(mLanguage, theAccessor);
+
+			mTransient = theAccessor.isAnnotationPresent(Transient.class)
+						 || (theAccessor instanceof Field && Modifier.isTransient(((Field) theAccessor).getModifiers()));
+
+			mLazy = BeanReflectUtil.isFetchTypeLazy(theAccessor);
+
+			mPersistCascade = BeanReflectUtil.isPersistCascade(theAccessor);
+			mMergeCascade = BeanReflectUtil.isMergeCascade(theAccessor);
+			mRemoveCascade = BeanReflectUtil.isRemoveCascade(theAccessor);
+			mRefreshCascade = BeanReflectUtil.isRefreshCascade(theAccessor);
+
+			mConverter = new RdfGenerator.AsValueFunction(theAccessor);
+		}
+
+		/**
+		 * Return the field or method which is mapped
+		 * @return the accessor
+		 */
+		public AccessibleObject getAccessor() {
+			return mAccessor;
+		}
+
+		/**
+		 * Return the accessor used to get and set the value of the property through the field or method
+		 * @return the property accessor
+		 */
+		public PropertyAccessor getPropertyAccessor() {
+			PropertyAccessor aAccessor = mPropertyAccessor;
+
+			if (aAccessor == null) {
+				aAccessor = AccessorGenerator.accessorFor(mAccessor);
+				mPropertyAccessor = aAccessor;
+			}
+
+			return aAccessor;
+		}
+
+		/**
+		 * Return the accessor which can set the value of the property.  For fields, and setter methods, this is the
+		 * same as {@link #getPropertyAccessor}, for getters it uses the paired setter method.
+		 * @return the accessor to set values with, or null if the property cannot be set
+		 * @see BeanReflectUtil#asSetter
+		 */
+		public PropertyAccessor getSetterAccessor() {
+			if (!mSetterResolved) {
+				AccessibleObject aSetter = BeanReflectUtil.asSetter(mEntityClass, mAccessor);
+
+				mSetterAccessor = aSetter == null ? null : AccessorGenerator.accessorFor(aSetter);
+				mSetterResolved = true;
+			}
+
+			return mSetterAccessor;
+		}
+
+		/**
+		 * Return the {@link RdfProperty} annotation of the field or method, including one inferred from the paired
+		 * getter or setter.
+		 * @return the annotation, or null if there is not one
+		 */
+		public RdfProperty getAnnotation() {
+			return mAnnotation;
+		}
+
+		/**
+		 * Return whether or not the field or method has an {@link RdfProperty} annotation
+		 * @return true if it is annotated, false otherwise
+		 */
+		public boolean isAnnotated() {
+			return mAnnotation != null;
+		}
+
+		/**
+		 * Return the RDF property that values are written to.
+		 * @return the property, or null for methods without an annotation
+		 */
+		public URI getProperty() {
+			return mProperty;
+		}
+
+		/**
+		 * Return the declared type of the property; the type of the field, the parameter of the setter or the return
+		 * value of the getter.
+		 * @return the declared type
+		 */
+		public Class<?> getType() {
+			return mType;
+		}
+
+		/**
+		 * Return whether or not the property is collection valued
+		 * @return true if it is a collection, false otherwise
+		 */
+		public boolean isCollection() {
+			return mCollection;
+		}
+
+		/**
+		 * Return the type of the values of the property as can be determined from the declaration of the property,
+		 * for collections this is the element type of the collection.
+		 * @return the value type
+		 */
+		public Class<?> getElementType() {
+			return mElementType;
+		}
+
+		/**
+		 * Return whether or not collection values are serialized as an rdf:List
+		 * @return true if serialized as a list, false otherwise
+		 */
+		public boolean isList() {
+			return mList;
+		}
+
+		/**
+		 * Return the language of the literal values of the property
+		 * @return the language, or the empty string if none was specified
+		 */
+		public String getLanguage() {
+			return mLanguage;
+		}
+
+		/**
+		 * Return the selector which chooses the value of the property, when it is single valued, by language
+		 * @return the language selector
+		 */
+		LanguageSelector getLanguageSelector() {
+			return mLanguageSelector;
+		}
+
+		/**
+		 * Return whether or not the property is transient and should not be written as RDF
+		 * @return true if transient, false otherwise
+		 */
+		public boolean isTransient() {
+			return mTransient;
+		}
+
+		/**
+		 * Return whether or not the values of the property are fetched lazily
+		 * @return true if lazy, false otherwise
+		 */
+		public boolean isLazy() {
+			return mLazy;
+		}
+
+		/**
+		 * Return whether or not persist operations are cascaded to the values of the property
+		 * @return true if cascaded, false otherwise
+		 */
+		public boolean isPersistCascade() {
+			return mPersistCascade;
+		}
+
+		/**
+		 * Return whether or not merge operations are cascaded to the values of the property
+		 * @return true if cascaded, false otherwise
+		 */
+		public boolean isMergeCascade() {
+			return mMergeCascade;
+		}
+
+		/**
+		 * Return whether or not remove operations are cascaded to the values of the property
+		 * @return true if cascaded, false otherwise
+		 */
+		public boolean isRemoveCascade() {
+			return mRemoveCascade;
+		}
+
+		/**
+		 * Return whether or not refresh operations are cascaded to the values of the property
+		 * @return true if cascaded, false otherwise
+		 */
+		public boolean isRefreshCascade() {
+			return mRefreshCascade;
+		}
+
+		/**
+		 * Return the function which converts values of the property into RDF
+		 * @return the converter
+		 */
+		public RdfGenerator.AsValueFunction getConverter() {
+			return mConverter;
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		@Override
+		public String toString() {
+			return mAccessor.toString();
+		}
+	}
+}
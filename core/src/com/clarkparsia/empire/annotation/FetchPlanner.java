@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.annotation;
+
+import com.clarkparsia.empire.SupportsRdfId;
+import com.clarkparsia.empire.ds.DataSource;
+import com.clarkparsia.empire.ds.DataSourceUtil;
+import com.clarkparsia.empire.ds.QueryException;
+import com.clarkparsia.empire.util.BeanReflectUtil;
+
+import com.clarkparsia.openrdf.Graphs;
+
+import com.google.common.collect.Lists;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.util.GraphUtil;
+import org.openrdf.model.vocabulary.RDF;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Fetches the entities related to an entity being loaded ahead of its conversion, one level of references at a
+ * time.  The references to follow are chosen from the {@link EntityMapping} of each entity: values of mapped,
+ * non-transient properties whose fetch type is not lazy and whose (element) type is a bean type.  All the entities
+ * of a level are described together, so loading an aggregate costs a query per level (and per
+ * {@link #BATCH_SIZE} entities) rather than a few queries per referenced entity.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+final class FetchPlanner {
+
+	/**
+	 * The logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(FetchPlanner.class);
+
+	/**
+	 * The maximum number of entities described by a single query
+	 */
+	static final int BATCH_SIZE = 100;
+
+	/**
+	 * Cannot create instances of this class
+	 */
+	private FetchPlanner() {
+	}
+
+	/**
+	 * Fetch the descriptions of the entities reachable from the given entity, up to the given depth
+	 * @param theSource the data source to fetch from
+	 * @param theClass the class of the entity
+	 * @param theSubject the entity
+	 * @param theDescription the statements about the entity
+	 * @param theDepth the number of levels of references to follow
+	 * @return the statements about each of the fetched entities, keyed by entity.  An entity which was fetched but
+	 * has no statements is mapped to an empty graph.
+	 * @throws QueryException if there is an error while querying the data source
+	 */
+	static Map<Resource, Graph> fetch(final DataSource theSource, final Class<?> theClass, final Resource theSubject,
+									  final Graph theDescription, final int theDepth) throws QueryException {
+		Map<Resource, Graph> aDescriptions = new HashMap<Resource, Graph>();
+		aDescriptions.put(theSubject, theDescription);
+
+		Map<URI, Class<?>> aLevel = new LinkedHashMap<URI, Class<?>>();
+
+		collect(theClass, theSubject, theDescription, aDescriptions, aLevel);
+
+		for (int aDepth = 1; aDepth <= theDepth && !aLevel.isEmpty(); aDepth++) {
+			for (List<URI> aChunk : Lists.partition(Lists.newArrayList(aLevel.keySet()), BATCH_SIZE)) {
+				for (URI aURI : aChunk) {
+					aDescriptions.put(aURI, Graphs.newGraph());
+				}
+
+				for (Statement aStmt : DataSourceUtil.describeAll(theSource, aChunk)) {
+					Graph aGraph = aDescriptions.get(aStmt.getSubject());
+
+					if (aGraph != null) {
+						aGraph.add(aStmt);
+					}
+				}
+			}
+
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Fetched {} entities at depth {}", Integer.valueOf(aLevel.size()), Integer.valueOf(aDepth));
+			}
+
+			Map<URI, Class<?>> aNextLevel = new LinkedHashMap<URI, Class<?>>();
+
+			if (aDepth < theDepth) {
+				for (Map.Entry<URI, Class<?>> aEntry : aLevel.entrySet()) {
+					collect(aEntry.getValue(), aEntry.getKey(), aDescriptions.get(aEntry.getKey()), aDescriptions, aNextLevel);
+				}
+			}
+
+			aLevel = aNextLevel;
+		}
+
+		return aDescriptions;
+	}
+
+	/**
+	 * Collect the references of an entity that should be fetched with the next level
+	 * @param theClass the class the entity is expected to be
+	 * @param theSubject the entity
+	 * @param theDescription the statements about the entity
+	 * @param theFetched the entities which have already been fetched
+	 * @param theNext the references to fetch in the next level, and the class they are expected to be
+	 */
+	private static void collect(final Class<?> theClass, final Resource theSubject, final Graph theDescription,
+								final Map<Resource, Graph> theFetched, final Map<URI, Class<?>> theNext) {
+		Class<?> aClass = RdfGenerator.resolveClass(theClass, GraphUtil.getObjects(theDescription, theSubject, RDF.TYPE));
+
+		EntityMapping aMapping = EntityMapping.of(aClass);
+
+		Iterator<Statement> aIter = theDescription.match(theSubject, null, null);
+
+		while (aIter.hasNext()) {
+			Statement aStmt = aIter.next();
+
+			if (!(aStmt.getObject() instanceof URI)
+				|| theFetched.containsKey(aStmt.getObject())
+				|| theNext.containsKey(aStmt.getObject())) {
+				continue;
+			}
+
+			EntityMapping.PropertyMapping aProperty = aMapping.getProperty(aStmt.getPredicate(), theSubject);
+
+			if (aProperty == null || aProperty.isTransient() || aProperty.isLazy() || !isEntity(aProperty.getElementType())) {
+				continue;
+			}
+
+			theNext.put((URI) aStmt.getObject(), aProperty.getElementType());
+		}
+	}
+
+	/**
+	 * Return whether or not values of the given type are beans which are converted from their own description
+	 * @param theClass the type
+	 * @return true if a bean type, false otherwise
+	 */
+	static boolean isEntity(final Class<?> theClass) {
+		return theClass != null
+			   && (SupportsRdfId.class.isAssignableFrom(theClass) || BeanReflectUtil.hasAnnotation(theClass, RdfsClass.class));
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.annotation;
+
+import com.clarkparsia.empire.EmpireOptions;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Value;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * <p>Chooses the value to assign to a single valued property from the values of its RDF property, based on the
+ * language tags of literal values.  If any of the values is a resource, no filtering is done.  Otherwise, when
+ * {@link EmpireOptions#ENABLE_LANG_AWARE language awareness} is enabled, only literals in the language of the
+ * {@link RdfProperty#language property} are considered.  When it is not, literals without a language tag are
+ * preferred, then literals in the language of the default locale, and finally any of the values.</p>
+ *
+ * <p>The languages are determined when the selector is created and selection does a single pass over the values
+ * without allocating anything, so a selector is kept on the {@link EntityMapping.PropertyMapping} and can be used by
+ * any number of threads at once.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+final class LanguageSelector {
+
+	/**
+	 * The language of the property, the empty string if it does not specify one
+	 */
+	private final String mLanguage;
+
+	/**
+	 * The language of the default locale at the time the selector was created
+	 */
+	private final String mLocaleLanguage;
+
+	/**
+	 * The field or method of the property, used in error messages
+	 */
+	private final Object mAccessor;
+
+	/**
+	 * Create a new LanguageSelector
+	 * @param theLanguage the language of the property, or the empty string
+	 * @param theAccessor the field or method of the property
+	 */
+	LanguageSelector(final String theLanguage, final Object theAccessor) {
+		mLanguage = theLanguage;
+		mLocaleLanguage = languageForLocale(Locale.getDefault());
+		mAccessor = theAccessor;
+	}
+
+	/**
+	 * Return the language used for literals of the given locale
+	 * @param theLocale the locale
+	 * @return the language of the locale, or "en" if it does not have one
+	 */
+	static String languageForLocale(final Locale theLocale) {
+		return theLocale == null || theLocale.getLanguage().equals("")
+			   ? "en"
+			   : theLocale.getLanguage();
+	}
+
+	/**
+	 * Return the value which should be assigned to the property
+	 * @param theValues the values of the property
+	 * @return the selected value, or null if none of the values are acceptable
+	 * @throws IllegalStateException if there is more than one acceptable value and
+	 * {@link EmpireOptions#STRICT_MODE strict mode} is enabled
+	 */
+	Value select(final Collection<Value> theValues) {
+		boolean aResources = false;
+
+		// the first value of each kind, and whether or not a different value of the same kind was seen
+		Value aAny = null;
+		boolean aAnyMany = false;
+
+		Value aUntagged = null;
+		boolean aUntaggedMany = false;
+
+		Value aLocale = null;
+		boolean aLocaleMany = false;
+
+		Value aTagged = null;
+		boolean aTaggedMany = false;
+
+		for (Value aValue : theValues) {
+			if (aAny == null) {
+				aAny = aValue;
+			}
+			else if (!aAnyMany && !aAny.equals(aValue)) {
+				aAnyMany = true;
+			}
+
+			if (aValue instanceof Resource) {
+				aResources = true;
+				continue;
+			}
+
+			String aLang = ((Literal) aValue).getLanguage();
+
+			if (aLang == null) {
+				if (aUntagged == null) {
+					aUntagged = aValue;
+				}
+				else if (!aUntaggedMany && !aUntagged.equals(aValue)) {
+					aUntaggedMany = true;
+				}
+
+				continue;
+			}
+
+			if (aLang.equals(mLocaleLanguage)) {
+				if (aLocale == null) {
+					aLocale = aValue;
+				}
+				else if (!aLocaleMany && !aLocale.equals(aValue)) {
+					aLocaleMany = true;
+				}
+			}
+
+			if (aLang.equals(mLanguage)) {
+				if (aTagged == null) {
+					aTagged = aValue;
+				}
+				else if (!aTaggedMany && !aTagged.equals(aValue)) {
+					aTaggedMany = true;
+				}
+			}
+		}
+
+		if (aResources) {
+			return checkUnique(aAny, aAnyMany, theValues);
+		}
+		else if (EmpireOptions.ENABLE_LANG_AWARE) {
+			return checkUnique(aTagged, aTaggedMany, theValues);
+		}
+		else if (aUntagged != null) {
+			return checkUnique(aUntagged, aUntaggedMany, theValues);
+		}
+		else if (aLocale != null) {
+			return checkUnique(aLocale, aLocaleMany, theValues);
+		}
+		else {
+			return checkUnique(aAny, aAnyMany, theValues);
+		}
+	}
+
+	private Value checkUnique(final Value theValue, final boolean theMany, final Collection<Value> theValues) {
+		if (theMany && EmpireOptions.STRICT_MODE) {
+			throw new IllegalStateException("Cannot convert list of values to anything meaningful for the field. " + mAccessor + " " + theValues);
+		}
+
+		return theValue;
+	}
+}
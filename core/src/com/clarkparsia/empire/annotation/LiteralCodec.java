@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.annotation;
+
+import com.clarkparsia.empire.codegen.PropertyAccessor;
+
+import org.openrdf.model.Literal;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * <p>Converts between RDF literals and the Java values of bean properties.  Codecs are looked up in
+ * {@link LiteralCodecs} by the datatype of the literal when reading a bean, and by the class of the value when writing
+ * one, so support for other datatypes can be added by registering a codec there.</p>
+ *
+ * <p>Codecs for primitive values should override {@link #assign} so that a literal is written into a primitive
+ * property without boxing it.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ * @see LiteralCodecs
+ */
+public abstract class LiteralCodec<T> {
+
+	/**
+	 * Return the Java value of the literal
+	 * @param theLiteral the literal
+	 * @return the value, or null if the literal is not a valid value of the datatype
+	 */
+	public abstract T decode(Literal theLiteral);
+
+	/**
+	 * Return the literal for the Java value
+	 * @param theValue the value
+	 * @return the literal
+	 * @throws UnsupportedOperationException if the codec only reads literals
+	 */
+	public abstract Literal encode(T theValue);
+
+	/**
+	 * Set the value of the literal on the property of the object
+	 * @param theAccessor the accessor of the property
+	 * @param theObj the object to set the value on
+	 * @param theLiteral the literal
+	 * @throws IllegalAccessException thrown if the property cannot be accessed
+	 * @throws InvocationTargetException thrown if the setter of the property throws an exception
+	 * @throws IllegalArgumentException thrown if the value is not assignable to the property
+	 */
+	public void assign(final PropertyAccessor theAccessor, final Object theObj, final Literal theLiteral) throws IllegalAccessException, InvocationTargetException {
+		theAccessor.set(theObj, decode(theLiteral));
+	}
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.annotation;
+
+import com.clarkparsia.common.base.Dates;
+import com.clarkparsia.empire.codegen.PropertyAccessor;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDFS;
+import org.openrdf.model.vocabulary.XMLSchema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.net.URISyntaxException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>The {@link LiteralCodec codecs} used to convert literals to and from the values of bean properties, keyed by
+ * the datatype they read and the Java type they write.  The XSD datatypes of the primitive types and their wrappers,
+ * strings, dates and URIs are registered by default; additional codecs can be registered at any time, replacing any
+ * codec previously registered for the same datatype or type.</p>
+ *
+ * <p>Lookups do not lock, so they are cheap enough to do for every literal that is converted.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+public final class LiteralCodecs {
+
+	/**
+	 * The logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(LiteralCodecs.class);
+
+	private static final ValueFactory FACTORY = ValueFactoryImpl.getInstance();
+
+	/**
+	 * The codecs used to read literals, keyed by datatype.  Registration replaces the map rather than modifying it.
+	 */
+	private static volatile Map<URI, LiteralCodec<?>> DECODERS = ImmutableMap.of();
+
+	/**
+	 * The codecs used to write values, keyed by Java type.  Registration replaces the map rather than modifying it.
+	 */
+	private static volatile Map<Class<?>, LiteralCodec<?>> ENCODERS = ImmutableMap.of();
+
+	public static final LiteralCodec<String> STRING = new LiteralCodec<String>() {
+		public String decode(final Literal theLiteral) {
+			return theLiteral.getLabel();
+		}
+
+		public Literal encode(final String theValue) {
+			return FACTORY.createLiteral(theValue);
+		}
+	};
+
+	public static final LiteralCodec<Boolean> BOOLEAN = new LiteralCodec<Boolean>() {
+		public Boolean decode(final Literal theLiteral) {
+			return Boolean.valueOf(theLiteral.getLabel());
+		}
+
+		public Literal encode(final Boolean theValue) {
+			return FACTORY.createLiteral(theValue.booleanValue());
+		}
+
+		@Override
+		public void assign(final PropertyAccessor theAccessor, final Object theObj, final Literal theLiteral) throws IllegalAccessException, InvocationTargetException {
+			theAccessor.setBoolean(theObj, Boolean.parseBoolean(theLiteral.getLabel()));
+		}
+	};
+
+	public static final LiteralCodec<Byte> BYTE = new LiteralCodec<Byte>() {
+		public Byte decode(final Literal theLiteral) {
+			return Byte.valueOf(theLiteral.getLabel());
+		}
+
+		public Literal encode(final Byte theValue) {
+			return FACTORY.createLiteral(theValue.byteValue());
+		}
+
+		@Override
+		public void assign(final PropertyAccessor theAccessor, final Object theObj, final Literal theLiteral) throws IllegalAccessException, InvocationTargetException {
+			theAccessor.setByte(theObj, Byte.parseByte(theLiteral.getLabel()));
+		}
+	};
+
+	public static final LiteralCodec<Short> SHORT = new LiteralCodec<Short>() {
+		public Short decode(final Literal theLiteral) {
+			return Short.valueOf(theLiteral.getLabel());
+		}
+
+		public Literal encode(final Short theValue) {
+			return FACTORY.createLiteral(theValue.shortValue());
+		}
+
+		@Override
+		public void assign(final PropertyAccessor theAccessor, final Object theObj, final Literal theLiteral) throws IllegalAccessException, InvocationTargetException {
+			theAccessor.setShort(theObj, Short.parseShort(theLiteral.getLabel()));
+		}
+	};
+
+	public static final LiteralCodec<Integer> INT = new LiteralCodec<Integer>() {
+		public Integer decode(final Literal theLiteral) {
+			return Integer.valueOf(theLiteral.getLabel());
+		}
+
+		public Literal encode(final Integer theValue) {
+			return FACTORY.createLiteral(theValue.intValue());
+		}
+
+		@Override
+		public void assign(final PropertyAccessor theAccessor, final Object theObj, final Literal theLiteral) throws IllegalAccessException, InvocationTargetException {
+			theAccessor.setInt(theObj, Integer.parseInt(theLiteral.getLabel()));
+		}
+	};
+
+	public static final LiteralCodec<Long> LONG = new LiteralCodec<Long>() {
+		public Long decode(final Literal theLiteral) {
+			return Long.valueOf(theLiteral.getLabel());
+		}
+
+		public Literal encode(final Long theValue) {
+			return FACTORY.createLiteral(theValue.longValue());
+		}
+
+		@Override
+		public void assign(final PropertyAccessor theAccessor, final Object theObj, final Literal theLiteral) throws IllegalAccessException, InvocationTargetException {
+			theAccessor.setLong(theObj, Long.parseLong(theLiteral.getLabel()));
+		}
+	};
+
+	public static final LiteralCodec<Float> FLOAT = new LiteralCodec<Float>() {
+		public Float decode(final Literal theLiteral) {
+			return Float.valueOf(theLiteral.getLabel());
+		}
+
+		public Literal encode(final Float theValue) {
+			return FACTORY.createLiteral(theValue.floatValue());
+		}
+
+		@Override
+		public void assign(final PropertyAccessor theAccessor, final Object theObj, final Literal theLiteral) throws IllegalAccessException, InvocationTargetException {
+			theAccessor.setFloat(theObj, Float.parseFloat(theLiteral.getLabel()));
+		}
+	};
+
+	public static final LiteralCodec<Double> DOUBLE = new LiteralCodec<Double>() {
+		public Double decode(final Literal theLiteral) {
+			return Double.valueOf(theLiteral.getLabel());
+		}
+
+		public Literal encode(final Double theValue) {
+			return FACTORY.createLiteral(theValue.doubleValue());
+		}
+
+		@Override
+		public void assign(final PropertyAccessor theAccessor, final Object theObj, final Literal theLiteral) throws IllegalAccessException, InvocationTargetException {
+			theAccessor.setDouble(theObj, Double.parseDouble(theLiteral.getLabel()));
+		}
+	};
+
+	/**
+	 * Reads xsd:date and xsd:dateTime literals and writes dates as xsd:dateTime
+	 */
+	public static final LiteralCodec<Date> DATE = new LiteralCodec<Date>() {
+		public Date decode(final Literal theLiteral) {
+			return Dates.asDate(theLiteral.getLabel());
+		}
+
+		public Literal encode(final Date theValue) {
+			return FACTORY.createLiteral(Dates.datetime(theValue), XMLSchema.DATETIME);
+		}
+	};
+
+	/**
+	 * Reads xsd:time literals holding the milliseconds since the epoch
+	 */
+	public static final LiteralCodec<Date> TIME = new LiteralCodec<Date>() {
+		public Date decode(final Literal theLiteral) {
+			return new Date(Long.parseLong(theLiteral.getLabel()));
+		}
+
+		public Literal encode(final Date theValue) {
+			throw new UnsupportedOperationException();
+		}
+	};
+
+	/**
+	 * Reads xsd:anyURI literals.  Writing URIs depends on the property they are written for, so it is not done with
+	 * a codec.
+	 */
+	public static final LiteralCodec<java.net.URI> ANYURI = new LiteralCodec<java.net.URI>() {
+		public java.net.URI decode(final Literal theLiteral) {
+			try {
+				return new java.net.URI(theLiteral.getLabel());
+			}
+			catch (URISyntaxException e) {
+				LOGGER.warn("URI syntax exception converting literal value which is not a valid URI {} ", theLiteral.getLabel());
+				return null;
+			}
+		}
+
+		public Literal encode(final java.net.URI theValue) {
+			return FACTORY.createLiteral(theValue.toString(), XMLSchema.ANYURI);
+		}
+	};
+
+	public static final LiteralCodec<Character> CHAR = new LiteralCodec<Character>() {
+		public Character decode(final Literal theLiteral) {
+			return Character.valueOf(theLiteral.getLabel().charAt(0));
+		}
+
+		public Literal encode(final Character theValue) {
+			return FACTORY.createLiteral(theValue.charValue());
+		}
+	};
+
+	static {
+		register(XMLSchema.STRING, STRING);
+		register(RDFS.LITERAL, STRING);
+		register(XMLSchema.BOOLEAN, BOOLEAN);
+
+		register(XMLSchema.INT, INT);
+		register(XMLSchema.INTEGER, INT);
+		register(XMLSchema.POSITIVE_INTEGER, INT);
+		register(XMLSchema.NEGATIVE_INTEGER, INT);
+		register(XMLSchema.NON_NEGATIVE_INTEGER, INT);
+		register(XMLSchema.NON_POSITIVE_INTEGER, INT);
+		register(XMLSchema.UNSIGNED_INT, INT);
+
+		register(XMLSchema.LONG, LONG);
+		register(XMLSchema.UNSIGNED_LONG, LONG);
+		register(XMLSchema.DOUBLE, DOUBLE);
+		register(XMLSchema.FLOAT, FLOAT);
+		register(XMLSchema.DECIMAL, FLOAT);
+		register(XMLSchema.SHORT, SHORT);
+		register(XMLSchema.UNSIGNED_SHORT, SHORT);
+		register(XMLSchema.BYTE, BYTE);
+		register(XMLSchema.UNSIGNED_BYTE, BYTE);
+
+		register(XMLSchema.ANYURI, ANYURI);
+		register(XMLSchema.DATE, DATE);
+		register(XMLSchema.DATETIME, DATE);
+		register(XMLSchema.TIME, TIME);
+
+		register(String.class, STRING);
+		register(Boolean.class, BOOLEAN);
+		register(Byte.class, BYTE);
+		register(Short.class, SHORT);
+		register(Integer.class, INT);
+		register(Long.class, LONG);
+		register(Float.class, FLOAT);
+		register(Double.class, DOUBLE);
+		register(Character.class, CHAR);
+		register(Date.class, DATE);
+	}
+
+	/**
+	 * No instances
+	 */
+	private LiteralCodecs() {
+	}
+
+	/**
+	 * Register the codec used to read literals of the given datatype
+	 * @param theDatatype the datatype
+	 * @param theCodec the codec
+	 */
+	public static synchronized void register(final URI theDatatype, final LiteralCodec<?> theCodec) {
+		Map<URI, LiteralCodec<?>> aCodecs = new HashMap<URI, LiteralCodec<?>>(DECODERS);
+		aCodecs.put(theDatatype, theCodec);
+
+		DECODERS = ImmutableMap.copyOf(aCodecs);
+	}
+
+	/**
+	 * Register the codec used to write values of the given type, and of its subclasses which do not have a codec of
+	 * their own
+	 * @param theType the type
+	 * @param theCodec the codec
+	 */
+	public static synchronized <T> void register(final Class<T> theType, final LiteralCodec<? super T> theCodec) {
+		Map<Class<?>, LiteralCodec<?>> aCodecs = new HashMap<Class<?>, LiteralCodec<?>>(ENCODERS);
+		aCodecs.put(theType, theCodec);
+
+		ENCODERS = ImmutableMap.copyOf(aCodecs);
+	}
+
+	/**
+	 * Return the codec which reads literals of the given datatype
+	 * @param theDatatype the datatype
+	 * @return the codec, or null if the datatype is not supported
+	 */
+	public static LiteralCodec<?> forDatatype(final URI theDatatype) {
+		return DECODERS.get(theDatatype);
+	}
+
+	/**
+	 * Return the codec which writes values of the given type
+	 * @param theType the type
+	 * @return the codec registered for the type or its nearest superclass, or null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> LiteralCodec<? super T> forType(final Class<T> theType) {
+		Map<Class<?>, LiteralCodec<?>> aCodecs = ENCODERS;
+
+		for (Class<?> aClass = theType; aClass != null; aClass = aClass.getSuperclass()) {
+			LiteralCodec<?> aCodec = aCodecs.get(aClass);
+
+			if (aCodec != null) {
+				return (LiteralCodec<? super T>) aCodec;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Return the literal for the value, written with the codec for its type
+	 * @param theValue the value
+	 * @return the literal, or null if there is no codec for the type of the value
+	 */
+	@SuppressWarnings("unchecked")
+	public static Literal encode(final Object theValue) {
+		LiteralCodec<Object> aCodec = (LiteralCodec<Object>) forType(theValue.getClass());
+
+		return aCodec != null ? aCodec.encode(theValue) : null;
+	}
+}
@@ -28,18 +28,19 @@ import org.openrdf.model.Statement;
 import org.openrdf.model.Graph;
 
 import org.openrdf.model.util.GraphUtil;
+import org.openrdf.rio.RDFHandler;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.helpers.StatementCollector;
 import org.openrdf.model.vocabulary.RDF;
 import org.openrdf.model.vocabulary.XMLSchema;
-import org.openrdf.model.vocabulary.RDFS;
 
 import java.lang.reflect.Type;
 
-import java.util.Arrays;
-
-import java.util.Date;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 import java.lang.reflect.Field;
@@ -52,10 +53,10 @@ import java.lang.reflect.Modifier;
 import java.util.Map;
 import java.util.Set;
 import java.util.Iterator;
-import java.util.Locale;
 import java.util.ArrayList;
 
-import java.net.URISyntaxException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.openrdf.model.impl.ValueFactoryImpl;
 
@@ -63,42 +64,40 @@ import com.clarkparsia.empire.ds.DataSource;
 import com.clarkparsia.empire.ds.DataSourceException;
 import com.clarkparsia.empire.ds.QueryException;
 import com.clarkparsia.empire.ds.DataSourceUtil;
+import com.clarkparsia.empire.ds.SupportsNamedGraphs;
 import com.clarkparsia.empire.EmpireException;
 import com.clarkparsia.empire.EmpireOptions;
 import com.clarkparsia.empire.EmpireGenerated;
 import com.clarkparsia.empire.SupportsRdfId;
 import com.clarkparsia.empire.Dialect;
+import com.clarkparsia.empire.annotation.runtime.LazyCollection;
+import com.clarkparsia.empire.annotation.runtime.LazyList;
+import com.clarkparsia.empire.annotation.runtime.LazySet;
 import com.clarkparsia.empire.annotation.runtime.Proxy;
+import com.clarkparsia.empire.codegen.MethodDispatcher;
 
 import com.clarkparsia.empire.impl.serql.SerqlDialect;
 
-import static com.clarkparsia.empire.util.BeanReflectUtil.set;
-import static com.clarkparsia.empire.util.BeanReflectUtil.setAccessible;
-import static com.clarkparsia.empire.util.BeanReflectUtil.getAnnotatedFields;
-import static com.clarkparsia.empire.util.BeanReflectUtil.getAnnotatedGetters;
-import static com.clarkparsia.empire.util.BeanReflectUtil.getAnnotatedSetters;
-import static com.clarkparsia.empire.util.BeanReflectUtil.get;
 
 import com.clarkparsia.empire.util.BeanReflectUtil;
 import com.clarkparsia.empire.util.EmpireUtil;
 import static com.clarkparsia.empire.util.EmpireUtil.asPrimaryKey;
-import com.clarkparsia.openrdf.util.ResourceBuilder;
-import com.clarkparsia.openrdf.util.GraphBuilder;
 import com.clarkparsia.common.util.PrefixMapping;
 import com.clarkparsia.common.base.Strings2;
-import com.clarkparsia.common.base.Dates;
 import com.clarkparsia.common.net.NetUtils;
-import com.clarkparsia.common.collect.Iterables2;
 
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Sets;
 import com.google.common.base.Function;
-import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import javax.persistence.Entity;
-import javax.persistence.Transient;
 
 import javassist.util.proxy.ProxyFactory;
 import javassist.util.proxy.MethodHandler;
@@ -141,27 +140,19 @@ public final class RdfGenerator {
 	 */
 	private static final ValueFactory FACTORY = new ValueFactoryImpl();
 
-	private static final ContainsResourceValues CONTAINS_RESOURCES = new ContainsResourceValues();
-
-	private static final LanguageFilter LANG_FILTER = new LanguageFilter(getLanguageForLocale());
-
 	/**
 	 * The logger
 	 */
 	private static final Logger LOGGER = LoggerFactory.getLogger(RdfGenerator.class.getName());
 
 	/**
-	 * Map from rdf:type URI's to the Java class which corresponds to that resource.
-	 */
-	private final static Multimap<URI, Class> TYPE_TO_CLASS = HashMultimap.create();
-
-	/**
-	 * Map to keep a record of what instances are currently being created in order to prevent cycles.  Keys are the
-	 * identifiers of the instances and the values are the instances
+	 * The mapping from rdf:type URI's to the Java classes which correspond to them, along with the classes resolved
+	 * from it.  It is replaced, rather than modified, when classes are registered so that it can be read without
+	 * locking and a class resolved from an old mapping never ends up in the memo of a new one.
 	 */
-	public final static Map<Object, Object> OBJECT_M = new HashMap<Object, Object>();
+	private static volatile TypeIndex TYPES = new TypeIndex(ImmutableSetMultimap.<URI, Class>of());
 
-	private final static Set<Class<?>> REGISTERED_FOR_NS = new HashSet<Class<?>>();
+	private final static Set<Class<?>> REGISTERED_FOR_NS = Sets.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
 
 	/**
 	 * Initialize some parameters in the RdfGenerator.  This caches namespace and type mapping information locally
@@ -169,15 +160,20 @@ public final class RdfGenerator {
 	 * @param theClasses the list of classes to be handled by the RdfGenerator
 	 */
 	public static synchronized void init(Collection<Class<?>> theClasses) {
+		ImmutableSetMultimap.Builder<URI, Class> aTypes = ImmutableSetMultimap.builder();
+		aTypes.putAll(TYPES.mTypeToClass);
+
 		for (Class<?> aClass : theClasses) {
 			RdfsClass aAnnotation = aClass.getAnnotation(RdfsClass.class);
 
 			if (aAnnotation != null) {
 				addNamespaces(aClass);
 
-				TYPE_TO_CLASS.put(FACTORY.createURI(PrefixMapping.GLOBAL.uri(aAnnotation.value())), aClass);
+				aTypes.put(FACTORY.createURI(PrefixMapping.GLOBAL.uri(aAnnotation.value())), aClass);
 			}
 		}
+
+		TYPES = new TypeIndex(aTypes.build());
 	}
 
 	/**
@@ -222,7 +218,219 @@ public final class RdfGenerator {
 	 * @throws DataSourceException thrown if there is an error while retrieving data from the graph
 	 */
 	public static <T> T fromRdf(Class<T> theClass, SupportsRdfId.RdfKey theId, DataSource theSource) throws InvalidRdfException, DataSourceException {
+		return fromRdf(theClass, theId, theSource, new HydrationContext(null), null);
+	}
+
+	/**
+	 * Create an instance of the specified class and instantiate it's data from a description of the RDF individual
+	 * which has already been retrieved from the data source, such as the result of
+	 * {@link DataSourceUtil#describe(DataSource, Object)}.  The rdf:type and property values of the individual are
+	 * taken from the description rather than queried again, the data source is only used to fetch the objects it
+	 * refers to.
+	 * @param theClass the class to create
+	 * @param theId the id of the RDF individual containing the data for the new instance
+	 * @param theDescription the statements about the individual
+	 * @param theSource the KB to get the RDF data of related objects from
+	 * @param <T> the type of the instance to create
+	 * @return a new instance
+	 * @throws InvalidRdfException thrown if the class does not support RDF JPA operations, or does not provide sufficient access to its fields/data.
+	 * @throws DataSourceException thrown if there is an error while retrieving data from the graph
+	 */
+	public static <T> T fromRdf(Class<T> theClass, SupportsRdfId.RdfKey theId, Graph theDescription, DataSource theSource) throws InvalidRdfException, DataSourceException {
+		return fromRdf(theClass, theId, theSource, new HydrationContext(null), theDescription);
+	}
+
+	/**
+	 * Create an instance of the specified class and instantiate it's data from the given data source, looking up and
+	 * recording the rdf:type values of the individuals it needs in a cache which outlives the conversion, such as
+	 * the one of an {@link com.clarkparsia.empire.impl.EntityCache}.  The caller is responsible for invalidating the
+	 * types of individuals which are changed.
+	 * @param theClass the class to create
+	 * @param theId the id of the RDF individual containing the data for the new instance
+	 * @param theDescription the statements about the individual, or null to query for them
+	 * @param theSource the KB to get the RDF data from
+	 * @param theTypes the rdf:type values of individuals, keyed by individual
+	 * @param <T> the type of the instance to create
+	 * @return a new instance
+	 * @throws InvalidRdfException thrown if the class does not support RDF JPA operations, or does not provide sufficient access to its fields/data.
+	 * @throws DataSourceException thrown if there is an error while retrieving data from the graph
+	 */
+	public static <T> T fromRdf(Class<T> theClass, SupportsRdfId.RdfKey theId, Graph theDescription, DataSource theSource,
+								ConcurrentMap<Resource, Collection<Value>> theTypes) throws InvalidRdfException, DataSourceException {
+		return fromRdf(theClass, theId, theSource, new HydrationContext(theTypes), theDescription);
+	}
+
+	/**
+	 * Create an instance of the specified class for each of the given individuals.  The individuals are described
+	 * together, with a query per {@link FetchPlanner#BATCH_SIZE} individuals, and each instance is then converted from
+	 * its description as with {@link #fromRdf(Class, SupportsRdfId.RdfKey, Graph, DataSource)}.
+	 * @param theClass the class to create
+	 * @param theIds the individuals
+	 * @param theSource the KB to get the RDF data from
+	 * @param <T> the type of the instances to create
+	 * @return the new instances, in the order of the individuals
+	 * @throws InvalidRdfException thrown if the class does not support RDF JPA operations, or does not provide sufficient access to its fields/data.
+	 * @throws DataSourceException thrown if there is an error while retrieving data from the graph
+	 */
+	public static <T> List<T> fromRdfAll(Class<T> theClass, List<? extends URI> theIds, DataSource theSource) throws InvalidRdfException, DataSourceException {
+		Map<Resource, Graph> aDescriptions = new HashMap<Resource, Graph>();
+
+		for (List<? extends URI> aChunk : Lists.partition(theIds, FetchPlanner.BATCH_SIZE)) {
+			for (URI aURI : aChunk) {
+				aDescriptions.put(aURI, Graphs.newGraph());
+			}
+
+			for (Statement aStmt : DataSourceUtil.describeAll(theSource, aChunk)) {
+				Graph aGraph = aDescriptions.get(aStmt.getSubject());
+
+				if (aGraph != null) {
+					aGraph.add(aStmt);
+				}
+			}
+		}
+
+		List<T> aResults = new ArrayList<T>(theIds.size());
+
+		for (URI aURI : theIds) {
+			aResults.add(fromRdf(theClass, asPrimaryKey(aURI), theSource, new HydrationContext(null), aDescriptions.get(aURI)));
+		}
+
+		return aResults;
+	}
+
+	/**
+	 * Create an instance of the specified class from the statements of a graph the caller already holds, such as the
+	 * result of a construct query or a parsed file, without using a data source.  The rdf:types, property values, and
+	 * the objects and lists the individual refers to are all read from the graph; references to individuals which are
+	 * not described in it produce empty instances.  Properties which are normally fetched lazily are populated
+	 * eagerly, since there is no data source to fetch them from later.
+	 * @param theClass the class to create
+	 * @param theId the id of the RDF individual containing the data for the new instance
+	 * @param theGraph the statements to create the instance from
+	 * @param <T> the type of the instance to create
+	 * @return a new instance
+	 * @throws InvalidRdfException thrown if the class does not support RDF JPA operations, or does not provide sufficient access to its fields/data.
+	 */
+	public static <T> T fromGraph(Class<T> theClass, SupportsRdfId.RdfKey theId, Graph theGraph) throws InvalidRdfException {
+		return fromGraph(theClass, theId, index(theGraph));
+	}
+
+	/**
+	 * Create an instance of the specified class for each individual of the graph whose rdf:type is mapped to the class
+	 * or one of its subclasses, reading only from the graph as with {@link #fromGraph(Class, SupportsRdfId.RdfKey, Graph)}.
+	 * The graph is indexed once for all the instances.  Nothing is shared between calls, so separate graphs, or
+	 * separate parts of one, can be converted in parallel as long as the graphs are not modified meanwhile.
+	 * @param theClass the class to create
+	 * @param theGraph the statements to create the instances from
+	 * @param <T> the type of the instances to create
+	 * @return the new instances, in the order their rdf:type statements appear in the graph
+	 * @throws InvalidRdfException thrown if the class does not support RDF JPA operations, or does not provide sufficient access to its fields/data.
+	 */
+	public static <T> List<T> fromGraph(Class<T> theClass, Graph theGraph) throws InvalidRdfException {
+		Map<Resource, Graph> aIndex = index(theGraph);
+
+		RdfsClass aAnnotation = BeanReflectUtil.getAnnotation(theClass, RdfsClass.class);
+		URI aClassType = aAnnotation == null ? null : FACTORY.createURI(PrefixMapping.GLOBAL.uri(aAnnotation.value()));
+
+		Set<Resource> aSubjects = new LinkedHashSet<Resource>();
+
+		for (Statement aStmt : theGraph) {
+			if (RDF.TYPE.equals(aStmt.getPredicate()) && aStmt.getObject() instanceof URI
+				&& isMappedTo(theClass, aClassType, (URI) aStmt.getObject())) {
+				aSubjects.add(aStmt.getSubject());
+			}
+		}
+
+		List<T> aResults = new ArrayList<T>(aSubjects.size());
+
+		for (Resource aSubject : aSubjects) {
+			aResults.add(fromGraph(theClass, asPrimaryKey(aSubject), aIndex));
+		}
+
+		return aResults;
+	}
+
+	private static <T> T fromGraph(Class<T> theClass, SupportsRdfId.RdfKey theId, Map<Resource, Graph> theIndex) throws InvalidRdfException {
+		try {
+			return fromRdf(theClass, theId, null, HydrationContext.local(theIndex), null);
+		}
+		catch (DataSourceException e) {
+			// nothing is read from a data source
+			throw new InvalidRdfException(e);
+		}
+	}
+
+	/**
+	 * Return whether or not individuals of the given rdf:type can be created as instances of the class
+	 * @param theClass the class
+	 * @param theClassType the rdf:type of the class, or null if it does not have one
+	 * @param theType the rdf:type of the individual
+	 * @return true if the type is the class's own or that of one of its subclasses, false otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	private static boolean isMappedTo(final Class<?> theClass, final URI theClassType, final URI theType) {
+		if (theType.equals(theClassType)) {
+			return true;
+		}
+
+		for (Class aClass : TYPES.mTypeToClass.get(theType)) {
+			if (theClass.isAssignableFrom(aClass)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Index the statements of the graph by their subject
+	 * @param theGraph the graph
+	 * @return the statements about each subject of the graph
+	 */
+	private static Map<Resource, Graph> index(final Graph theGraph) {
+		Map<Resource, Graph> aIndex = new HashMap<Resource, Graph>();
+
+		for (Statement aStmt : theGraph) {
+			Graph aGraph = aIndex.get(aStmt.getSubject());
+
+			if (aGraph == null) {
+				aGraph = Graphs.newGraph();
+				aIndex.put(aStmt.getSubject(), aGraph);
+			}
+
+			aGraph.add(aStmt);
+		}
+
+		return aIndex;
+	}
+
+	/**
+	 * Create an instance of the specified class and instantiate it's data from the given data source as part of an
+	 * ongoing hydration.  If the individual is already being created in the given context, that instance is returned
+	 * so that cyclic references resolve to the same object.
+	 * @param theClass the class to create
+	 * @param theId the id of the RDF individual containing the data for the new instance
+	 * @param theSource the KB to get the RDF data from
+	 * @param theContext the context of the hydration this instance is a part of
+	 * @param theDescription the statements about the individual if they have already been retrieved, or null to query for them
+	 * @param <T> the type of the instance to create
+	 * @return a new instance, or the instance already being created for theId in the context
+	 * @throws InvalidRdfException thrown if the class does not support RDF JPA operations, or does not provide sufficient access to its fields/data.
+	 * @throws DataSourceException thrown if there is an error while retrieving data from the graph
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T fromRdf(Class<T> theClass, SupportsRdfId.RdfKey theId, DataSource theSource, HydrationContext theContext, Graph theDescription) throws InvalidRdfException, DataSourceException {
+		if (theContext.isInProgress(theId)) {
+			// TODO: this is probably a safe cast, i dont see how something w/ the same URI, which should be the same
+			// object would change types
+			return (T) theContext.get(theId);
+		}
+
 		T aObj;
+
+		if (theDescription == null) {
+			theDescription = theContext.getDescription(EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theId)));
+		}
 /*
 		long start = System.currentTimeMillis();
 		try {
@@ -287,7 +495,7 @@ public final class RdfGenerator {
 		start = System.currentTimeMillis();
 */
 		
-		Class<T> aNewClass = determineClass(theClass, theId, theSource);
+		Class<T> aNewClass = determineClass(theClass, theId, theSource, theContext, theDescription);
 		try {
                         AnnotationChecker.assertValid(aNewClass);
 		}
@@ -309,26 +517,68 @@ public final class RdfGenerator {
 			}
 			asSupportsRdfId(aObj).setRdfId(theId);
 //		}
-		return fromRdf(aObj, theSource);
+		return fromRdf(aObj, theSource, theContext, theDescription);
 	}
 	
 	@SuppressWarnings("unchecked")
-    private static <T> Class<T> determineClass(Class<T> theOrigClass, SupportsRdfId.RdfKey theObj, DataSource theSource) throws InvalidRdfException, DataSourceException {
+    private static <T> Class<T> determineClass(Class<T> theOrigClass, SupportsRdfId.RdfKey theObj, DataSource theSource, HydrationContext theContext, Graph theDescription) throws InvalidRdfException, DataSourceException {
 		Class aResult = theOrigClass;
 //		final SupportsRdfId aTmpSupportsRdfId = asSupportsRdfId(theObj);
 	 
-//		ExtGraph aGraph = new ExtGraph(DataSourceUtil.describe(theSource, theObj));
-		final Collection<Resource> aTypes = DataSourceUtil.getTypes(theSource, EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theObj)));
+		final Resource aRes = EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theObj));
+		final Collection<? extends Value> aTypes = theContext.getTypes(theSource, aRes, theDescription);
 		
 		// right now, our best match is the original class (we will refine later)
-		
-//		final Resource aTmpRes = EmpireUtil.asResource(aTmpSupportsRdfId);
-				
+		aResult = resolveClass(aResult, aTypes);
+
+		try {
+			if (aResult.isInterface() || Modifier.isAbstract(aResult.getModifiers()) || !EmpireGenerated.class.isAssignableFrom(aResult)) {						
+				aResult = com.clarkparsia.empire.codegen.InstanceGenerator.generateInstanceClass(aResult);
+			}
+		}
+		catch (Exception e) {
+			throw new InvalidRdfException("Cannot generate a class for a bean", e);
+		}
+		return aResult;
+	}
+	
+	/**
+	 * Return the most specific class mapped to one of the given rdf:type values which is a subclass of the given class
+	 * @param theClass the class the individual is expected to be
+	 * @param theTypes the rdf:type values of the individual
+	 * @return the most specific class, or theClass if none of the types are mapped to a subclass of it
+	 */
+	static Class resolveClass(final Class theClass, final Iterable<? extends Value> theTypes) {
+		TypeSetKey aKey = new TypeSetKey(theClass, theTypes, false);
+		TypeIndex aTypes = TYPES;
+
+		Class aResult = aTypes.mResolved.getIfPresent(aKey);
+
+		if (aResult == null) {
+			aResult = resolveClass(theClass, aKey.mTypes, aTypes.mTypeToClass);
+
+			aTypes.mResolved.put(aKey, aResult);
+		}
+
+		return aResult;
+	}
+
+	/**
+	 * Return the most specific class mapped to one of the given rdf:type values which is a subclass of the given class
+	 * @param theClass the class the individual is expected to be
+	 * @param theTypes the rdf:type values of the individual
+	 * @param theTypeToClass the classes mapped to each rdf:type
+	 * @return the most specific class, or theClass if none of the types are mapped to a subclass of it
+	 */
+	@SuppressWarnings("unchecked")
+	private static Class resolveClass(final Class theClass, final Iterable<? extends Value> theTypes, final Multimap<URI, Class> theTypeToClass) {
+		Class aResult = theClass;
+
 		// iterate for all rdf:type triples in the data
 		// There may be multiple rdf:type triples, which can then translate onto multiple candidate Java classes
 		// some of the Java classes may belong to the same class hierarchy, whereas others can have no common
 		// super class (other than java.lang.Object)
-		for (Value aValue : aTypes) {
+		for (Value aValue : theTypes) {
 			if (!(aValue instanceof URI)) {
 				// there is no URI in the object position of rdf:type
 				// ignore that data
@@ -337,7 +587,7 @@ public final class RdfGenerator {
 			
 			URI aType = (URI) aValue;
 						
-			for (Class aCandidateClass : TYPE_TO_CLASS.get(aType)) {
+			for (Class aCandidateClass : theTypeToClass.get(aType)) {
 				if (aCandidateClass.equals(aResult)) {
 					// it is mapped to the same Java class, that we have; ignore
 					continue;
@@ -353,28 +603,22 @@ public final class RdfGenerator {
 			}
 		}
 
-		try {
-			if (aResult.isInterface() || Modifier.isAbstract(aResult.getModifiers()) || !EmpireGenerated.class.isAssignableFrom(aResult)) {						
-				aResult = com.clarkparsia.empire.codegen.InstanceGenerator.generateInstanceClass(aResult);
-			}
-		}
-		catch (Exception e) {
-			throw new InvalidRdfException("Cannot generate a class for a bean", e);
-		}
 		return aResult;
 	}
-	
+
 	/**
 	 * Populate the fields of the current instance from the RDF indiviual with the given URI
 	 * @param theObj the Java object to populate
 	 * @param theSource the KB to get the RDF data from
+	 * @param theContext the context of the hydration this object is a part of
+	 * @param theDescription the statements about the individual if they have already been retrieved, or null to query for them
 	 * @param <T> the type of the class being populated
 	 * @return theObj, populated from the specified DataSource
 	 * @throws InvalidRdfException thrown if the object does not support the RDF JPA API.
 	 * @throws DataSourceException thrown if there is an error retrieving data from the database
 	 */
 	@SuppressWarnings("unchecked")
-	private synchronized static <T> T fromRdf(T theObj, DataSource theSource) throws InvalidRdfException, DataSourceException {
+	private static <T> T fromRdf(T theObj, DataSource theSource, HydrationContext theContext, Graph theDescription) throws InvalidRdfException, DataSourceException {
 		final SupportsRdfId aTmpSupportsRdfId = asSupportsRdfId(theObj);
 		final SupportsRdfId.RdfKey theKeyObj = aTmpSupportsRdfId.getRdfId();
 
@@ -382,22 +626,32 @@ public final class RdfGenerator {
 			LOGGER.debug("Converting {} to RDF.", theObj);
 		}
 		
-		if (OBJECT_M.containsKey(theKeyObj)) {
+		if (theContext.isInProgress(theKeyObj)) {
 			// TODO: this is probably a safe cast, i dont see how something w/ the same URI, which should be the same
 			// object would change types
-			return (T) OBJECT_M.get(theKeyObj);
+			return (T) theContext.get(theKeyObj);
 		}
 
 		try {
 
-			OBJECT_M.put(theKeyObj, theObj);
+			theContext.begin(theKeyObj, theObj);
+
+			Graph aGraph;
 
-			Graph aGraph = DataSourceUtil.describe(theSource, theObj);
+			// a description retrieved before the class was known was not restricted to the named graph of that class
+			if (theDescription != null && !(theSource instanceof SupportsNamedGraphs && EmpireUtil.hasNamedGraphSpecified(theObj))) {
+				aGraph = theDescription;
+			}
+			else {
+				aGraph = DataSourceUtil.describe(theSource, theObj);
+			}
 
 			if (aGraph.size() == 0) {
 				return theObj;
 			}
 
+			theContext.plan(theSource, theObj.getClass(), EmpireUtil.asResource(aTmpSupportsRdfId), aGraph);
+
 			final Resource aTmpRes = EmpireUtil.asResource(aTmpSupportsRdfId);
 			Set<URI> aProps = new HashSet<URI>();
 			
@@ -415,54 +669,16 @@ public final class RdfGenerator {
 			
 			aEmpireGenerated.setAllTriples(aGraph);		
 			
-			OBJECT_M.put(theKeyObj, theObj);
 			final Resource aRes = EmpireUtil.asResource(aSupportsRdfId);
 			
-			Collection<Field> aFields = getAnnotatedFields(theObj.getClass());
-			Collection<Method> aMethods = getAnnotatedSetters(theObj.getClass(), true);
-
-			addNamespaces(theObj.getClass());
-
-			final Map<URI, AccessibleObject> aAccessMap = new HashMap<URI, AccessibleObject>();
+			EntityMapping aMapping = EntityMapping.of(theObj.getClass());
 
-			Iterables2.each(aFields, new Predicate<Field>() {
-				public boolean apply(final Field theField) {
-					if (theField.getAnnotation(RdfProperty.class) != null) {
-						aAccessMap.put(FACTORY.createURI(PrefixMapping.GLOBAL.uri(theField.getAnnotation(RdfProperty.class).value())),
-									   theField);
-					}
-					else {
-						String aBase = "urn:empire:clark-parsia:";
-						if (aRes instanceof URI) {
-							aBase = ((URI)aRes).getNamespace();
-						}
-
-						aAccessMap.put(FACTORY.createURI(aBase + theField.getName()),
-									   theField);
-					}
-
-					return true;
-				}
-			});
-
-			Iterables2.each(aMethods, new Predicate<Method>() {
-				public boolean apply(final Method theMethod) {
-					RdfProperty aAnnotation = BeanReflectUtil.getAnnotation(theMethod, RdfProperty.class);
-					if (aAnnotation != null) {
-						aAccessMap.put(FACTORY.createURI(PrefixMapping.GLOBAL.uri(aAnnotation.value())),
-									   theMethod);
-					}
-
-					return true;
-				}
-			});			
-			
 			Set<URI> aUsedProps = new HashSet<URI>();
 
 			for (URI aProp : aProps) {
-				AccessibleObject aAccess = aAccessMap.get(aProp);
+				EntityMapping.PropertyMapping aPropertyMapping = aMapping.getProperty(aProp, aRes);
 
-				if (aAccess == null && RDF.TYPE.equals(aProp)) {
+				if (aPropertyMapping == null && RDF.TYPE.equals(aProp)) {
 					// TODO: the following block should be entirely removed (leaving continue only)
 					// right now, leaving it until the code review: code review before removing the following block
 					
@@ -492,23 +708,37 @@ public final class RdfGenerator {
 
 					continue;
 				}
-				else if (aAccess == null) {
+				else if (aPropertyMapping == null) {
 					// this must be data that is not covered by the bean (perhaps accessible by a different view/bean for a differnent type of an individual)					
 					continue;
 				}
 
 				aUsedProps.add(aProp);
-				
-				ToObjectFunction aFunc = new ToObjectFunction(theSource, aRes, aAccess, aProp);
 
-				Object aValue = aFunc.apply(GraphUtil.getObjects(aGraph, aRes, aProp));
+				AccessibleObject aAccess = aPropertyMapping.getAccessor();
 
-				boolean aOldAccess = aAccess.isAccessible();
+				Set<Value> aObjects = GraphUtil.getObjects(aGraph, aRes, aProp);
+
+				// a single typed literal for a primitive property is parsed straight into the property, the result is
+				// the same as converting it with a ToObjectFunction, but without boxing the value
+				LiteralCodec<?> aCodec = primitiveCodec(aPropertyMapping, aObjects);
+
+				Object aValue = aCodec != null
+								? aObjects.iterator().next()
+								: new ToObjectFunction(theSource, aRes, aPropertyMapping, aProp, theContext).apply(aObjects);
 
 				try {
-					setAccessible(aAccess, true);					
-					set(aAccess, theObj, aValue);				
-				}				
+					if (aCodec != null) {
+						aCodec.assign(aPropertyMapping.getPropertyAccessor(), theObj, (Literal) aValue);
+					}
+					else {
+						aPropertyMapping.getPropertyAccessor().set(theObj, aValue);
+					}
+				}
+				catch (NumberFormatException e) {
+					// the literal is not a valid value of its datatype
+					throw new InvalidRdfException(e);
+				}
 				catch (InvocationTargetException e) {
 					// oh crap
 					throw new InvalidRdfException(e);
@@ -533,9 +763,6 @@ public final class RdfGenerator {
 					// this was probably an error converting from a Value to an Object
 					throw new InvalidRdfException(e);
 				}
-				finally {
-					setAccessible(aAccess, aOldAccess);
-				}
 			}
 			
 			sIter = aGraph.match(aTmpRes, null, null);
@@ -554,89 +781,288 @@ public final class RdfGenerator {
 			return theObj;
 		}
 		finally {
-			OBJECT_M.remove(theKeyObj);
+			theContext.end(theKeyObj);
 		}
 	}
 
-
 	/**
-	 * Return the RdfClass annotation on the object.
-	 * @param theObj the object to get that annotation from
-	 * @return the objects' RdfClass annotation
-	 * @throws InvalidRdfException thrown if the object does not have the required annotation, does not have an @Entity
-	 * annotation, or does not {@link SupportsRdfId support Rdf Id's}
+	 * Return the codec which can assign the values of a property directly, without converting them to objects first.
+	 * That is the case when the property is primitive and its value is a single literal of a known datatype.
+	 * @param theMapping the mapping of the property
+	 * @param theValues the values of the property
+	 * @return the codec for the literal, or null if the values have to be converted to an object first
 	 */
-	private static RdfsClass asValidRdfClass(Object theObj) throws InvalidRdfException {
-		if (!BeanReflectUtil.hasAnnotation(theObj.getClass(), RdfsClass.class)) {
-			throw new InvalidRdfException("Specified value is not an RdfsClass object");
-		}
-
-		if (EmpireOptions.ENFORCE_ENTITY_ANNOTATION && !BeanReflectUtil.hasAnnotation(theObj.getClass(), Entity.class)) {
-			throw new InvalidRdfException("Specified value is not a JPA Entity object");
+	private static LiteralCodec<?> primitiveCodec(final EntityMapping.PropertyMapping theMapping, final Set<Value> theValues) {
+		if (!theMapping.getType().isPrimitive() || theValues.size() != 1 || EmpireOptions.ENABLE_LANG_AWARE) {
+			return null;
 		}
 
-		// verify that it supports rdf id's
-		asSupportsRdfId(theObj);
-
-		return BeanReflectUtil.getAnnotation(theObj.getClass(), RdfsClass.class);
-	}
+		Value aValue = theValues.iterator().next();
 
-	/**
-	 * Return the object casted to {@link SupportsRdfId}
-	 * @param theObj the object to cast
-	 * @return the object, casted to the interface
-	 * @throws InvalidRdfException thrown if the object does not implement the interface
-	 */
-	private static SupportsRdfId asSupportsRdfId(Object theObj) throws InvalidRdfException {
-		if (!(theObj instanceof SupportsRdfId)) {
-			throw new InvalidRdfException("Object of type '" + (theObj.getClass().getName()) + "' does not implements SupportsRdfId.");
-		}
-		else {
-			return (SupportsRdfId) theObj;
-		}
-	}
-	
-	private static EmpireGenerated asEmpireGenerated(Object theObj) throws InvalidRdfException {
-		if (!(theObj instanceof EmpireGenerated)) {
-			throw new InvalidRdfException("Object of type '" + (theObj.getClass().getName()) + "' does not implements EmpireGenerated.");
+		if (aValue instanceof Literal && ((Literal) aValue).getDatatype() != null) {
+			return LiteralCodecs.forDatatype(((Literal) aValue).getDatatype());
 		}
 		else {
-			return (EmpireGenerated) theObj;
+			return null;
 		}
 	}
 
 	/**
-	 * Given an object, return it's rdf:ID.  If it already has an id, that will be returned, otherwise the id
-	 * will either be generated from the data, using the {@link RdfId} annotation as a guide, or it will auto-generate one.
-	 * @param theObj the object
-	 * @return the object's rdf:Id
-	 * @throws InvalidRdfException thrown if the object does not support the minimum to create or retrieve an rdf:ID
-	 * @see SupportsRdfId
+	 * The state of a single call to {@link #fromRdf}, which is threaded through the conversion of the object and
+	 * any of the objects it eagerly references.  It keeps a record of what instances are currently being created
+	 * in order to prevent cycles.  Since it is confined to one hydration, and therefore one thread, concurrent
+	 * conversions do not need to synchronize with each other.
 	 */
-	public static Resource id(Object theObj) throws InvalidRdfException {
-		SupportsRdfId aSupport = asSupportsRdfId(theObj);
+	private static final class HydrationContext {
+		/**
+		 * The instances currently being created, keyed by their identifiers
+		 */
+		private final Map<SupportsRdfId.RdfKey, Object> mInProgress = new HashMap<SupportsRdfId.RdfKey, Object>();
 
-		if (aSupport.getRdfId() != null) {
-			return EmpireUtil.asResource(aSupport);
-		}
+		/**
+		 * How many levels of related entities to fetch ahead of the first instance populated in this context
+		 */
+		private final int mFetchDepth = EmpireOptions.EAGER_FETCH_DEPTH;
 
-		Field aIdField = BeanReflectUtil.getIdField(theObj.getClass());
+		/**
+		 * The descriptions of the related entities fetched ahead, or null if that has not been planned yet
+		 */
+		private Map<Resource, Graph> mDescriptions;
 
-		String aValue = hash(Strings2.getRandomString(10));
-		String aNS = RdfId.DEFAULT;
+		/**
+		 * The rdf:type values of the individuals looked up in this context
+		 */
+		private final Map<Resource, Collection<? extends Value>> mTypes = new HashMap<Resource, Collection<? extends Value>>();
 
-		URI aURI = FACTORY.createURI(aNS + aValue);
+		/**
+		 * The rdf:type values of individuals shared with other conversions, or null if there are none
+		 */
+		private final ConcurrentMap<Resource, Collection<Value>> mSharedTypes;
 
-		if (aIdField != null && !aIdField.getAnnotation(RdfId.class).namespace().equals("")) {
-			aNS = aIdField.getAnnotation(RdfId.class).namespace();
+		/**
+		 * Whether or not everything is read from {@link #mDescriptions} rather than from a data source
+		 */
+		private final boolean mLocal;
+
+		private HydrationContext(final ConcurrentMap<Resource, Collection<Value>> theSharedTypes) {
+			this(theSharedTypes, null);
 		}
 
-		if (aIdField != null) {
-			boolean aOldAccess = aIdField.isAccessible();
-			aIdField.setAccessible(true);
+		private HydrationContext(final ConcurrentMap<Resource, Collection<Value>> theSharedTypes, final Map<Resource, Graph> theLocal) {
+			mSharedTypes = theSharedTypes;
+			mDescriptions = theLocal;
+			mLocal = theLocal != null;
+		}
 
-			try {
-				if (aIdField.get(theObj) == null) {
+		/**
+		 * Create a context which reads the descriptions of all the individuals from the given index instead of a data
+		 * source.  An individual without a description has no statements, rather than an unknown description.
+		 * @param theDescriptions the statements about each individual
+		 * @return the new context
+		 */
+		private static HydrationContext local(final Map<Resource, Graph> theDescriptions) {
+			return new HydrationContext(null, theDescriptions);
+		}
+
+		/**
+		 * Return whether or not this context reads from an in-memory graph rather than a data source
+		 * @return true if there is no data source, false otherwise
+		 */
+		private boolean isLocal() {
+			return mLocal;
+		}
+
+		/**
+		 * Return the elements of the rdf:List with the given head, reading the list from the local graph
+		 * @param theHead the head of the list
+		 * @return the elements of the list, or null if the resource is not the head of a list
+		 */
+		private List<Value> getList(final Resource theHead) {
+			if (!Graphs.getObject(getDescription(theHead), theHead, RDF.FIRST).isPresent()) {
+				return null;
+			}
+
+			List<Value> aList = new ArrayList<Value>();
+			Set<Resource> aVisited = new HashSet<Resource>();
+
+			Resource aCurr = theHead;
+			while (aCurr != null && !RDF.NIL.equals(aCurr) && aVisited.add(aCurr)) {
+				Graph aNode = getDescription(aCurr);
+
+				Optional<Value> aFirst = Graphs.getObject(aNode, aCurr, RDF.FIRST);
+				if (!aFirst.isPresent()) {
+					break;
+				}
+
+				aList.add(aFirst.get());
+				aCurr = Graphs.getResource(aNode, aCurr, RDF.REST).orNull();
+			}
+
+			return aList;
+		}
+
+		private boolean isInProgress(final SupportsRdfId.RdfKey theKey) {
+			return mInProgress.containsKey(theKey);
+		}
+
+		private Object get(final SupportsRdfId.RdfKey theKey) {
+			return mInProgress.get(theKey);
+		}
+
+		private void begin(final SupportsRdfId.RdfKey theKey, final Object theObj) {
+			mInProgress.put(theKey, theObj);
+		}
+
+		private void end(final SupportsRdfId.RdfKey theKey) {
+			mInProgress.remove(theKey);
+		}
+
+		/**
+		 * Fetch the entities related to the first instance populated in this context up to the configured depth.
+		 * Subsequent calls do nothing.
+		 * @param theSource the data source to fetch from
+		 * @param theClass the class of the instance
+		 * @param theSubject the instance's resource
+		 * @param theDescription the statements about the instance
+		 * @throws QueryException if there is an error while fetching the related entities
+		 */
+		private void plan(final DataSource theSource, final Class<?> theClass, final Resource theSubject, final Graph theDescription) throws QueryException {
+			if (mDescriptions == null) {
+				mDescriptions = mFetchDepth > 0
+								? FetchPlanner.fetch(theSource, theClass, theSubject, theDescription, mFetchDepth)
+								: Collections.<Resource, Graph>emptyMap();
+			}
+		}
+
+		/**
+		 * Return the description of the resource if it was fetched ahead
+		 * @param theResource the resource
+		 * @return the statements about the resource, or null if it was not fetched
+		 */
+		private Graph getDescription(final Resource theResource) {
+			Graph aGraph = mDescriptions == null || theResource == null ? null : mDescriptions.get(theResource);
+
+			if (aGraph == null && mLocal) {
+				aGraph = Graphs.newGraph();
+			}
+
+			return aGraph;
+		}
+
+		/**
+		 * Return the rdf:type values of the resource, from its description if there is one, otherwise from the types
+		 * already looked up in this context or shared with it, and only querying the data source when it is unknown.
+		 * @param theSource the data source to query
+		 * @param theResource the resource
+		 * @param theDescription the statements about the resource, or null if they have not been retrieved
+		 * @return the rdf:type values
+		 */
+		private Collection<? extends Value> getTypes(final DataSource theSource, final Resource theResource, final Graph theDescription) {
+			if (theDescription != null) {
+				return GraphUtil.getObjects(theDescription, theResource, RDF.TYPE);
+			}
+
+			Collection<? extends Value> aTypes = mTypes.get(theResource);
+
+			if (aTypes == null && mSharedTypes != null) {
+				aTypes = mSharedTypes.get(theResource);
+			}
+
+			if (aTypes == null) {
+				Collection<Value> aQueried = ImmutableSet.<Value>copyOf(DataSourceUtil.getTypes(theSource, theResource));
+
+				if (mSharedTypes != null) {
+					mSharedTypes.put(theResource, aQueried);
+				}
+
+				aTypes = aQueried;
+			}
+
+			mTypes.put(theResource, aTypes);
+
+			return aTypes;
+		}
+	}
+
+
+	/**
+	 * Return the RdfClass annotation on the object.
+	 * @param theObj the object to get that annotation from
+	 * @return the objects' RdfClass annotation
+	 * @throws InvalidRdfException thrown if the object does not have the required annotation, does not have an @Entity
+	 * annotation, or does not {@link SupportsRdfId support Rdf Id's}
+	 */
+	private static RdfsClass asValidRdfClass(Object theObj) throws InvalidRdfException {
+		if (!BeanReflectUtil.hasAnnotation(theObj.getClass(), RdfsClass.class)) {
+			throw new InvalidRdfException("Specified value is not an RdfsClass object");
+		}
+
+		if (EmpireOptions.ENFORCE_ENTITY_ANNOTATION && !BeanReflectUtil.hasAnnotation(theObj.getClass(), Entity.class)) {
+			throw new InvalidRdfException("Specified value is not a JPA Entity object");
+		}
+
+		// verify that it supports rdf id's
+		asSupportsRdfId(theObj);
+
+		return BeanReflectUtil.getAnnotation(theObj.getClass(), RdfsClass.class);
+	}
+
+	/**
+	 * Return the object casted to {@link SupportsRdfId}
+	 * @param theObj the object to cast
+	 * @return the object, casted to the interface
+	 * @throws InvalidRdfException thrown if the object does not implement the interface
+	 */
+	private static SupportsRdfId asSupportsRdfId(Object theObj) throws InvalidRdfException {
+		if (!(theObj instanceof SupportsRdfId)) {
+			throw new InvalidRdfException("Object of type '" + (theObj.getClass().getName()) + "' does not implements SupportsRdfId.");
+		}
+		else {
+			return (SupportsRdfId) theObj;
+		}
+	}
+	
+	private static EmpireGenerated asEmpireGenerated(Object theObj) throws InvalidRdfException {
+		if (!(theObj instanceof EmpireGenerated)) {
+			throw new InvalidRdfException("Object of type '" + (theObj.getClass().getName()) + "' does not implements EmpireGenerated.");
+		}
+		else {
+			return (EmpireGenerated) theObj;
+		}
+	}
+
+	/**
+	 * Given an object, return it's rdf:ID.  If it already has an id, that will be returned, otherwise the id
+	 * will either be generated from the data, using the {@link RdfId} annotation as a guide, or it will auto-generate one.
+	 * @param theObj the object
+	 * @return the object's rdf:Id
+	 * @throws InvalidRdfException thrown if the object does not support the minimum to create or retrieve an rdf:ID
+	 * @see SupportsRdfId
+	 */
+	public static Resource id(Object theObj) throws InvalidRdfException {
+		SupportsRdfId aSupport = asSupportsRdfId(theObj);
+
+		if (aSupport.getRdfId() != null) {
+			return EmpireUtil.asResource(aSupport);
+		}
+
+		Field aIdField = BeanReflectUtil.getIdField(theObj.getClass());
+
+		String aValue = hash(Strings2.getRandomString(10));
+		String aNS = RdfId.DEFAULT;
+
+		URI aURI = FACTORY.createURI(aNS + aValue);
+
+		if (aIdField != null && !aIdField.getAnnotation(RdfId.class).namespace().equals("")) {
+			aNS = aIdField.getAnnotation(RdfId.class).namespace();
+		}
+
+		if (aIdField != null) {
+			boolean aOldAccess = aIdField.isAccessible();
+			aIdField.setAccessible(true);
+
+			try {
+				if (aIdField.get(theObj) == null) {
 					throw new InvalidRdfException("id field must have a value");
 				}
 
@@ -676,12 +1102,10 @@ public final class RdfGenerator {
 	 * @param theObj the object to scan.
 	 */
 	public static void addNamespaces(Class<?> theObj) {
-		if (theObj == null || REGISTERED_FOR_NS.contains(theObj)) {
+		if (theObj == null || !REGISTERED_FOR_NS.add(theObj)) {
 			return;
 		}
 
-		REGISTERED_FOR_NS.add(theObj);
-
 		Namespaces aNS = BeanReflectUtil.getAnnotation(theObj, Namespaces.class);
 
 		if (aNS == null) {
@@ -711,6 +1135,54 @@ public final class RdfGenerator {
 			return null;
 		}
 
+		Graph aGraph = Graphs.newGraph();
+
+		try {
+			asRdf(theObj, new StatementCollector(aGraph));
+		}
+		catch (RDFHandlerException e) {
+			// the collector does not throw this
+			throw new InvalidRdfException(e);
+		}
+
+		return aGraph;
+	}
+
+	/**
+	 * Write the given Java beans as RDF to the handler, as a complete document: {@link RDFHandler#startRDF} is called
+	 * first, then the triples of each bean are handled in turn, and {@link RDFHandler#endRDF} is called last.  No
+	 * intermediate Graph is built, only the values of the bean being written are held in memory, so a Rio
+	 * {@link org.openrdf.rio.RDFWriter} can be used to export any number of beans.  The beans are read from the
+	 * iterable one at a time.
+	 * @param theObjs the objects
+	 * @param theHandler the handler to write the triples to
+	 * @throws InvalidRdfException thrown if one of the objects cannot be transformed into RDF
+	 * @throws RDFHandlerException thrown if the handler reports an error
+	 */
+	public static void asRdf(final Iterable<?> theObjs, final RDFHandler theHandler) throws InvalidRdfException, RDFHandlerException {
+		theHandler.startRDF();
+
+		for (Object aObj : theObjs) {
+			asRdf(aObj, theHandler);
+		}
+
+		theHandler.endRDF();
+	}
+
+	/**
+	 * Write the given Java bean as RDF to the handler.  Only the triples are handled, {@link RDFHandler#startRDF} and
+	 * {@link RDFHandler#endRDF} are left to the caller, so that several beans can be written to the same document.
+	 * @param theObj the object, nothing is written if it is null
+	 * @param theHandler the handler to write the triples to
+	 * @throws InvalidRdfException thrown if the object cannot be transformed into RDF
+	 * @throws RDFHandlerException thrown if the handler reports an error
+	 * @see #asRdf(Iterable, RDFHandler)
+	 */
+	public static void asRdf(final Object theObj, final RDFHandler theHandler) throws InvalidRdfException, RDFHandlerException {
+		if (theObj == null) {
+			return;
+		}
+
 		Object aObj = theObj;
 
 		if (aObj instanceof ProxyHandler) {
@@ -732,76 +1204,64 @@ public final class RdfGenerator {
 			}
 		}
 
-		RdfsClass aClass = asValidRdfClass(aObj);
+		asValidRdfClass(aObj);
 
 		Resource aSubj = id(aObj);
 
-		addNamespaces(aObj.getClass());
-
-		GraphBuilder aBuilder = new GraphBuilder();
-
-		Collection<AccessibleObject> aAccessors = new HashSet<AccessibleObject>();
-		aAccessors.addAll(getAnnotatedFields(aObj.getClass()));
-		aAccessors.addAll(getAnnotatedGetters(aObj.getClass(), true));
+		EntityMapping aMapping = EntityMapping.of(aObj.getClass());
 
 		try {
-			ResourceBuilder aRes = aBuilder.instance(aBuilder.getValueFactory().createURI(PrefixMapping.GLOBAL.uri(aClass.value())),
-													 aSubj);
+			if (aMapping.getType() != null) {
+				theHandler.handleStatement(FACTORY.createStatement(aSubj, RDF.TYPE, aMapping.getType()));
+			}
+
+			for (EntityMapping.PropertyMapping aPropertyMapping : aMapping.getProperties()) {
+				AccessibleObject aAccess = aPropertyMapping.getAccessor();
 
-			for (AccessibleObject aAccess : aAccessors) {
 				if (LOGGER.isDebugEnabled()) {
 					LOGGER.debug("Getting rdf for : {}", aAccess);
 				}
 
-				AsValueFunction aFunc = new AsValueFunction(aAccess);
-
-				if (aAccess.isAnnotationPresent(Transient.class)
-					|| (aAccess instanceof Field
-						&& Modifier.isTransient( ((Field)aAccess).getModifiers() ))) {
-
+				if (aPropertyMapping.isTransient()) {
 					// transient fields or accessors with the Transient annotation do not get converted.
 					continue;
 				}
 
-				RdfProperty aPropertyAnnotation = BeanReflectUtil.getAnnotation(aAccess, RdfProperty.class);
-				String aBase = "urn:empire:clark-parsia:";
-				if (aRes instanceof URI) {
-					aBase = ((URI)aRes).getNamespace();
-				}
-
-				URI aProperty = aPropertyAnnotation != null
-								? aBuilder.getValueFactory().createURI(PrefixMapping.GLOBAL.uri(aPropertyAnnotation.value()))
-								: (aAccess instanceof Field ? aBuilder.getValueFactory().createURI(aBase + ((Field)aAccess).getName()) : null);
-
-				boolean aOldAccess = aAccess.isAccessible();
-				setAccessible(aAccess, true);
+				AsValueFunction aFunc = aPropertyMapping.getConverter();
 
-				Object aValue = get(aAccess, aObj);
+				URI aProperty = aPropertyMapping.getProperty();
 
-				setAccessible(aAccess, aOldAccess);
+				Object aValue = aPropertyMapping.getPropertyAccessor().get(aObj);
 
-				if (aValue == null || aValue.toString().equals("")) {
+				if (aValue == null || (!(aValue instanceof Collection) && aValue.toString().equals(""))) {
 					continue;
 				}
 				else if (Collection.class.isAssignableFrom(aValue.getClass())) {
 					@SuppressWarnings("unchecked")
-					List<Value> aValueList = asList(aAccess, (Collection<?>) Collection.class.cast(aValue));
+					List<Value> aValueList = asList(aFunc, (Collection<?>) Collection.class.cast(aValue));
 
 					if (aValueList.isEmpty()) {
 						continue;
 					}
 
-					if (aPropertyAnnotation.isList()) {
-						aRes.addProperty(aProperty, aValueList);
+					if (aPropertyMapping.isList()) {
+						handleList(theHandler, aSubj, aProperty, aValueList);
 					}
 					else {
-						for (Value aVal : aValueList) {
-							aRes.addProperty(aProperty, aVal);
+						// the same value is only written once, as it would be in a graph
+						for (Value aVal : new LinkedHashSet<Value>(aValueList)) {
+							if (aVal != null) {
+								theHandler.handleStatement(FACTORY.createStatement(aSubj, aProperty, aVal));
+							}
 						}
 					}
 				}
 				else {
-					aRes.addProperty(aProperty, aFunc.apply(aValue));
+					Value aVal = aFunc.apply(aValue);
+
+					if (aVal != null) {
+						theHandler.handleStatement(FACTORY.createStatement(aSubj, aProperty, aVal));
+					}
 				}
 			}
 		}
@@ -814,20 +1274,51 @@ public final class RdfGenerator {
 		catch (InvocationTargetException e) {
 			throw new InvalidRdfException("Cannot invoke method", e);
 		}
+	}
+
+	/**
+	 * Write the values as an rdf:List which is the value of the property of the subject
+	 * @param theHandler the handler to write the triples to
+	 * @param theSubj the subject
+	 * @param theProperty the property
+	 * @param theValues the elements of the list
+	 * @throws RDFHandlerException thrown if the handler reports an error
+	 */
+	private static void handleList(final RDFHandler theHandler, final Resource theSubj, final URI theProperty,
+								   final List<Value> theValues) throws RDFHandlerException {
+		Resource aCurr = FACTORY.createBNode();
+
+		theHandler.handleStatement(FACTORY.createStatement(theSubj, theProperty, aCurr));
+
+		Iterator<Value> aIter = theValues.iterator();
+		while (aIter.hasNext()) {
+			theHandler.handleStatement(FACTORY.createStatement(aCurr, RDF.FIRST, aIter.next()));
+
+			if (aIter.hasNext()) {
+				Resource aNext = FACTORY.createBNode();
+				theHandler.handleStatement(FACTORY.createStatement(aCurr, RDF.REST, aNext));
+				aCurr = aNext;
+			}
+		}
 
-		return aBuilder.graph();
+		theHandler.handleStatement(FACTORY.createStatement(aCurr, RDF.REST, RDF.NIL));
 	}
 
 	/**
 	 * Transform a list of Java Objects into the corresponding RDF values
-	 * @param theAccess the accessor for the value
+	 * @param theFunction the function to convert each value with
 	 * @param theCollection the collection to transform
 	 * @return the collection as a list of RDF values
 	 * @throws InvalidRdfException thrown if any of the values cannot be transformed
 	 */
-	private static List<Value> asList(AccessibleObject theAccess, Collection<?> theCollection) throws InvalidRdfException {
+	private static List<Value> asList(AsValueFunction theFunction, Collection<?> theCollection) throws InvalidRdfException {
+		if (theCollection instanceof LazyCollection && !((LazyCollection) theCollection).isLoaded()) {
+			// the keys are all that is needed, there is no reason to load the elements
+			return new ArrayList<Value>(((LazyCollection<?>) theCollection).getKeys());
+		}
+
 		try {
-			return Lists.newArrayList(Collections2.transform(theCollection, new AsValueFunction(theAccess)));
+			return Lists.newArrayList(Collections2.transform(theCollection, theFunction));
 		}
 		catch (RuntimeException e) {
 			throw new InvalidRdfException(e.getMessage());
@@ -844,227 +1335,125 @@ public final class RdfGenerator {
 	}
 
 	/**
-	 * Javassist {@link MethodHandler} implementation for method proxying.
-	 * @param <T> the proxy class type
+	 * Implementation of the function interface to turn a Collection of RDF values into Java bean(s).
 	 */
-	private static class CollectionProxyHandler implements MethodHandler {
-
+	private static class ToObjectFunction implements Function<Collection<Value>, Object> {
 		/**
-		 * The proxy object which wraps the instance being proxied.
+		 * Function to turn a single value into an object
 		 */
-		private CollectionProxy mProxy;
+		private ValueToObject valueToObject;
 
 		/**
-		 * Create a new ProxyHandler
-		 * @param theProxy the proxy object
+		 * The mapping of the property the values will be assigned to
 		 */
-		private CollectionProxyHandler(final CollectionProxy theProxy) {
-			mProxy = theProxy;
-		}
+		private EntityMapping.PropertyMapping mMapping;
 
 		/**
-		 * Delegates the methods to the Proxy
-		 * @inheritDoc
+		 * The data source the values come from
 		 */
-		public Object invoke(final Object theThis, final Method theMethod, final Method theProxyMethod, final Object[] theArgs) throws Throwable {
-			return theMethod.invoke(mProxy.value(), theArgs);
-		}
-	}
+		private DataSource mSource;
 
-	private static class CollectionProxy {
-		private Collection mCollection;
-		private AccessibleObject mField;
-		private Collection<Value> theList;
-		private ValueToObject valueToObject;
+		public ToObjectFunction(final DataSource theSource, Resource theResource, final EntityMapping.PropertyMapping theMapping, final URI theProp, final HydrationContext theContext) {
+			valueToObject = new ValueToObject(theSource, theResource, theMapping, theProp, theContext);
 
-		public CollectionProxy(final AccessibleObject theField, final Collection<Value> theTheList, final ValueToObject theValueToObject) {
-			mField = theField;
-			theList = theTheList;
-			valueToObject = theValueToObject;
+			mMapping = theMapping;
+			mSource = theSource;
 		}
 
-		private void init() {
-			Collection<Object> aValues = BeanReflectUtil.instantiateCollectionFromField(BeanReflectUtil.classFrom(mField));
+		/**
+		 * Return a {@link LazyCollection} of the values if the property is lazily fetched, its declared type is one
+		 * which a lazy collection can be assigned to, and the values are all URIs of beans.
+		 * @param theList the values
+		 * @return the lazy collection, or null if the values cannot be loaded lazily
+		 */
+		@SuppressWarnings("unchecked")
+		private Collection<Object> lazyCollection(final Collection<Value> theList) {
+			if (!mMapping.isLazy() || mSource == null || !FetchPlanner.isEntity(mMapping.getElementType())) {
+				return null;
+			}
 
-			for (Value aValue : theList) {
-				Object aListValue = valueToObject.apply(aValue);
+			List<URI> aKeys = new ArrayList<URI>(theList.size());
 
-				if (aListValue == null) {
-					throw new RuntimeException("Error converting a list value.");
+			for (Value aValue : theList) {
+				if (!(aValue instanceof URI)) {
+					return null;
 				}
 
-				aValues.add(aListValue);
+				aKeys.add((URI) aValue);
 			}
 
-			mCollection = aValues;
-		}
-
-		public Collection value() {
-			if (mCollection == null) {
-				init();
-				theList.clear();
+			Class<Object> aElementType = (Class<Object>) mMapping.getElementType();
 
-				theList = null;
-				mField = null;
-				valueToObject = null;
+			if (List.class.equals(mMapping.getType())) {
+				return new LazyList<Object>(aElementType, aKeys, mSource);
+			}
+			else if (Set.class.equals(mMapping.getType()) || Collection.class.equals(mMapping.getType())) {
+				return new LazySet<Object>(aElementType, aKeys, mSource);
+			}
+			else {
+				return null;
 			}
-
-			return mCollection;
-		}
-	}
-
-	/**
-	 * Enabling this seems to use more memory than per-object proxying (or none at all).  Is javassist leaking memory?
-	 * Experimental option, not currently used.
-	 */
-	@Deprecated
-	public static final boolean PROXY_COLLECTIONS = false;
-
-	/**
-	 * Implementation of the function interface to turn a Collection of RDF values into Java bean(s).
-	 */
-	private static class ToObjectFunction implements Function<Collection<Value>, Object> {
-		/**
-		 * Function to turn a single value into an object
-		 */
-		private ValueToObject valueToObject;
-
-		/**
-		 * Reference to the Type which the values will be assigned
-		 */
-		private AccessibleObject mField;
-
-		public ToObjectFunction(final DataSource theSource, Resource theResource, final AccessibleObject theField, final URI theProp) {
-			valueToObject = new ValueToObject(theSource, theResource, theField, theProp);
-
-			mField = theField;
 		}
 
 		public Object apply(final Collection<Value> theList) {
 			if (theList == null || theList.isEmpty()) {
-				return BeanReflectUtil.instantiateCollectionFromField(BeanReflectUtil.classFrom(mField));
+				return BeanReflectUtil.instantiateCollectionFromField(mMapping.getType());
 			}
-			if (Collection.class.isAssignableFrom(BeanReflectUtil.classFrom(mField))) {
+			if (mMapping.isCollection()) {
 				try {
+					Collection<Object> aLazy = lazyCollection(theList);
 
-					if (PROXY_COLLECTIONS && !BeanReflectUtil.isPrimitive(refineClass(mField, BeanReflectUtil.classFrom(mField), null, null))) {
-						Object aColType = BeanReflectUtil.instantiateCollectionFromField(BeanReflectUtil.classFrom(mField));
-
-						ProxyFactory aFactory = new ProxyFactory();
-						aFactory.setInterfaces(aColType.getClass().getInterfaces());
-						aFactory.setSuperclass(aColType.getClass());
-						aFactory.setFilter(METHOD_FILTER);
-
-						Object aResult = aFactory.createClass().newInstance();
-						((ProxyObject) aResult).setHandler(new CollectionProxyHandler(new CollectionProxy(mField, theList, valueToObject)));
-						return aResult;
+					if (aLazy != null) {
+						return aLazy;
 					}
-					else {
-						Collection<Object> aValues = BeanReflectUtil.instantiateCollectionFromField(BeanReflectUtil.classFrom(mField));
 
-						for (Value aValue : theList) {
-							Object aListValue = valueToObject.apply(aValue);
+					Collection<Object> aValues = BeanReflectUtil.instantiateCollectionFromField(mMapping.getType());
 
-							if (aListValue == null) {
-								throw new RuntimeException("Error converting a list value.");
-							}
-							
-							if (aListValue instanceof Collection) {
-								aValues.addAll(((Collection) aListValue));
-							}
-							else {
-								aValues.add(aListValue);
-							}
-						}
+					for (Value aValue : theList) {
+						Object aListValue = valueToObject.apply(aValue);
 
-						return aValues;
+						if (aListValue == null) {
+							throw new RuntimeException("Error converting a list value.");
+						}
+						
+						if (aListValue instanceof Collection) {
+							aValues.addAll(((Collection) aListValue));
+						}
+						else {
+							aValues.add(aListValue);
+						}
 					}
+
+					return aValues;
 				}
 				catch (Exception e) {
 					throw new RuntimeException(e);
 				}
 			}
 
-			/**
-			 * if not list all literals
-			 *   proceed
-			 * else
-			 *  if not lang aware
-			 * 	 find non lang typed literals
-			 *   if >= 1 non lang typed literals
-			 *     proceed
-			 *   else get language based on locale
-			 *     find literals based on local lang
-			 *
-			 *   if == 0 literals
-			 *     use original list
-			 *   else use filtered list
-			 *
-			 * else if lang aware
-			 */
-
-			Collection<Value> aList = new HashSet<Value>(theList);
-
-			if (!Iterables2.find(aList, CONTAINS_RESOURCES)) {
-				if (!EmpireOptions.ENABLE_LANG_AWARE) {
-					Collection<Value> aLangFiltered = Collections2.filter(aList, new Predicate<Value>() { public boolean apply(final Value theValue) { return ((Literal)theValue).getLanguage() == null; }});
-
-					if (aLangFiltered.isEmpty()) {
-						LANG_FILTER.setLangCode(getLanguageForLocale());
-						aLangFiltered = Collections2.filter(aList, LANG_FILTER);
-					}
+			// single valued, pick the value to use based on the language tags of the literals
+			Value aValue = mMapping.getLanguageSelector().select(theList);
 
-					if (!aLangFiltered.isEmpty()) {
-						aList = aLangFiltered;
-					}
-				}
-				else {
-					LANG_FILTER.setLangCode(mField.getAnnotation(RdfProperty.class).language());
-					aList = Collections2.filter(aList, LANG_FILTER);
-				}
-			}
-
-//			aList = filter(aList, new Predicate<Value>() {
-//				public boolean accept(final Value theValue) {
-//					if (theValue instanceof Resource
-//						|| !EmpireOptions.ENABLE_LANG_AWARE
-//						|| (EmpireOptions.ENABLE_LANG_AWARE
-//							&& theValue instanceof Literal
-//							&& !mField.getAnnotation(RdfProperty.class).language().equals(""))
-//							&& mField.getAnnotation(RdfProperty.class).language().equals(((Literal)theValue).getLanguage())) {
-//						return true;
-//					}
-//					else {
-//						return false;
-//					}
-//				}
-//			});
-
-
-			if (aList.isEmpty()) {
+			if (aValue == null) {
 				// yes, we checked for emptiness to begin the method, but we might have done some filtering based on the
 				// language tags, so we need to check again.
-				return BeanReflectUtil.instantiateCollectionFromField(BeanReflectUtil.classFrom(mField));
-			}
-			else if ((aList.size() == 1) || (! EmpireOptions.STRICT_MODE)) {
-				// collection of one element, just convert the single element and send that back
-				return valueToObject.apply(aList.iterator().next());
+				return BeanReflectUtil.instantiateCollectionFromField(mMapping.getType());
 			}
 			else {
-				throw new RuntimeException("Cannot convert list of values to anything meaningful for the field. " + mField + " " + aList);
+				return valueToObject.apply(aValue);
 			}
 		}
 	}
 
-	private static String getLanguageForLocale() {
-		return Locale.getDefault() == null || Locale.getDefault().toString().equals("")
-			   ? "en"
-			   : (Locale.getDefault().toString().indexOf("_") != -1
-				  ? Locale.getDefault().toString().substring(0, Locale.getDefault().toString().indexOf("_"))
-				  : Locale.getDefault().toString());
-	}
-
-	private static Class refineClass(final Object theAccessor, final Class theClass, final DataSource theSource, final Resource theId) {
+	/**
+	 * Return the type of the values of a property as far as it can be determined from its declaration.  For
+	 * collections, this is the type of the elements of the collection, taken from the generic type of the collection or
+	 * the targetEntity of its JPA annotation.
+	 * @param theAccessor the field or method for the property
+	 * @param theClass the declared type of the property
+	 * @return the type of the values of the property
+	 */
+	static Class elementClass(final Object theAccessor, final Class theClass) {
 		Class aClass = theClass;
 
 		if (Collection.class.isAssignableFrom(aClass)) {
@@ -1135,6 +1524,21 @@ public final class RdfGenerator {
 			}
 		}
 
+		return aClass;
+	}
+
+	/**
+	 * Refine the type of a property value using the rdf:type(s) of the value when the declared type of the property
+	 * is not itself a bean type.
+	 * @param theClass the type of the property value according to its declaration
+	 * @param theSource the data source the value is read from
+	 * @param theId the value
+	 * @param theContext the context of the hydration the value is converted in
+	 * @return the most specific bean type for the value, or theClass if one is not found
+	 */
+	private static Class refineClass(final Class theClass, final DataSource theSource, final Resource theId, final HydrationContext theContext) {
+		Class aClass = theClass;
+
 		if (!BeanReflectUtil.hasAnnotation(aClass, RdfsClass.class)) {
 			// k, so either the parameter of the collection or the declared type of the field does
 			// not map to an instance/bean type.  this is most likely an error, but lets try and find
@@ -1142,18 +1546,42 @@ public final class RdfGenerator {
 			// create an instance of that.  that will work, and pushes the likely failure back off to
 			// the assignment of the created instance
 
-			Collection<Resource> aTypes = DataSourceUtil.getTypes(theSource, theId);
-
-			// k, so now we know the type, if we can match the type to a class then we're in business
-			for (Resource aType : aTypes) {
-				if (aType instanceof URI) {
-					for (Class aTypeClass : TYPE_TO_CLASS.get( (URI) aType)) {
-						if ((BeanReflectUtil.hasAnnotation(aTypeClass, RdfsClass.class)) &&
-						    (aClass.isAssignableFrom(aTypeClass))) {
-							// lets try this one
-							aClass = aTypeClass;
-							break;
-						}
+			TypeSetKey aKey = new TypeSetKey(aClass, theContext.getTypes(theSource, theId, theContext.getDescription(theId)), true);
+
+			TypeIndex aTypes = TYPES;
+
+			aClass = aTypes.mResolved.getIfPresent(aKey);
+
+			if (aClass == null) {
+				aClass = refineClass(theClass, aKey.mTypes, aTypes.mTypeToClass);
+
+				aTypes.mResolved.put(aKey, aClass);
+			}
+		}
+
+		return aClass;
+	}
+
+	/**
+	 * Return the first bean type mapped to one of the given rdf:type values which is a subclass of the given class
+	 * @param theClass the type of the property value according to its declaration
+	 * @param theTypes the rdf:type values of the property value
+	 * @param theTypeToClass the classes mapped to each rdf:type
+	 * @return the most specific bean type for the value, or theClass if one is not found
+	 */
+	@SuppressWarnings("unchecked")
+	private static Class refineClass(final Class theClass, final Iterable<? extends Value> theTypes, final Multimap<URI, Class> theTypeToClass) {
+		Class aClass = theClass;
+
+		// k, so now we know the type, if we can match the type to a class then we're in business
+		for (Value aType : theTypes) {
+			if (aType instanceof URI) {
+				for (Class aTypeClass : theTypeToClass.get( (URI) aType)) {
+					if ((BeanReflectUtil.hasAnnotation(aTypeClass, RdfsClass.class)) &&
+					    (aClass.isAssignableFrom(aTypeClass))) {
+						// lets try this one
+						aClass = aTypeClass;
+						break;
 					}
 				}
 			}
@@ -1162,25 +1590,156 @@ public final class RdfGenerator {
 		return aClass;
 	}
 
-	public static class ValueToObject implements Function<Value, Object> {
-		static final List<URI> integerTypes = Arrays.asList(XMLSchema.INT, XMLSchema.INTEGER, XMLSchema.POSITIVE_INTEGER,
-													  XMLSchema.NEGATIVE_INTEGER, XMLSchema.NON_NEGATIVE_INTEGER,
-													  XMLSchema.NON_POSITIVE_INTEGER, XMLSchema.UNSIGNED_INT);
-		static final List<URI> longTypes = Arrays.asList(XMLSchema.LONG, XMLSchema.UNSIGNED_LONG);
-		static final List<URI> floatTypes = Arrays.asList(XMLSchema.FLOAT, XMLSchema.DECIMAL);
-		static final List<URI> shortTypes = Arrays.asList(XMLSchema.SHORT, XMLSchema.UNSIGNED_SHORT);
-		static final List<URI> byteTypes = Arrays.asList(XMLSchema.BYTE, XMLSchema.UNSIGNED_BYTE);
+	/**
+	 * The classes mapped to each rdf:type and the classes resolved from that mapping.  The memo belongs to the mapping
+	 * it was computed from, so both are replaced together.
+	 */
+	private static final class TypeIndex {
+
+		/**
+		 * The maximum number of class resolutions memoized
+		 */
+		private static final int MAX_RESOLVED = 10000;
+
+		/**
+		 * Map from rdf:type URI's to the Java classes which correspond to them
+		 */
+		private final ImmutableSetMultimap<URI, Class> mTypeToClass;
+
+		/**
+		 * The classes resolved by {@link #resolveClass} and {@link #refineClass}, memoized per expected class and set of
+		 * rdf:type values
+		 */
+		private final Cache<TypeSetKey, Class> mResolved = CacheBuilder.newBuilder().maximumSize(MAX_RESOLVED).build();
+
+		private TypeIndex(final ImmutableSetMultimap<URI, Class> theTypeToClass) {
+			mTypeToClass = theTypeToClass;
+		}
+	}
+
+	/**
+	 * Key of a memoized class resolution: the class an individual is expected to be and its set of rdf:type values
+	 */
+	private static final class TypeSetKey {
+		private final Class mClass;
+		private final Set<Value> mTypes;
+		private final boolean mRefine;
+
+		private TypeSetKey(final Class theClass, final Iterable<? extends Value> theTypes, final boolean theRefine) {
+			mClass = theClass;
+			mTypes = ImmutableSet.<Value>copyOf(theTypes);
+			mRefine = theRefine;
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		@Override
+		public boolean equals(final Object theObj) {
+			if (this == theObj) {
+				return true;
+			}
+			if (!(theObj instanceof TypeSetKey)) {
+				return false;
+			}
+
+			TypeSetKey aKey = (TypeSetKey) theObj;
 
+			return mRefine == aKey.mRefine && mClass.equals(aKey.mClass) && mTypes.equals(aKey.mTypes);
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		@Override
+		public int hashCode() {
+			return (31 * mClass.hashCode() + mTypes.hashCode()) * 2 + (mRefine ? 1 : 0);
+		}
+	}
+
+	public static class ValueToObject implements Function<Value, Object> {
 		private URI mProperty;
 		private Object mAccessor;
 		private DataSource mSource;
 		private Resource mResource;
+		private HydrationContext mContext;
+
+		/**
+		 * The precomputed mapping for the accessor, or null when converting for something other than a mapped property
+		 */
+		private EntityMapping.PropertyMapping mMapping;
 
 		public ValueToObject(final DataSource theSource, Resource theResource, final Object theAccessor, final URI theProp) {
 			mResource = theResource;
 			mSource = theSource;
 			mAccessor = theAccessor;
 			mProperty = theProp;
+			mContext = new HydrationContext(null);
+		}
+
+		private ValueToObject(final DataSource theSource, Resource theResource, final EntityMapping.PropertyMapping theMapping, final URI theProp, final HydrationContext theContext) {
+			mResource = theResource;
+			mSource = theSource;
+			mAccessor = theMapping.getAccessor();
+			mMapping = theMapping;
+			mProperty = theProp;
+			mContext = theContext;
+		}
+
+		/**
+		 * Return the declared type of the property the values are converted for
+		 * @return the declared type
+		 */
+		private Class<?> declaredClass() {
+			return mMapping != null ? mMapping.getType() : BeanReflectUtil.classFrom(mAccessor);
+		}
+
+		/**
+		 * Return the type of bean to create for the given resource
+		 * @param theId the resource
+		 * @return the bean type
+		 */
+		private Class<?> beanClass(final Resource theId) {
+			Class<?> aClass = mMapping != null ? mMapping.getElementType() : elementClass(mAccessor, declaredClass());
+
+			return refineClass(aClass, mSource, theId, mContext);
+		}
+
+		/**
+		 * Return whether or not references to other beans should be loaded lazily
+		 * @return true if lazy, false otherwise
+		 */
+		private boolean isLazy() {
+			return mMapping != null ? mMapping.isLazy() : BeanReflectUtil.isFetchTypeLazy(mAccessor);
+		}
+
+		/**
+		 * Convert the elements of a list into a collection of beans of the given type
+		 * @param theList the elements
+		 * @param theClass the type of bean to create for each element
+		 * @return a collection of the type of the property containing the beans
+		 */
+		private Collection<Object> toCollection(final List<Value> theList, final Class<?> theClass) {
+			Collection<Object> aValues = BeanReflectUtil.instantiateCollectionFromField(declaredClass());
+
+			for (Value aValue : theList) {
+				Object aListValue = null;
+
+				try {
+					aListValue = getProxyOrDbObject(isLazy(), theClass, aValue, mSource, mContext);
+				}
+				catch (Exception e) {
+					// we'll throw an error in a second...
+				}
+
+				if (aListValue == null) {
+					throw new RuntimeException("Error converting a list value: " + aValue + " -> " + theClass);
+				}
+
+				aValues.add(aListValue);
+			}
+
+			return aValues;
 		}
 
 		public Object apply(final Value theValue) {
@@ -1190,50 +1749,19 @@ public final class RdfGenerator {
 
 			if (theValue instanceof Literal) {
 				Literal aLit = (Literal) theValue;
-				URI aDatatype = aLit.getDatatype() != null ? aLit.getDatatype() : null;
-				if (aDatatype == null || XMLSchema.STRING.equals(aDatatype) || RDFS.LITERAL.equals(aDatatype)) {
+				URI aDatatype = aLit.getDatatype();
+				LiteralCodec<?> aCodec = aDatatype != null ? LiteralCodecs.forDatatype(aDatatype) : null;
+
+				if (aDatatype == null) {
 					return aLit.getLabel();
 				}
-				else if (XMLSchema.BOOLEAN.equals(aDatatype)) {
-					return Boolean.valueOf(aLit.getLabel());
-				}
-				else if (integerTypes.contains(aDatatype)) {
-					return Integer.parseInt(aLit.getLabel());
-				}
-				else if (longTypes.contains(aDatatype)) {
-					return Long.parseLong(aLit.getLabel());
-				}
-				else if (XMLSchema.DOUBLE.equals(aDatatype)) {
-					return Double.valueOf(aLit.getLabel());
-				}
-				else if (floatTypes.contains(aDatatype)) {
-					return Float.valueOf(aLit.getLabel());
-				}
-				else if (shortTypes.contains(aDatatype)) {
-					return Short.valueOf(aLit.getLabel());
-				}
-				else if (byteTypes.contains(aDatatype)) {
-					return Byte.valueOf(aLit.getLabel());
-				}
-				else if (XMLSchema.ANYURI.equals(aDatatype)) {
-					try {
-						return new java.net.URI(aLit.getLabel());
-					}
-					catch (URISyntaxException e) {
-						LOGGER.warn("URI syntax exception converting literal value which is not a valid URI {} ", aLit.getLabel());
-						return null;
-					}
-				}
-				else if (XMLSchema.DATE.equals(aDatatype) || XMLSchema.DATETIME.equals(aDatatype)) {
-					return Dates.asDate(aLit.getLabel());
-				}
-				else if (XMLSchema.TIME.equals(aDatatype)) {
-					return new Date(Long.parseLong(aLit.getLabel()));
+				else if (aCodec != null) {
+					return aCodec.decode(aLit);
 				}
 				else {
 					// no idea what this value is from its data type.  if the field takes a string
 					// we'll just assign the plain string, otherwise its an error
-					if (BeanReflectUtil.classFrom(mAccessor).isAssignableFrom(String.class)) {
+					if (declaredClass().isAssignableFrom(String.class)) {
 						return aLit.getLabel();
 					}
 					else {
@@ -1247,13 +1775,12 @@ public final class RdfGenerator {
 				BNode aBNode = (BNode) theValue;
 
 				// we need to figure out what type of bean this instance maps to.
-				Class<?> aClass = BeanReflectUtil.classFrom(mAccessor);
-
-				aClass = refineClass(mAccessor, aClass, mSource, aBNode);
+				Class<?> aClass = beanClass(aBNode);
 
-				if (Collection.class.isAssignableFrom(BeanReflectUtil.classFrom(mAccessor))) {
-					AccessibleObject aAccess = (AccessibleObject) mAccessor;
-					RdfProperty aPropAnnotation = aAccess.getAnnotation(RdfProperty.class);
+				if (Collection.class.isAssignableFrom(declaredClass())) {
+					boolean aIsList = mMapping != null
+									  ? mMapping.isList()
+									  : ((AccessibleObject) mAccessor).getAnnotation(RdfProperty.class) != null && ((AccessibleObject) mAccessor).getAnnotation(RdfProperty.class).isList();
 
 					// the field takes a collection, lets create a new instance of said collection, and hopefully the
 					// bnode is a list.  this approach will only work if the property is a singleton value, eg
@@ -1263,60 +1790,50 @@ public final class RdfGenerator {
 					// in the result set, does not mean i can do another query for _:a and get the expected results.
 					// and you can't do a describe for the same reason.
 
-					try {
-						String aQuery = getBNodeConstructQuery(mSource, mResource, mProperty);
-						
-						Graph aGraph = mSource.graphQuery(aQuery);
+					if (mContext.isLocal()) {
+						// the bnode is in the graph being read, so the list can just be walked
+						List<Value> aList = mContext.getList(aBNode);
 
-						Optional<Resource> aPossibleListHead = Graphs.getResource(aGraph, mResource, mProperty);
+						if (aList != null) {
+							return toCollection(aIsList ? aList : new ArrayList<Value>(GraphUtil.getObjects(mContext.getDescription(mResource), mResource, mProperty)), aClass);
+						}
+					}
+					else {
+						try {
+							String aQuery = getBNodeConstructQuery(mSource, mResource, mProperty);
 						
-						if (aPossibleListHead.isPresent() && Graphs.isList(aGraph, aPossibleListHead.get())) {
-							List<Value> aList;
-
-							// getting the list is only safe the the query dialect supports stable bnode ids in the query language.
-							if (aPropAnnotation != null && aPropAnnotation.isList() && mSource.getQueryFactory().getDialect().supportsStableBnodeIds()) {
-								try {
-									aList = asList(mSource, aPossibleListHead.get());
-								}
-								catch (DataSourceException e) {
-									throw new RuntimeException(e);
-								}
-							}
-							else {
-								aList = new ArrayList<Value>(GraphUtil.getObjects(aGraph, mResource, mProperty));
-							}
-
-							//return new ToObjectFunction(mSource, null, (AccessibleObject) mAccessor, null).apply(aList);
-							Collection<Object> aValues = BeanReflectUtil.instantiateCollectionFromField(BeanReflectUtil.classFrom(aAccess));
-
-							for (Value aValue : aList) {
-								Object aListValue = null;
+							Graph aGraph = mSource.graphQuery(aQuery);
 
-								try {
-									aListValue = getProxyOrDbObject(mAccessor, aClass, aValue, mSource);
+							Optional<Resource> aPossibleListHead = Graphs.getResource(aGraph, mResource, mProperty);
+						
+							if (aPossibleListHead.isPresent() && Graphs.isList(aGraph, aPossibleListHead.get())) {
+								List<Value> aList;
+
+								// getting the list is only safe the the query dialect supports stable bnode ids in the query language.
+								if (aIsList && mSource.getQueryFactory().getDialect().supportsStableBnodeIds()) {
+									try {
+										aList = DataSourceUtil.getList(mSource, aPossibleListHead.get());
+									}
+									catch (DataSourceException e) {
+										throw new RuntimeException(e);
+									}
 								}
-								catch (Exception e) {
-									// we'll throw an error in a second...
+								else {
+									aList = new ArrayList<Value>(GraphUtil.getObjects(aGraph, mResource, mProperty));
 								}
 
-								if (aListValue == null) {
-									throw new RuntimeException("Error converting a list value: " + aValue + " -> " + aClass);
-								}
-
-								aValues.add(aListValue);
-
+								//return new ToObjectFunction(mSource, null, (AccessibleObject) mAccessor, null).apply(aList);
+								return toCollection(aList, aClass);
 							}
-							
-							return aValues;
 						}
-					}
-					catch (QueryException e) {
-						throw new RuntimeException(e);
+						catch (QueryException e) {
+							throw new RuntimeException(e);
+						}
 					}
 				}
 
 				try {
-					return getProxyOrDbObject(mAccessor, aClass, aBNode, mSource);
+					return getProxyOrDbObject(isLazy(), aClass, aBNode, mSource, mContext);
 				}
 				catch (Exception e) {
 					if (EmpireOptions.STRICT_MODE) {
@@ -1331,15 +1848,13 @@ public final class RdfGenerator {
 				URI aURI = (URI) theValue;
 				try {
 					// we need to figure out what type of bean this instance maps to.
-					Class<?> aClass = BeanReflectUtil.classFrom(mAccessor);
-
-					aClass = refineClass(mAccessor, aClass, mSource, aURI);
+					Class<?> aClass = beanClass(aURI);
 
 					if (aClass.isAssignableFrom(java.net.URI.class)) {
 						return java.net.URI.create(aURI.toString());
 					}
 					else {
-						return getProxyOrDbObject(mAccessor, aClass, java.net.URI.create(aURI.toString()), mSource);
+						return getProxyOrDbObject(isLazy(), aClass, java.net.URI.create(aURI.toString()), mSource, mContext);
 					}
 				}
 				catch (Exception e) {
@@ -1364,42 +1879,28 @@ public final class RdfGenerator {
 		}
 	}
 
-	private static List<Value> asList(DataSource theSource, Resource theRes) throws DataSourceException {
-        List<Value> aList = Lists.newArrayList();
-
-        Resource aListRes = theRes;
-
-        while (aListRes != null) {
-
-            Resource aFirst = (Resource) DataSourceUtil.getValue(theSource, aListRes, RDF.FIRST);
-            Resource aRest = (Resource) DataSourceUtil.getValue(theSource, aListRes, RDF.REST);
-
-            if (aFirst != null) {
-               aList.add(aFirst);
-            }
-
-            if (aRest == null || aRest.equals(RDF.NIL)) {
-               aListRes = null;
-            }
-            else {
-                aListRes = aRest;
-            }
-        }
-
-        return aList;
-	}
-
 	private static final MethodFilter METHOD_FILTER = new MethodFilter() {
 		public boolean isHandled(final Method theMethod) {
 			return !theMethod.getName().equals("finalize");
 		}
 	};
 
-	@SuppressWarnings("unchecked")
-	private static <T> T getProxyOrDbObject(Object theAccessor, Class<T> theClass, Object theKey, DataSource theSource) throws Exception {
-		if (BeanReflectUtil.isFetchTypeLazy(theAccessor)) {
-			Proxy<T> aProxy = new Proxy<T>(theClass, asPrimaryKey(theKey), theSource);
+	/**
+	 * The classes of the lazy proxies, keyed by the class they are a proxy for.  Keys and values are weak so that the
+	 * map does not keep the class loaders of either from being unloaded.
+	 */
+	private static final ConcurrentMap<Class<?>, Class<?>> PROXY_CLASSES = new MapMaker().weakKeys().weakValues().makeMap();
 
+	/**
+	 * Return the class of the lazy proxies for the given class, creating it the first time it is requested.  The
+	 * handler is set on each instance rather than on the factory, so a single class serves every proxy.
+	 * @param theClass the class to proxy
+	 * @return the proxy class
+	 */
+	private static Class<?> proxyClass(final Class<?> theClass) {
+		Class<?> aProxyClass = PROXY_CLASSES.get(theClass);
+
+		if (aProxyClass == null) {
 			ProxyFactory aFactory = new ProxyFactory();
 			aFactory.setInterfaces(ObjectArrays.concat(theClass.getInterfaces(), EmpireGenerated.class));
 			if (!theClass.isInterface()) {
@@ -1407,20 +1908,30 @@ public final class RdfGenerator {
 			}
 
 			aFactory.setFilter(METHOD_FILTER);
-			final ProxyHandler<T> aHandler = new ProxyHandler<T>(aProxy);
 
-			aFactory.setHandler(aHandler);
+			aProxyClass = aFactory.createClass(METHOD_FILTER);
+
+			Class<?> aExisting = PROXY_CLASSES.putIfAbsent(theClass, aProxyClass);
+			if (aExisting != null) {
+				aProxyClass = aExisting;
+			}
+		}
+
+		return aProxyClass;
+	}
 
-			Object aObj = aFactory.createClass(METHOD_FILTER).newInstance();
+	@SuppressWarnings("unchecked")
+	private static <T> T getProxyOrDbObject(boolean theLazy, Class<T> theClass, Object theKey, DataSource theSource, HydrationContext theContext) throws Exception {
+		// a proxy needs a data source to load the object from later
+		if (theLazy && !theContext.isLocal()) {
+			Object aObj = proxyClass(theClass).newInstance();
+
+			((ProxyObject) aObj).setHandler(new ProxyHandler<T>(new Proxy<T>(theClass, asPrimaryKey(theKey), theSource)));
 
-			((ProxyObject) aObj).setHandler(aHandler);
-			
-			//((com.clarkparsia.empire.annotation.RdfGenerator.ProxyHandler) ((javassist.util.proxy.ProxyObject) aObj).getHandler()).getProxy().getProxyClass();
-			
 			return (T) aObj;
 		}
 		else {
-			return fromRdf(theClass, asPrimaryKey(theKey), theSource);
+			return fromRdf(theClass, asPrimaryKey(theKey), theSource, theContext, null);
 		}
 	}
 
@@ -1434,12 +1945,18 @@ public final class RdfGenerator {
 		 */
 		private Proxy<T> mProxy;
 
+		/**
+		 * Forwards the calls to the proxied instance
+		 */
+		private MethodDispatcher mDispatcher;
+
 		/**
 		 * Create a new ProxyHandler
 		 * @param theProxy the proxy object
 		 */
 		private ProxyHandler(final Proxy<T> theProxy) {
 			mProxy = theProxy;
+			mDispatcher = MethodDispatcher.dispatcherFor(theProxy.getProxyClass());
 		}
 
 		public Proxy<T> getProxy() {
@@ -1460,7 +1977,7 @@ public final class RdfGenerator {
 			                    Boolean.valueOf(mProxy.getUri().equals(((Proxy<?>)theArgs[0]).getUri())): Boolean.FALSE;
 			}
 			else {
-			    return theMethod.invoke(mProxy.value(), theArgs);
+			    return mDispatcher.invoke(theMethod, mProxy.value(), theArgs);
 			}
 		}
 	}
@@ -1504,37 +2021,8 @@ public final class RdfGenerator {
             else if (!EmpireOptions.STRONG_TYPING && BeanReflectUtil.isPrimitive(theIn)) {
                 return FACTORY.createLiteral(theIn.toString());
             }
-			else if (Boolean.class.isInstance(theIn)) {
-				return FACTORY.createLiteral(Boolean.class.cast(theIn));
-			}
-			else if (Integer.class.isInstance(theIn)) {
-				return FACTORY.createLiteral(Integer.class.cast(theIn));
-			}
-			else if (Long.class.isInstance(theIn)) {
-				return FACTORY.createLiteral(Long.class.cast(theIn));
-			}
-			else if (Short.class.isInstance(theIn)) {
-				return FACTORY.createLiteral(Short.class.cast(theIn));
-			}
-			else if (Double.class.isInstance(theIn)) {
-				return FACTORY.createLiteral(Double.class.cast(theIn));
-			}
-			else if (Float.class.isInstance(theIn)) {
-				return FACTORY.createLiteral(Float.class.cast(theIn));
-			}
-			else if (Date.class.isInstance(theIn)) {
-				return FACTORY.createLiteral(Dates.datetime(Date.class.cast(theIn)), XMLSchema.DATETIME);
-			}
-			else if (String.class.isInstance(theIn)) {
-				if (annotation != null && !annotation.language().equals("")) {
-					return FACTORY.createLiteral(String.class.cast(theIn), annotation.language());
-				}
-				else {
-					return FACTORY.createLiteral(String.class.cast(theIn));
-				}
-			}
-			else if (Character.class.isInstance(theIn)) {
-				return FACTORY.createLiteral(Character.class.cast(theIn));
+			else if (String.class.isInstance(theIn) && annotation != null && !annotation.language().equals("")) {
+				return FACTORY.createLiteral(String.class.cast(theIn), annotation.language());
 			}
 			else if (java.net.URI.class.isInstance(theIn)) {
 				if (annotation != null && annotation.isXsdUri()) {
@@ -1544,6 +2032,12 @@ public final class RdfGenerator {
                 	return FACTORY.createURI(theIn.toString());
 				}
 			}
+
+			Literal aLiteral = LiteralCodecs.encode(theIn);
+
+			if (aLiteral != null) {
+				return aLiteral;
+			}
 			else if (Value.class.isAssignableFrom(theIn.getClass())) {
 				return Value.class.cast(theIn);
 			}
@@ -1569,26 +2063,4 @@ public final class RdfGenerator {
 			}
 		}
 	}
-
-	private static class ContainsResourceValues implements Predicate<Value> {
-		public boolean apply(final Value theValue) {
-			return theValue instanceof Resource;
-		}
-	}
-
-	private static class LanguageFilter implements Predicate<Value> {
-		private String mLangCode;
-
-		private LanguageFilter(final String theLangCode) {
-			mLangCode = theLangCode;
-		}
-
-		public void setLangCode(final String theLangCode) {
-			mLangCode = theLangCode;
-		}
-
-		public boolean apply(final Value theValue) {
-			return theValue instanceof Literal && mLangCode.equals(((Literal)theValue).getLanguage());
-		}
-	}
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.annotation.runtime;
+
+import org.openrdf.model.URI;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <p>A collection of beans for a lazily fetched property which holds only the URIs of its elements until it is first
+ * used.  {@link Collection#size} and {@link Collection#contains} of an element's id are answered from the URIs; any
+ * other access loads all the elements at once, with a query per batch of elements rather than per element.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ * @see LazyList
+ * @see LazySet
+ */
+public interface LazyCollection<T> extends Collection<T> {
+
+	/**
+	 * Return whether or not the elements of the collection have been loaded
+	 * @return true if loaded, false otherwise
+	 */
+	public boolean isLoaded();
+
+	/**
+	 * Return the URIs of the elements the collection was created with.  Once the collection is
+	 * {@link #isLoaded loaded}, changes made to it are not reflected in the keys.
+	 * @return the element URIs
+	 */
+	public List<URI> getKeys();
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.annotation.runtime;
+
+import com.clarkparsia.empire.SupportsRdfId;
+import com.clarkparsia.empire.annotation.RdfGenerator;
+import com.clarkparsia.empire.ds.DataSource;
+import com.clarkparsia.empire.util.EmpireUtil;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>The keys of the elements of a {@link LazyCollection} and what is needed to load them.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+final class LazyElements<T> {
+
+	/**
+	 * The type of the elements
+	 */
+	private final Class<T> mClass;
+
+	/**
+	 * The URIs of the elements
+	 */
+	private final List<URI> mKeys;
+
+	/**
+	 * The URIs of the elements as a set, or null until a membership test needs it
+	 */
+	private Set<URI> mKeySet;
+
+	/**
+	 * The data source to load the elements from, or null once they are loaded
+	 */
+	private DataSource mSource;
+
+	LazyElements(final Class<T> theClass, final List<URI> theKeys, final DataSource theSource) {
+		mClass = theClass;
+		mKeys = Collections.unmodifiableList(theKeys);
+		mSource = theSource;
+	}
+
+	List<URI> getKeys() {
+		return mKeys;
+	}
+
+	int size() {
+		return mKeys.size();
+	}
+
+	/**
+	 * Return whether or not the object is the id of one of the elements, or an entity with one of those ids
+	 * @param theObj the object
+	 * @return true if it is one of the elements, false if it is not, or null if its id cannot be determined without
+	 * loading the elements
+	 */
+	Boolean containsKey(final Object theObj) {
+		Resource aKey = keyOf(theObj);
+
+		if (aKey == null) {
+			return null;
+		}
+
+		if (mKeySet == null) {
+			mKeySet = new HashSet<URI>(mKeys);
+		}
+
+		return Boolean.valueOf(mKeySet.contains(aKey));
+	}
+
+	/**
+	 * Load all of the elements
+	 * @return the elements, in the order of their keys
+	 */
+	List<T> load() {
+		try {
+			return RdfGenerator.fromRdfAll(mClass, mKeys, mSource);
+		}
+		catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+		finally {
+			mSource = null;
+			mKeySet = null;
+		}
+	}
+
+	private static Resource keyOf(final Object theObj) {
+		if (theObj instanceof URI) {
+			return (URI) theObj;
+		}
+		else if (theObj instanceof SupportsRdfId || theObj instanceof SupportsRdfId.RdfKey || theObj instanceof java.net.URI) {
+			return EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theObj));
+		}
+		else {
+			return null;
+		}
+	}
+}
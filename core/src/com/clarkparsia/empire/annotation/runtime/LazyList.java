@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.annotation.runtime;
+
+import com.clarkparsia.empire.ds.DataSource;
+
+import org.openrdf.model.URI;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>{@link LazyCollection} implementing {@link List}.  Once loaded, the elements are kept in an {@link ArrayList}
+ * in the order of their keys.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+public class LazyList<T> extends AbstractList<T> implements LazyCollection<T> {
+
+	/**
+	 * The keys of the elements
+	 */
+	private final LazyElements<T> mElements;
+
+	/**
+	 * The elements, or null until they are loaded
+	 */
+	private List<T> mList;
+
+	/**
+	 * Create a new LazyList
+	 * @param theClass the type of the elements
+	 * @param theKeys the URIs of the elements
+	 * @param theSource the data source to load the elements from
+	 */
+	public LazyList(final Class<T> theClass, final List<URI> theKeys, final DataSource theSource) {
+		mElements = new LazyElements<T>(theClass, theKeys, theSource);
+	}
+
+	/**
+	 * Return the elements, loading them if this is the first time they are needed
+	 * @return the elements
+	 */
+	private List<T> list() {
+		if (mList == null) {
+			mList = new ArrayList<T>(mElements.load());
+		}
+
+		return mList;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean isLoaded() {
+		return mList != null;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public List<URI> getKeys() {
+		return mElements.getKeys();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int size() {
+		return isLoaded() ? mList.size() : mElements.size();
+	}
+
+	/**
+	 * Returns whether or not the object is in the list.  Until the list is loaded, an entity, or its id, is looked up
+	 * by id rather than with {@link Object#equals}.
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Object theObj) {
+		if (!isLoaded()) {
+			Boolean aContains = mElements.containsKey(theObj);
+
+			if (aContains != null) {
+				return aContains.booleanValue();
+			}
+		}
+
+		return list().contains(theObj);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public T get(final int theIndex) {
+		return list().get(theIndex);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public T set(final int theIndex, final T theElement) {
+		return list().set(theIndex, theElement);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void add(final int theIndex, final T theElement) {
+		list().add(theIndex, theElement);
+		modCount++;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public T remove(final int theIndex) {
+		T aElement = list().remove(theIndex);
+		modCount++;
+
+		return aElement;
+	}
+
+	/**
+	 * Clears the list without loading it
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		mList = new ArrayList<T>();
+		modCount++;
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.annotation.runtime;
+
+import com.clarkparsia.empire.ds.DataSource;
+
+import org.openrdf.model.URI;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>{@link LazyCollection} implementing {@link Set}.  Once loaded, the elements are kept in a {@link LinkedHashSet}
+ * in the order of their keys, so the size of the set can shrink on loading if distinct individuals are converted to
+ * equal beans.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+public class LazySet<T> extends AbstractSet<T> implements LazyCollection<T> {
+
+	/**
+	 * The keys of the elements
+	 */
+	private final LazyElements<T> mElements;
+
+	/**
+	 * The elements, or null until they are loaded
+	 */
+	private Set<T> mSet;
+
+	/**
+	 * Create a new LazySet
+	 * @param theClass the type of the elements
+	 * @param theKeys the URIs of the elements
+	 * @param theSource the data source to load the elements from
+	 */
+	public LazySet(final Class<T> theClass, final List<URI> theKeys, final DataSource theSource) {
+		mElements = new LazyElements<T>(theClass, theKeys, theSource);
+	}
+
+	/**
+	 * Return the elements, loading them if this is the first time they are needed
+	 * @return the elements
+	 */
+	private Set<T> set() {
+		if (mSet == null) {
+			mSet = new LinkedHashSet<T>(mElements.load());
+		}
+
+		return mSet;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean isLoaded() {
+		return mSet != null;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public List<URI> getKeys() {
+		return mElements.getKeys();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int size() {
+		return isLoaded() ? mSet.size() : mElements.size();
+	}
+
+	/**
+	 * Returns whether or not the object is in the set.  Until the set is loaded, an entity, or its id, is looked up
+	 * by id rather than with {@link Object#equals}.
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Object theObj) {
+		if (!isLoaded()) {
+			Boolean aContains = mElements.containsKey(theObj);
+
+			if (aContains != null) {
+				return aContains.booleanValue();
+			}
+		}
+
+		return set().contains(theObj);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Iterator<T> iterator() {
+		return set().iterator();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final T theElement) {
+		return set().add(theElement);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theObj) {
+		return set().remove(theObj);
+	}
+
+	/**
+	 * Clears the set without loading it
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		mSet = new LinkedHashSet<T>();
+	}
+}
@@ -0,0 +1,624 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.codegen;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Generates {@link PropertyAccessor PropertyAccessors} for the fields and methods of beans.  Where the field or
+ * method can be reached from its own package, the accessor is a generated class in that package which reads and
+ * writes the property with direct field access or method calls, avoiding java.lang.reflect altogether.  A private
+ * field is read and written through the public getter and setter of its bean property, when the class has them.
+ * Anything else that cannot be reached from generated code gets an accessor which uses reflection on a private copy
+ * of the field or method made accessible once, rather than toggling its accessibility on every call.</p>
+ *
+ * <p>Accessors are generated on first use and cached until the class they access is unloaded, or memory runs low.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version 0.7.3
+ */
+public final class AccessorGenerator {
+	/**
+	 * The logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(AccessorGenerator.class);
+
+	/**
+	 * The accessors created so far, keyed by the class which declares the field or method they access, then by the
+	 * field or method.  Fields and methods are compared with equals rather than identity since reflection returns a
+	 * new copy on every lookup, so the weak keys are the classes.  The accessors of a class refer to it, and a
+	 * generated accessor is defined in its class loader, so the values are soft rather than strong, otherwise they
+	 * would keep the keys reachable.
+	 */
+	private static final ConcurrentMap<Class<?>, ConcurrentMap<AccessibleObject, PropertyAccessor>> ACCESSORS = new MapMaker().weakKeys().softValues().makeMap();
+
+	/**
+	 * Used to give each generated class a unique name
+	 */
+	private static final AtomicInteger COUNTER = new AtomicInteger();
+
+	/**
+	 * Primitive types and the name of the wrapper type, the method which unboxes it and, if there is one, the
+	 * {@link PropertyAccessor} method which sets it without boxing
+	 */
+	private static final Map<Class<?>, String[]> PRIMITIVES = ImmutableMap.<Class<?>, String[]>builder()
+		.put(Boolean.TYPE, new String[] { "java.lang.Boolean", "booleanValue", "setBoolean" })
+		.put(Byte.TYPE, new String[] { "java.lang.Byte", "byteValue", "setByte" })
+		.put(Character.TYPE, new String[] { "java.lang.Character", "charValue" })
+		.put(Short.TYPE, new String[] { "java.lang.Short", "shortValue", "setShort" })
+		.put(Integer.TYPE, new String[] { "java.lang.Integer", "intValue", "setInt" })
+		.put(Long.TYPE, new String[] { "java.lang.Long", "longValue", "setLong" })
+		.put(Float.TYPE, new String[] { "java.lang.Float", "floatValue", "setFloat" })
+		.put(Double.TYPE, new String[] { "java.lang.Double", "doubleValue", "setDouble" })
+		.build();
+
+	/**
+	 * No instances
+	 */
+	private AccessorGenerator() {
+	}
+
+	/**
+	 * Return the accessor for the given field or method, generating it if this is the first time it has been requested.
+	 * @param theAccessor the field or method
+	 * @return the accessor for it
+	 * @throws IllegalArgumentException if theAccessor is not a Field or Method
+	 */
+	public static PropertyAccessor accessorFor(final AccessibleObject theAccessor) {
+		if (!(theAccessor instanceof Member)) {
+			throw new IllegalArgumentException("Unknown or unsupported accessor type: " + theAccessor);
+		}
+
+		Class<?> aDeclaringClass = ((Member) theAccessor).getDeclaringClass();
+
+		ConcurrentMap<AccessibleObject, PropertyAccessor> aAccessors = ACCESSORS.get(aDeclaringClass);
+
+		if (aAccessors == null) {
+			aAccessors = new ConcurrentHashMap<AccessibleObject, PropertyAccessor>();
+
+			ConcurrentMap<AccessibleObject, PropertyAccessor> aExisting = ACCESSORS.putIfAbsent(aDeclaringClass, aAccessors);
+			if (aExisting != null) {
+				aAccessors = aExisting;
+			}
+		}
+
+		PropertyAccessor aAccessor = aAccessors.get(theAccessor);
+
+		if (aAccessor == null) {
+			aAccessor = newAccessor(theAccessor);
+
+			PropertyAccessor aExisting = aAccessors.putIfAbsent(theAccessor, aAccessor);
+			if (aExisting != null) {
+				aAccessor = aExisting;
+			}
+		}
+
+		return aAccessor;
+	}
+
+	/**
+	 * Create a new accessor which uses reflection to access the field or method
+	 * @param theAccessor the field or method
+	 * @return a reflection based accessor
+	 * @throws IllegalArgumentException if theAccessor is not a Field or Method
+	 */
+	public static PropertyAccessor reflectiveAccessorFor(final AccessibleObject theAccessor) {
+		return new ReflectiveAccessor(theAccessor);
+	}
+
+	private static PropertyAccessor newAccessor(final AccessibleObject theAccessor) {
+		PropertyAccessor aFallback = reflectiveAccessorFor(theAccessor);
+
+		try {
+			GeneratedAccessor aGenerated = generate(theAccessor);
+
+			if (aGenerated != null) {
+				aGenerated.mFallback = aFallback;
+				return aGenerated;
+			}
+		}
+		catch (Exception e) {
+			LOGGER.debug("Could not generate an accessor for {}, using reflection instead: {}", theAccessor, e.getMessage());
+		}
+		catch (LinkageError e) {
+			// the class loader of the bean cannot see our classes, or will not let us define new ones
+			LOGGER.debug("Could not generate an accessor for {}, using reflection instead: {}", theAccessor, e.getMessage());
+		}
+
+		return aFallback;
+	}
+
+	/**
+	 * Generate the bytecode of an accessor for the field or method
+	 * @param theAccessor the field or method
+	 * @return the generated accessor, or null if one cannot be generated for it
+	 * @throws Exception if there is an error while generating the class
+	 */
+	private static GeneratedAccessor generate(final AccessibleObject theAccessor) throws Exception {
+		Member aMember = (Member) theAccessor;
+		Class<?> aDeclaringClass = aMember.getDeclaringClass();
+
+		if (!isReachable(aDeclaringClass) || aDeclaringClass.getClassLoader() == null) {
+			return null;
+		}
+
+		String aGetter = null;
+		String aSetter = null;
+
+		// the type of a primitive property, which is also assigned directly from the primitive setter for its type
+		Class<?> aPrimitive = null;
+		String aPrimitiveSetter = null;
+
+		String aTarget = "((" + sourceName(aDeclaringClass) + ") theObj)";
+
+		if (theAccessor instanceof Field && Modifier.isPrivate(aMember.getModifiers())) {
+			// generated code cannot touch the field, but it can call the getter and setter of the property
+			Field aField = (Field) theAccessor;
+
+			Method aRead = propertyMethod(aField, false);
+			Method aWrite = Modifier.isFinal(aField.getModifiers()) ? null : propertyMethod(aField, true);
+
+			if (aRead != null) {
+				aGetter = getterCall(aRead, aTarget);
+			}
+
+			if (aWrite != null) {
+				aSetter = guard(aField.getType(), setterCall(aWrite, aTarget, unbox(aField.getType(), "theValue")));
+
+				aPrimitive = aField.getType();
+				aPrimitiveSetter = setterCall(aWrite, aTarget, "theValue");
+			}
+		}
+		else if (Modifier.isPrivate(aMember.getModifiers())) {
+			return null;
+		}
+		else if (theAccessor instanceof Field) {
+			Field aField = (Field) theAccessor;
+
+			aGetter = "return " + box(aField.getType(), aTarget + "." + aField.getName()) + ";";
+
+			if (!Modifier.isFinal(aField.getModifiers())) {
+				aSetter = guard(aField.getType(), aTarget + "." + aField.getName() + " = " + unbox(aField.getType(), "theValue") + ";");
+
+				aPrimitive = aField.getType();
+				aPrimitiveSetter = aTarget + "." + aField.getName() + " = theValue;";
+			}
+		}
+		else if (theAccessor instanceof Method) {
+			Method aMethod = (Method) theAccessor;
+
+			if (aMethod.getParameterTypes().length == 0 && !Void.TYPE.equals(aMethod.getReturnType())) {
+				aGetter = getterCall(aMethod, aTarget);
+			}
+			else if (aMethod.getParameterTypes().length == 1) {
+				Class<?> aType = aMethod.getParameterTypes()[0];
+
+				aSetter = guard(aType, setterCall(aMethod, aTarget, unbox(aType, "theValue")));
+
+				aPrimitive = aType;
+				aPrimitiveSetter = setterCall(aMethod, aTarget, "theValue");
+			}
+		}
+
+		if (aGetter == null && aSetter == null) {
+			return null;
+		}
+
+		ClassPool aPool = new ClassPool(true);
+		aPool.appendClassPath(new LoaderClassPath(aDeclaringClass.getClassLoader()));
+		aPool.appendClassPath(new LoaderClassPath(AccessorGenerator.class.getClassLoader()));
+
+		String aName = aDeclaringClass.getName() + "$$EmpireAccessor" + COUNTER.incrementAndGet();
+
+		CtClass aClass = aPool.makeClass(aName, aPool.get(GeneratedAccessor.class.getName()));
+		aClass.addConstructor(CtNewConstructor.defaultConstructor(aClass));
+
+		if (aGetter != null) {
+			aClass.addMethod(CtNewMethod.make("public Object get(Object theObj) { " + aGetter + " }", aClass));
+		}
+
+		if (aSetter != null) {
+			aClass.addMethod(CtNewMethod.make("public void set(Object theObj, Object theValue) { " + aSetter + " }", aClass));
+
+			if (PRIMITIVES.containsKey(aPrimitive) && PRIMITIVES.get(aPrimitive).length > 2) {
+				aClass.addMethod(CtNewMethod.make("public void " + PRIMITIVES.get(aPrimitive)[2] + "(Object theObj, " + aPrimitive.getName() + " theValue) { " + aPrimitiveSetter + " }", aClass));
+			}
+		}
+
+		try {
+			return (GeneratedAccessor) aClass.toClass(aDeclaringClass.getClassLoader(), aDeclaringClass.getProtectionDomain()).newInstance();
+		}
+		finally {
+			aClass.detach();
+		}
+	}
+
+	/**
+	 * Return the public getter or setter of the bean property backed by the field.  The property is named after the
+	 * field, without the leading <code>m</code> of a field such as <code>mName</code>, and its getter and setter must
+	 * take or return exactly the type of the field.
+	 * @param theField the field
+	 * @param theSetter true to look for the setter, false for the getter
+	 * @return the method, or null if the class does not have one
+	 */
+	private static Method propertyMethod(final Field theField, final boolean theSetter) {
+		String aName = theField.getName();
+
+		Set<String> aProperties = new LinkedHashSet<String>();
+		aProperties.add(aName);
+
+		if (aName.length() > 1 && aName.charAt(0) == 'm' && Character.isUpperCase(aName.charAt(1))) {
+			aProperties.add(aName.substring(1));
+		}
+
+		Method aMatch = null;
+
+		for (Method aMethod : theField.getDeclaringClass().getMethods()) {
+			if (Modifier.isStatic(aMethod.getModifiers()) || aMethod.isBridge() || aMethod.isSynthetic()) {
+				continue;
+			}
+
+			boolean isAccessor = theSetter
+								 ? aMethod.getParameterTypes().length == 1 && aMethod.getParameterTypes()[0].equals(theField.getType())
+								 : aMethod.getParameterTypes().length == 0 && aMethod.getReturnType().equals(theField.getType());
+
+			if (!isAccessor) {
+				continue;
+			}
+
+			for (String aProperty : aProperties) {
+				for (String aPrefix : theSetter ? new String[] { "set" } : isBoolean(theField.getType()) ? new String[] { "get", "is" } : new String[] { "get" }) {
+					String aMethodName = aPrefix + Character.toUpperCase(aProperty.charAt(0)) + aProperty.substring(1);
+
+					if (aMethod.getName().equals(aMethodName)) {
+						// an exact match wins over one which differs in case, such as getMBox for the field mbox
+						return aMethod;
+					}
+					else if (aMatch == null && aMethod.getName().equalsIgnoreCase(aMethodName)) {
+						aMatch = aMethod;
+					}
+				}
+			}
+		}
+
+		return aMatch;
+	}
+
+	private static boolean isBoolean(final Class<?> theType) {
+		return Boolean.TYPE.equals(theType) || Boolean.class.equals(theType);
+	}
+
+	/**
+	 * Return the body of a generated get which returns the result of the getter
+	 */
+	private static String getterCall(final Method theGetter, final String theTarget) {
+		return "try { return " + box(theGetter.getReturnType(), theTarget + "." + theGetter.getName() + "()") + "; } " +
+			   "catch (java.lang.Throwable e) { throw new java.lang.reflect.InvocationTargetException(e); }";
+	}
+
+	/**
+	 * Return the statement of a generated set which passes theArg to the setter
+	 */
+	private static String setterCall(final Method theSetter, final String theTarget, final String theArg) {
+		return "try { " + theTarget + "." + theSetter.getName() + "(" + theArg + "); } " +
+			   "catch (java.lang.Throwable e) { throw new java.lang.reflect.InvocationTargetException(e); }";
+	}
+
+	/**
+	 * Return whether or not the class can be referenced by a class generated in the same package
+	 * @param theClass the class
+	 * @return true if it can be referenced, false otherwise
+	 */
+	static boolean isReachable(final Class<?> theClass) {
+		for (Class<?> aClass = theClass; aClass != null; aClass = aClass.getEnclosingClass()) {
+			if (Modifier.isPrivate(aClass.getModifiers()) || aClass.isAnonymousClass() || aClass.isLocalClass()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Wrap the assignment of theValue so that it is only performed directly when the value is of the expected type.
+	 * Anything else goes through reflection, which applies the widening conversions and reports mismatches in the
+	 * same way as {@link Field#set}.
+	 */
+	private static String guard(final Class<?> theType, final String theAssignment) {
+		String aCondition = theType.isPrimitive()
+							? "theValue instanceof " + PRIMITIVES.get(theType)[0]
+							: "theValue == null || theValue instanceof " + sourceName(theType);
+
+		return "if (" + aCondition + ") { " + theAssignment + " } else { fallbackSet(theObj, theValue); }";
+	}
+
+	static String box(final Class<?> theType, final String theExpr) {
+		return theType.isPrimitive() ? PRIMITIVES.get(theType)[0] + ".valueOf(" + theExpr + ")" : theExpr;
+	}
+
+	static String unbox(final Class<?> theType, final String theExpr) {
+		return theType.isPrimitive()
+			   ? "((" + PRIMITIVES.get(theType)[0] + ") " + theExpr + ")." + PRIMITIVES.get(theType)[1] + "()"
+			   : "(" + sourceName(theType) + ") " + theExpr;
+	}
+
+	static String sourceName(final Class<?> theClass) {
+		return theClass.isArray() ? sourceName(theClass.getComponentType()) + "[]" : theClass.getName();
+	}
+
+	/**
+	 * <p>Base class of generated accessors.  Generated classes override whichever of get and set can be done
+	 * directly, everything else is handled with reflection.</p>
+	 */
+	public abstract static class GeneratedAccessor implements PropertyAccessor {
+		private PropertyAccessor mFallback;
+
+		/**
+		 * @inheritDoc
+		 */
+		public Object get(final Object theObj) throws IllegalAccessException, InvocationTargetException {
+			return mFallback.get(theObj);
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void set(final Object theObj, final Object theValue) throws IllegalAccessException, InvocationTargetException {
+			fallbackSet(theObj, theValue);
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void setBoolean(final Object theObj, final boolean theValue) throws IllegalAccessException, InvocationTargetException {
+			set(theObj, Boolean.valueOf(theValue));
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void setByte(final Object theObj, final byte theValue) throws IllegalAccessException, InvocationTargetException {
+			set(theObj, Byte.valueOf(theValue));
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void setShort(final Object theObj, final short theValue) throws IllegalAccessException, InvocationTargetException {
+			set(theObj, Short.valueOf(theValue));
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void setInt(final Object theObj, final int theValue) throws IllegalAccessException, InvocationTargetException {
+			set(theObj, Integer.valueOf(theValue));
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void setLong(final Object theObj, final long theValue) throws IllegalAccessException, InvocationTargetException {
+			set(theObj, Long.valueOf(theValue));
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void setFloat(final Object theObj, final float theValue) throws IllegalAccessException, InvocationTargetException {
+			set(theObj, Float.valueOf(theValue));
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void setDouble(final Object theObj, final double theValue) throws IllegalAccessException, InvocationTargetException {
+			set(theObj, Double.valueOf(theValue));
+		}
+
+		/**
+		 * Set the value using reflection
+		 * @param theObj the object to set the value on
+		 * @param theValue the new value
+		 * @throws IllegalAccessException thrown if the field or method cannot be accessed
+		 * @throws InvocationTargetException thrown if the setter method throws an exception
+		 */
+		protected final void fallbackSet(final Object theObj, final Object theValue) throws IllegalAccessException, InvocationTargetException {
+			mFallback.set(theObj, theValue);
+		}
+	}
+
+	/**
+	 * <p>Accessor which uses reflection.  It works on its own copy of the field or method so that it can leave it
+	 * accessible without affecting anyone else using the original.</p>
+	 */
+	private static final class ReflectiveAccessor implements PropertyAccessor {
+		private final Field mField;
+		private final Method mMethod;
+
+		private ReflectiveAccessor(final AccessibleObject theAccessor) {
+			if (theAccessor instanceof Field) {
+				Field aField = (Field) theAccessor;
+
+				try {
+					aField = aField.getDeclaringClass().getDeclaredField(aField.getName());
+				}
+				catch (NoSuchFieldException e) {
+					// can't happen, we're looking up a field we already have
+				}
+
+				mField = aField;
+				mMethod = null;
+			}
+			else if (theAccessor instanceof Method) {
+				Method aMethod = (Method) theAccessor;
+
+				try {
+					aMethod = aMethod.getDeclaringClass().getDeclaredMethod(aMethod.getName(), aMethod.getParameterTypes());
+				}
+				catch (NoSuchMethodException e) {
+					// can't happen, we're looking up a method we already have
+				}
+
+				mField = null;
+				mMethod = aMethod;
+			}
+			else {
+				throw new IllegalArgumentException("Unknown or unsupported accessor type: " + theAccessor);
+			}
+
+			try {
+				(mField != null ? mField : mMethod).setAccessible(true);
+			}
+			catch (SecurityException e) {
+				// we'll get an IllegalAccessException when it's used if it really is not accessible
+			}
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public Object get(final Object theObj) throws IllegalAccessException, InvocationTargetException {
+			return mField != null ? mField.get(theObj) : mMethod.invoke(theObj);
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void set(final Object theObj, final Object theValue) throws IllegalAccessException, InvocationTargetException {
+			if (mField != null) {
+				mField.set(theObj, theValue);
+			}
+			else {
+				mMethod.invoke(theObj, theValue);
+			}
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void setBoolean(final Object theObj, final boolean theValue) throws IllegalAccessException, InvocationTargetException {
+			if (isPrimitiveField()) {
+				mField.setBoolean(theObj, theValue);
+			}
+			else {
+				set(theObj, Boolean.valueOf(theValue));
+			}
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void setByte(final Object theObj, final byte theValue) throws IllegalAccessException, InvocationTargetException {
+			if (isPrimitiveField()) {
+				mField.setByte(theObj, theValue);
+			}
+			else {
+				set(theObj, Byte.valueOf(theValue));
+			}
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void setShort(final Object theObj, final short theValue) throws IllegalAccessException, InvocationTargetException {
+			if (isPrimitiveField()) {
+				mField.setShort(theObj, theValue);
+			}
+			else {
+				set(theObj, Short.valueOf(theValue));
+			}
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void setInt(final Object theObj, final int theValue) throws IllegalAccessException, InvocationTargetException {
+			if (isPrimitiveField()) {
+				mField.setInt(theObj, theValue);
+			}
+			else {
+				set(theObj, Integer.valueOf(theValue));
+			}
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void setLong(final Object theObj, final long theValue) throws IllegalAccessException, InvocationTargetException {
+			if (isPrimitiveField()) {
+				mField.setLong(theObj, theValue);
+			}
+			else {
+				set(theObj, Long.valueOf(theValue));
+			}
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void setFloat(final Object theObj, final float theValue) throws IllegalAccessException, InvocationTargetException {
+			if (isPrimitiveField()) {
+				mField.setFloat(theObj, theValue);
+			}
+			else {
+				set(theObj, Float.valueOf(theValue));
+			}
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public void setDouble(final Object theObj, final double theValue) throws IllegalAccessException, InvocationTargetException {
+			if (isPrimitiveField()) {
+				mField.setDouble(theObj, theValue);
+			}
+			else {
+				set(theObj, Double.valueOf(theValue));
+			}
+		}
+
+		private boolean isPrimitiveField() {
+			return mField != null && mField.getType().isPrimitive();
+		}
+	}
+}
@@ -17,6 +17,11 @@ package com.clarkparsia.empire.codegen;
 
 import com.google.common.collect.Sets;
 import com.google.common.base.Predicate;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import javassist.ClassPool;
 import javassist.CtClass;
 import javassist.CtNewConstructor;
@@ -38,6 +43,8 @@ import java.util.HashMap;
 import java.util.Arrays;
 import java.util.Collection;
 
+import java.util.concurrent.ExecutionException;
+
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 
@@ -55,7 +62,9 @@ import sun.reflect.generics.reflectiveObjects.ParameterizedTypeImpl;
 import sun.reflect.generics.reflectiveObjects.WildcardTypeImpl;
 
 /**
- * <p>Generate implementations of interfaces at runtime via bytecode manipulation.</p>
+ * <p>Generate implementations of interfaces at runtime via bytecode manipulation.  Implementations generated at build
+ * time by the {@link com.clarkparsia.empire.util.apt.EmpireAnnotationProcessor annotation processor} are used in
+ * preference to generating them.</p>
  *
  * @author	Michael Grove
  * @since	0.5.1
@@ -64,7 +73,22 @@ import sun.reflect.generics.reflectiveObjects.WildcardTypeImpl;
 public final class InstanceGenerator {
 	private static final Logger LOGGER = LoggerFactory.getLogger(BeanGenerator.class);
 
-	private static final Collection<Method> processedMethods = Sets.newHashSet();
+	/**
+	 * The implementation classes generated so far, keyed by the class they implement.  Since a class is identified by
+	 * its name and its class loader, each class loader gets its own implementations.  The cache loads each class only
+	 * once, however many threads ask for it.  Both the keys and the values are weak so that the cache does not keep
+	 * a class loader, and the classes it defined, from being unloaded; an implementation dropped from the cache while
+	 * its loader is still alive is found again in the loader rather than generated a second time.
+	 */
+	private static final LoadingCache<Class<?>, Class<?>> GENERATED = CacheBuilder.newBuilder()
+		.weakKeys()
+		.weakValues()
+		.build(new CacheLoader<Class<?>, Class<?>>() {
+			@Override
+			public Class<?> load(final Class<?> theInterface) throws Exception {
+				return generate(theInterface);
+			}
+		});
 
 	/**
 	 * No instances
@@ -79,48 +103,87 @@ public final class InstanceGenerator {
 	 *
 	 * <p>If there are other non-bean style (getter and/or setter's for properties) methods on the interface, this will
 	 * likely fail to generate the instance.</p>
+	 *
+	 * <p>The class is generated the first time it is requested and the same class is returned from then on.</p>
 	 * @param theInterface the interface to build an instance of
 	 * @param <T> the type of the interface
 	 * @return New dynamically generated bytecode of a class that implements the given interface.
 	 * @throws Exception if there is an error while generating the bytecode of the new class.
 	 */
-	public synchronized static <T> Class<T> generateInstanceClass(Class<T> theInterface) throws Exception {
-		processedMethods.clear();
+	@SuppressWarnings("unchecked")
+	public static <T> Class<T> generateInstanceClass(final Class<T> theInterface) throws Exception {
+		try {
+			// failures are not cached, the class might be generated successfully next time
+			return (Class<T>) GENERATED.get(theInterface);
+		}
+		catch (UncheckedExecutionException e) {
+			throw (RuntimeException) e.getCause();
+		}
+		catch (ExecutionError e) {
+			throw (Error) e.getCause();
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			else {
+				throw e;
+			}
+		}
+	}
 
-		// TODO: can we use some sort of template language for this?
+	/**
+	 * Return the implementation of the class, either one which already exists in its class loader, or a newly
+	 * generated one
+	 * @param theInterface the interface to build an instance of
+	 * @param <T> the type of the interface
+	 * @return the implementation class
+	 * @throws Exception if there is an error while generating the bytecode of the new class.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Class<T> generate(final Class<T> theInterface) throws Exception {
+		if (!SupportsRdfId.class.isAssignableFrom(theInterface)) {
+			throw new IllegalArgumentException("Class '" + theInterface.getName() + "' does not implement SupportsRdfId, cannot generate Empire suitable implementation.");
+		}
 
-		ClassPool aPool = ClassPool.getDefault();
+		String aName = implementationName(theInterface);
 
-		aPool.appendClassPath(new LoaderClassPath(theInterface.getClassLoader()));
+		try {
+			// the implementation was already defined in the class loader, either generated at build time by the
+			// annotation processor, or by an earlier run
+			Class<?> aExisting = Class.forName(aName, true, theInterface.getClassLoader());
 
-		CtClass aInterface = aPool.get(theInterface.getName());
-		CtClass aSupportsRdfIdInterface = aPool.get(SupportsRdfId.class.getName());
-		CtClass aEmpireGeneratedInterface = aPool.get(EmpireGenerated.class.getName());
+			if (!theInterface.isAssignableFrom(aExisting) || !EmpireGenerated.class.isAssignableFrom(aExisting)) {
+				throw new IllegalArgumentException("Class '" + aName + "' already exists, but is not an implementation of '" + theInterface.getName() + "'");
+			}
 
-		if (!Arrays.asList(aInterface.getInterfaces()).contains(aSupportsRdfIdInterface)
-			&& !SupportsRdfId.class.isAssignableFrom(theInterface)) {
-			throw new IllegalArgumentException("Class '" + theInterface.getName() + "' does not implement SupportsRdfId, cannot generate Empire suitable implementation.");
-		}
+			LOGGER.debug("Using existing implementation {} of {}", aName, theInterface);
 
-		String aName = aInterface.getPackageName()+ ".impl." + aInterface.getSimpleName() + "Impl";
-		CtClass aClass = null;
-		
-		try {
-			//  i had a good reason for doing this, but i dont remember what it is.  when i do, i'll explain it here =)
-			
-			aClass = aPool.get(aName);
-			return (Class<T>) BeanReflectUtil.loadClass(aName);
-		}
-		catch (NotFoundException e) {
-			aClass = aPool.makeClass(aInterface.getPackageName()+ ".impl." + aInterface.getSimpleName() + "Impl");
+			return (Class<T>) aExisting;
 		}
 		catch (ClassNotFoundException e) {
-			throw new Exception("Previously created class cannot be loaded.", e);
+			// we'll generate it
 		}
 
-		if (aClass.isFrozen()) {
-			aClass.defrost();
-		}
+		// TODO: can we use some sort of template language for this?
+
+		// a pool of our own, rather than the default pool, so that nothing of the class or its class loader is kept
+		// once the class is generated
+		ClassPool aPool = new ClassPool(true);
+		aPool.appendClassPath(new LoaderClassPath(theInterface.getClassLoader()));
+		aPool.appendClassPath(new LoaderClassPath(InstanceGenerator.class.getClassLoader()));
+
+		CtClass aInterface = aPool.get(theInterface.getName());
+		CtClass aSupportsRdfIdInterface = aPool.get(SupportsRdfId.class.getName());
+		CtClass aEmpireGeneratedInterface = aPool.get(EmpireGenerated.class.getName());
+
+		CtClass aClass = aPool.makeClass(aName);
+
+		// the methods implemented so far, so the same method is not implemented again for a super interface
+		Collection<Method> aProcessed = Sets.newHashSet();
 
 		if (aInterface.isInterface()) {
 			aClass.addInterface(aInterface);
@@ -143,8 +206,8 @@ public final class InstanceGenerator {
 		
 		aClass.addConstructor(CtNewConstructor.defaultConstructor(aClass));
 		
-		generateMethods(theInterface, aPool, aClass);
-		generateMethodsForSuperInterfaces(theInterface, aPool, aClass);
+		generateMethods(theInterface, aPool, aClass, aProcessed);
+		generateMethodsForSuperInterfaces(theInterface, aPool, aClass, aProcessed);
 
 		CtField aIdField = new CtField(aPool.get(SupportsRdfId.class.getName()), "supportsId", aClass);
 		aClass.addField(aIdField, CtField.Initializer.byExpr("new com.clarkparsia.empire.annotation.SupportsRdfIdImpl();"));		
@@ -193,47 +256,53 @@ public final class InstanceGenerator {
 			aClass.addMethod(CtNewMethod.make("public int hashCode() { return getRdfId() != null ? getRdfId().hashCode() : 0; } ", aClass));
 		}
 
-		aClass.freeze();
-
-		Class<T> aResult = null;
+		Class<T> aResult;
 		try {
-			aResult = (Class<T>) aClass.toClass();
+			aResult = (Class<T>) aClass.toClass(theInterface.getClassLoader(), theInterface.getProtectionDomain());
 		}
-		catch (CannotCompileException e) {
-			throw e;
+		finally {
+			aClass.detach();
 		}
 
-		try {
-			// make sure this is a valid class, that is, we can create instances of it!
-			aResult.newInstance();
-		}
-		catch (Exception ex) {
-			// TODO: log this?
-			throw ex;
-		}
+		// make sure this is a valid class, that is, we can create instances of it!
+		aResult.newInstance();
 
 		return aResult;
 	}
 	
+	/**
+	 * Return the name of the implementation of the class; the simple name of the class with an "Impl" suffix, in the
+	 * "impl" sub-package of the package of the class.
+	 * @param theInterface the class
+	 * @return the name of its implementation
+	 */
+	static String implementationName(final Class<?> theInterface) {
+		String aName = theInterface.getName();
+		int aIndex = aName.lastIndexOf('.');
+
+		return (aIndex == -1 ? "" : aName.substring(0, aIndex + 1)) + "impl." + aName.substring(aIndex + 1) + "Impl";
+	}
+
 	/**
 	 * For all the parent interfaces of a class, generate implementations of all their methods.  And for their parents, do the same, and the same for their parents, and so on...
 	 * @param theInterface the interface
 	 * @param thePool the class pool to use
 	 * @param theCtClass the concrete implementation of the interface(s)
+	 * @param theProcessed the methods which have already been implemented
 	 * @param <T> the type of the interface
 	 * @throws NotFoundException thrown if there is an error generating the methods
 	 * @throws CannotCompileException thrown if there is an error generating the methods
 	 */
-	private static <T> void generateMethodsForSuperInterfaces(final Class<T> theInterface, ClassPool thePool, CtClass theCtClass) throws NotFoundException, CannotCompileException {
+	private static <T> void generateMethodsForSuperInterfaces(final Class<T> theInterface, ClassPool thePool, CtClass theCtClass, final Collection<Method> theProcessed) throws NotFoundException, CannotCompileException {
 		if (theInterface.getSuperclass() != null) {
-			generateMethods(theInterface.getSuperclass(), thePool, theCtClass);
-			generateMethodsForSuperInterfaces(theInterface.getSuperclass(), thePool, theCtClass);
+			generateMethods(theInterface.getSuperclass(), thePool, theCtClass, theProcessed);
+			generateMethodsForSuperInterfaces(theInterface.getSuperclass(), thePool, theCtClass, theProcessed);
 		}
 		
 		for (Class<?> aSuperInterface : theInterface.getInterfaces()) {
-			generateMethods(aSuperInterface, thePool, theCtClass);
+			generateMethods(aSuperInterface, thePool, theCtClass, theProcessed);
 
-			generateMethodsForSuperInterfaces(aSuperInterface, thePool, theCtClass);
+			generateMethodsForSuperInterfaces(aSuperInterface, thePool, theCtClass, theProcessed);
 		}
 	}
 
@@ -242,12 +311,13 @@ public final class InstanceGenerator {
 	 * @param theInterface the interface
 	 * @param thePool the class pool
 	 * @param theClass the concrete implementation of the interface
+	 * @param theProcessed the methods which have already been implemented
 	 * @param <T> the type of the interface
 	 * @throws CannotCompileException thrown if there is an error generating the methods
 	 * @throws NotFoundException thrown if there is an error generating the methods
 	 */
-	private static <T> void generateMethods(final Class<T> theInterface, final ClassPool thePool, final CtClass theClass) throws CannotCompileException, NotFoundException {
-		Map<String, CtField> aProps = properties(thePool, theClass, theInterface);
+	private static <T> void generateMethods(final Class<T> theInterface, final ClassPool thePool, final CtClass theClass, final Collection<Method> theProcessed) throws CannotCompileException, NotFoundException {
+		Map<String, CtField> aProps = properties(thePool, theClass, theInterface, theProcessed);
 
 		for (String aProp : aProps.keySet()) {
 			//CtField aNewField = new CtField(thePool.get(aProps.get(aProp).getName()), aProp, theClass);
@@ -492,11 +562,12 @@ public final class InstanceGenerator {
 	 * @param thePool the class pool to use when creating new fields
 	 * @param theClass the class the new fields will belong to
 	 * @param theInterface the original bean class
+	 * @param theProcessed the methods which have already been implemented, the methods of the class are added to it
 	 * @return a Map of the bean property names with the new field for the property as the value
 	 * @throws javassist.CannotCompileException thrown if there is an error generating the methods
 	 * @throws javassist.NotFoundException thrown if there is an error generating the methods
 	 */
-	private static <T> Map<String, CtField> properties(final ClassPool thePool, final CtClass theClass, final Class<T> theInterface) throws NotFoundException, CannotCompileException {
+	private static <T> Map<String, CtField> properties(final ClassPool thePool, final CtClass theClass, final Class<T> theInterface, final Collection<Method> theProcessed) throws NotFoundException, CannotCompileException {
 		Map<String, CtField> aMap = new HashMap<String, CtField>();
 
 		for (Method aMethod : theInterface.getDeclaredMethods()) {
@@ -505,9 +576,7 @@ public final class InstanceGenerator {
 			// what we want is the semantics of isAssignableFrom, not .equals between the classes declaring the methods.  Thus, the FINDER
 			// predicate implementation does exactly that.  It's a copy of the Method.equals function, but with the .equals for the declaring
 			// class changed to isAssignableFrom so we get the expected behavior.
-			FINDER.method = aMethod;
-
-			if (Iterables2.find(processedMethods, FINDER)) {
+			if (Iterables2.find(theProcessed, new FinderPredicate(aMethod))) {
 				continue;
 			}
 
@@ -515,7 +584,7 @@ public final class InstanceGenerator {
 			if (!Modifier.isAbstract(aMethod.getModifiers())) {
 
 				// mark the method as one we've already handled in case we get this method again on a superclass/interface
-				processedMethods.add(aMethod);
+				theProcessed.add(aMethod);
 				continue;
 			}
 
@@ -588,16 +657,18 @@ public final class InstanceGenerator {
 			}
 
 			// mark the method as one we've already handled in case we get this method again on a superclass/interface
-			processedMethods.add(aMethod);
+			theProcessed.add(aMethod);
 		}
 
 		return aMap;
 	}
 
-	private static final FinderPredicate FINDER = new FinderPredicate();
-
 	private static class FinderPredicate implements Predicate<Method> {
-		Method method;
+		private final Method method;
+
+		private FinderPredicate(final Method theMethod) {
+			method = theMethod;
+		}
 
 		public boolean apply(final Method theValue) {
 			return overrideEquals(theValue, method);
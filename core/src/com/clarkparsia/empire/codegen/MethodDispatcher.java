@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.codegen;
+
+import com.google.common.collect.MapMaker;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Invokes the public methods of a class on an instance given the {@link Method}, as a proxy handler needs to.
+ * The dispatcher for a class is generated once, in the package of the class, and calls each method directly from a
+ * switch on its index, so forwarding a call costs a map lookup rather than a trip through
+ * {@link Method#invoke}.  Methods which cannot be called from generated code, and classes for which a dispatcher
+ * cannot be generated, are invoked with reflection.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version 0.7.3
+ */
+public abstract class MethodDispatcher {
+	/**
+	 * The logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(MethodDispatcher.class);
+
+	/**
+	 * The dispatchers created so far, keyed by the class whose methods they invoke.  The keys are weak so that the map
+	 * does not keep a class, or its class loader, from being unloaded.  A dispatcher refers to the methods of its class
+	 * and a generated one is defined in the class loader of the class, so the values are soft rather than strong,
+	 * otherwise they would keep the keys reachable.
+	 */
+	private static final ConcurrentMap<Class<?>, MethodDispatcher> DISPATCHERS = new MapMaker().weakKeys().softValues().makeMap();
+
+	/**
+	 * Used to give each generated class a unique name
+	 */
+	private static final AtomicInteger COUNTER = new AtomicInteger();
+
+	/**
+	 * The index of each method called directly by the generated {@link #invoke(int, Object, Object[])}
+	 */
+	private Map<Method, Integer> mIndexes = Collections.emptyMap();
+
+	/**
+	 * Return the dispatcher for the given class, generating it if this is the first time it has been requested.
+	 * @param theClass the class
+	 * @return the dispatcher for the methods of the class
+	 */
+	public static MethodDispatcher dispatcherFor(final Class<?> theClass) {
+		MethodDispatcher aDispatcher = DISPATCHERS.get(theClass);
+
+		if (aDispatcher == null) {
+			aDispatcher = newDispatcher(theClass);
+
+			MethodDispatcher aExisting = DISPATCHERS.putIfAbsent(theClass, aDispatcher);
+			if (aExisting != null) {
+				aDispatcher = aExisting;
+			}
+		}
+
+		return aDispatcher;
+	}
+
+	/**
+	 * Invoke the method on the target
+	 * @param theMethod the method
+	 * @param theTarget the object to invoke the method on
+	 * @param theArgs the arguments of the call
+	 * @return the result of the call, boxed if it is a primitive, or null for a void method
+	 * @throws Throwable whatever the method throws
+	 */
+	public final Object invoke(final Method theMethod, final Object theTarget, final Object[] theArgs) throws Throwable {
+		Integer aIndex = mIndexes.get(theMethod);
+
+		if (aIndex != null) {
+			return invoke(aIndex.intValue(), theTarget, theArgs);
+		}
+
+		try {
+			return theMethod.invoke(theTarget, theArgs);
+		}
+		catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Invoke the method with the given index on the target.  Implemented by the generated subclasses.
+	 * @param theIndex the index of the method
+	 * @param theTarget the object to invoke the method on
+	 * @param theArgs the arguments of the call
+	 * @return the result of the call, boxed if it is a primitive, or null for a void method
+	 * @throws Throwable whatever the method throws
+	 */
+	protected Object invoke(final int theIndex, final Object theTarget, final Object[] theArgs) throws Throwable {
+		throw new IllegalArgumentException("No method with index " + theIndex);
+	}
+
+	private static MethodDispatcher newDispatcher(final Class<?> theClass) {
+		try {
+			MethodDispatcher aGenerated = generate(theClass);
+
+			if (aGenerated != null) {
+				return aGenerated;
+			}
+		}
+		catch (Exception e) {
+			LOGGER.debug("Could not generate a dispatcher for {}, using reflection instead: {}", theClass, e.getMessage());
+		}
+		catch (LinkageError e) {
+			// the class loader of the class cannot see our classes, or will not let us define new ones
+			LOGGER.debug("Could not generate a dispatcher for {}, using reflection instead: {}", theClass, e.getMessage());
+		}
+
+		return new MethodDispatcher() { };
+	}
+
+	/**
+	 * Generate the bytecode of a dispatcher for the public methods of the class
+	 * @param theClass the class
+	 * @return the generated dispatcher, or null if one cannot be generated for it
+	 * @throws Exception if there is an error while generating the class
+	 */
+	private static MethodDispatcher generate(final Class<?> theClass) throws Exception {
+		if (theClass.getClassLoader() == null || !AccessorGenerator.isReachable(theClass)) {
+			return null;
+		}
+
+		Map<Method, Integer> aIndexes = new HashMap<Method, Integer>();
+		StringBuilder aBody = new StringBuilder("switch (theIndex) { ");
+
+		String aTarget = "((" + AccessorGenerator.sourceName(theClass) + ") theTarget)";
+
+		for (Method aMethod : theClass.getMethods()) {
+			if (Modifier.isStatic(aMethod.getModifiers()) || !isVisible(aMethod, packageOf(theClass))) {
+				continue;
+			}
+
+			int aIndex = aIndexes.size();
+
+			StringBuilder aCall = new StringBuilder(aTarget).append('.').append(aMethod.getName()).append('(');
+
+			Class<?>[] aParams = aMethod.getParameterTypes();
+			for (int i = 0; i < aParams.length; i++) {
+				if (i > 0) {
+					aCall.append(", ");
+				}
+
+				aCall.append(AccessorGenerator.unbox(aParams[i], "theArgs[" + i + "]"));
+			}
+
+			aCall.append(')');
+
+			aBody.append("case ").append(aIndex).append(": ");
+
+			if (Void.TYPE.equals(aMethod.getReturnType())) {
+				aBody.append(aCall).append("; return null; ");
+			}
+			else {
+				aBody.append("return ").append(AccessorGenerator.box(aMethod.getReturnType(), aCall.toString())).append("; ");
+			}
+
+			aIndexes.put(aMethod, Integer.valueOf(aIndex));
+		}
+
+		aBody.append("default: return super.invoke(theIndex, theTarget, theArgs); }");
+
+		if (aIndexes.isEmpty()) {
+			return null;
+		}
+
+		ClassPool aPool = new ClassPool(true);
+		aPool.appendClassPath(new LoaderClassPath(theClass.getClassLoader()));
+		aPool.appendClassPath(new LoaderClassPath(MethodDispatcher.class.getClassLoader()));
+
+		String aName = theClass.getName() + "$$EmpireDispatcher" + COUNTER.incrementAndGet();
+
+		CtClass aClass = aPool.makeClass(aName, aPool.get(MethodDispatcher.class.getName()));
+		aClass.addConstructor(CtNewConstructor.defaultConstructor(aClass));
+		aClass.addMethod(CtNewMethod.make("protected Object invoke(int theIndex, Object theTarget, Object[] theArgs) throws Throwable { " + aBody + " }", aClass));
+
+		try {
+			MethodDispatcher aDispatcher = (MethodDispatcher) aClass.toClass(theClass.getClassLoader(), theClass.getProtectionDomain()).newInstance();
+			aDispatcher.mIndexes = aIndexes;
+
+			return aDispatcher;
+		}
+		finally {
+			aClass.detach();
+		}
+	}
+
+	/**
+	 * Return whether or not generated code in the given package can call the method: its declaring class and all the
+	 * types in its signature must be reachable from there
+	 * @param theMethod the method
+	 * @param thePackage the name of the package of the generated code
+	 * @return true if the method can be called, false otherwise
+	 */
+	private static boolean isVisible(final Method theMethod, final String thePackage) {
+		if (!isVisible(theMethod.getDeclaringClass(), thePackage) || !isVisible(theMethod.getReturnType(), thePackage)) {
+			return false;
+		}
+
+		for (Class<?> aType : theMethod.getParameterTypes()) {
+			if (!isVisible(aType, thePackage)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isVisible(final Class<?> theType, final String thePackage) {
+		Class<?> aType = theType;
+
+		while (aType.isArray()) {
+			aType = aType.getComponentType();
+		}
+
+		if (aType.isPrimitive()) {
+			return true;
+		}
+
+		if (!AccessorGenerator.isReachable(aType)) {
+			return false;
+		}
+
+		for (Class<?> aClass = aType; aClass != null; aClass = aClass.getEnclosingClass()) {
+			if (!Modifier.isPublic(aClass.getModifiers()) && !packageOf(aClass).equals(thePackage)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static String packageOf(final Class<?> theClass) {
+		String aName = theClass.getName();
+
+		return aName.lastIndexOf('.') == -1 ? "" : aName.substring(0, aName.lastIndexOf('.'));
+	}
+}
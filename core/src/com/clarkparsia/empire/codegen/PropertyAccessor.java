@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.codegen;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * <p>Reads and writes the value of a single bean property, either a field or a getter/setter method.  Instances
+ * are obtained from {@link AccessorGenerator} and are safe to share between threads.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version 0.7.3
+ */
+public interface PropertyAccessor {
+
+	/**
+	 * Return the value of the property on the given object.  For a method, this invokes the (getter) method.
+	 * @param theObj the object to get the value from
+	 * @return the value of the property
+	 * @throws IllegalAccessException thrown if the field or method cannot be accessed
+	 * @throws InvocationTargetException thrown if the getter method throws an exception
+	 */
+	public Object get(Object theObj) throws IllegalAccessException, InvocationTargetException;
+
+	/**
+	 * Set the value of the property on the given object.  For a method, this invokes the (setter) method.
+	 * @param theObj the object to set the value on
+	 * @param theValue the new value
+	 * @throws IllegalAccessException thrown if the field or method cannot be accessed
+	 * @throws InvocationTargetException thrown if the setter method throws an exception
+	 * @throws IllegalArgumentException thrown if the value is not assignable to the property
+	 */
+	public void set(Object theObj, Object theValue) throws IllegalAccessException, InvocationTargetException;
+
+	/**
+	 * Set the value of a primitive boolean property without boxing it.  Properties of any other type are set as with
+	 * {@link #set}, which widens the value if need be.
+	 * @param theObj the object to set the value on
+	 * @param theValue the new value
+	 * @throws IllegalAccessException thrown if the field or method cannot be accessed
+	 * @throws InvocationTargetException thrown if the setter method throws an exception
+	 * @throws IllegalArgumentException thrown if the value is not assignable to the property
+	 */
+	public void setBoolean(Object theObj, boolean theValue) throws IllegalAccessException, InvocationTargetException;
+
+	/**
+	 * Set the value of a primitive byte property without boxing it.  Properties of any other type are set as with
+	 * {@link #set}, which widens the value if need be.
+	 * @param theObj the object to set the value on
+	 * @param theValue the new value
+	 * @throws IllegalAccessException thrown if the field or method cannot be accessed
+	 * @throws InvocationTargetException thrown if the setter method throws an exception
+	 * @throws IllegalArgumentException thrown if the value is not assignable to the property
+	 */
+	public void setByte(Object theObj, byte theValue) throws IllegalAccessException, InvocationTargetException;
+
+	/**
+	 * Set the value of a primitive short property without boxing it.  Properties of any other type are set as with
+	 * {@link #set}, which widens the value if need be.
+	 * @param theObj the object to set the value on
+	 * @param theValue the new value
+	 * @throws IllegalAccessException thrown if the field or method cannot be accessed
+	 * @throws InvocationTargetException thrown if the setter method throws an exception
+	 * @throws IllegalArgumentException thrown if the value is not assignable to the property
+	 */
+	public void setShort(Object theObj, short theValue) throws IllegalAccessException, InvocationTargetException;
+
+	/**
+	 * Set the value of a primitive int property without boxing it.  Properties of any other type are set as with
+	 * {@link #set}, which widens the value if need be.
+	 * @param theObj the object to set the value on
+	 * @param theValue the new value
+	 * @throws IllegalAccessException thrown if the field or method cannot be accessed
+	 * @throws InvocationTargetException thrown if the setter method throws an exception
+	 * @throws IllegalArgumentException thrown if the value is not assignable to the property
+	 */
+	public void setInt(Object theObj, int theValue) throws IllegalAccessException, InvocationTargetException;
+
+	/**
+	 * Set the value of a primitive long property without boxing it.  Properties of any other type are set as with
+	 * {@link #set}, which widens the value if need be.
+	 * @param theObj the object to set the value on
+	 * @param theValue the new value
+	 * @throws IllegalAccessException thrown if the field or method cannot be accessed
+	 * @throws InvocationTargetException thrown if the setter method throws an exception
+	 * @throws IllegalArgumentException thrown if the value is not assignable to the property
+	 */
+	public void setLong(Object theObj, long theValue) throws IllegalAccessException, InvocationTargetException;
+
+	/**
+	 * Set the value of a primitive float property without boxing it.  Properties of any other type are set as with
+	 * {@link #set}, which widens the value if need be.
+	 * @param theObj the object to set the value on
+	 * @param theValue the new value
+	 * @throws IllegalAccessException thrown if the field or method cannot be accessed
+	 * @throws InvocationTargetException thrown if the setter method throws an exception
+	 * @throws IllegalArgumentException thrown if the value is not assignable to the property
+	 */
+	public void setFloat(Object theObj, float theValue) throws IllegalAccessException, InvocationTargetException;
+
+	/**
+	 * Set the value of a primitive double property without boxing it.  Properties of any other type are set as with
+	 * {@link #set}, which widens the value if need be.
+	 * @param theObj the object to set the value on
+	 * @param theValue the new value
+	 * @throws IllegalAccessException thrown if the field or method cannot be accessed
+	 * @throws InvocationTargetException thrown if the setter method throws an exception
+	 * @throws IllegalArgumentException thrown if the value is not assignable to the property
+	 */
+	public void setDouble(Object theObj, double theValue) throws IllegalAccessException, InvocationTargetException;
+}
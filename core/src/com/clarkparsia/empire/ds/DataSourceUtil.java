@@ -24,24 +24,33 @@ import com.clarkparsia.empire.impl.sparql.ARQSPARQLDialect;
 
 import com.clarkparsia.openrdf.Graphs;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import com.google.common.base.Function;
+import com.google.common.base.Predicates;
 
 import org.openrdf.model.Resource;
 import org.openrdf.model.Graph;
 import org.openrdf.model.URI;
 import org.openrdf.model.Value;
 import org.openrdf.model.BNode;
+import org.openrdf.model.Statement;
 import org.openrdf.model.impl.URIImpl;
 import org.openrdf.model.vocabulary.RDF;
 
+import org.openrdf.query.Binding;
 import org.openrdf.query.BindingSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
 
 /**
  * <p>Collection of utility methods for working with Empire DataSources</p>
@@ -60,6 +69,21 @@ public final class DataSourceUtil {
 	 */
 	private static final Logger LOGGER = LoggerFactory.getLogger(DataSourceUtil.class);
 
+	/**
+	 * The number of rdf:List nodes retrieved per query when the dialect does not support property paths
+	 */
+	public static final int LIST_CHUNK_SIZE = 50;
+
+	/**
+	 * The maximum number of resources looked for per query by {@link #existing}
+	 */
+	public static final int EXISTS_CHUNK_SIZE = 500;
+
+	/**
+	 * The default maximum number of resources described per query by {@link #describeAll}
+	 */
+	public static final int DESCRIBE_CHUNK_SIZE = 100;
+
 	/**
 	 * No instances
 	 */
@@ -149,6 +173,220 @@ public final class DataSourceUtil {
 		return aGraph;
 	}
 
+	/**
+	 * Do a poor-man's describe on all of the given resources with a query per {@link #DESCRIBE_CHUNK_SIZE} resources,
+	 * or with a call per resource when the source is a {@link TripleSource}.  Unlike
+	 * {@link #describe(DataSource, Object)}, this does not take named graphs into account, the whole data source is
+	 * queried.
+	 * @param theSource the {@link com.clarkparsia.empire.ds.DataSource} to query
+	 * @param theResources the URIs to do the "describe" operation on
+	 * @return all the statements which have one of the resources as the subject
+	 * @throws QueryException if there is an error while querying for the graph
+	 */
+	public static Graph describeAll(DataSource theSource, Collection<? extends URI> theResources) throws QueryException {
+		return describeAll(theSource, theResources, DESCRIBE_CHUNK_SIZE);
+	}
+
+	/**
+	 * Do a poor-man's describe on all of the given resources with a query per chunk of the given size, or with a call
+	 * per resource when the source is a {@link TripleSource}.
+	 * @param theSource the {@link com.clarkparsia.empire.ds.DataSource} to query
+	 * @param theResources the URIs to do the "describe" operation on
+	 * @param theChunkSize the maximum number of resources described per query
+	 * @return all the statements which have one of the resources as the subject
+	 * @throws QueryException if there is an error while querying for the graph
+	 * @see #describeAll(DataSource, Collection)
+	 */
+	public static Graph describeAll(DataSource theSource, Collection<? extends URI> theResources, int theChunkSize) throws QueryException {
+		if (theResources.isEmpty()) {
+			return Graphs.newGraph();
+		}
+
+		Graph aGraph;
+		if (theSource instanceof TripleSource) {
+			aGraph = Graphs.newGraph();
+
+			try {
+				for (URI aURI : theResources) {
+					aGraph.addAll(Graphs.newGraph(((TripleSource)theSource).getStatements(aURI, null, null, null)));
+				}
+			}
+			catch (Exception e) {
+				throw new QueryException(e);
+			}
+		}
+		else if (theResources.size() > theChunkSize) {
+			List<URI> aResources = new ArrayList<URI>(theResources);
+
+			aGraph = Graphs.newGraph();
+
+			for (int aStart = 0; aStart < aResources.size(); aStart += theChunkSize) {
+				aGraph.addAll(describeAll(theSource, aResources.subList(aStart, Math.min(aStart + theChunkSize, aResources.size())), theChunkSize));
+			}
+		}
+		else {
+			Dialect aDialect = theSource.getQueryFactory().getDialect();
+
+			StringBuffer aQuery = new StringBuffer();
+			if (aDialect instanceof SerqlDialect) {
+				aQuery.append("construct {s} p {o}\nfrom\n{s} p {o} where ");
+
+				boolean aFirst = true;
+				for (URI aURI : theResources) {
+					if (!aFirst) {
+						aQuery.append(" or ");
+					}
+
+					aQuery.append("s = ").append(aDialect.asQueryString(aURI));
+					aFirst = false;
+				}
+			}
+			else {
+				// fall back on sparql
+				aQuery.append("construct {?s ?p ?o}\nwhere {?s ?p ?o. filter(?s in (");
+
+				boolean aFirst = true;
+				for (URI aURI : theResources) {
+					if (!aFirst) {
+						aQuery.append(", ");
+					}
+
+					aQuery.append(aDialect.asQueryString(aURI));
+					aFirst = false;
+				}
+
+				aQuery.append(")) }");
+			}
+
+			aGraph = theSource.graphQuery(aQuery.toString());
+		}
+
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Describe {} resources: {} triples", Integer.valueOf(theResources.size()), Integer.valueOf(aGraph.size()));
+		}
+		return aGraph;
+	}
+
+	/**
+	 * Return which of the given resources have any statements about them, with a query per
+	 * {@link #EXISTS_CHUNK_SIZE} resources, or with a call per resource when the source is a {@link TripleSource}.
+	 * Blank nodes cannot be listed in a query, so each of them is looked for with a query of its own.  Like
+	 * {@link #describeAll}, this does not take named graphs into account, the whole data source is queried.
+	 * @param theSource the {@link com.clarkparsia.empire.ds.DataSource} to query
+	 * @param theResources the resources to look for
+	 * @return the resources which are the subject of at least one statement
+	 * @throws QueryException if there is an error while querying
+	 */
+	public static Set<Resource> existing(DataSource theSource, Collection<? extends Resource> theResources) throws QueryException {
+		Set<Resource> aExisting = new HashSet<Resource>();
+
+		if (theResources.isEmpty()) {
+			return aExisting;
+		}
+
+		if (theSource instanceof TripleSource) {
+			try {
+				for (Resource aRes : theResources) {
+					if (((TripleSource)theSource).getStatements(aRes, null, null).iterator().hasNext()) {
+						aExisting.add(aRes);
+					}
+				}
+			}
+			catch (Exception e) {
+				throw new QueryException(e);
+			}
+		}
+		else if (Iterables.any(theResources, Predicates.instanceOf(BNode.class))) {
+			List<Resource> aURIs = new ArrayList<Resource>();
+
+			for (Resource aRes : theResources) {
+				if (aRes instanceof BNode) {
+					if (exists(theSource, aRes, null)) {
+						aExisting.add(aRes);
+					}
+				}
+				else {
+					aURIs.add(aRes);
+				}
+			}
+
+			aExisting.addAll(existing(theSource, aURIs));
+		}
+		else if (theResources.size() > EXISTS_CHUNK_SIZE) {
+			List<Resource> aResources = new ArrayList<Resource>(theResources);
+
+			for (int aStart = 0; aStart < aResources.size(); aStart += EXISTS_CHUNK_SIZE) {
+				aExisting.addAll(existing(theSource, aResources.subList(aStart, Math.min(aStart + EXISTS_CHUNK_SIZE, aResources.size()))));
+			}
+		}
+		else {
+			// a union of a pattern per resource, rather than a filter on the subject, so that each resource is looked
+			// up by subject instead of the filter being applied to every statement
+			Dialect aDialect = theSource.getQueryFactory().getDialect();
+			List<Resource> aResources = new ArrayList<Resource>(theResources);
+
+			StringBuffer aQuery = new StringBuffer();
+			if (aDialect instanceof SerqlDialect) {
+				for (int i = 0; i < aResources.size(); i++) {
+					if (i > 0) {
+						aQuery.append("\nunion\n");
+					}
+
+					aQuery.append("select distinct s from {s} p {o} where s = ").append(aDialect.asQueryString(aResources.get(i)));
+				}
+			}
+			else {
+				// fall back on sparql.  each pattern binds a variable of its own, the index of the resource it is for,
+				// since sparql 1.0 has no way to bind the constant subject to a common variable
+				aQuery.append("select distinct");
+
+				for (int i = 0; i < aResources.size(); i++) {
+					aQuery.append(" ?e").append(i);
+				}
+
+				aQuery.append("\nwhere {");
+
+				for (int i = 0; i < aResources.size(); i++) {
+					if (i > 0) {
+						aQuery.append(" union");
+					}
+
+					aQuery.append(" { ").append(aDialect.asQueryString(aResources.get(i))).append(" ?e").append(i).append(" ?o. }");
+				}
+
+				aQuery.append(" }");
+			}
+
+			ResultSet aResults = theSource.selectQuery(aQuery.toString());
+			try {
+				while (aResults.hasNext()) {
+					BindingSet aBindings = aResults.next();
+
+					if (aDialect instanceof SerqlDialect) {
+						if (aBindings.getValue("s") instanceof Resource) {
+							aExisting.add((Resource) aBindings.getValue("s"));
+						}
+					}
+					else {
+						for (Binding aBinding : aBindings) {
+							if (aBinding.getValue() != null && aBinding.getName().startsWith("e")) {
+								aExisting.add(aResources.get(Integer.parseInt(aBinding.getName().substring(1))));
+							}
+						}
+					}
+				}
+			}
+			finally {
+				aResults.close();
+			}
+		}
+
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("{} of {} resources exist", Integer.valueOf(aExisting.size()), Integer.valueOf(theResources.size()));
+		}
+		return aExisting;
+	}
+
 	/**
 	 * Do a poor-man's ask on the given resource to see if any triples using the resource (as the subject) exist,
 	 * querying its context if that is supported, or otherwise querying the graph in general.
@@ -170,12 +408,24 @@ public final class DataSourceUtil {
 				aNG = aURI.toString();
 			}
 		}
+		return exists(theSource, EmpireUtil.asResource(aKey), aNG);
+	}
+
+	/**
+	 * Return whether or not there are any statements about the resource
+	 * @param theSource the data source to query
+	 * @param theRes the resource
+	 * @param theNG the named graph to look in, or null to query the whole data source
+	 * @return true if there are statements about the resource, false otherwise
+	 * @throws QueryException if there is an error while querying
+	 */
+	private static boolean exists(DataSource theSource, Resource theRes, String theNG) throws QueryException {
 		boolean aExists = false;
 		Dialect aDialect = theSource.getQueryFactory().getDialect();
-		final String aUri = aDialect.asQueryString(EmpireUtil.asResource(aKey));
+		final String aUri = aDialect.asQueryString(theRes);
 		if (aDialect instanceof SerqlDialect) {
 			final String aSeRQL = "select distinct s\n" +
-						(aNG == null ? "from\n" : "from context <" + aNG + ">\n") +
+						(theNG == null ? "from\n" : "from context <" + theNG + ">\n") +
 						"{s} p {o} where s = " + aUri + " limit 1";
 			ResultSet aResults = theSource.selectQuery(aSeRQL);
 			try {
@@ -188,7 +438,7 @@ public final class DataSourceUtil {
 		else {
 			// fall back on sparql
 			final String aSPARQL = "ask " +
-					 (aNG == null ? "" : "from <" + aNG + "> ") +
+					 (theNG == null ? "" : "from <" + theNG + "> ") +
 					 "{ " + aUri + " ?p ?o. }";
 			aExists = theSource.ask(aSPARQL);
 		}
@@ -280,4 +530,129 @@ public final class DataSourceUtil {
 			return aValues.iterator().next();
 		}
 	}
+
+	/**
+	 * Return the members of the RDF collection (rdf:List) starting at the given node, in order.  When the dialect of
+	 * the source {@link Dialect#supportsPropertyPaths supports property paths}, all the nodes of the list are
+	 * retrieved with a single query.  Other SPARQL sources are queried for {@link #LIST_CHUNK_SIZE} nodes at a time,
+	 * and SeRQL sources a node at a time.
+	 * @param theSource the data source to query
+	 * @param theHead the first node of the list
+	 * @return the members of the list
+	 * @throws DataSourceException if there is an error while querying the data source
+	 */
+	public static List<Value> getList(final DataSource theSource, final Resource theHead) throws DataSourceException {
+		List<Value> aList = new ArrayList<Value>();
+		Set<Resource> aVisited = new HashSet<Resource>();
+
+		Resource aNode = theHead;
+
+		while (aNode != null) {
+			Resource aNext = walkList(listNodes(theSource, aNode), aNode, aList, aVisited);
+
+			if (aNode.equals(aNext)) {
+				// nothing was found about the node, it is not part of a list
+				break;
+			}
+
+			aNode = aNext;
+		}
+
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("List {}: {} members", theHead, Integer.valueOf(aList.size()));
+		}
+
+		return aList;
+	}
+
+	/**
+	 * Query for the rdf:first and rdf:rest statements of the nodes of a list, starting at the given node, with as
+	 * many nodes per query as the dialect allows
+	 * @param theSource the data source to query
+	 * @param theNode the node to start from
+	 * @return the statements about the nodes
+	 * @throws DataSourceException if there is an error while querying the data source
+	 */
+	private static Graph listNodes(final DataSource theSource, final Resource theNode) throws DataSourceException {
+		Dialect aDialect = theSource.getQueryFactory().getDialect();
+
+		String aFirst = "<" + RDF.FIRST + ">";
+		String aRest = "<" + RDF.REST + ">";
+
+		if (aDialect instanceof SerqlDialect) {
+			Graph aGraph = Graphs.newGraph();
+
+			for (Value aValue : getValues(theSource, theNode, RDF.FIRST)) {
+				aGraph.add(theNode, RDF.FIRST, aValue);
+			}
+
+			for (Value aValue : getValues(theSource, theNode, RDF.REST)) {
+				aGraph.add(theNode, RDF.REST, aValue);
+			}
+
+			return aGraph;
+		}
+		else if (aDialect.supportsPropertyPaths()) {
+			return theSource.graphQuery("construct { ?n " + aFirst + " ?f. ?n " + aRest + " ?r. }\n" +
+										"where { " + aDialect.asQueryString(theNode) + " " + aRest + "* ?n. ?n " + aFirst + " ?f. " +
+										"optional { ?n " + aRest + " ?r. } }");
+		}
+		else {
+			// follow a fixed number of nodes, each one optional so that the end of the list can be within the chunk
+			StringBuilder aTemplate = new StringBuilder();
+			StringBuilder aWhere = new StringBuilder();
+
+			String aNode = aDialect.asQueryString(theNode);
+
+			for (int i = 0; i < LIST_CHUNK_SIZE; i++) {
+				String aPattern = aNode + " " + aFirst + " ?f" + i + ". " + aNode + " " + aRest + " ?n" + (i + 1) + ". ";
+
+				aTemplate.append(aPattern);
+				aWhere.append(i == 0 ? "" : "optional { ").append(aPattern);
+
+				aNode = "?n" + (i + 1);
+			}
+
+			for (int i = 1; i < LIST_CHUNK_SIZE; i++) {
+				aWhere.append("} ");
+			}
+
+			return theSource.graphQuery("construct { " + aTemplate + "}\nwhere { " + aWhere + "}");
+		}
+	}
+
+	/**
+	 * Walk the nodes of a list present in the graph, collecting their members
+	 * @param theGraph the statements about the nodes
+	 * @param theNode the node to start from
+	 * @param theList the members collected so far
+	 * @param theVisited the nodes already walked, to stop on a malformed, cyclic, list
+	 * @return the first node which is not described in the graph, or null if the end of the list was reached
+	 */
+	private static Resource walkList(final Graph theGraph, final Resource theNode, final List<Value> theList, final Set<Resource> theVisited) {
+		Resource aNode = theNode;
+
+		while (aNode != null && !aNode.equals(RDF.NIL)) {
+			Iterator<Statement> aFirst = theGraph.match(aNode, RDF.FIRST, null);
+			Iterator<Statement> aRest = theGraph.match(aNode, RDF.REST, null);
+
+			if (!aFirst.hasNext() && !aRest.hasNext()) {
+				return aNode;
+			}
+
+			if (!theVisited.add(aNode)) {
+				return null;
+			}
+
+			if (aFirst.hasNext()) {
+				theList.add(aFirst.next().getObject());
+			}
+
+			Value aNext = aRest.hasNext() ? aRest.next().getObject() : null;
+
+			aNode = aNext instanceof Resource ? (Resource) aNext : null;
+		}
+
+		return null;
+	}
 }
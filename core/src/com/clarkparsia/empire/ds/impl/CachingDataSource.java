@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.ds.impl;
+
+import com.clarkparsia.empire.ds.DataSourceException;
+import com.clarkparsia.empire.ds.MutableDataSource;
+import com.clarkparsia.empire.ds.QueryException;
+import com.clarkparsia.empire.ds.ResultSet;
+import com.clarkparsia.empire.ds.SupportsNamedGraphs;
+import com.clarkparsia.empire.ds.SupportsTransactions;
+import com.clarkparsia.empire.ds.TripleSource;
+
+import com.clarkparsia.openrdf.Graphs;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.query.BindingSet;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>{@link DelegatingDataSource} which answers queries, asks and triple pattern lookups from a
+ * {@link QueryResultCache} when it can, and invalidates the affected results on every write made through it.  Select
+ * results are materialized before they are cached.</p>
+ *
+ * <p>Use {@link #wrap} to create one: it returns a source which implements {@link TripleSource},
+ * {@link SupportsNamedGraphs} and {@link SupportsTransactions} only when the wrapped source does, so that the
+ * wrapping does not change how Empire uses the source.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+public class CachingDataSource extends DelegatingDataSource implements MutableDataSource, TripleSource, SupportsNamedGraphs,
+																		 SupportsTransactions {
+
+	/**
+	 * The cached results
+	 */
+	private final QueryResultCache mCache;
+
+	/**
+	 * Create a new CachingDataSource
+	 * @param theDelegate the source to cache the results of
+	 * @param theCache the cache to use
+	 */
+	private CachingDataSource(final MutableDataSource theDelegate, final QueryResultCache theCache) {
+		super(theDelegate);
+
+		mCache = theCache;
+	}
+
+	/**
+	 * Wrap the data source so that its results are cached
+	 * @param theSource the source to cache the results of
+	 * @param theCache the cache to use, which may be shared with other sources over the same data
+	 * @return the caching source, implementing the same Empire data source interfaces as the wrapped source
+	 */
+	public static MutableDataSource wrap(final MutableDataSource theSource, final QueryResultCache theCache) {
+		final CachingDataSource aSource = new CachingDataSource(theSource, theCache);
+
+		List<Class<?>> aInterfaces = new ArrayList<Class<?>>();
+		aInterfaces.add(MutableDataSource.class);
+
+		if (theSource instanceof TripleSource) {
+			aInterfaces.add(TripleSource.class);
+		}
+
+		if (theSource instanceof SupportsNamedGraphs) {
+			aInterfaces.add(SupportsNamedGraphs.class);
+		}
+
+		if (theSource instanceof SupportsTransactions) {
+			aInterfaces.add(SupportsTransactions.class);
+		}
+
+		return (MutableDataSource) Proxy.newProxyInstance(CachingDataSource.class.getClassLoader(),
+														  aInterfaces.toArray(new Class<?>[aInterfaces.size()]),
+														  new InvocationHandler() {
+			public Object invoke(final Object theProxy, final Method theMethod, final Object[] theArgs) throws Throwable {
+				try {
+					return theMethod.invoke(aSource, theArgs);
+				}
+				catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+		});
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public ResultSet selectQuery(final String theQuery) throws QueryException {
+		String aKey = "select:" + theQuery;
+
+		@SuppressWarnings("unchecked")
+		List<BindingSet> aResults = (List<BindingSet>) mCache.getResult(aKey);
+
+		if (aResults == null) {
+			ResultSet aResultSet = getDelegate().selectQuery(theQuery);
+
+			try {
+				aResults = new ArrayList<BindingSet>();
+
+				while (aResultSet.hasNext()) {
+					aResults.add(aResultSet.next());
+				}
+			}
+			finally {
+				aResultSet.close();
+			}
+
+			aResults = Collections.unmodifiableList(aResults);
+
+			mCache.putResult(aKey, aResults);
+		}
+
+		return new AbstractResultSet(aResults.iterator()) {
+			public void close() {
+				// nothing to release
+			}
+		};
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Graph graphQuery(final String theQuery) throws QueryException {
+		String aKey = "graph:" + theQuery;
+
+		Graph aGraph = (Graph) mCache.getResult(aKey);
+
+		if (aGraph == null) {
+			aGraph = Graphs.newGraph(getDelegate().graphQuery(theQuery));
+
+			mCache.putResult(aKey, aGraph);
+		}
+
+		return Graphs.newGraph(aGraph);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Graph describe(final String theQuery) throws QueryException {
+		String aKey = "describe:" + theQuery;
+
+		Graph aGraph = (Graph) mCache.getResult(aKey);
+
+		if (aGraph == null) {
+			aGraph = Graphs.newGraph(getDelegate().describe(theQuery));
+
+			mCache.putResult(aKey, aGraph);
+		}
+
+		return Graphs.newGraph(aGraph);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean ask(final String theQuery) throws QueryException {
+		String aKey = "ask:" + theQuery;
+
+		Boolean aResult = (Boolean) mCache.getResult(aKey);
+
+		if (aResult == null) {
+			aResult = getDelegate().ask(theQuery);
+
+			mCache.putResult(aKey, aResult);
+		}
+
+		return aResult;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Iterable<Statement> getStatements(final Resource theSubject, final URI thePredicate, final Value theObject) throws DataSourceException {
+		return getStatements(theSubject, thePredicate, theObject, null);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Iterable<Statement> getStatements(final Resource theSubject, final URI thePredicate, final Value theObject,
+											 final Resource theContext) throws DataSourceException {
+		Graph aGraph = mCache.getStatements(theSubject, thePredicate, theObject, theContext);
+
+		if (aGraph == null) {
+			aGraph = Graphs.newGraph(((TripleSource) getDelegate()).getStatements(theSubject, thePredicate, theObject, theContext));
+
+			mCache.putStatements(theSubject, thePredicate, theObject, theContext, aGraph);
+		}
+
+		return Graphs.newGraph(aGraph);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void add(final Graph theGraph) throws DataSourceException {
+		try {
+			asMutableDataSource().add(theGraph);
+		}
+		finally {
+			mCache.invalidate(theGraph, null);
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void remove(final Graph theGraph) throws DataSourceException {
+		try {
+			asMutableDataSource().remove(theGraph);
+		}
+		finally {
+			mCache.invalidate(theGraph, null);
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void add(final java.net.URI theGraphURI, final Graph theGraph) throws DataSourceException {
+		try {
+			asSupportsNamedGraphs().add(theGraphURI, theGraph);
+		}
+		finally {
+			mCache.invalidate(theGraph, asContext(theGraphURI));
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void remove(final java.net.URI theGraphURI) throws DataSourceException {
+		try {
+			asSupportsNamedGraphs().remove(theGraphURI);
+		}
+		finally {
+			mCache.invalidateContext(asContext(theGraphURI));
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void remove(final java.net.URI theGraphURI, final Graph theGraph) throws DataSourceException {
+		try {
+			asSupportsNamedGraphs().remove(theGraphURI, theGraph);
+		}
+		finally {
+			mCache.invalidate(theGraph, asContext(theGraphURI));
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void begin() throws DataSourceException {
+		((SupportsTransactions) getDelegate()).begin();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void commit() throws DataSourceException {
+		((SupportsTransactions) getDelegate()).commit();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void rollback() throws DataSourceException {
+		try {
+			((SupportsTransactions) getDelegate()).rollback();
+		}
+		finally {
+			// the changes undone by the rollback are not known here
+			mCache.invalidateAll();
+		}
+	}
+
+	/**
+	 * Return the underlying source as a MutableDataSource
+	 * @return the underlying source
+	 */
+	private MutableDataSource asMutableDataSource() {
+		return (MutableDataSource) getDelegate();
+	}
+
+	/**
+	 * Return the underlying source as a SupportsNamedGraphs
+	 * @return the underlying source
+	 */
+	private SupportsNamedGraphs asSupportsNamedGraphs() {
+		return (SupportsNamedGraphs) getDelegate();
+	}
+
+	/**
+	 * Return the context of the given named graph
+	 * @param theGraphURI the named graph
+	 * @return the context
+	 */
+	private static Resource asContext(final java.net.URI theGraphURI) {
+		return theGraphURI == null ? null : ValueFactoryImpl.getInstance().createURI(theGraphURI.toString());
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.ds.impl;
+
+import com.clarkparsia.empire.ds.DataSourceException;
+import com.clarkparsia.empire.ds.MutableDataSource;
+
+import com.clarkparsia.openrdf.Graphs;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Statement;
+
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+
+/**
+ * <p>An {@link org.openrdf.rio.RDFHandler} which adds the statements it handles to a {@link MutableDataSource}.  The
+ * statements are added in batches, so at most one batch of statements is held in memory at a time; whatever is left
+ * is added when the RDF ends.  Together with
+ * {@link com.clarkparsia.empire.annotation.RdfGenerator#asRdf(Iterable, org.openrdf.rio.RDFHandler)} this writes any
+ * number of beans to a data source without building a graph of all of them first.</p>
+ *
+ * @author Michael Grove
+ * @since 0.7.3
+ * @version 0.7.3
+ */
+public class MutableDataSourceHandler extends RDFHandlerBase {
+
+	/**
+	 * The default number of statements added to the data source at a time
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 10000;
+
+	/**
+	 * The data source the statements are added to
+	 */
+	private final MutableDataSource mDataSource;
+
+	/**
+	 * The number of statements added to the data source at a time
+	 */
+	private final int mBatchSize;
+
+	/**
+	 * The statements of the current batch
+	 */
+	private Graph mBatch = Graphs.newGraph();
+
+	/**
+	 * Create a new MutableDataSourceHandler which adds statements in batches of {@link #DEFAULT_BATCH_SIZE}
+	 * @param theDataSource the data source to add the statements to
+	 */
+	public MutableDataSourceHandler(final MutableDataSource theDataSource) {
+		this(theDataSource, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Create a new MutableDataSourceHandler
+	 * @param theDataSource the data source to add the statements to
+	 * @param theBatchSize the number of statements added to the data source at a time
+	 * @throws IllegalArgumentException if the batch size is not positive
+	 */
+	public MutableDataSourceHandler(final MutableDataSource theDataSource, final int theBatchSize) {
+		if (theBatchSize <= 0) {
+			throw new IllegalArgumentException("The batch size must be positive: " + theBatchSize);
+		}
+
+		mDataSource = theDataSource;
+		mBatchSize = theBatchSize;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void handleStatement(final Statement theStatement) throws RDFHandlerException {
+		mBatch.add(theStatement);
+
+		if (mBatch.size() >= mBatchSize) {
+			flush();
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void endRDF() throws RDFHandlerException {
+		flush();
+	}
+
+	/**
+	 * Add the statements of the current batch to the data source
+	 * @throws RDFHandlerException if there is an error while adding the statements
+	 */
+	public void flush() throws RDFHandlerException {
+		if (mBatch.isEmpty()) {
+			return;
+		}
+
+		try {
+			mDataSource.add(mBatch);
+		}
+		catch (DataSourceException e) {
+			throw new RDFHandlerException(e);
+		}
+
+		mBatch = Graphs.newGraph();
+	}
+}
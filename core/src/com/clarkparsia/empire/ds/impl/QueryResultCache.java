@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.ds.impl;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The results cached by {@link CachingDataSource CachingDataSources}.  A single cache can be shared by several
+ * data sources over the same data, such as the ones created for each EntityManager of a persistence unit, so that
+ * results and invalidations are seen by all of them.</p>
+ *
+ * <p>Query results are keyed by the text of the query and, since there is no telling which results a change affects,
+ * they are all dropped on any write.  Triple pattern results are dropped only when the write concerns their subject
+ * (or they have no subject) and their context (or they have no context).</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+public final class QueryResultCache {
+
+	/**
+	 * The default maximum number of query results, and of triple pattern results, in the cache
+	 */
+	public static final long DEFAULT_SIZE = 1000;
+
+	/**
+	 * Query results, keyed by the kind of query and the query string
+	 */
+	private final Cache<String, Object> mResults;
+
+	/**
+	 * Triple pattern results
+	 */
+	private final Cache<Pattern, Graph> mStatements;
+
+	/**
+	 * Create a new QueryResultCache
+	 * @param theSize the maximum number of query results, and of triple pattern results, in the cache
+	 * @param theTTL the number of seconds a result stays in the cache, or 0 if it does not expire
+	 */
+	public QueryResultCache(final long theSize, final long theTTL) {
+		mResults = newCache(theSize, theTTL);
+		mStatements = newCache(theSize, theTTL);
+	}
+
+	/**
+	 * Create a new Guava cache
+	 * @param theSize the maximum size of the cache
+	 * @param theTTL the number of seconds an entry stays in the cache, or 0 if it does not expire
+	 * @param <K> the type of the keys
+	 * @param <V> the type of the values
+	 * @return a new cache
+	 */
+	private static <K, V> Cache<K, V> newCache(final long theSize, final long theTTL) {
+		CacheBuilder<Object, Object> aBuilder = CacheBuilder.newBuilder().maximumSize(theSize).recordStats();
+
+		if (theTTL > 0) {
+			aBuilder.expireAfterWrite(theTTL, TimeUnit.SECONDS);
+		}
+
+		return aBuilder.build();
+	}
+
+	/**
+	 * Return the cached result of a query
+	 * @param theKey the key of the query
+	 * @return the result, or null if it is not cached
+	 */
+	Object getResult(final String theKey) {
+		return mResults.getIfPresent(theKey);
+	}
+
+	/**
+	 * Cache the result of a query
+	 * @param theKey the key of the query
+	 * @param theResult the result
+	 */
+	void putResult(final String theKey, final Object theResult) {
+		mResults.put(theKey, theResult);
+	}
+
+	/**
+	 * Return the cached statements matching a triple pattern
+	 * @param theSubject the subject, or null for a wildcard
+	 * @param thePredicate the predicate, or null for a wildcard
+	 * @param theObject the object, or null for a wildcard
+	 * @param theContext the context, or null for a wildcard
+	 * @return the statements, or null if they are not cached
+	 */
+	Graph getStatements(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource theContext) {
+		return mStatements.getIfPresent(new Pattern(theSubject, thePredicate, theObject, theContext));
+	}
+
+	/**
+	 * Cache the statements matching a triple pattern
+	 * @param theSubject the subject, or null for a wildcard
+	 * @param thePredicate the predicate, or null for a wildcard
+	 * @param theObject the object, or null for a wildcard
+	 * @param theContext the context, or null for a wildcard
+	 * @param theGraph the statements
+	 */
+	void putStatements(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource theContext,
+					   final Graph theGraph) {
+		mStatements.put(new Pattern(theSubject, thePredicate, theObject, theContext), theGraph);
+	}
+
+	/**
+	 * Invalidate the results which may be affected by a change to the given statements
+	 * @param theGraph the statements which were added or removed
+	 * @param theContext the named graph the statements were changed in, or null if it was not specified
+	 */
+	void invalidate(final Graph theGraph, final Resource theContext) {
+		mResults.invalidateAll();
+
+		Set<Resource> aSubjects = new HashSet<Resource>();
+
+		for (Statement aStmt : theGraph) {
+			aSubjects.add(aStmt.getSubject());
+		}
+
+		Iterator<Pattern> aIter = mStatements.asMap().keySet().iterator();
+
+		while (aIter.hasNext()) {
+			Pattern aPattern = aIter.next();
+
+			if ((aPattern.mSubject == null || aSubjects.contains(aPattern.mSubject))
+				&& (aPattern.mContext == null || theContext == null || aPattern.mContext.equals(theContext))) {
+				aIter.remove();
+			}
+		}
+	}
+
+	/**
+	 * Invalidate the results which may be affected by a change to the whole of a named graph
+	 * @param theContext the named graph
+	 */
+	void invalidateContext(final Resource theContext) {
+		mResults.invalidateAll();
+
+		Iterator<Pattern> aIter = mStatements.asMap().keySet().iterator();
+
+		while (aIter.hasNext()) {
+			Pattern aPattern = aIter.next();
+
+			if (aPattern.mContext == null || aPattern.mContext.equals(theContext)) {
+				aIter.remove();
+			}
+		}
+	}
+
+	/**
+	 * Remove all the results from the cache
+	 */
+	public void invalidateAll() {
+		mResults.invalidateAll();
+		mStatements.invalidateAll();
+	}
+
+	/**
+	 * Return the number of results in the cache
+	 * @return the number of query results and triple pattern results
+	 */
+	public long size() {
+		return mResults.size() + mStatements.size();
+	}
+
+	/**
+	 * Return the statistics of the cache, summed over query results and triple pattern results.  Invalidations are not
+	 * counted as evictions.
+	 * @return the cache statistics
+	 */
+	public CacheStats stats() {
+		return mResults.stats().plus(mStatements.stats());
+	}
+
+	/**
+	 * A triple pattern, with null for wildcards
+	 */
+	private static final class Pattern {
+		private final Resource mSubject;
+		private final URI mPredicate;
+		private final Value mObject;
+		private final Resource mContext;
+
+		private Pattern(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource theContext) {
+			mSubject = theSubject;
+			mPredicate = thePredicate;
+			mObject = theObject;
+			mContext = theContext;
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		@Override
+		public boolean equals(final Object theObj) {
+			if (this == theObj) {
+				return true;
+			}
+			if (!(theObj instanceof Pattern)) {
+				return false;
+			}
+
+			Pattern aPattern = (Pattern) theObj;
+
+			return Objects.equal(mSubject, aPattern.mSubject)
+				   && Objects.equal(mPredicate, aPattern.mPredicate)
+				   && Objects.equal(mObject, aPattern.mObject)
+				   && Objects.equal(mContext, aPattern.mContext);
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(mSubject, mPredicate, mObject, mContext);
+		}
+	}
+}
@@ -46,12 +46,28 @@ public final class DataSourceEntityTransaction implements EntityTransaction {
 	 */
 	private SupportsTransactions mDataSource;
 
+	/**
+	 * The EntityManager the transaction belongs to, whose queued changes are written on commit, or null
+	 */
+	private EntityManagerImpl mEntityManager;
+
 	/**
 	 * Create (but not open) a transaction for the specified data source
 	 * @param theDataSource the data source that will have the transaction 
 	 */
 	public DataSourceEntityTransaction(final SupportsTransactions theDataSource) {
+		this(theDataSource, null);
+	}
+
+	/**
+	 * Create (but not open) a transaction for the specified data source
+	 * @param theDataSource the data source that will have the transaction
+	 * @param theEntityManager the EntityManager whose queued changes are flushed when the transaction is committed
+	 * and discarded when it is rolled back, or null
+	 */
+	DataSourceEntityTransaction(final SupportsTransactions theDataSource, final EntityManagerImpl theEntityManager) {
 		mDataSource = theDataSource;
+		mEntityManager = theEntityManager;
 	}
 
 	/**
@@ -62,6 +78,10 @@ public final class DataSourceEntityTransaction implements EntityTransaction {
 
 		mIsActive = true;
 
+		if (mEntityManager != null) {
+			mEntityManager.transactionStarted();
+		}
+
 		try {
 			mDataSource.begin();
 		}
@@ -81,8 +101,19 @@ public final class DataSourceEntityTransaction implements EntityTransaction {
 		}
 
 		try {
+			if (mEntityManager != null) {
+				mEntityManager.flush();
+			}
+
 			mDataSource.commit();
 			mIsActive = false;
+
+			if (mEntityManager != null) {
+				mEntityManager.transactionEnded();
+			}
+		}
+		catch (PersistenceException e) {
+			throw new RollbackException(e);
 		}
 		catch (DataSourceException e) {
 			throw new RollbackException(e);
@@ -95,6 +126,10 @@ public final class DataSourceEntityTransaction implements EntityTransaction {
 	public void rollback() {
 		assertActive();
 
+		if (mEntityManager != null) {
+			mEntityManager.discardPending();
+		}
+
 		try {
 			mDataSource.rollback();
 		}
@@ -103,6 +138,11 @@ public final class DataSourceEntityTransaction implements EntityTransaction {
 		}
 		finally {
 			mIsActive = false;
+
+			// nothing cached about the subjects the transaction wrote can be trusted once it is undone
+			if (mEntityManager != null) {
+				mEntityManager.transactionEnded();
+			}
 		}
 	}
 
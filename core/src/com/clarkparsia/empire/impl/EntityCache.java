@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.impl;
+
+import com.clarkparsia.empire.annotation.Cacheable;
+import com.clarkparsia.empire.util.BeanReflectUtil;
+
+import com.clarkparsia.openrdf.Graphs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.Value;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Second-level cache of entity descriptions shared by all the EntityManagers created by an
+ * {@link EntityManagerFactoryImpl}.  The statements about an entity are cached by subject the first time it is found,
+ * so later finds from any EntityManager of the factory can create the entity without querying the data source.
+ * Entries are evicted when the cache is full or after a time to live, and the subjects of every write made through
+ * the factory's EntityManagers are invalidated.  Writes made to the data source by other means are only seen once
+ * the entries expire.</p>
+ *
+ * <p>Nothing is cached while a transaction is active in any of those EntityManagers, since what is read then may
+ * include changes which are later rolled back.  The subjects written during a transaction are invalidated again when
+ * it ends.</p>
+ *
+ * <p>Only instances of classes which are annotated with {@link Cacheable}, or which are listed in the
+ * {@link EntityManagerFactoryImpl#CACHE_CLASSES} configuration, are cached.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+public final class EntityCache {
+
+	/**
+	 * The default maximum number of entities in the cache
+	 */
+	public static final long DEFAULT_SIZE = 10000;
+
+	/**
+	 * The cached descriptions
+	 */
+	private final Cache<Resource, Graph> mCache;
+
+	/**
+	 * The rdf:type values of the individuals looked up while creating entities, whether or not they are cacheable
+	 */
+	private final Cache<Resource, Collection<Value>> mTypes;
+
+	/**
+	 * The names of classes configured to be cached
+	 */
+	private final Set<String> mClasses;
+
+	/**
+	 * Whether or not a class is cached, memoized per class
+	 */
+	private final ConcurrentMap<Class<?>, Boolean> mCacheable = new ConcurrentHashMap<Class<?>, Boolean>();
+
+	/**
+	 * The number of transactions currently active in the EntityManagers sharing the cache
+	 */
+	private int mTransactions = 0;
+
+	/**
+	 * Incremented whenever a transaction begins or ends, so that a description read across a transaction boundary is
+	 * not cached
+	 */
+	private long mGeneration = 0;
+
+	/**
+	 * Create a new EntityCache
+	 * @param theSize the maximum number of entities in the cache
+	 * @param theTTL the number of seconds an entry stays in the cache, or 0 if it does not expire
+	 * @param theClasses the names of the classes to cache in addition to the ones annotated with {@link Cacheable}
+	 */
+	public EntityCache(final long theSize, final long theTTL, final Iterable<String> theClasses) {
+		CacheBuilder<Object, Object> aBuilder = CacheBuilder.newBuilder().maximumSize(theSize).recordStats();
+
+		if (theTTL > 0) {
+			aBuilder.expireAfterWrite(theTTL, TimeUnit.SECONDS);
+		}
+
+		mCache = aBuilder.build();
+
+		CacheBuilder<Object, Object> aTypesBuilder = CacheBuilder.newBuilder().maximumSize(theSize);
+
+		if (theTTL > 0) {
+			aTypesBuilder.expireAfterWrite(theTTL, TimeUnit.SECONDS);
+		}
+
+		mTypes = aTypesBuilder.build();
+		mClasses = ImmutableSet.copyOf(theClasses);
+	}
+
+	/**
+	 * Return whether or not instances of the class are cached
+	 * @param theClass the class
+	 * @return true if cached, false otherwise
+	 */
+	public boolean isCacheable(final Class<?> theClass) {
+		Boolean aCacheable = mCacheable.get(theClass);
+
+		if (aCacheable == null) {
+			Cacheable aAnnotation = BeanReflectUtil.getAnnotation(theClass, Cacheable.class);
+
+			aCacheable = aAnnotation != null ? aAnnotation.value() : isConfigured(theClass);
+
+			mCacheable.put(theClass, aCacheable);
+		}
+
+		return aCacheable;
+	}
+
+	/**
+	 * Return whether or not the class, or one of its super classes or interfaces, is listed in the configuration
+	 * @param theClass the class
+	 * @return true if listed, false otherwise
+	 */
+	private boolean isConfigured(final Class<?> theClass) {
+		if (theClass == null) {
+			return false;
+		}
+		else if (mClasses.contains(theClass.getName())) {
+			return true;
+		}
+
+		for (Class<?> aInterface : theClass.getInterfaces()) {
+			if (isConfigured(aInterface)) {
+				return true;
+			}
+		}
+
+		return isConfigured(theClass.getSuperclass());
+	}
+
+	/**
+	 * Return the cached statements about the subject
+	 * @param theSubject the subject
+	 * @return a copy of the cached statements, or null if the subject is not cached
+	 */
+	public Graph get(final Resource theSubject) {
+		Graph aGraph = mCache.getIfPresent(theSubject);
+
+		return aGraph == null ? null : Graphs.newGraph(aGraph);
+	}
+
+	/**
+	 * Return the current generation of the cache, to pass to {@link #put} along with the statements read after it was
+	 * taken
+	 * @return the generation
+	 */
+	public synchronized long generation() {
+		return mGeneration;
+	}
+
+	/**
+	 * Return whether or not a transaction is active in any of the EntityManagers sharing the cache
+	 * @return true if a transaction is active, false otherwise
+	 */
+	public synchronized boolean isTransactionActive() {
+		return mTransactions > 0;
+	}
+
+	/**
+	 * Cache the statements about the subject.  They are not cached if a transaction is active, or if one has begun or
+	 * ended since the generation was taken.
+	 * @param theSubject the subject
+	 * @param theGraph the statements about the subject
+	 * @param theGeneration the {@link #generation} of the cache before the statements were read
+	 */
+	public synchronized void put(final Resource theSubject, final Graph theGraph, final long theGeneration) {
+		if (mTransactions == 0 && theGeneration == mGeneration) {
+			mCache.put(theSubject, Graphs.newGraph(theGraph));
+		}
+	}
+
+	/**
+	 * Note that a transaction has begun in one of the EntityManagers sharing the cache
+	 */
+	public synchronized void transactionStarted() {
+		mTransactions++;
+		mGeneration++;
+	}
+
+	/**
+	 * Note that a transaction has ended, and invalidate the subjects which were written during it
+	 * @param theSubjects the subjects written during the transaction
+	 */
+	public synchronized void transactionEnded(final Iterable<? extends Resource> theSubjects) {
+		mTransactions = Math.max(0, mTransactions - 1);
+		mGeneration++;
+
+		mCache.invalidateAll(theSubjects);
+		mTypes.invalidateAll(theSubjects);
+	}
+
+	/**
+	 * Return the cached rdf:type values of individuals, as a map which {@link com.clarkparsia.empire.annotation.RdfGenerator}
+	 * reads and fills in while creating entities
+	 * @return the rdf:type values, keyed by individual
+	 */
+	public ConcurrentMap<Resource, Collection<Value>> getTypes() {
+		return mTypes.asMap();
+	}
+
+	/**
+	 * Invalidate the cached statements and types of the subject
+	 * @param theSubject the subject
+	 */
+	public void invalidate(final Resource theSubject) {
+		mCache.invalidate(theSubject);
+		mTypes.invalidate(theSubject);
+	}
+
+	/**
+	 * Invalidate the cached statements and types of all the subjects in the graph
+	 * @param theGraph the graph
+	 */
+	public void invalidate(final Graph theGraph) {
+		Set<Resource> aSubjects = new HashSet<Resource>();
+
+		for (Statement aStmt : theGraph) {
+			aSubjects.add(aStmt.getSubject());
+		}
+
+		mCache.invalidateAll(aSubjects);
+		mTypes.invalidateAll(aSubjects);
+	}
+
+	/**
+	 * Remove all the entries from the cache
+	 */
+	public void invalidateAll() {
+		mCache.invalidateAll();
+		mTypes.invalidateAll();
+	}
+
+	/**
+	 * Return the number of entities in the cache
+	 * @return the number of entities
+	 */
+	public long size() {
+		return mCache.size();
+	}
+
+	/**
+	 * Return the statistics of the cache: its hit, miss and eviction counts.  Invalidations are not counted as
+	 * evictions.
+	 * @return the cache statistics
+	 */
+	public CacheStats stats() {
+		return mCache.stats();
+	}
+}
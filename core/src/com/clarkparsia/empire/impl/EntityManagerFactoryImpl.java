@@ -20,8 +20,11 @@ import com.clarkparsia.empire.ds.DataSource;
 import com.clarkparsia.empire.ds.DataSourceFactory;
 import com.clarkparsia.empire.ds.DataSourceException;
 import com.clarkparsia.empire.ds.SupportsTransactions;
+import com.clarkparsia.empire.ds.impl.CachingDataSource;
+import com.clarkparsia.empire.ds.impl.QueryResultCache;
 import com.clarkparsia.empire.ds.impl.TransactionalDataSource;
 
+import com.google.common.base.Splitter;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityManager;
 
@@ -29,6 +32,7 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Collections;
 import java.net.ConnectException;
 
 /**
@@ -43,6 +47,64 @@ import java.net.ConnectException;
 public final class EntityManagerFactoryImpl implements EntityManagerFactory {
 
 	public static final String USE_EMPIRE_TRANSACTIONS = "use.empire.transactions";
+
+	/**
+	 * Configuration key for whether or not {@link EntityManager#find} loads an entity with a single describe of the
+	 * individual (the default).  Set to false to check for existence and rdf:type with separate queries before the
+	 * describe, for data sources where describe is expensive.
+	 */
+	public static final String SINGLE_QUERY_FIND = "single.query.find";
+
+	/**
+	 * Configuration key for whether or not the EntityManagers check, after each write, that the entities which were
+	 * persisted or merged exist in the data source and the ones which were removed do not.  All the entities of a write
+	 * are checked with a single query.  Enabled by default; set it to false to skip the extra query for data sources
+	 * which are known not to drop writes.
+	 */
+	public static final String VERIFY_WRITES = "verify.writes";
+
+	/**
+	 * Configuration key for enabling the second-level {@link EntityCache} shared by the EntityManagers of the factory.
+	 * Disabled by default.
+	 */
+	public static final String CACHE_ENABLED = "cache.enabled";
+
+	/**
+	 * Configuration key for the maximum number of entities in the second-level cache, defaults to
+	 * {@link EntityCache#DEFAULT_SIZE}
+	 */
+	public static final String CACHE_SIZE = "cache.size";
+
+	/**
+	 * Configuration key for the number of seconds an entity stays in the second-level cache.  By default, entries do
+	 * not expire.
+	 */
+	public static final String CACHE_TTL = "cache.ttl";
+
+	/**
+	 * Configuration key for a comma separated list of the names of the classes which are cached in addition to the
+	 * ones annotated with {@link com.clarkparsia.empire.annotation.Cacheable}
+	 */
+	public static final String CACHE_CLASSES = "cache.classes";
+
+	/**
+	 * Configuration key for caching the results of the queries made to the data source in a
+	 * {@link QueryResultCache} shared by the EntityManagers of the factory.  Disabled by default.
+	 * @see CachingDataSource
+	 */
+	public static final String QUERY_CACHE_ENABLED = "query.cache.enabled";
+
+	/**
+	 * Configuration key for the maximum number of results in the query result cache, defaults to
+	 * {@link QueryResultCache#DEFAULT_SIZE}
+	 */
+	public static final String QUERY_CACHE_SIZE = "query.cache.size";
+
+	/**
+	 * Configuration key for the number of seconds a result stays in the query result cache.  By default, results do
+	 * not expire.
+	 */
+	public static final String QUERY_CACHE_TTL = "query.cache.ttl";
 	
 	/**
 	 * Factory for creating the DataSources backed by EntityManagers from this factory.
@@ -64,6 +126,17 @@ public final class EntityManagerFactoryImpl implements EntityManagerFactory {
 	 */
 	private Map<String, ?> mConfig;
 
+	/**
+	 * The second-level cache shared by the EntityManagers of this factory, or null if it is not enabled
+	 */
+	private EntityCache mCache;
+
+	/**
+	 * The query result cache shared by the data sources of the EntityManagers of this factory, or null if it is not
+	 * enabled
+	 */
+	private QueryResultCache mQueryCache;
+
 	/**
 	 * Create a new AbstractEntityManagerFactory
      * @param theProvider the DataSourceFactory to use with this
@@ -82,6 +155,35 @@ public final class EntityManagerFactoryImpl implements EntityManagerFactory {
         mDataSourceFactoryProvider = theProvider;
 		
 		mConfig = theConfig;
+
+		if (mConfig.containsKey(CACHE_ENABLED) && Boolean.parseBoolean(mConfig.get(CACHE_ENABLED).toString())) {
+			mCache = new EntityCache(mConfig.containsKey(CACHE_SIZE) ? Long.parseLong(mConfig.get(CACHE_SIZE).toString()) : EntityCache.DEFAULT_SIZE,
+									 mConfig.containsKey(CACHE_TTL) ? Long.parseLong(mConfig.get(CACHE_TTL).toString()) : 0,
+									 mConfig.containsKey(CACHE_CLASSES)
+									 ? Splitter.on(',').trimResults().omitEmptyStrings().split(mConfig.get(CACHE_CLASSES).toString())
+									 : Collections.<String>emptyList());
+		}
+
+		if (mConfig.containsKey(QUERY_CACHE_ENABLED) && Boolean.parseBoolean(mConfig.get(QUERY_CACHE_ENABLED).toString())) {
+			mQueryCache = new QueryResultCache(mConfig.containsKey(QUERY_CACHE_SIZE) ? Long.parseLong(mConfig.get(QUERY_CACHE_SIZE).toString()) : QueryResultCache.DEFAULT_SIZE,
+											   mConfig.containsKey(QUERY_CACHE_TTL) ? Long.parseLong(mConfig.get(QUERY_CACHE_TTL).toString()) : 0);
+		}
+	}
+
+	/**
+	 * Return the second-level cache shared by the EntityManagers of this factory
+	 * @return the cache, or null if it is not enabled
+	 */
+	public EntityCache getEntityCache() {
+		return mCache;
+	}
+
+	/**
+	 * Return the query result cache shared by the data sources of the EntityManagers of this factory
+	 * @return the cache, or null if it is not enabled
+	 */
+	public QueryResultCache getQueryResultCache() {
+		return mQueryCache;
 	}
 
 	/**
@@ -103,13 +205,17 @@ public final class EntityManagerFactoryImpl implements EntityManagerFactory {
 				throw new IllegalArgumentException("Cannot use Empire with a non-mutable Data source");
 			}
 
+			if (mQueryCache != null) {
+				aSource = CachingDataSource.wrap((MutableDataSource) aSource, mQueryCache);
+			}
+
 			if (isUseEmpireTransactions() && !(aSource instanceof SupportsTransactions)) {
 				aSource = new TransactionalDataSource((MutableDataSource) aSource);
 			}
 			
 			aSource.connect();
 
-			return new EntityManagerImpl( (MutableDataSource) aSource);
+			return new EntityManagerImpl( (MutableDataSource) aSource, isSingleQueryFind(aConfig), mCache, isVerifyWrites(aConfig));
 		}
 		catch (ConnectException e) {
 			throw new IllegalStateException("Could not connect to the data source", e);
@@ -123,6 +229,14 @@ public final class EntityManagerFactoryImpl implements EntityManagerFactory {
 		return mConfig.containsKey(USE_EMPIRE_TRANSACTIONS) && Boolean.parseBoolean(mConfig.get(USE_EMPIRE_TRANSACTIONS).toString());
 	}
 
+	private boolean isSingleQueryFind(final Map<String, Object> theConfig) {
+		return !theConfig.containsKey(SINGLE_QUERY_FIND) || Boolean.parseBoolean(theConfig.get(SINGLE_QUERY_FIND).toString());
+	}
+
+	private boolean isVerifyWrites(final Map<String, Object> theConfig) {
+		return !theConfig.containsKey(VERIFY_WRITES) || Boolean.parseBoolean(theConfig.get(VERIFY_WRITES).toString());
+	}
+
 	/**
 	 * @inheritDoc
 	 */
@@ -169,6 +283,14 @@ public final class EntityManagerFactoryImpl implements EntityManagerFactory {
 				aManager.close();
 			}
 		}
+
+		if (mCache != null) {
+			mCache.invalidateAll();
+		}
+
+		if (mQueryCache != null) {
+			mQueryCache.invalidateAll();
+		}
 	}
 
 	/**
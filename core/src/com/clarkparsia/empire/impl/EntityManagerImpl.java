@@ -23,18 +23,28 @@ import com.clarkparsia.empire.ds.DataSourceUtil;
 import com.clarkparsia.empire.ds.QueryException;
 import com.clarkparsia.empire.ds.impl.TransactionalDataSource;
 import com.clarkparsia.empire.Empire;
+import com.clarkparsia.empire.EmpireEntityManager;
 import com.clarkparsia.empire.EmpireException;
 import com.clarkparsia.empire.EmpireGenerated;
+import com.clarkparsia.empire.SupportsRdfId;
 
 import com.clarkparsia.empire.annotation.InvalidRdfException;
 import com.clarkparsia.empire.annotation.RdfGenerator;
 import com.clarkparsia.empire.annotation.AnnotationChecker;
+import com.clarkparsia.empire.annotation.EntityMapping;
+import com.clarkparsia.empire.annotation.RdfsClass;
+import com.clarkparsia.empire.annotation.runtime.LazyCollection;
+import com.clarkparsia.empire.codegen.PropertyAccessor;
 
 import com.clarkparsia.openrdf.Graphs;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.Value;
 import org.openrdf.model.impl.GraphImpl;
 
 import javax.persistence.EntityExistsException;
@@ -59,28 +69,36 @@ import java.lang.annotation.Annotation;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.AccessibleObject;
 
 import java.util.Map;
+import java.util.List;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Collections;
 import java.util.WeakHashMap;
+import java.util.IdentityHashMap;
 import java.util.Set;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
 import java.net.URI;
 
-import static com.clarkparsia.empire.util.BeanReflectUtil.getAnnotatedFields;
-import static com.clarkparsia.empire.util.BeanReflectUtil.getAnnotatedGetters;
-import static com.clarkparsia.empire.util.BeanReflectUtil.asSetter;
-import static com.clarkparsia.empire.util.BeanReflectUtil.safeGet;
-import static com.clarkparsia.empire.util.BeanReflectUtil.safeSet;
 import static com.clarkparsia.empire.util.BeanReflectUtil.getAnnotatedMethods;
 
 import com.clarkparsia.empire.util.EmpireUtil;
 import com.clarkparsia.empire.util.BeanReflectUtil;
 
 import com.google.common.base.Predicate;
+import javassist.util.proxy.ProxyObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -95,7 +113,7 @@ import org.slf4j.LoggerFactory;
  * @see EntityManager
  * @see com.clarkparsia.empire.ds.DataSource
  */
-public final class EntityManagerImpl implements EntityManager {
+public final class EntityManagerImpl implements EmpireEntityManager {
 	/**
 	 * The logger
 	 */
@@ -127,16 +145,110 @@ public final class EntityManagerImpl implements EntityManager {
 	 */
 	private DataSourceOperation mOp;
 
+	/**
+	 * The changes made inside the current transaction which have not been written yet, when the flush mode is
+	 * {@link FlushModeType#COMMIT}.  All the operations of the transaction are merged into this one, which is executed
+	 * when the EntityManager is flushed or the transaction is committed.
+	 */
+	private DataSourceOperation mPending;
+
+	/**
+	 * The flush mode of this EntityManager
+	 */
+	private FlushModeType mFlushMode = FlushModeType.AUTO;
+
 	/**
 	 * The list of things which are ready to be cascaded.  They are tracked in this list to help prevent infinite loops
 	 */
 	private Collection<Object> mCascadePending = new HashSet<Object>();
 
+	/**
+	 * Whether or not the entities reachable by cascade from the entities of the current top-level operation exist in
+	 * the data source.  They are looked up together before cascading, so the cascade does not query for each of them.
+	 */
+	private Map<Resource, Boolean> mCascadeExists = new HashMap<Resource, Boolean>();
+
+	/**
+	 * The descriptions of the entities reachable by cascade from the entities of the current top-level operation, for
+	 * those which will be described while cascading.  Fetched with a single query along with {@link #mCascadeExists}.
+	 */
+	private Map<Resource, Graph> mCascadeDescriptions = new HashMap<Resource, Graph>();
+
+	/**
+	 * The persistence context: the entities managed by this EntityManager, keyed by their identifiers.  Entities which
+	 * are found, persisted or merged are added, removed entities are evicted.
+	 */
+	private Map<SupportsRdfId.RdfKey, Object> mManagedEntities = new HashMap<SupportsRdfId.RdfKey, Object>();
+
+	/**
+	 * Whether or not {@link #find} retrieves the entity with a single describe of the individual, rather than asking
+	 * whether it exists and querying its types before describing it.
+	 */
+	private boolean mSingleQueryFind = true;
+
+	/**
+	 * The second-level cache shared with the other EntityManagers of the factory, or null if there is none
+	 */
+	private EntityCache mCache;
+
+	/**
+	 * The subjects written during the current transaction, which are invalidated in the second-level cache when it
+	 * ends, or null if no transaction is active
+	 */
+	private Set<Resource> mTransactionSubjects;
+
+	/**
+	 * Whether or not writes are checked against the data source once they are made
+	 */
+	private boolean mVerifyWrites = true;
+
+	/**
+	 * The number of entities merged by this EntityManager and the number of triples those merges added and removed
+	 */
+	private long mMergeCount;
+	private long mMergeAddedCount;
+	private long mMergeRemovedCount;
+
 	/**
 	 * Create a new EntityManagerImpl
 	 * @param theSource the underlying RDF datasource used for persistence operations
 	 */
 	public EntityManagerImpl(MutableDataSource theSource) {
+		this(theSource, true);
+	}
+
+	/**
+	 * Create a new EntityManagerImpl
+	 * @param theSource the underlying RDF datasource used for persistence operations
+	 * @param theSingleQueryFind true to load entities in {@link #find} from a single describe of the individual, false
+	 * to check for its existence and its types with separate queries first, which can be preferable for data sources
+	 * where a describe is expensive
+	 */
+	public EntityManagerImpl(MutableDataSource theSource, boolean theSingleQueryFind) {
+		this(theSource, theSingleQueryFind, null);
+	}
+
+	/**
+	 * Create a new EntityManagerImpl which checks its writes against the data source
+	 * @param theSource the underlying RDF datasource used for persistence operations
+	 * @param theSingleQueryFind true to load entities in {@link #find} from a single describe of the individual, false
+	 * to check for its existence and its types with separate queries first
+	 * @param theCache the second-level cache to read entities from and invalidate on writes, or null for none
+	 */
+	public EntityManagerImpl(MutableDataSource theSource, boolean theSingleQueryFind, EntityCache theCache) {
+		this(theSource, theSingleQueryFind, theCache, true);
+	}
+
+	/**
+	 * Create a new EntityManagerImpl
+	 * @param theSource the underlying RDF datasource used for persistence operations
+	 * @param theSingleQueryFind true to load entities in {@link #find} from a single describe of the individual, false
+	 * to check for its existence and its types with separate queries first
+	 * @param theCache the second-level cache to read entities from and invalidate on writes, or null for none
+	 * @param theVerifyWrites true to check, after each write, that the entities persisted and merged are in the data
+	 * source and the ones removed are not
+	 */
+	public EntityManagerImpl(MutableDataSource theSource, boolean theSingleQueryFind, EntityCache theCache, boolean theVerifyWrites) {
 
 		// TODO: sparql for everything, just convert serql into sparql
 		// TODO: work like JPA/hibernate -- if something does not have a @Transient on it, convert it.  we'll just need to coin a URI in those cases
@@ -146,6 +258,12 @@ public final class EntityManagerImpl implements EntityManager {
 		mIsOpen = true;
 
 		mDataSource = theSource;
+
+		mSingleQueryFind = theSingleQueryFind;
+
+		mCache = theCache;
+
+		mVerifyWrites = theVerifyWrites;
 	}
 
 	/**
@@ -153,19 +271,41 @@ public final class EntityManagerImpl implements EntityManager {
 	 */
 	public void flush() {
 		assertOpen();
-		
-		// we'll do nothing here since our default implementation doesn't queue up changes, they're made
-		// as soon as remove/persist are called
+
+		// changes are only queued up in COMMIT mode, otherwise they're made as soon as remove/persist are called
+		if (mPending != null) {
+			DataSourceOperation aOp = mPending;
+
+			mPending = null;
+
+			try {
+				aOp.execute();
+			}
+			catch (DataSourceException e) {
+				throw new PersistenceException(e);
+			}
+		}
 	}
 
 	/**
+	 * Set the flush mode.  In {@link FlushModeType#COMMIT} mode, the changes made in a transaction are queued up and
+	 * written when the EntityManager is {@link #flush flushed}, when the transaction commits, or when the EntityManager
+	 * is closed.  {@link #clear} discards the queued changes along with the persistence context, as it does changes
+	 * which have not been flushed in JPA, and a rollback of the transaction discards them as well.
 	 * @inheritDoc
 	 */
 	public void setFlushMode(final FlushModeType theFlushModeType) {
 		assertOpen();
 
-		if (theFlushModeType != FlushModeType.AUTO) {
-			throw new IllegalArgumentException("Commit style flush mode not supported");
+		if (theFlushModeType == null) {
+			throw new IllegalArgumentException("Flush mode cannot be null");
+		}
+
+		mFlushMode = theFlushModeType;
+
+		if (mFlushMode == FlushModeType.AUTO) {
+			// changes made from now on are written straight away, so anything queued before has to go first
+			flush();
 		}
 	}
 
@@ -175,7 +315,45 @@ public final class EntityManagerImpl implements EntityManager {
 	public FlushModeType getFlushMode() {
 		assertOpen();
 		
-		return FlushModeType.AUTO;
+		return mFlushMode;
+	}
+
+	/**
+	 * Drop the changes which have been queued up, but not written, in {@link FlushModeType#COMMIT} mode.  Used when
+	 * the transaction they were made in is rolled back.
+	 */
+	void discardPending() {
+		mPending = null;
+	}
+
+	/**
+	 * Note that a transaction has begun, so reads are kept out of the second-level cache until it ends
+	 */
+	void transactionStarted() {
+		if (mCache != null && mTransactionSubjects == null) {
+			mTransactionSubjects = Sets.newHashSet();
+			mCache.transactionStarted();
+		}
+	}
+
+	/**
+	 * Note that the current transaction has ended, committed or rolled back, and invalidate the subjects written during
+	 * it in the second-level cache
+	 */
+	void transactionEnded() {
+		if (mCache != null && mTransactionSubjects != null) {
+			mCache.transactionEnded(mTransactionSubjects);
+			mTransactionSubjects = null;
+		}
+	}
+
+	/**
+	 * Return whether or not changes are queued up until the EntityManager is flushed rather than written straight
+	 * away.  This is the case in {@link FlushModeType#COMMIT} mode when a transaction is active.
+	 * @return true if changes are queued, false otherwise
+	 */
+	private boolean isWriteBehind() {
+		return mFlushMode == FlushModeType.COMMIT && mTransaction != null && mTransaction.isActive();
 	}
 
 	/**
@@ -193,12 +371,7 @@ public final class EntityManagerImpl implements EntityManager {
 
 		assertContains(theObj);
 
-		Object aDbObj = find(theObj.getClass(), EmpireUtil.asSupportsRdfId(theObj).getRdfId());
-
-        Collection<AccessibleObject> aAccessors = new HashSet<AccessibleObject>();
-
-        aAccessors.addAll(getAnnotatedFields(aDbObj.getClass()));
-        aAccessors.addAll(getAnnotatedGetters(aDbObj.getClass(), true));
+		Object aDbObj = load(theObj.getClass(), EmpireUtil.asSupportsRdfId(theObj).getRdfId());
 
 		if (theObj instanceof EmpireGenerated) {
 			((EmpireGenerated)theObj).setAllTriples(((EmpireGenerated)aDbObj).getAllTriples());
@@ -206,17 +379,24 @@ public final class EntityManagerImpl implements EntityManager {
 		}
 
         try {
-            for (AccessibleObject aAccess : aAccessors) {
-                Object aValue = safeGet(aAccess, aDbObj);
-                
-                AccessibleObject aSetter = asSetter(aDbObj.getClass(), aAccess);
-                
-                safeSet(aSetter, theObj, aValue);
+            for (EntityMapping.PropertyMapping aProperty : EntityMapping.of(aDbObj.getClass()).getProperties()) {
+                Object aValue = aProperty.getPropertyAccessor().get(aDbObj);
+
+                PropertyAccessor aSetter = aProperty.getSetterAccessor();
+
+                if (aSetter != null) {
+                    aSetter.set(theObj, aValue);
+                }
             }
         }
         catch (InvocationTargetException e) {
             throw new PersistenceException(e);
         }
+        catch (IllegalAccessException e) {
+            throw new PersistenceException(e);
+        }
+
+		manage(theObj);
     }
 
 	/**
@@ -225,6 +405,10 @@ public final class EntityManagerImpl implements EntityManager {
 	public void clear() {
 		assertOpen();
 
+		if (mPending != null) {
+			LOGGER.warn("Clearing the persistence context discards changes which have not been flushed");
+		}
+
 		cleanState();
 	}
 
@@ -234,6 +418,10 @@ public final class EntityManagerImpl implements EntityManager {
 	public boolean contains(final Object theObj) {
 		assertStateOk(theObj);
 
+		if (mManagedEntities.containsKey(EmpireUtil.asSupportsRdfId(theObj).getRdfId())) {
+			return true;
+		}
+
 		try {
 			return DataSourceUtil.exists(getDataSource(), theObj);
 		}
@@ -303,11 +491,20 @@ public final class EntityManagerImpl implements EntityManager {
 			throw new IllegalStateException("EntityManager is already closed.");
 		}
 
-		getDataSource().disconnect();
+		try {
+			// changes queued up in COMMIT mode are written rather than lost
+			flush();
+		}
+		finally {
+			getDataSource().disconnect();
 
-		mIsOpen = false;
+			mIsOpen = false;
 
-		cleanState();
+			// a transaction left open is abandoned along with the EntityManager, caching must not stay off for it
+			transactionEnded();
+
+			cleanState();
+		}
 	}
 
 	/**
@@ -315,6 +512,22 @@ public final class EntityManagerImpl implements EntityManager {
 	 */
 	private void cleanState() {
 		mManagedEntityListeners.clear();
+		mManagedEntities.clear();
+
+		// changes which were not flushed are lost along with the entities they were made to
+		mPending = null;
+	}
+
+	/**
+	 * Add the object to the persistence context of this EntityManager
+	 * @param theObj the now managed object
+	 */
+	private void manage(final Object theObj) {
+		SupportsRdfId.RdfKey aKey = EmpireUtil.asSupportsRdfId(theObj).getRdfId();
+
+		if (aKey != null) {
+			mManagedEntities.put(aKey, theObj);
+		}
 	}
 
 	/**
@@ -329,7 +542,7 @@ public final class EntityManagerImpl implements EntityManager {
 	 */
 	public EntityTransaction getTransaction() {
 		if (mTransaction == null) {
-			mTransaction = new DataSourceEntityTransaction(asSupportsTransactions());
+			mTransaction = new DataSourceEntityTransaction(asSupportsTransactions(), this);
 		}
 
 		return mTransaction;
@@ -370,19 +583,331 @@ public final class EntityManagerImpl implements EntityManager {
 				aOp.add(aData);
 			}
 
+			if (mVerifyWrites) {
+				aOp.verifyAdd(theObj);
+			}
+
 			joinCurrentDataSourceOperation(aOp);
 
+			if (isTopOperation) {
+				prefetchCascade(Collections.singleton(theObj), false);
+			}
+
 			cascadeOperation(theObj, new IsPersistCascade(), new MergeCascade());
 
 			finishCurrentDataSourceOperation(isTopOperation);
 
-			postPersist(theObj);
-		}
-		catch (InvalidRdfException ex) {
-			throw new IllegalStateException(ex);
+			manage(theObj);
+
+			postPersist(theObj);
+		}
+		catch (InvalidRdfException ex) {
+			throw new IllegalStateException(ex);
+		}
+		catch (DataSourceException ex) {
+			throw new PersistenceException(ex);
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void persistAll(final Iterable<?> theEntities) {
+		persistAll(theEntities, DEFAULT_CHUNK_SIZE, true);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void persistAll(final Iterable<?> theEntities, final int theChunkSize, final boolean theCheckExists) {
+		assertOpen();
+
+		if (theChunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive: " + theChunkSize);
+		}
+
+		// conversion to rdf is the only part done in parallel, writes are made from this thread
+		ExecutorService aPool = ConversionPool.THREADS > 1 ? ConversionPool.POOL : null;
+
+		List<Object> aChunk = new ArrayList<Object>();
+
+		for (Object aObj : theEntities) {
+			aChunk.add(aObj);
+
+			if (aChunk.size() == theChunkSize) {
+				persistChunk(aChunk, theCheckExists, aPool, ConversionPool.THREADS);
+				aChunk.clear();
+			}
+		}
+
+		if (!aChunk.isEmpty()) {
+			persistChunk(aChunk, theCheckExists, aPool, ConversionPool.THREADS);
+		}
+	}
+
+	/**
+	 * The threads which convert the entities given to {@link #persistAll} to RDF, shared by all the EntityManagers
+	 * and created the first time they are needed.  The threads are daemons so they do not keep the VM running.
+	 */
+	private static final class ConversionPool {
+		private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+		private static final ExecutorService POOL = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+			public Thread newThread(final Runnable theRunnable) {
+				Thread aThread = new Thread(theRunnable, "empire-persist-all");
+				aThread.setDaemon(true);
+
+				return aThread;
+			}
+		});
+	}
+
+	/**
+	 * Persist a chunk of entities with a single write to the data source
+	 * @param theChunk the entities
+	 * @param theCheckExists whether or not to check that the entities do not exist yet
+	 * @param thePool the pool to convert the entities on, or null to convert them on this thread
+	 * @param theThreads the number of threads of the pool
+	 */
+	private void persistChunk(final List<Object> theChunk, final boolean theCheckExists, final ExecutorService thePool, final int theThreads) {
+		for (Object aObj : theChunk) {
+			assertStateOk(aObj);
+		}
+
+		// the entities which are given an identifier here cannot exist yet
+		List<Object> aIdentified = new ArrayList<Object>();
+
+		for (Object aObj : theChunk) {
+			if (EmpireUtil.asSupportsRdfId(aObj).getRdfId() != null) {
+				aIdentified.add(aObj);
+			}
+		}
+
+		try {
+			assignIds(theChunk);
+		}
+		catch (InvalidRdfException ex) {
+			throw new IllegalStateException(ex);
+		}
+
+		Set<SupportsRdfId.RdfKey> aKeys = new HashSet<SupportsRdfId.RdfKey>();
+
+		for (Object aObj : theChunk) {
+			if (!aKeys.add(EmpireUtil.asSupportsRdfId(aObj).getRdfId())) {
+				throw new EntityExistsException("Entity is persisted more than once: " + aObj);
+			}
+		}
+
+		if (theCheckExists) {
+			assertNotContainsAny(aIdentified);
+		}
+
+		try {
+			for (Object aObj : theChunk) {
+				prePersist(aObj);
+			}
+
+			List<Graph> aGraphs = asRdf(theChunk, thePool, theThreads);
+
+			boolean isTopOperation = (mOp == null);
+
+			DataSourceOperation aOp = new DataSourceOperation();
+
+			for (int i = 0; i < theChunk.size(); i++) {
+				Object aObj = theChunk.get(i);
+
+				if (doesSupportNamedGraphs() && EmpireUtil.hasNamedGraphSpecified(aObj)) {
+					aOp.add(EmpireUtil.getNamedGraph(aObj), aGraphs.get(i));
+				}
+				else {
+					aOp.add(aGraphs.get(i));
+				}
+
+				if (mVerifyWrites) {
+					aOp.verifyAdd(aObj);
+				}
+			}
+
+			joinCurrentDataSourceOperation(aOp);
+
+			if (isTopOperation) {
+				prefetchCascade(theChunk, false);
+			}
+
+			for (Object aObj : theChunk) {
+				cascadeOperation(aObj, new IsPersistCascade(), new MergeCascade());
+			}
+
+			finishCurrentDataSourceOperation(isTopOperation);
+
+			for (Object aObj : theChunk) {
+				manage(aObj);
+
+				postPersist(aObj);
+			}
+		}
+		catch (InvalidRdfException ex) {
+			throw new IllegalStateException(ex);
+		}
+		catch (DataSourceException ex) {
+			throw new PersistenceException(ex);
+		}
+	}
+
+	/**
+	 * Give an identifier to each of the entities, and to every bean they refer to, directly or not, which does not
+	 * have one yet.  This is done before the entities are converted in parallel; otherwise a bean referred to by
+	 * entities converted on different threads could be given a different generated identifier by each thread.
+	 * @param theObjs the entities
+	 * @throws InvalidRdfException if an identifier cannot be assigned to one of the beans
+	 */
+	private static void assignIds(final Collection<Object> theObjs) throws InvalidRdfException {
+		Set<Object> aVisited = Sets.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+		for (Object aObj : theObjs) {
+			assignIds(aObj, aVisited);
+		}
+	}
+
+	private static void assignIds(final Object theObj, final Set<Object> theVisited) throws InvalidRdfException {
+		// lazy proxies already have their key, and reading it would load them
+		if (!(theObj instanceof SupportsRdfId) || theObj instanceof ProxyObject
+			|| !BeanReflectUtil.hasAnnotation(theObj.getClass(), RdfsClass.class) || !theVisited.add(theObj)) {
+			return;
+		}
+
+		RdfGenerator.id(theObj);
+
+		for (EntityMapping.PropertyMapping aProperty : EntityMapping.of(theObj.getClass()).getProperties()) {
+			if (aProperty.isTransient()) {
+				continue;
+			}
+
+			Object aValue;
+
+			try {
+				aValue = aProperty.getPropertyAccessor().get(theObj);
+			}
+			catch (Exception e) {
+				throw new InvalidRdfException(e);
+			}
+
+			if (aValue instanceof LazyCollection && !((LazyCollection) aValue).isLoaded()) {
+				// the elements which were not loaded are only referred to by their keys
+				continue;
+			}
+			else if (aValue instanceof Collection) {
+				for (Object aElement : (Collection) aValue) {
+					if (aElement != null) {
+						assignIds(aElement, theVisited);
+					}
+				}
+			}
+			else if (aValue != null) {
+				assignIds(aValue, theVisited);
+			}
+		}
+	}
+
+	/**
+	 * Convert the entities to RDF, splitting them between the threads of the pool
+	 * @param theObjs the entities
+	 * @param thePool the pool, or null to convert the entities on this thread
+	 * @param theThreads the number of threads of the pool
+	 * @return the RDF of each of the entities, in the same order as the entities
+	 * @throws InvalidRdfException if one of the entities cannot be converted
+	 */
+	private static List<Graph> asRdf(final List<Object> theObjs, final ExecutorService thePool, final int theThreads) throws InvalidRdfException {
+		if (thePool == null || theObjs.size() < 2) {
+			List<Graph> aGraphs = new ArrayList<Graph>(theObjs.size());
+
+			for (Object aObj : theObjs) {
+				aGraphs.add(RdfGenerator.asRdf(aObj));
+			}
+
+			return aGraphs;
+		}
+
+		int aSliceSize = (theObjs.size() + theThreads - 1) / theThreads;
+
+		List<Future<List<Graph>>> aSlices = new ArrayList<Future<List<Graph>>>();
+		for (int aStart = 0; aStart < theObjs.size(); aStart += aSliceSize) {
+			final List<Object> aSlice = theObjs.subList(aStart, Math.min(aStart + aSliceSize, theObjs.size()));
+
+			aSlices.add(thePool.submit(new Callable<List<Graph>>() {
+				public List<Graph> call() throws InvalidRdfException {
+					return asRdf(aSlice, null, 1);
+				}
+			}));
+		}
+
+		List<Graph> aGraphs = new ArrayList<Graph>(theObjs.size());
+
+		try {
+			for (Future<List<Graph>> aSlice : aSlices) {
+				aGraphs.addAll(aSlice.get());
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			throw new PersistenceException(e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof InvalidRdfException) {
+				throw (InvalidRdfException) e.getCause();
+			}
+			else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			else {
+				throw new PersistenceException(e.getCause());
+			}
+		}
+
+		return aGraphs;
+	}
+
+	/**
+	 * Enforce that none of the objects exist, either in this persistence context or in the database.  The objects
+	 * which do not specify a named graph are looked for with a single query.
+	 * @param theObjs the objects that should not exist
+	 * @throws EntityExistsException thrown if one of the objects already exists
+	 */
+	private void assertNotContainsAny(final Collection<Object> theObjs) {
+		Map<Resource, Object> aUnmanaged = new HashMap<Resource, Object>();
+
+		for (Object aObj : theObjs) {
+			SupportsRdfId aSupportsRdfId = EmpireUtil.asSupportsRdfId(aObj);
+
+			if (aSupportsRdfId.getRdfId() == null) {
+				// an identifier is assigned when the entity is converted, so it cannot exist yet
+				continue;
+			}
+
+			if (doesSupportNamedGraphs() && EmpireUtil.hasNamedGraphSpecified(aObj)) {
+				// only its own named graph is checked for this one
+				if (contains(aObj)) {
+					throw new EntityExistsException("Entity already exists: " + aObj);
+				}
+			}
+			else if (mManagedEntities.containsKey(aSupportsRdfId.getRdfId())) {
+				throw new EntityExistsException("Entity already exists: " + aObj);
+			}
+			else {
+				aUnmanaged.put(EmpireUtil.asResource(aSupportsRdfId), aObj);
+			}
+		}
+
+		try {
+			Set<Resource> aExisting = DataSourceUtil.existing(getDataSource(), aUnmanaged.keySet());
+
+			if (!aExisting.isEmpty()) {
+				throw new EntityExistsException("Entity already exists: " + aUnmanaged.get(aExisting.iterator().next()));
+			}
 		}
-		catch (DataSourceException ex) {
-			throw new PersistenceException(ex);
+		catch (QueryException e) {
+			throw new PersistenceException(e);
 		}
 	}
 
@@ -393,7 +918,21 @@ public final class EntityManagerImpl implements EntityManager {
 	private void finishCurrentDataSourceOperation(boolean theIsTop) throws DataSourceException {
 		if (theIsTop) {
 			mCascadePending.clear();
-			mOp.execute();
+			mCascadeExists.clear();
+			mCascadeDescriptions.clear();
+
+			if (isWriteBehind()) {
+				if (mPending == null) {
+					mPending = mOp;
+				}
+				else {
+					mPending.merge(mOp);
+				}
+			}
+			else {
+				mOp.execute();
+			}
+
 			mOp = null;
 		}
 	}
@@ -406,9 +945,13 @@ public final class EntityManagerImpl implements EntityManager {
 		assertStateOk(theT);
 
 		Graph aExistingData = null;
+
+		// everything known to be stored about the instance, such as its rdf:type, which is not part of its instance triples
+		Graph aAllData = null;
 		
 		if (theT instanceof EmpireGenerated) {
 			aExistingData = ((EmpireGenerated) theT).getInstanceTriples();
+			aAllData = ((EmpireGenerated) theT).getAllTriples();
 		}
 
 		if (aExistingData == null || aExistingData.isEmpty()) {
@@ -421,7 +964,7 @@ public final class EntityManagerImpl implements EntityManager {
 			try {
 				if (theT instanceof EmpireGenerated) {
 					// if bean has been generated by Empire, then we can try to read its copy from the database, and use the triples from that copy
-					Object aDbObj = find(((EmpireGenerated) theT).getInterfaceClass(), EmpireUtil.asSupportsRdfId(theT).getRdfId());
+					Object aDbObj = load(((EmpireGenerated) theT).getInterfaceClass(), EmpireUtil.asSupportsRdfId(theT).getRdfId());
 
 					if (aDbObj != null) { 
 						aExistingData = ((EmpireGenerated) aDbObj).getInstanceTriples();
@@ -429,6 +972,11 @@ public final class EntityManagerImpl implements EntityManager {
 					else {
 						aExistingData = new GraphImpl();
 					}
+
+					if (mPending != null) {
+						// the copy was read from the data source, which does not have the changes queued up yet
+						aExistingData = mPending.apply(EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theT)), aExistingData);
+					}
 				}
 				else {
 					// as a fall back, we can perform a describe to find all related triples for the individual;
@@ -448,6 +996,10 @@ public final class EntityManagerImpl implements EntityManager {
 
 			Graph aData = RdfGenerator.asRdf(theT);
 
+			// only the triples which changed since the instance triples were captured are written
+			Graph aRemoved = difference(aExistingData, aData);
+			Graph aAdded = difference(aData, aExistingData, aAllData);
+
 			boolean isTopOperation = (mOp == null);
 
 			DataSourceOperation aOp = new DataSourceOperation();
@@ -455,21 +1007,63 @@ public final class EntityManagerImpl implements EntityManager {
 			if (doesSupportNamedGraphs() && EmpireUtil.hasNamedGraphSpecified(theT)) {
 				java.net.URI aGraphURI = EmpireUtil.getNamedGraph(theT);
 
-				aOp.remove(aGraphURI, aExistingData);
-				aOp.add(aGraphURI, aData);
+				if (!aRemoved.isEmpty()) {
+					aOp.remove(aGraphURI, aRemoved);
+				}
+
+				if (!aAdded.isEmpty()) {
+					aOp.add(aGraphURI, aAdded);
+				}
 			}
 			else {
-				aOp.remove(aExistingData);
-				aOp.add(aData);
+				if (!aRemoved.isEmpty()) {
+					aOp.remove(aRemoved);
+				}
+
+				if (!aAdded.isEmpty()) {
+					aOp.add(aAdded);
+				}
+			}
+
+			if (mVerifyWrites) {
+				aOp.verifyAdd(theT);
+			}
+
+			mMergeCount++;
+			mMergeAddedCount += aAdded.size();
+			mMergeRemovedCount += aRemoved.size();
+
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Merge of {} adds {} and removes {} triples", new Object[] { theT, aAdded.size(), aRemoved.size() });
 			}
 
+			// whatever the delta, the caller's view of the instance replaces any cached one
+			aOp.invalidate(aData);
+
 			joinCurrentDataSourceOperation(aOp);
 
+			if (isTopOperation) {
+				prefetchCascade(Collections.singleton(theT), false);
+			}
+
 			// cascade the merge
 			cascadeOperation(theT, new IsMergeCascade(), new MergeCascade());
 
 			finishCurrentDataSourceOperation(isTopOperation);
 
+			if (theT instanceof EmpireGenerated && aAllData != null) {
+				// the next merge is checked against what was just written; triples which were stored but were not
+				// instance triples, such as the rdf:type, stay out of the instance triples
+				((EmpireGenerated) theT).setInstanceTriples(difference(aData, difference(aAllData, aExistingData)));
+
+				Graph aAll = difference(aAllData, aRemoved);
+				aAll.addAll(aAdded);
+
+				((EmpireGenerated) theT).setAllTriples(aAll);
+			}
+
+			manage(theT);
+
 			postUpdate(theT);
 
             return theT;
@@ -482,6 +1076,38 @@ public final class EntityManagerImpl implements EntityManager {
 		}
 	}
 
+	/**
+	 * Return the statistics of the merges made by this EntityManager so far
+	 * @return the merge statistics
+	 */
+	public MergeStats mergeStats() {
+		return new MergeStats(mMergeCount, mMergeAddedCount, mMergeRemovedCount);
+	}
+
+	/**
+	 * Return the statements of a graph which are not in any of the other graphs
+	 * @param theGraph the graph
+	 * @param theOthers the graphs whose statements are excluded, null graphs are ignored
+	 * @return the statements of the graph which are not in the other graphs
+	 */
+	private static Graph difference(final Graph theGraph, final Graph... theOthers) {
+		Set<Statement> aExcluded = new HashSet<Statement>();
+		for (Graph aOther : theOthers) {
+			if (aOther != null) {
+				aExcluded.addAll(aOther);
+			}
+		}
+
+		Graph aDifference = new GraphImpl();
+		for (Statement aStmt : theGraph) {
+			if (!aExcluded.contains(aStmt)) {
+				aDifference.add(aStmt);
+			}
+		}
+
+		return aDifference;
+	}
+
 	private void joinCurrentDataSourceOperation(final DataSourceOperation theOp) {
 		if (mOp == null) {
 			mOp = theOp;
@@ -500,15 +1126,10 @@ public final class EntityManagerImpl implements EntityManager {
 			mCascadePending.add(theT);
 		}
 
-		Collection<AccessibleObject> aAccessors = new HashSet<AccessibleObject>();
-		
-		aAccessors.addAll(getAnnotatedFields(theT.getClass()));
-		aAccessors.addAll(getAnnotatedGetters(theT.getClass(), true));
-
-		for (AccessibleObject aObj : aAccessors) {
-			if (theCascadeTest.apply(aObj)) {
+		for (EntityMapping.PropertyMapping aProperty : EntityMapping.of(theT.getClass()).getProperties()) {
+			if (theCascadeTest.apply(aProperty)) {
 				try {
-					Object aAccessorValue = BeanReflectUtil.safeGet(aObj, theT);
+					Object aAccessorValue = aProperty.getPropertyAccessor().get(theT);
 
 					if (aAccessorValue == null) {
 						continue;
@@ -523,13 +1144,142 @@ public final class EntityManagerImpl implements EntityManager {
 		}
 	}
 
+	/**
+	 * Look up whether or not the entities reachable by cascade from the given entities exist, and the descriptions of
+	 * those which the cascade will describe, with at most two queries: one for the existence of the entities which
+	 * already know their instance triples, and a describe of the others.  Entities in a named graph are left to be
+	 * looked up individually.
+	 * @param theRoots the entities the cascade starts from
+	 * @param theRemove true if the cascade is a remove, which describes every entity it removes, false for a persist
+	 * or merge
+	 */
+	private void prefetchCascade(final Collection<?> theRoots, final boolean theRemove) {
+		mCascadeExists.clear();
+		mCascadeDescriptions.clear();
+
+		Set<Object> aReachable = Sets.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		for (Object aRoot : theRoots) {
+			collectCascade(aRoot, theRemove, aReachable);
+		}
+
+		aReachable.removeAll(theRoots);
+
+		Set<Resource> aExistsOnly = new HashSet<Resource>();
+		Set<org.openrdf.model.URI> aDescribe = new HashSet<org.openrdf.model.URI>();
+
+		for (Object aObj : aReachable) {
+			SupportsRdfId aSupportsRdfId = EmpireUtil.asSupportsRdfId(aObj);
+
+			if (aSupportsRdfId.getRdfId() == null || (doesSupportNamedGraphs() && EmpireUtil.hasNamedGraphSpecified(aObj))) {
+				continue;
+			}
+
+			Resource aRes = EmpireUtil.asResource(aSupportsRdfId);
+
+			// merges only describe the entities which do not have their instance triples
+			boolean aDescribed = theRemove
+								 || !(aObj instanceof EmpireGenerated)
+								 || ((EmpireGenerated) aObj).getInstanceTriples() == null
+								 || ((EmpireGenerated) aObj).getInstanceTriples().isEmpty();
+
+			if (aDescribed && aRes instanceof org.openrdf.model.URI) {
+				aDescribe.add((org.openrdf.model.URI) aRes);
+			}
+			else {
+				aExistsOnly.add(aRes);
+			}
+		}
+
+		try {
+			Set<Resource> aExisting = DataSourceUtil.existing(getDataSource(), aExistsOnly);
+			for (Resource aRes : aExistsOnly) {
+				mCascadeExists.put(aRes, aExisting.contains(aRes));
+			}
+
+			for (org.openrdf.model.URI aURI : aDescribe) {
+				mCascadeDescriptions.put(aURI, Graphs.newGraph());
+			}
+
+			for (Statement aStmt : DataSourceUtil.describeAll(getDataSource(), aDescribe)) {
+				Graph aGraph = mCascadeDescriptions.get(aStmt.getSubject());
+
+				if (aGraph != null) {
+					aGraph.add(aStmt);
+				}
+			}
+
+			for (org.openrdf.model.URI aURI : aDescribe) {
+				mCascadeExists.put(aURI, !mCascadeDescriptions.get(aURI).isEmpty());
+			}
+		}
+		catch (QueryException e) {
+			throw new PersistenceException(e);
+		}
+	}
+
+	/**
+	 * Collect the entity and the entities reachable from it through the properties which cascade persist and merge,
+	 * or remove, operations
+	 * @param theObj the entity
+	 * @param theRemove true to follow the properties which cascade removes, false for persists and merges
+	 * @param theReachable the entities collected so far
+	 */
+	private void collectCascade(final Object theObj, final boolean theRemove, final Set<Object> theReachable) {
+		if (!AnnotationChecker.isValid(theObj.getClass()) || !theReachable.add(theObj)) {
+			return;
+		}
+
+		for (EntityMapping.PropertyMapping aProperty : EntityMapping.of(theObj.getClass()).getProperties()) {
+			if (theRemove ? aProperty.isRemoveCascade() : aProperty.isMergeCascade() || aProperty.isPersistCascade()) {
+				Object aValue;
+
+				try {
+					aValue = aProperty.getPropertyAccessor().get(theObj);
+				}
+				catch (Exception e) {
+					throw new PersistenceException(e);
+				}
+
+				if (aValue instanceof Collection) {
+					for (Object aElement : (Collection) aValue) {
+						if (aElement != null) {
+							collectCascade(aElement, theRemove, theReachable);
+						}
+					}
+				}
+				else if (aValue != null) {
+					collectCascade(aValue, theRemove, theReachable);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return whether or not an entity reached by a cascade exists, from what was looked up for the cascade if possible
+	 * @param theObj the entity
+	 * @return true if the entity exists, false otherwise
+	 */
+	private boolean cascadeContains(final Object theObj) {
+		SupportsRdfId aSupportsRdfId = EmpireUtil.asSupportsRdfId(theObj);
+
+		if (aSupportsRdfId.getRdfId() != null && !mManagedEntities.containsKey(aSupportsRdfId.getRdfId())) {
+			Boolean aExists = mCascadeExists.get(EmpireUtil.asResource(aSupportsRdfId));
+
+			if (aExists != null) {
+				return aExists;
+			}
+		}
+
+		return contains(theObj);
+	}
+
 	private class MergeCascade extends CascadeAction {
 		public void cascade(Object theValue) {
 			// is it the correct JPA behavior to persist a value when it does not exist during a cascaded
 			// merge?  or should that be a PersistenceException just like any normal merge for an un-managed
 			// object?
 			if (AnnotationChecker.isValid(theValue.getClass())) {
-				if (contains(theValue)) {
+				if (cascadeContains(theValue)) {
 					merge(theValue);
 				}
 				else {
@@ -542,7 +1292,7 @@ public final class EntityManagerImpl implements EntityManager {
 	private class RemoveCascade extends CascadeAction {
 		public void cascade(Object theValue) {
 			if (AnnotationChecker.isValid(theValue.getClass())) {
-				if (contains(theValue)) {
+				if (cascadeContains(theValue)) {
 					remove(theValue);
 				}
 			}
@@ -550,24 +1300,24 @@ public final class EntityManagerImpl implements EntityManager {
 	}
 
 	private class IsMergeCascade extends CascadeTest {
-		public boolean apply(final AccessibleObject theValue) {
-			return BeanReflectUtil.isMergeCascade(theValue);
+		public boolean apply(final EntityMapping.PropertyMapping theValue) {
+			return theValue.isMergeCascade();
 		}
 	}
 
 	private class IsRemoveCascade extends CascadeTest {
-		public boolean apply(final AccessibleObject theValue) {
-			return BeanReflectUtil.isRemoveCascade(theValue);
+		public boolean apply(final EntityMapping.PropertyMapping theValue) {
+			return theValue.isRemoveCascade();
 		}
 	}
 
 	private class IsPersistCascade extends CascadeTest {
-		public boolean apply(final AccessibleObject theValue) {
-			return BeanReflectUtil.isPersistCascade(theValue);
+		public boolean apply(final EntityMapping.PropertyMapping theValue) {
+			return theValue.isPersistCascade();
 		}
 	}
 
-	private abstract class CascadeTest implements Predicate<AccessibleObject> {
+	private abstract class CascadeTest implements Predicate<EntityMapping.PropertyMapping> {
 	}
 
 	private abstract class CascadeAction implements Predicate<Object> {
@@ -622,12 +1372,22 @@ public final class EntityManagerImpl implements EntityManager {
 				aOp.remove(aData);
 			}
 
+			if (mVerifyWrites) {
+				aOp.verifyRemove(theObj);
+			}
+
 			joinCurrentDataSourceOperation(aOp);
 
+			if (isTopOperation) {
+				prefetchCascade(Collections.singleton(theObj), true);
+			}
+
 			cascadeOperation(theObj, new IsRemoveCascade(), new RemoveCascade());
 
 			finishCurrentDataSourceOperation(isTopOperation);
 
+			mManagedEntities.remove(EmpireUtil.asSupportsRdfId(theObj).getRdfId());
+
 			postRemove(theObj);
 		}
 		catch (DataSourceException ex) {
@@ -648,17 +1408,60 @@ public final class EntityManagerImpl implements EntityManager {
 			throw new IllegalArgumentException(e);
 		}
 */
+		Object aManaged = mManagedEntities.get(EmpireUtil.asPrimaryKey(theObj));
+
+		if (theClass.isInstance(aManaged)) {
+			return theClass.cast(aManaged);
+		}
+
+		T aT = load(theClass, theObj);
+
+		if (aT != null) {
+			manage(aT);
+		}
+
+		return aT;
+	}
+
+	/**
+	 * Load the entity with the given key from the data source, regardless of the persistence context
+	 * @param theClass the type of the entity
+	 * @param theObj the entity key
+	 * @param <T> the type of the entity
+	 * @return the entity, or null if it does not exist
+	 */
+	private <T> T load(final Class<T> theClass, final Object theObj) {
 		try {
-			if (DataSourceUtil.exists(getDataSource(), EmpireUtil.asPrimaryKey(theObj))) {
-				T aT = RdfGenerator.fromRdf(theClass, EmpireUtil.asPrimaryKey(theObj), getDataSource());
+			SupportsRdfId.RdfKey aKey = EmpireUtil.asPrimaryKey(theObj);
+
+			T aT;
+
+			boolean aCached = mCache != null && mCache.isCacheable(theClass);
+
+			// describe yields nothing for a bnode on most dialects, so those go through the existence check instead
+			if ((mSingleQueryFind || aCached) && !(aKey instanceof SupportsRdfId.BNodeKey)) {
+				Graph aGraph = aCached ? describeCached(aKey) : DataSourceUtil.describe(getDataSource(), aKey);
 
-				postLoad(aT);
+				if (aGraph.isEmpty()) {
+					return null;
+				}
 
-				return aT;
+				aT = mCache != null
+					 ? RdfGenerator.fromRdf(theClass, aKey, aGraph, getDataSource(), cachedTypes())
+					 : RdfGenerator.fromRdf(theClass, aKey, aGraph, getDataSource());
+			}
+			else if (DataSourceUtil.exists(getDataSource(), aKey)) {
+				aT = mCache != null
+					 ? RdfGenerator.fromRdf(theClass, aKey, null, getDataSource(), cachedTypes())
+					 : RdfGenerator.fromRdf(theClass, aKey, getDataSource());
 			}
 			else {
 				return null;
 			}
+
+			postLoad(aT);
+
+			return aT;
 		}
 		catch (InvalidRdfException e) {
 			throw new IllegalArgumentException("Type is not valid, or object with key is not a valid Rdf Entity.", e);
@@ -668,6 +1471,41 @@ public final class EntityManagerImpl implements EntityManager {
 		}
 	}
 
+	/**
+	 * Return the statements about the entity from the second-level cache, or describe it and cache the statements
+	 * @param theKey the entity key
+	 * @return the statements about the entity
+	 * @throws DataSourceException if there is an error while describing the entity
+	 */
+	private Graph describeCached(final SupportsRdfId.RdfKey theKey) throws DataSourceException {
+		Resource aSubject = EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theKey));
+
+		Graph aGraph = mCache.get(aSubject);
+
+		if (aGraph == null) {
+			long aGeneration = mCache.generation();
+
+			aGraph = DataSourceUtil.describe(getDataSource(), theKey);
+
+			if (!aGraph.isEmpty()) {
+				mCache.put(aSubject, aGraph, aGeneration);
+			}
+		}
+
+		return aGraph;
+	}
+
+	/**
+	 * Return the map of rdf:type values to read and fill in while creating entities: the shared one of the second-level
+	 * cache, or a private one while a transaction is active, since the types read then may be rolled back
+	 * @return the rdf:type values, keyed by individual
+	 */
+	private ConcurrentMap<Resource, Collection<Value>> cachedTypes() {
+		return mCache.isTransactionActive()
+			   ? new ConcurrentHashMap<Resource, Collection<Value>>()
+			   : mCache.getTypes();
+	}
+
 	/**
 	 * @inheritDoc
 	 */
@@ -706,7 +1544,20 @@ public final class EntityManagerImpl implements EntityManager {
 		assertStateOk(theObj);
 
 		try {
-			Graph aGraph = DataSourceUtil.describe(getDataSource(), theObj);
+			Graph aGraph = null;
+
+			if (EmpireUtil.asSupportsRdfId(theObj).getRdfId() != null) {
+				aGraph = mCascadeDescriptions.get(EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theObj)));
+			}
+
+			if (aGraph == null) {
+				aGraph = DataSourceUtil.describe(getDataSource(), theObj);
+			}
+
+			if (mPending != null) {
+				// what the data source will contain once the queued changes are written
+				aGraph = mPending.apply(EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theObj)), aGraph);
+			}
 
 			if (aGraph.isEmpty()) {
 				throw new IllegalArgumentException("Entity does not exist: " + theObj);
@@ -990,6 +1841,11 @@ public final class EntityManagerImpl implements EntityManager {
 		private final Set<Object> mVerifyAdd = Sets.newHashSet();
 		private final Set<Object> mVerifyRemove = Sets.newHashSet();
 
+		/**
+		 * Subjects to invalidate in the second-level cache besides those of the changes
+		 */
+		private final Set<Resource> mInvalidate = Sets.newHashSet();
+
 		/**
 		 * Create a new DataSourceOperation
 		 */
@@ -1007,25 +1863,81 @@ public final class EntityManagerImpl implements EntityManager {
 		public void execute() throws DataSourceException {
 			// TODO: should this be in its own transaction?  or join the current one?
 
-			for (URI aGraphURI : mRemove.keySet()) {
-				if (doesSupportNamedGraphs() && aGraphURI != null) {
-					asSupportsNamedGraphs().remove(aGraphURI, mRemove.get(aGraphURI));
+			try {
+				for (URI aGraphURI : mRemove.keySet()) {
+					if (doesSupportNamedGraphs() && aGraphURI != null) {
+						asSupportsNamedGraphs().remove(aGraphURI, mRemove.get(aGraphURI));
+					}
+					else {
+						getDataSource().remove(mRemove.get(aGraphURI));
+					}
 				}
-				else {
-					getDataSource().remove(mRemove.get(aGraphURI));
+
+				for (URI aGraphURI : mAdd.keySet()) {
+					if (doesSupportNamedGraphs() && aGraphURI != null) {
+						asSupportsNamedGraphs().add(aGraphURI, mAdd.get(aGraphURI));
+					}
+					else {
+						getDataSource().add(mAdd.get(aGraphURI));
+					}
 				}
 			}
+			finally {
+				// even a partially applied operation may have changed the subjects
+				invalidateCache();
+			}
 
-			for (URI aGraphURI : mAdd.keySet()) {
-				if (doesSupportNamedGraphs() && aGraphURI != null) {
-					asSupportsNamedGraphs().add(aGraphURI, mAdd.get(aGraphURI));
-				}
-				else {
-					getDataSource().add(mAdd.get(aGraphURI));
+			verify();
+		}
+
+		/**
+		 * Invalidate the subjects of all the changes in this operation in the second-level cache
+		 */
+		private void invalidateCache() {
+			if (mCache == null) {
+				return;
+			}
+
+			for (Graph aGraph : mRemove.values()) {
+				mCache.invalidate(aGraph);
+				noteTransactionSubjects(aGraph);
+			}
+
+			for (Graph aGraph : mAdd.values()) {
+				mCache.invalidate(aGraph);
+				noteTransactionSubjects(aGraph);
+			}
+
+			for (Resource aSubject : mInvalidate) {
+				mCache.invalidate(aSubject);
+			}
+
+			if (mTransactionSubjects != null) {
+				mTransactionSubjects.addAll(mInvalidate);
+			}
+		}
+
+		/**
+		 * Record the subjects of the graph as written during the current transaction, if one is active
+		 * @param theGraph the graph
+		 */
+		private void noteTransactionSubjects(final Graph theGraph) {
+			if (mTransactionSubjects != null) {
+				for (Statement aStmt : theGraph) {
+					mTransactionSubjects.add(aStmt.getSubject());
 				}
 			}
+		}
 
-			verify();
+		/**
+		 * Invalidate the subjects of the graph in the second-level cache when this operation is executed, even if the
+		 * operation does not change them
+		 * @param theGraph the graph
+		 */
+		public void invalidate(final Graph theGraph) {
+			for (Statement aStmt : theGraph) {
+				mInvalidate.add(aStmt.getSubject());
+			}
 		}
 
 		/**
@@ -1034,6 +1946,7 @@ public final class EntityManagerImpl implements EntityManager {
 		 * @param theObj the object that should be revmoed from the database when the operation is executed
 		 */
 		public void verifyRemove(final Object theObj) {
+			mVerifyAdd.remove(theObj);
 			mVerifyRemove.add(theObj);
 		}
 
@@ -1043,6 +1956,7 @@ public final class EntityManagerImpl implements EntityManager {
 		 * @param theObj the object that should be added to the database when the operation is executed
 		 */
 		public void verifyAdd(final Object theObj) {
+			mVerifyRemove.remove(theObj);
 			mVerifyAdd.add(theObj);
 		}
 
@@ -1051,19 +1965,77 @@ public final class EntityManagerImpl implements EntityManager {
 		 * @throws PersistenceException if an add or remove failed for any reason
 		 */
 		private void verify() {
+			if (mVerifyRemove.isEmpty() && mVerifyAdd.isEmpty()) {
+				return;
+			}
+
+			// the data source is asked directly, the persistence context would always claim added objects exist and
+			// it still holds the removed ones at this point
+			Set<Resource> aExisting = existing(Iterables.concat(mVerifyRemove, mVerifyAdd));
+
 			for (Object aObj : mVerifyRemove) {
-				if (contains(aObj)) {
+				if (exists(aObj, aExisting)) {
 					throw new PersistenceException("Remove failed for object: " + aObj.getClass() + " -> " + EmpireUtil.asSupportsRdfId(aObj).getRdfId());
 				}
 			}
 
 			for (Object aObj : mVerifyAdd) {
-				if (!contains(aObj)) {
+				if (!exists(aObj, aExisting)) {
 					throw new PersistenceException("Addition failed for object: " + aObj.getClass() + " -> " + EmpireUtil.asSupportsRdfId(aObj).getRdfId());
 				}
 			}
 		}
 
+		/**
+		 * Return which of the objects outside of a named graph exist in the data source, with a single query
+		 * @param theObjs the objects
+		 * @return the identifiers of the objects which exist
+		 */
+		private Set<Resource> existing(final Iterable<Object> theObjs) {
+			Set<Resource> aResources = new HashSet<Resource>();
+
+			for (Object aObj : theObjs) {
+				if (!isInNamedGraph(aObj) && EmpireUtil.asSupportsRdfId(aObj).getRdfId() != null) {
+					aResources.add(EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(aObj)));
+				}
+			}
+
+			try {
+				return DataSourceUtil.existing(getDataSource(), aResources);
+			}
+			catch (QueryException e) {
+				throw new PersistenceException(e);
+			}
+		}
+
+		/**
+		 * Return whether or not the object exists in the data source.  Objects in a named graph are looked for in their
+		 * graph, the others in the results of {@link #existing}.
+		 * @param theObj the object
+		 * @param theExisting the identifiers of the objects known to exist
+		 * @return true if the object exists, false otherwise
+		 */
+		private boolean exists(final Object theObj, final Set<Resource> theExisting) {
+			if (EmpireUtil.asSupportsRdfId(theObj).getRdfId() == null) {
+				return false;
+			}
+			else if (isInNamedGraph(theObj)) {
+				try {
+					return DataSourceUtil.exists(getDataSource(), theObj);
+				}
+				catch (DataSourceException e) {
+					throw new PersistenceException(e);
+				}
+			}
+			else {
+				return theExisting.contains(EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theObj)));
+			}
+		}
+
+		private boolean isInNamedGraph(final Object theObj) {
+			return doesSupportNamedGraphs() && EmpireUtil.hasNamedGraphSpecified(theObj);
+		}
+
 		/**
 		 * Add this graph to the set of data to be added when this operation is executed
 		 * @param theGraph the graph to be added
@@ -1087,6 +2059,15 @@ public final class EntityManagerImpl implements EntityManager {
 			aGraph.addAll(theGraph);
 
 			mAdd.put(theGraphURI, aGraph);
+
+			// the removal of a statement which is added back afterwards does not need to be made
+			Graph aRemoved = mRemove.get(theGraphURI);
+
+			if (aRemoved != null) {
+				for (Statement aStmt : theGraph) {
+					aRemoved.remove(aStmt);
+				}
+			}
 		}
 		
 		/**
@@ -1112,6 +2093,45 @@ public final class EntityManagerImpl implements EntityManager {
 			aGraph.addAll(theGraph);
 
 			mRemove.put(theGraphURI, aGraph);
+
+			// the addition of a statement which is removed afterwards is cancelled.  the removal is still made since
+			// the statement may have been in the data source before.
+			Graph aAdded = mAdd.get(theGraphURI);
+
+			if (aAdded != null) {
+				for (Statement aStmt : theGraph) {
+					aAdded.remove(aStmt);
+				}
+			}
+		}
+
+		/**
+		 * Return the statements about a subject which will be in the data source once this operation is executed
+		 * @param theSubject the subject
+		 * @param theGraph the statements about the subject currently in the data source
+		 * @return the statements about the subject after this operation
+		 */
+		Graph apply(final Resource theSubject, final Graph theGraph) {
+			Graph aGraph = Graphs.newGraph();
+			aGraph.addAll(theGraph);
+
+			for (Graph aRemoved : mRemove.values()) {
+				for (Statement aStmt : aRemoved) {
+					if (aStmt.getSubject().equals(theSubject)) {
+						aGraph.remove(aStmt);
+					}
+				}
+			}
+
+			for (Graph aAdded : mAdd.values()) {
+				for (Statement aStmt : aAdded) {
+					if (aStmt.getSubject().equals(theSubject)) {
+						aGraph.add(aStmt);
+					}
+				}
+			}
+
+			return aGraph;
 		}
 
 		/**
@@ -1127,8 +2147,15 @@ public final class EntityManagerImpl implements EntityManager {
 				add(aEntry.getKey(), aEntry.getValue());
 			}
 
-			mVerifyAdd.addAll(theOp.mVerifyAdd);
-			mVerifyRemove.addAll(theOp.mVerifyRemove);
+			for (Object aObj : theOp.mVerifyRemove) {
+				verifyRemove(aObj);
+			}
+
+			for (Object aObj : theOp.mVerifyAdd) {
+				verifyAdd(aObj);
+			}
+
+			mInvalidate.addAll(theOp.mInvalidate);
 		}
 	}
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.impl;
+
+/**
+ * <p>Immutable statistics about the merges made by an {@link EntityManagerImpl}: how many entities were merged and
+ * how many triples those merges added to and removed from the data source.  Like Guava's
+ * {@link com.google.common.cache.CacheStats}, the counts are cumulative, and the statistics of a single merge, or of
+ * any other span of work, are obtained by {@link #minus subtracting} a snapshot taken before it from one taken
+ * after.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+public final class MergeStats {
+
+	private final long mMergeCount;
+	private final long mAddedCount;
+	private final long mRemovedCount;
+
+	/**
+	 * Create a new MergeStats
+	 * @param theMergeCount the number of entities merged
+	 * @param theAddedCount the number of triples added by the merges
+	 * @param theRemovedCount the number of triples removed by the merges
+	 */
+	public MergeStats(final long theMergeCount, final long theAddedCount, final long theRemovedCount) {
+		mMergeCount = theMergeCount;
+		mAddedCount = theAddedCount;
+		mRemovedCount = theRemovedCount;
+	}
+
+	/**
+	 * Return the number of entities merged, including those merged by a cascade
+	 * @return the merge count
+	 */
+	public long mergeCount() {
+		return mMergeCount;
+	}
+
+	/**
+	 * Return the number of triples added to the data source by the merges
+	 * @return the number of triples added
+	 */
+	public long addedCount() {
+		return mAddedCount;
+	}
+
+	/**
+	 * Return the number of triples removed from the data source by the merges
+	 * @return the number of triples removed
+	 */
+	public long removedCount() {
+		return mRemovedCount;
+	}
+
+	/**
+	 * Return the difference between these statistics and the given ones
+	 * @param theOther the statistics to subtract, usually an earlier snapshot
+	 * @return the difference
+	 */
+	public MergeStats minus(final MergeStats theOther) {
+		return new MergeStats(mMergeCount - theOther.mMergeCount,
+							  mAddedCount - theOther.mAddedCount,
+							  mRemovedCount - theOther.mRemovedCount);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean equals(final Object theObj) {
+		if (this == theObj) {
+			return true;
+		}
+
+		if (!(theObj instanceof MergeStats)) {
+			return false;
+		}
+
+		MergeStats aOther = (MergeStats) theObj;
+
+		return mMergeCount == aOther.mMergeCount
+			   && mAddedCount == aOther.mAddedCount
+			   && mRemovedCount == aOther.mRemovedCount;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int hashCode() {
+		return (int) (31 * (31 * mMergeCount + mAddedCount) + mRemovedCount);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public String toString() {
+		return "MergeStats{mergeCount=" + mMergeCount + ", addedCount=" + mAddedCount + ", removedCount=" + mRemovedCount + "}";
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.impl;
+
+import com.clarkparsia.empire.util.EmpireAnnotationProvider;
+
+import com.google.common.collect.ImmutableMap;
+
+import javax.persistence.NamedNativeQueries;
+import javax.persistence.NamedNativeQuery;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>The user-defined named queries of an application, collected from the {@link NamedQuery},
+ * {@link NamedQueries}, {@link NamedNativeQuery} and {@link NamedNativeQueries} annotations of the classes known to
+ * an {@link EmpireAnnotationProvider}.  The annotations are read once, when the registry is created, and the
+ * registry is immutable after that, so a single registry is shared by all the {@link RdfQueryFactory query factories}
+ * rather than each of them looking the annotations up again.</p>
+ *
+ * @author Michael Grove
+ * @since 0.7.3
+ * @version 0.7.3
+ */
+public final class NamedQueryRegistry {
+
+	/**
+	 * The queries, keyed by their name
+	 */
+	private final Map<String, NamedQueryInfo> mQueries;
+
+	/**
+	 * Create a new NamedQueryRegistry
+	 * @param theProvider the provider of the classes which define named queries
+	 */
+	public NamedQueryRegistry(final EmpireAnnotationProvider theProvider) {
+		// later definitions of a name replace earlier ones, so this cannot go straight into an ImmutableMap.Builder
+		Map<String, NamedQueryInfo> aQueries = new LinkedHashMap<String, NamedQueryInfo>();
+
+		for (Class<?> aClass : theProvider.getClassesWithAnnotation(NamedQuery.class)) {
+			add(aQueries, new NamedQueryInfo(aClass.getAnnotation(NamedQuery.class)));
+		}
+
+		for (Class<?> aClass : theProvider.getClassesWithAnnotation(NamedQueries.class)) {
+			for (NamedQuery aQuery : aClass.getAnnotation(NamedQueries.class).value()) {
+				add(aQueries, new NamedQueryInfo(aQuery));
+			}
+		}
+
+		for (Class<?> aClass : theProvider.getClassesWithAnnotation(NamedNativeQuery.class)) {
+			add(aQueries, new NamedQueryInfo(aClass.getAnnotation(NamedNativeQuery.class)));
+		}
+
+		for (Class<?> aClass : theProvider.getClassesWithAnnotation(NamedNativeQueries.class)) {
+			for (NamedNativeQuery aQuery : aClass.getAnnotation(NamedNativeQueries.class).value()) {
+				add(aQueries, new NamedQueryInfo(aQuery));
+			}
+		}
+
+		mQueries = ImmutableMap.copyOf(aQueries);
+	}
+
+	private static void add(final Map<String, NamedQueryInfo> theQueries, final NamedQueryInfo theInfo) {
+		theQueries.put(theInfo.getName(), theInfo);
+	}
+
+	/**
+	 * Return the names of all the queries in the registry
+	 * @return the query names
+	 */
+	public Set<String> getNames() {
+		return mQueries.keySet();
+	}
+
+	/**
+	 * Return the query with the given name
+	 * @param theName the name of the query
+	 * @return the query, or null if there is no query with that name
+	 */
+	NamedQueryInfo get(final String theName) {
+		return mQueries.get(theName);
+	}
+
+	/**
+	 * The information from a named query annotation needed to create the query it defines
+	 */
+	static final class NamedQueryInfo {
+		private final String mName;
+		private final String mQuery;
+		private final Class mResultClass;
+		private final Collection<QueryHint> mHints;
+		private final String mResultMapping;
+
+		private NamedQueryInfo(final NamedQuery theQuery) {
+			mName = theQuery.name();
+			mQuery = theQuery.query();
+			mResultClass = null;
+			mResultMapping = null;
+			mHints = Arrays.asList(theQuery.hints());
+		}
+
+		private NamedQueryInfo(final NamedNativeQuery theQuery) {
+			mName = theQuery.name();
+			mQuery = theQuery.query();
+			mResultMapping = theQuery.resultSetMapping();
+			mResultClass = theQuery.resultClass();
+			mHints = Arrays.asList(theQuery.hints());
+		}
+
+		public String getName() {
+			return mName;
+		}
+
+		public String getQuery() {
+			return mQuery;
+		}
+
+		public Class getResultClass() {
+			return mResultClass;
+		}
+
+		public Collection<QueryHint> getHints() {
+			return mHints;
+		}
+
+		public String getResultMapping() {
+			return mResultMapping;
+		}
+	}
+}
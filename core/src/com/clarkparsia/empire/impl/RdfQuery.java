@@ -16,6 +16,7 @@
 package com.clarkparsia.empire.impl;
 
 import org.openrdf.model.Graph;
+import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
 import org.openrdf.model.Value;
 import org.openrdf.model.vocabulary.XMLSchema;
@@ -23,6 +24,7 @@ import org.openrdf.model.impl.ValueFactoryImpl;
 import org.openrdf.query.BindingSet;
 
 import com.clarkparsia.empire.ds.DataSource;
+import com.clarkparsia.empire.ds.DataSourceUtil;
 import com.clarkparsia.empire.ds.ResultSet;
 import com.clarkparsia.empire.ds.QueryException;
 import com.clarkparsia.empire.Dialect;
@@ -37,6 +39,7 @@ import com.clarkparsia.empire.annotation.runtime.Proxy;
 import com.clarkparsia.empire.annotation.runtime.ProxyAwareList;
 
 import com.clarkparsia.common.base.Dates;
+import com.clarkparsia.openrdf.Graphs;
 import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,8 +54,11 @@ import javax.persistence.TemporalType;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -97,6 +103,24 @@ public final class RdfQuery implements Query {
      */
     public static final String HINT_ENTITY_CLASS = "entity-class";
 
+    /**
+     * Key of the {@link javax.persistence.QueryHint} to enable batch hydration of the query results.  When true, the
+     * results bound to the bean class are described together, in chunks of {@link #HINT_BATCH_SIZE}, and the beans
+     * are created from those descriptions rather than with a describe (or a {@link Proxy}) per result.
+     */
+    public static final String HINT_BATCH_HYDRATION = "batch-hydration";
+
+    /**
+     * Key of the {@link javax.persistence.QueryHint} to specify how many results are described per query when
+     * {@link #HINT_BATCH_HYDRATION batch hydration} is enabled.  Defaults to {@link #DEFAULT_BATCH_SIZE}
+     */
+    public static final String HINT_BATCH_SIZE = "batch-size";
+
+    /**
+     * The default number of results described per query in batch hydration
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
 	/**
 	 * The DataSource the query will be executed against
 	 */
@@ -366,13 +390,23 @@ public final class RdfQuery implements Query {
 
                 try {
                     if (getBeanClass() != null) {
+                        Iterator<BindingSet> aRows = aResults;
+                        Map<URI, Graph> aDescriptions = null;
+
+                        if (isBatchHydration()) {
+                            List<BindingSet> aBindings = Lists.newArrayList(aResults);
+
+                            aDescriptions = describeResults(aBindings);
+                            aRows = aBindings.iterator();
+                        }
+
                         // for now, by convention, for this to work like the JPQL stuff where you do something like
                         // "from Product pr join pr.poc as p where p.id = ?" and expect to get a list of Product instances
                         // back as the result set, you *MUST* have a var in the projection called 'result' which is
                         // the URI of the things you want to get back; when you don't do this, we prefix your partial query
                         // with this string
-                        while (aResults.hasNext()) {
-							BindingSet aBS = aResults.next();
+                        while (aRows.hasNext()) {
+							BindingSet aBS = aRows.next();
 
                             Object aObj;
 
@@ -380,7 +414,15 @@ public final class RdfQuery implements Query {
 
                             // if (aBS.getValue(aVarName) instanceof URI && AnnotationChecker.isValid(getBeanClass())) {
                             if (aBS.getValue(aVarName) instanceof URI) {
-                                if (EmpireOptions.ENABLE_QUERY_RESULT_PROXY) {
+                                if (aDescriptions != null) {
+                                    Graph aDescription = aDescriptions.get((URI) aBS.getValue(aVarName));
+
+                                    aObj = RdfGenerator.fromRdf(getBeanClass(),
+                                                                asPrimaryKey(aBS.getValue(aVarName)),
+                                                                aDescription == null ? Graphs.newGraph() : aDescription,
+                                                                getSource());
+                                }
+                                else if (EmpireOptions.ENABLE_QUERY_RESULT_PROXY) {
                                     aObj = new Proxy(getBeanClass(), asPrimaryKey(aBS.getValue(aVarName)), getSource());
                                 }
                                 else {
@@ -425,6 +467,64 @@ public final class RdfQuery implements Query {
 		return aList;
 	}
 
+	/**
+	 * Describe all the URIs bound to the projection variable in the results, a chunk of {@link #getBatchSize()} URIs
+	 * per query, and split the statements by subject.
+	 * @param theResults the query results
+	 * @return the statements about each of the URIs in the results, keyed by URI
+	 * @throws QueryException if there is an error while describing the results
+	 */
+	private Map<URI, Graph> describeResults(final List<BindingSet> theResults) throws QueryException {
+		Set<URI> aURIs = new LinkedHashSet<URI>();
+
+		for (BindingSet aBS : theResults) {
+			if (aBS.getValue(getProjectionVarName()) instanceof URI) {
+				aURIs.add((URI) aBS.getValue(getProjectionVarName()));
+			}
+		}
+
+		Map<URI, Graph> aDescriptions = new HashMap<URI, Graph>();
+
+		for (Statement aStmt : DataSourceUtil.describeAll(getSource(), aURIs, getBatchSize())) {
+			Graph aGraph = aDescriptions.get(aStmt.getSubject());
+
+			if (aGraph == null) {
+				aGraph = Graphs.newGraph();
+				aDescriptions.put((URI) aStmt.getSubject(), aGraph);
+			}
+
+			aGraph.add(aStmt);
+		}
+
+		return aDescriptions;
+	}
+
+	/**
+	 * Return whether or not the results of this query are hydrated in batches, as set by the
+	 * {@link #HINT_BATCH_HYDRATION} hint.
+	 * @return true if batch hydration is enabled, false otherwise
+	 */
+	protected boolean isBatchHydration() {
+		return getHints().containsKey(HINT_BATCH_HYDRATION) && Boolean.parseBoolean(getHints().get(HINT_BATCH_HYDRATION).toString());
+	}
+
+	/**
+	 * Return the number of results which are described per query in batch hydration, as set by the
+	 * {@link #HINT_BATCH_SIZE} hint.
+	 * @return the batch size
+	 */
+	protected int getBatchSize() {
+		if (getHints().containsKey(HINT_BATCH_SIZE)) {
+			int aSize = Integer.parseInt(getHints().get(HINT_BATCH_SIZE).toString());
+
+			if (aSize > 0) {
+				return aSize;
+			}
+		}
+
+		return DEFAULT_BATCH_SIZE;
+	}
+
 	/**
 	 * Returns the name of the projection variable that is to represent the return value of the query.  By default
 	 * this is {@link #MAGIC_PROJECTION_VAR} but you can override this by setting the {@link #HINT_PROJECTION_VAR}
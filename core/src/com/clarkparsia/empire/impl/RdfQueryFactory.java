@@ -21,16 +21,7 @@ import com.clarkparsia.empire.Empire;
 import com.clarkparsia.empire.Dialect;
 
 import javax.persistence.Query;
-import javax.persistence.NamedQuery;
 import javax.persistence.QueryHint;
-import javax.persistence.NamedQueries;
-import javax.persistence.NamedNativeQuery;
-import javax.persistence.NamedNativeQueries;
-
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Collection;
-import java.util.Arrays;
 
 /**
  * <p>Implements the common operations of a {@link QueryFactory} and defers query language specific operations
@@ -52,10 +43,10 @@ public class RdfQueryFactory implements QueryFactory {
 	private Dialect mDialect;
 
 	/**
-	 * User-defined NamedQueries.  The actual queries are evaluated on-demand, we'll just keep the annotations which
-	 * contain the information needed to create them here.
+	 * User-defined NamedQueries.  The actual queries are evaluated on-demand, the registry just keeps the information
+	 * from the annotations needed to create them.  It is built once, when Empire starts, and shared by all factories.
 	 */
-	private Map<String, NamedQueryInfo> mNamedQueries = new HashMap<String, NamedQueryInfo>();
+	private final NamedQueryRegistry mNamedQueries;
 
 	/**
 	 * Create a new AbstractQueryFactory
@@ -66,32 +57,7 @@ public class RdfQueryFactory implements QueryFactory {
 		mSource = theSource;
 		mDialect = theDialect;
 
-		Collection<Class<?>> aClasses = Empire.get().getAnnotationProvider().getClassesWithAnnotation(NamedQuery.class);
-		for (Class<?> aClass :  aClasses) {
-			addNamedQuery(new NamedQueryInfo(aClass.getAnnotation(NamedQuery.class)));
-		}
-
-		aClasses = Empire.get().getAnnotationProvider().getClassesWithAnnotation(NamedQueries.class);
-		for (Class<?> aClass : aClasses) {
-			NamedQueries aNamedQueries = aClass.getAnnotation(NamedQueries.class);
-
-			for (NamedQuery aQuery : aNamedQueries.value()) {
-				addNamedQuery(new NamedQueryInfo(aQuery));
-			}
-		}
-
-		aClasses = Empire.get().getAnnotationProvider().getClassesWithAnnotation(NamedNativeQuery.class);
-		for (Class<?> aClass : aClasses) {
-			addNamedQuery(new NamedQueryInfo(aClass.getAnnotation(NamedNativeQuery.class)));
-		}
-
-		aClasses = Empire.get().getAnnotationProvider().getClassesWithAnnotation(NamedNativeQueries.class);
-		for (Class<?> aClass : aClasses) {
-			NamedNativeQueries aQueries = aClass.getAnnotation(NamedNativeQueries.class);
-			for (NamedNativeQuery aQuery : aQueries.value()) {
-				addNamedQuery(new NamedQueryInfo(aQuery));
-			}
-		}
+		mNamedQueries = Empire.get().getNamedQueries();
 	}
 
 	/**
@@ -111,14 +77,6 @@ public class RdfQueryFactory implements QueryFactory {
 		return mSource;
 	}
 
-	/**
-	 * Add a named query to this factory
-	 * @param theInfo the information about the query
-	 */
-	private void addNamedQuery(NamedQueryInfo theInfo) {
-		mNamedQueries.put(theInfo.getName(), theInfo);
-	}
-
 	/**
 	 * @inheritDoc
 	 */
@@ -137,9 +95,9 @@ public class RdfQueryFactory implements QueryFactory {
 	 * @inheritDoc
 	 */
 	public Query createNamedQuery(final String theName) {
-		if (mNamedQueries.containsKey(theName)) {
-			NamedQueryInfo aNamedQuery = mNamedQueries.get(theName);
+		NamedQueryRegistry.NamedQueryInfo aNamedQuery = mNamedQueries.get(theName);
 
+		if (aNamedQuery != null) {
 			RdfQuery aQuery = newQuery(aNamedQuery.getQuery());
 			for (QueryHint aHint : aNamedQuery.getHints()) {
 				aQuery.setHint(aHint.name(), aHint.value());
@@ -178,71 +136,4 @@ public class RdfQueryFactory implements QueryFactory {
 	public Query createNativeQuery(final String theQueryString, final String theResultSetMapping) {
 		throw new UnsupportedOperationException();
 	}
-
-	private class NamedQueryInfo {
-		private String mName;
-		private String mQuery;
-		private Class mResultClass;
-		private Collection<QueryHint> mHints;
-		private String mResultMapping;
-
-		private NamedQueryInfo(final String theName, final String theQuery) {
-			mName = theName;
-			mQuery = theQuery;
-		}
-
-		private NamedQueryInfo(NamedQuery theQuery) {
-			mName = theQuery.name();
-			mQuery = theQuery.query();
-			mHints = Arrays.asList(theQuery.hints());
-		}
-
-		private NamedQueryInfo(NamedNativeQuery theQuery) {
-			mName = theQuery.name();
-			mQuery = theQuery.query();
-			mResultMapping = theQuery.resultSetMapping();
-			mResultClass = theQuery.resultClass();
-			mHints = Arrays.asList(theQuery.hints());
-		}
-
-		public String getName() {
-			return mName;
-		}
-
-		public void setName(final String theName) {
-			mName = theName;
-		}
-
-		public String getQuery() {
-			return mQuery;
-		}
-
-		public void setQuery(final String theQuery) {
-			mQuery = theQuery;
-		}
-
-		public Class getResultClass() {
-			return mResultClass;
-		}
-
-		public void setResultClass(final Class theResultClass) {
-			mResultClass = theResultClass;
-		}
-
-		public Collection<QueryHint> getHints() {
-			return mHints;
-		}
-
-		public void setHints(final Collection<QueryHint> theHints) {
-			mHints = theHints;
-		}
-
-		public String getResultMapping() {
-			return mResultMapping;
-		}
-
-		public void setResultMapping(final String theResultMapping) {
-			mResultMapping = theResultMapping;
-		}
-	}
 }
@@ -63,6 +63,13 @@ public final class SerqlDialect implements Dialect {
 		return false;
 	}
 
+	/**
+	 * @inheritDoc
+	 */
+	public boolean supportsPropertyPaths() {
+		return false;
+	}
+
 	/**
 	 * @inheritDoc
 	 */
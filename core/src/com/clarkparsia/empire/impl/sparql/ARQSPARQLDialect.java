@@ -75,4 +75,11 @@ public final class ARQSPARQLDialect extends SPARQLDialect {
 	public boolean supportsStableBnodeIds() {
 		return true;
 	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean supportsPropertyPaths() {
+		return true;
+	}
 }
@@ -67,6 +67,15 @@ public class SPARQLDialect implements Dialect {
 		return false;
 	}
 
+	/**
+	 * SPARQL 1.0 endpoints do not support property paths, so they are not assumed.  Dialects for SPARQL 1.1 engines
+	 * should override this.
+	 * @inheritDoc
+	 */
+	public boolean supportsPropertyPaths() {
+		return false;
+	}
+
 	/**
 	 * @inheritDoc
 	 */
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.util.apt;
+
+import com.clarkparsia.empire.annotation.RdfsClass;
+
+import com.google.common.base.Joiner;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+
+import javax.persistence.NamedNativeQueries;
+import javax.persistence.NamedNativeQuery;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+
+import javax.tools.Diagnostic;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * <p>Annotation processor which does the work for Empire that can be done when the application is compiled rather
+ * than when it starts:</p>
+ * <ul>
+ * <li>It collects the classes using the {@link RdfsClass} or {@link NamedQuery} annotations and writes them, in Java
+ * Properties format, to a file called "empire.apt.config" in the directory the compiler is run from, or to the file
+ * given by the <code>empire.index</code> option.  This file can then be used as the annotation index of the
+ * application.</li>
+ * <li>It generates the source of the implementation which {@link com.clarkparsia.empire.codegen.InstanceGenerator}
+ * would otherwise generate at runtime for each {@link RdfsClass} class or interface.  These are picked up at runtime
+ * instead of being generated, which saves the time it takes to generate them and allows beans to be used where
+ * classes cannot be defined at runtime.  Generation can be turned off by setting the <code>empire.generate</code>
+ * option to false.</li>
+ * </ul>
+ *
+ * <p>Run it with <code>javac -processor com.clarkparsia.empire.util.apt.EmpireAnnotationProcessor</code>.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+@SupportedAnnotationTypes({ "com.clarkparsia.empire.annotation.RdfsClass",
+							"javax.persistence.NamedQuery",
+							"javax.persistence.NamedQueries",
+							"javax.persistence.NamedNativeQuery",
+							"javax.persistence.NamedNativeQueries" })
+@SupportedOptions({ EmpireAnnotationProcessor.INDEX_OPTION, EmpireAnnotationProcessor.GENERATE_OPTION })
+public final class EmpireAnnotationProcessor extends AbstractProcessor {
+
+	/**
+	 * The option which gives the location the annotation index is written to
+	 */
+	public static final String INDEX_OPTION = "empire.index";
+
+	/**
+	 * The option which controls whether or not implementations are generated
+	 */
+	public static final String GENERATE_OPTION = "empire.generate";
+
+	/**
+	 * The annotations which are indexed
+	 */
+	private static final Collection<String> INDEXED = Arrays.asList(RdfsClass.class.getName(),
+																	NamedQuery.class.getName(),
+																	NamedQueries.class.getName(),
+																	NamedNativeQuery.class.getName(),
+																	NamedNativeQueries.class.getName());
+
+	/**
+	 * A map of annotation class names to the fully qualified class names of classes which have the specific annotation.
+	 * This is accumulated over all the rounds of processing.
+	 */
+	private final Map<String, Collection<String>> mAnnotationClassMap = new HashMap<String, Collection<String>>();
+
+	/**
+	 * The classes an implementation has been generated for so far
+	 */
+	private final Set<String> mGenerated = new HashSet<String>();
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean process(final Set<? extends TypeElement> theAnnotations, final RoundEnvironment theEnv) {
+		for (TypeElement aAnnotation : theAnnotations) {
+			String aName = aAnnotation.getQualifiedName().toString();
+
+			if (!INDEXED.contains(aName)) {
+				continue;
+			}
+
+			Collection<String> aCollection = mAnnotationClassMap.get(aName);
+			if (aCollection == null) {
+				aCollection = new LinkedHashSet<String>();
+				mAnnotationClassMap.put(aName, aCollection);
+			}
+
+			for (Element aElement : theEnv.getElementsAnnotatedWith(aAnnotation)) {
+				if (aElement.getKind() == ElementKind.CLASS) {
+					aCollection.add(processingEnv.getElementUtils().getBinaryName((TypeElement) aElement).toString());
+				}
+
+				if (aName.equals(RdfsClass.class.getName()) && isGenerating() && aElement instanceof TypeElement) {
+					generate((TypeElement) aElement);
+				}
+			}
+		}
+
+		if (theEnv.processingOver()) {
+			writeIndex();
+		}
+
+		// other processors are welcome to these annotations as well
+		return false;
+	}
+
+	private boolean isGenerating() {
+		return !"false".equalsIgnoreCase(processingEnv.getOptions().get(GENERATE_OPTION));
+	}
+
+	/**
+	 * Generate the implementation of the type, if one can be generated for it
+	 * @param theType the type
+	 */
+	private void generate(final TypeElement theType) {
+		if (!mGenerated.add(theType.getQualifiedName().toString())) {
+			return;
+		}
+
+		ImplementationWriter aWriter = new ImplementationWriter(processingEnv, theType);
+
+		try {
+			aWriter.write();
+		}
+		catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Could not write the implementation of " + theType + ": " + e.getMessage(), theType);
+		}
+	}
+
+	/**
+	 * Write the annotation index
+	 */
+	private void writeIndex() {
+		if (mAnnotationClassMap.isEmpty()) {
+			return;
+		}
+
+		Properties aProps = new Properties();
+
+		for (String aClass : mAnnotationClassMap.keySet()) {
+			aProps.setProperty(aClass, Joiner.on(",").join(mAnnotationClassMap.get(aClass)));
+		}
+
+		String aFile = processingEnv.getOptions().get(INDEX_OPTION);
+
+		OutputStream aStream = null;
+		try {
+			aStream = new FileOutputStream(new File(aFile == null ? "empire.apt.config" : aFile));
+			aProps.store(aStream, "Empire Config generated by APT");
+		}
+		catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "There was a failure generating Empire config: " + e.getMessage());
+		}
+		finally {
+			if (aStream != null) {
+				try {
+					aStream.close();
+				}
+				catch (IOException e) {
+					// oh well.
+				}
+			}
+		}
+	}
+}
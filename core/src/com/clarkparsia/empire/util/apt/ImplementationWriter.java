@@ -0,0 +1,580 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.util.apt;
+
+import com.clarkparsia.empire.EmpireGenerated;
+import com.clarkparsia.empire.SupportsRdfId;
+
+import javax.annotation.processing.ProcessingEnvironment;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.AnnotationValueVisitor;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.SimpleAnnotationValueVisitor6;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Writes the source of the implementation of a bean class or interface, equivalent to the one generated at runtime
+ * by {@link com.clarkparsia.empire.codegen.InstanceGenerator}: each abstract bean getter and setter is implemented
+ * over a field named after the property, and carries the runtime annotations of the method it implements, along with
+ * the {@link EmpireGenerated} methods and an rdf:ID based equals method.  The annotations are written out from their
+ * values, so enum constants and classes are fully qualified in the generated source.  The implementation is named, and placed, as
+ * InstanceGenerator would name it, which is how it is found at runtime.</p>
+ *
+ * <p>Types which cannot be implemented from source, for example because they have abstract methods which are not
+ * bean getters or setters or are not visible outside of their package, are skipped with a note; they are still
+ * generated at runtime.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+final class ImplementationWriter {
+	private final ProcessingEnvironment mEnv;
+	private final Elements mElements;
+	private final Types mTypes;
+
+	/**
+	 * The type being implemented
+	 */
+	private final TypeElement mType;
+
+	/**
+	 * The abstract methods of the type which will be implemented
+	 */
+	private final List<ExecutableElement> mMethods = new ArrayList<ExecutableElement>();
+
+	/**
+	 * The type of each property, keyed by the name of the property
+	 */
+	private final Map<String, TypeMirror> mProperties = new LinkedHashMap<String, TypeMirror>();
+
+	ImplementationWriter(final ProcessingEnvironment theEnv, final TypeElement theType) {
+		mEnv = theEnv;
+		mElements = theEnv.getElementUtils();
+		mTypes = theEnv.getTypeUtils();
+		mType = theType;
+	}
+
+	/**
+	 * Write the implementation of the type, or skip it if no implementation can be generated for it
+	 * @throws IOException if there is an error writing the source
+	 */
+	void write() throws IOException {
+		String aReason = check();
+
+		if (aReason != null) {
+			mEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Not generating an implementation of " + mType + ", " + aReason, mType);
+			return;
+		}
+
+		String aBinaryName = mElements.getBinaryName(mType).toString();
+		String aPackage = mElements.getPackageOf(mType).getQualifiedName().toString();
+		String aSimpleName = aBinaryName.substring(aPackage.length() == 0 ? 0 : aPackage.length() + 1) + "Impl";
+		String aImplPackage = aPackage.length() == 0 ? "impl" : aPackage + ".impl";
+
+		String aTypeName = mType.getQualifiedName().toString();
+
+		JavaFileObject aFile = mEnv.getFiler().createSourceFile(aImplPackage + "." + aSimpleName, mType);
+		Writer aWriter = aFile.openWriter();
+
+		try {
+			PrintWriter aOut = new PrintWriter(aWriter);
+
+			aOut.println("package " + aImplPackage + ";");
+			aOut.println();
+			aOut.println("/**");
+			aOut.println(" * Implementation of {@link " + aTypeName + "} generated by the Empire annotation processor");
+			aOut.println(" */");
+			aOut.println("public class " + aSimpleName
+						 + (mType.getKind() == ElementKind.INTERFACE ? " implements " + aTypeName + ", " : " extends " + aTypeName + " implements ")
+						 + SupportsRdfId.class.getName() + ", " + EmpireGenerated.class.getName() + " {");
+
+			aOut.println("\tjava.lang.Class mInterfaceClass = " + aTypeName + ".class;");
+			aOut.println("\torg.openrdf.model.Graph mAllTriples = new com.clarkparsia.openrdf.SetGraph();");
+			aOut.println("\torg.openrdf.model.Graph mInstanceTriples = new com.clarkparsia.openrdf.SetGraph();");
+
+			for (Map.Entry<String, TypeMirror> aProp : mProperties.entrySet()) {
+				aOut.println("\t" + aProp.getValue() + " " + aProp.getKey() + ";");
+			}
+
+			aOut.println();
+			aOut.println("\tpublic " + aSimpleName + "() {");
+			aOut.println("\t}");
+
+			for (ExecutableElement aMethod : mMethods) {
+				ExecutableType aMethodType = (ExecutableType) mTypes.asMemberOf((DeclaredType) mType.asType(), aMethod);
+				String aName = aMethod.getSimpleName().toString();
+				String aVisibility = aMethod.getModifiers().contains(Modifier.PUBLIC) ? "public " : "protected ";
+
+				aOut.println();
+
+				for (AnnotationMirror aAnnotation : aMethod.getAnnotationMirrors()) {
+					if (isRuntimeAnnotation(aAnnotation)) {
+						aOut.println("\t" + toSource(aAnnotation));
+					}
+				}
+
+				if (aMethod.getParameters().isEmpty()) {
+					aOut.println("\t" + aVisibility + aMethodType.getReturnType() + " " + aName + "() {");
+					aOut.println("\t\treturn " + propertyName(aName) + ";");
+				}
+				else {
+					aOut.println("\t" + aVisibility + aMethodType.getReturnType() + " " + aName + "(final " + aMethodType.getParameterTypes().get(0) + " theValue) {");
+					aOut.println("\t\t" + propertyName(aName) + " = theValue;");
+				}
+
+				aOut.println("\t}");
+			}
+
+			if (!isImplemented("getAllTriples")) {
+				aOut.println();
+				aOut.println("\tpublic org.openrdf.model.Graph getAllTriples() { return mAllTriples; }");
+			}
+
+			if (!isImplemented("setAllTriples")) {
+				aOut.println();
+				aOut.println("\tpublic void setAllTriples(org.openrdf.model.Graph theGraph) { mAllTriples = theGraph; }");
+			}
+
+			if (!isImplemented("getInstanceTriples")) {
+				aOut.println();
+				aOut.println("\tpublic org.openrdf.model.Graph getInstanceTriples() { return mInstanceTriples; }");
+			}
+
+			if (!isImplemented("setInstanceTriples")) {
+				aOut.println();
+				aOut.println("\tpublic void setInstanceTriples(org.openrdf.model.Graph theGraph) { mInstanceTriples = theGraph; }");
+			}
+
+			if (!isImplemented("getInterfaceClass")) {
+				aOut.println();
+				aOut.println("\tpublic java.lang.Class getInterfaceClass() { return mInterfaceClass; }");
+			}
+
+			aOut.println();
+			aOut.println("\tpublic boolean equals(Object theObj) {");
+			aOut.println("\t\tif (theObj == this) return true;");
+			aOut.println("\t\tif (!(theObj instanceof " + SupportsRdfId.class.getName() + ")) return false;");
+			aOut.println("\t\tif (!(mInterfaceClass.isAssignableFrom(theObj.getClass()))) return false;");
+			aOut.println("\t\treturn getRdfId().equals( ((" + SupportsRdfId.class.getName() + ") theObj).getRdfId()) && super.equals(theObj);");
+			aOut.println("\t}");
+
+			if (mType.getKind() == ElementKind.INTERFACE) {
+				aOut.println();
+				aOut.println("\tpublic String toString() { return getRdfId() != null ? getRdfId().toString() : super.toString(); }");
+				aOut.println();
+				aOut.println("\tpublic int hashCode() { return getRdfId() != null ? getRdfId().hashCode() : 0; }");
+			}
+
+			aOut.println("}");
+			aOut.flush();
+		}
+		finally {
+			aWriter.close();
+		}
+	}
+
+	/**
+	 * Check whether or not an implementation can be generated for the type, collecting the methods and properties
+	 * to implement as we go
+	 * @return the reason an implementation cannot be generated, or null if it can be
+	 */
+	private String check() {
+		if (mType.getKind() != ElementKind.CLASS && mType.getKind() != ElementKind.INTERFACE) {
+			return "it is not a class or interface";
+		}
+
+		if (mType.getModifiers().contains(Modifier.FINAL)) {
+			return "it is final";
+		}
+
+		if (!mType.getTypeParameters().isEmpty()) {
+			return "it has type parameters";
+		}
+
+		for (Element aElement = mType; aElement instanceof TypeElement; aElement = aElement.getEnclosingElement()) {
+			if (!aElement.getModifiers().contains(Modifier.PUBLIC)
+				|| (((TypeElement) aElement).getNestingKind() == NestingKind.MEMBER && !aElement.getModifiers().contains(Modifier.STATIC) && aElement.getEnclosingElement().getKind() == ElementKind.CLASS)) {
+				return "it is not visible outside of its package";
+			}
+		}
+
+		if (!mTypes.isAssignable(mType.asType(), mElements.getTypeElement(SupportsRdfId.class.getName()).asType())) {
+			return "it does not implement SupportsRdfId";
+		}
+
+		if (mTypes.isAssignable(mType.asType(), mElements.getTypeElement(EmpireGenerated.class.getName()).asType())) {
+			return "it is already an EmpireGenerated class";
+		}
+
+		if (mType.getKind() == ElementKind.CLASS && !hasVisibleConstructor()) {
+			return "it does not have a public or protected default constructor";
+		}
+
+		List<? extends Element> aMembers = mElements.getAllMembers(mType);
+
+		for (ExecutableElement aMethod : ElementFilter.methodsIn(aMembers)) {
+			if (!aMethod.getModifiers().contains(Modifier.ABSTRACT) || isImplemented(aMethod, aMembers) || isDuplicate(aMethod)) {
+				continue;
+			}
+
+			if (!aMethod.getModifiers().contains(Modifier.PUBLIC) && !aMethod.getModifiers().contains(Modifier.PROTECTED)) {
+				return aMethod + " is not visible outside of its package";
+			}
+
+			if (!aMethod.getTypeParameters().isEmpty()) {
+				return aMethod + " has type parameters";
+			}
+
+			ExecutableType aMethodType = (ExecutableType) mTypes.asMemberOf((DeclaredType) mType.asType(), aMethod);
+
+			String aName = aMethod.getSimpleName().toString();
+			TypeMirror aPropType;
+
+			if (isGetter(aName) && aMethod.getParameters().isEmpty() && aMethodType.getReturnType().getKind() != TypeKind.VOID) {
+				aPropType = aMethodType.getReturnType();
+			}
+			else if (aName.startsWith("set") && aName.length() > 3 && aMethod.getParameters().size() == 1) {
+				aPropType = aMethodType.getParameterTypes().get(0);
+
+				if (aMethodType.getReturnType().getKind() != TypeKind.VOID) {
+					return aMethod + " is a setter which returns a value";
+				}
+			}
+			else {
+				return aMethod + " is not a bean getter or setter";
+			}
+
+			if (aPropType.getKind() == TypeKind.TYPEVAR) {
+				return aMethod + " has a type variable in its signature";
+			}
+
+			String aProp = propertyName(aName);
+			TypeMirror aExisting = mProperties.get(aProp);
+
+			if (aExisting != null && !mTypes.isSameType(aExisting, aPropType)) {
+				return "the property " + aProp + " does not have a single type";
+			}
+
+			mProperties.put(aProp, aPropType);
+			mMethods.add(aMethod);
+		}
+
+		return null;
+	}
+
+	private boolean hasVisibleConstructor() {
+		for (ExecutableElement aConstructor : ElementFilter.constructorsIn(mType.getEnclosedElements())) {
+			if (aConstructor.getParameters().isEmpty()
+				&& (aConstructor.getModifiers().contains(Modifier.PUBLIC) || aConstructor.getModifiers().contains(Modifier.PROTECTED))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Return whether or not the abstract method has a concrete implementation in the type or its super classes
+	 * @param theMethod the method
+	 * @param theMembers all the members of the type
+	 * @return true if it is implemented, false otherwise
+	 */
+	private boolean isImplemented(final ExecutableElement theMethod, final List<? extends Element> theMembers) {
+		for (ExecutableElement aMethod : ElementFilter.methodsIn(theMembers)) {
+			if (!aMethod.getModifiers().contains(Modifier.ABSTRACT) && !aMethod.equals(theMethod)
+				&& mElements.overrides(aMethod, theMethod, mType)) {
+				return true;
+			}
+		}
+
+		// interfaces which re-declare the methods of Object, they're implemented by Object
+		for (ExecutableElement aMethod : ElementFilter.methodsIn(mElements.getTypeElement(Object.class.getName()).getEnclosedElements())) {
+			if (aMethod.getSimpleName().equals(theMethod.getSimpleName())
+				&& mTypes.isSubsignature((ExecutableType) aMethod.asType(), (ExecutableType) theMethod.asType())) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Return whether or not there is a concrete method of the given name, without parameters, in the type
+	 * @param theName the name of the method
+	 * @return true if there is one, false otherwise
+	 */
+	private boolean isImplemented(final String theName) {
+		for (ExecutableElement aMethod : mMethods) {
+			if (aMethod.getSimpleName().contentEquals(theName)) {
+				return true;
+			}
+		}
+
+		for (ExecutableElement aMethod : ElementFilter.methodsIn(mElements.getAllMembers(mType))) {
+			if (aMethod.getSimpleName().contentEquals(theName) && !aMethod.getModifiers().contains(Modifier.ABSTRACT)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Return whether or not a method with the same signature as this one, inherited from another interface, is
+	 * already going to be implemented
+	 * @param theMethod the method
+	 * @return true if it is a duplicate, false otherwise
+	 */
+	private boolean isDuplicate(final ExecutableElement theMethod) {
+		ExecutableType aType = (ExecutableType) mTypes.asMemberOf((DeclaredType) mType.asType(), theMethod);
+
+		for (ExecutableElement aMethod : mMethods) {
+			if (aMethod.getSimpleName().equals(theMethod.getSimpleName())
+				&& mTypes.isSubsignature(aType, (ExecutableType) mTypes.asMemberOf((DeclaredType) mType.asType(), aMethod))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Return the source of the annotation, with every value written out explicitly: enum constants and class
+	 * literals are fully qualified and strings and characters are escaped, unlike the
+	 * {@link AnnotationMirror#toString string form} of the annotation, which is not necessarily valid source.
+	 * @param theAnnotation the annotation
+	 * @return the annotation as source
+	 */
+	private static String toSource(final AnnotationMirror theAnnotation) {
+		StringBuilder aBuffer = new StringBuilder("@");
+
+		aBuffer.append(((TypeElement) theAnnotation.getAnnotationType().asElement()).getQualifiedName());
+
+		Map<? extends ExecutableElement, ? extends AnnotationValue> aValues = theAnnotation.getElementValues();
+
+		if (!aValues.isEmpty()) {
+			aBuffer.append("(");
+
+			boolean aFirst = true;
+			for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> aEntry : aValues.entrySet()) {
+				if (!aFirst) {
+					aBuffer.append(", ");
+				}
+
+				aBuffer.append(aEntry.getKey().getSimpleName()).append("=").append(toSource(aEntry.getValue()));
+				aFirst = false;
+			}
+
+			aBuffer.append(")");
+		}
+
+		return aBuffer.toString();
+	}
+
+	/**
+	 * Return the source of an annotation value
+	 * @param theValue the value
+	 * @return the value as source
+	 */
+	private static String toSource(final AnnotationValue theValue) {
+		return theValue.accept(VALUE_WRITER, null);
+	}
+
+	/**
+	 * Writes the source of annotation values
+	 */
+	private static final AnnotationValueVisitor<String, Void> VALUE_WRITER = new SimpleAnnotationValueVisitor6<String, Void>() {
+		@Override
+		public String visitBoolean(final boolean theValue, final Void theParam) {
+			return String.valueOf(theValue);
+		}
+
+		@Override
+		public String visitByte(final byte theValue, final Void theParam) {
+			return "(byte) " + theValue;
+		}
+
+		@Override
+		public String visitChar(final char theValue, final Void theParam) {
+			return "'" + (theValue == '\'' ? "\\'" : escape(String.valueOf(theValue))) + "'";
+		}
+
+		@Override
+		public String visitDouble(final double theValue, final Void theParam) {
+			if (Double.isNaN(theValue)) {
+				return "java.lang.Double.NaN";
+			}
+			else if (Double.isInfinite(theValue)) {
+				return theValue > 0 ? "java.lang.Double.POSITIVE_INFINITY" : "java.lang.Double.NEGATIVE_INFINITY";
+			}
+			else {
+				return theValue + "D";
+			}
+		}
+
+		@Override
+		public String visitFloat(final float theValue, final Void theParam) {
+			if (Float.isNaN(theValue)) {
+				return "java.lang.Float.NaN";
+			}
+			else if (Float.isInfinite(theValue)) {
+				return theValue > 0 ? "java.lang.Float.POSITIVE_INFINITY" : "java.lang.Float.NEGATIVE_INFINITY";
+			}
+			else {
+				return theValue + "F";
+			}
+		}
+
+		@Override
+		public String visitInt(final int theValue, final Void theParam) {
+			return String.valueOf(theValue);
+		}
+
+		@Override
+		public String visitLong(final long theValue, final Void theParam) {
+			return theValue + "L";
+		}
+
+		@Override
+		public String visitShort(final short theValue, final Void theParam) {
+			return "(short) " + theValue;
+		}
+
+		@Override
+		public String visitString(final String theValue, final Void theParam) {
+			return "\"" + escape(theValue) + "\"";
+		}
+
+		@Override
+		public String visitType(final TypeMirror theValue, final Void theParam) {
+			if (theValue.getKind() == TypeKind.DECLARED) {
+				return ((TypeElement) ((DeclaredType) theValue).asElement()).getQualifiedName() + ".class";
+			}
+			else {
+				// primitives, void and arrays
+				return theValue + ".class";
+			}
+		}
+
+		@Override
+		public String visitEnumConstant(final VariableElement theValue, final Void theParam) {
+			return ((TypeElement) theValue.getEnclosingElement()).getQualifiedName() + "." + theValue.getSimpleName();
+		}
+
+		@Override
+		public String visitAnnotation(final AnnotationMirror theValue, final Void theParam) {
+			return toSource(theValue);
+		}
+
+		@Override
+		public String visitArray(final List<? extends AnnotationValue> theValues, final Void theParam) {
+			StringBuilder aBuffer = new StringBuilder("{");
+
+			for (AnnotationValue aValue : theValues) {
+				if (aBuffer.length() > 1) {
+					aBuffer.append(", ");
+				}
+
+				aBuffer.append(aValue.accept(this, theParam));
+			}
+
+			return aBuffer.append("}").toString();
+		}
+	};
+
+	/**
+	 * Escape the string for use in a string or character literal
+	 * @param theString the string
+	 * @return the escaped string
+	 */
+	private static String escape(final String theString) {
+		StringBuilder aBuffer = new StringBuilder();
+
+		for (char aChar : theString.toCharArray()) {
+			switch (aChar) {
+				case '\\': aBuffer.append("\\\\"); break;
+				case '"': aBuffer.append("\\\""); break;
+				case '\n': aBuffer.append("\\n"); break;
+				case '\r': aBuffer.append("\\r"); break;
+				case '\t': aBuffer.append("\\t"); break;
+				case '\b': aBuffer.append("\\b"); break;
+				case '\f': aBuffer.append("\\f"); break;
+				default:
+					if (aChar < 0x20 || aChar > 0x7e) {
+						aBuffer.append(String.format("\\u%04x", (int) aChar));
+					}
+					else {
+						aBuffer.append(aChar);
+					}
+			}
+		}
+
+		return aBuffer.toString();
+	}
+
+	private boolean isRuntimeAnnotation(final AnnotationMirror theAnnotation) {
+		Retention aRetention = theAnnotation.getAnnotationType().asElement().getAnnotation(Retention.class);
+
+		return aRetention != null && aRetention.value() == RetentionPolicy.RUNTIME;
+	}
+
+	private static boolean isGetter(final String theName) {
+		return (theName.startsWith("get") && theName.length() > 3)
+			   || (theName.startsWith("has") && theName.length() > 3)
+			   || (theName.startsWith("is") && theName.length() > 2);
+	}
+
+	/**
+	 * Return the name of the bean property of a getter or setter, which is also the name of its field
+	 * @param theMethodName the name of the getter or setter
+	 * @return the property name
+	 */
+	private static String propertyName(final String theMethodName) {
+		String aProp = theMethodName.substring(theMethodName.startsWith("is") ? 2 : 3);
+
+		return String.valueOf(aProp.charAt(0)).toLowerCase() + aProp.substring(1);
+	}
+}
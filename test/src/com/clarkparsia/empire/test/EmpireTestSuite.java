@@ -40,7 +40,7 @@ import org.junit.BeforeClass;
  * @version 0.7.1
  */
 @RunWith(Suite.class)
-@Suite.SuiteClasses({TestLazyCollectionLoad.class, TestRdfConvert.class, TestMisc.class,
+@Suite.SuiteClasses({TestLazyCollectionLoad.class, TestRdfConvert.class, TestConcurrentHydration.class, TestMisc.class,
 					 TestConfig.class, TestDS.class, CodegenTests.class,
 					 SesameEntityManagerTestSuite.class, JenaEntityManagerTestSuite.class})
 public class EmpireTestSuite {
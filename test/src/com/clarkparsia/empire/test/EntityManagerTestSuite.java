@@ -52,11 +52,17 @@ import com.clarkparsia.empire.codegen.InstanceGenerator;
 import com.clarkparsia.empire.ds.DataSource;
 import com.clarkparsia.empire.ds.DataSourceException;
 import com.clarkparsia.empire.ds.DataSourceFactory;
+import com.clarkparsia.empire.ds.DataSourceUtil;
 import com.clarkparsia.empire.ds.MutableDataSource;
+import com.clarkparsia.empire.ds.QueryException;
+import com.clarkparsia.empire.ds.ResultSet;
 import com.clarkparsia.empire.ds.SupportsTransactions;
 import com.clarkparsia.empire.ds.TripleSource;
+import com.clarkparsia.empire.ds.impl.DelegatingDataSource;
 
 import com.clarkparsia.empire.impl.EntityManagerFactoryImpl;
+import com.clarkparsia.empire.impl.RdfQuery;
+import com.clarkparsia.empire.impl.serql.SerqlDialect;
 import com.clarkparsia.empire.test.api.BaseTestClass;
 
 import com.clarkparsia.empire.test.api.TestEntityListener;
@@ -85,6 +91,8 @@ import org.junit.Test;
 
 import org.openrdf.model.Graph;
 import org.openrdf.model.Statement;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
 import org.openrdf.model.impl.ValueFactoryImpl;
 import org.openrdf.model.vocabulary.RDF;
 
@@ -93,6 +101,7 @@ import org.openrdf.rio.RDFParseException;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
@@ -258,6 +267,59 @@ public abstract class EntityManagerTestSuite {
 		assertEquals(c, one.list);
 	}
 
+	/**
+	 * Test that an rdf:List is retrieved with a single query when the dialect supports property paths, and a query
+	 * per chunk of nodes otherwise, rather than with queries for each node.
+	 *
+	 * @throws Exception test error
+	 */
+	@Test
+	public void testListRetrieval() throws Exception {
+		EntityManager aMgr = createEntityManager();
+
+		assumeTrue(aMgr.getDelegate() instanceof MutableDataSource);
+		assumeTrue(!(((DataSource) aMgr.getDelegate()).getQueryFactory().getDialect() instanceof SerqlDialect));
+
+		ValueFactory aFactory = ValueFactoryImpl.getInstance();
+
+		final int aSize = DataSourceUtil.LIST_CHUNK_SIZE + 10;
+
+		List<Value> aMembers = new ArrayList<Value>();
+		Graph aGraph = Graphs.newGraph();
+
+		for (int i = 0; i < aSize; i++) {
+			org.openrdf.model.URI aNode = aFactory.createURI("urn:list:node" + i);
+
+			aMembers.add(aFactory.createLiteral("member " + i));
+
+			aGraph.add(aNode, RDF.FIRST, aMembers.get(i));
+			aGraph.add(aNode, RDF.REST, i == aSize - 1 ? RDF.NIL : aFactory.createURI("urn:list:node" + (i + 1)));
+		}
+
+		((MutableDataSource) aMgr.getDelegate()).add(aGraph);
+
+		final int[] aQueries = new int[1];
+
+		DataSource aSource = new DelegatingDataSource((DataSource) aMgr.getDelegate()) {
+			@Override
+			public Graph graphQuery(final String theQuery) throws QueryException {
+				aQueries[0]++;
+				return super.graphQuery(theQuery);
+			}
+
+			@Override
+			public ResultSet selectQuery(final String theQuery) throws QueryException {
+				aQueries[0]++;
+				return super.selectQuery(theQuery);
+			}
+		};
+
+		assertEquals(aMembers, DataSourceUtil.getList(aSource, aFactory.createURI("urn:list:node0")));
+		assertEquals(aSource.getQueryFactory().getDialect().supportsPropertyPaths() ? 1 : 2, aQueries[0]);
+
+		((MutableDataSource) aMgr.getDelegate()).remove(aGraph);
+	}
+
 	/**
 	 * Test case for using generated instances and avoiding duplicates.  If you use a generated classes and persist it originally to an EM, then make changes on
 	 * the *same* object and merge those changes, EmpireGenerated is not correctly populated, so nothing is deleted and you end up with duplicated values.  So
@@ -1123,6 +1185,61 @@ public abstract class EntityManagerTestSuite {
 		assertEquals(aCraft.getAlternateName(), Collections.singletonList("00001"));
 	}
 
+	@Test
+	public void testEagerFetchDepth() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		insertData((MutableDataSource) aManager.getDelegate(), new File(DATA_FILE));
+
+		String aLaunchURI = "http://nasa.dataincubator.org/launch/SATURNSA1";
+
+		Launch aLaunch = aManager.find(Launch.class, aLaunchURI);
+
+		EmpireOptions.EAGER_FETCH_DEPTH = 3;
+
+		// otherwise the launch found above is returned from the persistence context without fetching anything
+		aManager.clear();
+
+		try {
+			Launch aFetchedLaunch = aManager.find(Launch.class, aLaunchURI);
+
+			assertNotSame(aLaunch, aFetchedLaunch);
+			assertEquals(aLaunch, aFetchedLaunch);
+			assertEquals(aLaunch.getLaunchSite(), aFetchedLaunch.getLaunchSite());
+			assertEquals(aLaunch.getSpacecraft(), aFetchedLaunch.getSpacecraft());
+		}
+		finally {
+			EmpireOptions.EAGER_FETCH_DEPTH = 0;
+		}
+	}
+
+	@Test
+	public void testBatchHydration() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		insertData((MutableDataSource) aManager.getDelegate(), new File(DATA_FILE));
+
+		List aResults = aManager.createNativeQuery(TEST_AGENCY_QUERY, Spacecraft.class).getResultList();
+
+		Query aQuery = aManager.createNativeQuery(TEST_AGENCY_QUERY, Spacecraft.class);
+		aQuery.setHint(RdfQuery.HINT_BATCH_HYDRATION, true);
+		aQuery.setHint(RdfQuery.HINT_BATCH_SIZE, 7);
+
+		List aBatchResults = aQuery.getResultList();
+
+		assertTrue(aResults.size() > 7);
+		assertEquals(Lists.newArrayList(aResults), Lists.newArrayList(aBatchResults));
+
+		for (Object aObj : aBatchResults) {
+			assertTrue(aObj instanceof Spacecraft);
+			assertEquals("U.S.S.R", ((Spacecraft) aObj).getAgency());
+		}
+	}
+
 	@Test
 	public void testUpdate() throws Exception {
 		EntityManager aManager = createEntityManager();
@@ -1256,15 +1373,12 @@ public abstract class EntityManagerTestSuite {
 
 		assertTrue(aManager.isOpen());
 
-		// we support this...
-		aManager.setFlushMode(FlushModeType.AUTO);
+		// both flush modes are supported
+		aManager.setFlushMode(FlushModeType.COMMIT);
 
-		// ... but not this
-		try {
-			aManager.setFlushMode(FlushModeType.COMMIT);
-			fail("IllegalArgumentException expected");
-		}
-		catch (IllegalArgumentException e) { /* expected */ }
+		assertEquals(aManager.getFlushMode(), FlushModeType.COMMIT);
+
+		aManager.setFlushMode(FlushModeType.AUTO);
 
 		assertEquals(aManager.getFlushMode(), FlushModeType.AUTO);
 
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.test;
+
+import com.clarkparsia.empire.annotation.RdfGenerator;
+import com.clarkparsia.empire.ds.DataSource;
+import com.clarkparsia.empire.ds.QueryException;
+import com.clarkparsia.empire.test.api.TestDataSource;
+import com.clarkparsia.empire.test.api.TestPerson;
+
+import com.clarkparsia.common.base.Dates;
+
+import com.google.common.base.Throwables;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.impl.GraphImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Tests for converting RDF into beans from multiple threads at once.</p>
+ *
+ * @author Michael Grove
+ * @since 0.7.3
+ */
+public class TestConcurrentHydration {
+	private static final int THREADS = 8;
+
+	private static TestPerson BOB;
+	private static Graph GRAPH;
+
+	@BeforeClass
+	public static void beforeClass() throws Exception {
+		TestPerson aJoe = new TestPerson();
+		aJoe.setMBox("mailto:joe@example.org");
+		aJoe.setFirstName("Joe");
+
+		TestPerson aJane = new TestPerson();
+		aJane.setMBox("mailto:jane@example.org");
+		aJane.setFirstName("Jane");
+
+		BOB = new TestPerson();
+		BOB.setBirthday(Dates.asDate("1980-01-01"));
+		BOB.setFirstName("Bob");
+		BOB.setLastName("Smith");
+		BOB.setWeight(200.1f);
+		BOB.setMBox("mailto:bob@example.org");
+
+		BOB.getKnows().add(aJoe);
+		BOB.getKnows().add(aJane);
+
+		// a cycle, each has the other as a spouse
+		BOB.setSpouse(aJane);
+		aJane.setSpouse(BOB);
+
+		GRAPH = new GraphImpl();
+		GRAPH.addAll(RdfGenerator.asRdf(BOB));
+		GRAPH.addAll(RdfGenerator.asRdf(aJoe));
+		GRAPH.addAll(RdfGenerator.asRdf(aJane));
+	}
+
+	@Test
+	public void testConcurrentHydration() throws Exception {
+		final DataSource aSource = new TestDataSource(GRAPH);
+
+		List<TestPerson> aResults = hydrateConcurrently(aSource, 25);
+
+		assertEquals(THREADS * 25, aResults.size());
+
+		for (TestPerson aPerson : aResults) {
+			assertEquals(BOB, aPerson);
+
+			// the cycle should be resolved within each hydration
+			assertSame(aPerson, aPerson.getSpouse().getSpouse());
+		}
+	}
+
+	/**
+	 * Every thread has to be inside a query at the same moment for this to pass, which is not possible if the
+	 * conversions are serialized on a shared lock.
+	 */
+	@Test
+	public void testHydrationIsNotSerialized() throws Exception {
+		final CountDownLatch aAllInside = new CountDownLatch(THREADS);
+
+		DataSource aSource = new TestDataSource(GRAPH) {
+			@Override
+			public Graph graphQuery(final String theQuery) throws QueryException {
+				aAllInside.countDown();
+
+				try {
+					if (!aAllInside.await(10, TimeUnit.SECONDS)) {
+						throw new QueryException("Conversions did not run concurrently");
+					}
+				}
+				catch (InterruptedException e) {
+					throw new QueryException(e);
+				}
+
+				return super.graphQuery(theQuery);
+			}
+		};
+
+		List<TestPerson> aResults = hydrateConcurrently(aSource, 1);
+
+		assertEquals(THREADS, aResults.size());
+		assertTrue(aAllInside.getCount() == 0);
+
+		for (TestPerson aPerson : aResults) {
+			assertEquals(BOB, aPerson);
+		}
+	}
+
+	private static List<TestPerson> hydrateConcurrently(final DataSource theSource, final int theIterations) throws Exception {
+		ExecutorService aExecutor = Executors.newFixedThreadPool(THREADS);
+
+		try {
+			List<Future<List<TestPerson>>> aFutures = new ArrayList<Future<List<TestPerson>>>();
+
+			for (int i = 0; i < THREADS; i++) {
+				aFutures.add(aExecutor.submit(new Callable<List<TestPerson>>() {
+					public List<TestPerson> call() throws Exception {
+						List<TestPerson> aPeople = new ArrayList<TestPerson>();
+
+						for (int j = 0; j < theIterations; j++) {
+							aPeople.add(RdfGenerator.fromRdf(TestPerson.class, BOB.getRdfId(), theSource));
+						}
+
+						return aPeople;
+					}
+				}));
+			}
+
+			List<TestPerson> aResults = new ArrayList<TestPerson>();
+
+			for (Future<List<TestPerson>> aFuture : aFutures) {
+				try {
+					aResults.addAll(aFuture.get());
+				}
+				catch (ExecutionException e) {
+					fail("Concurrent hydration failed: " + Throwables.getStackTraceAsString(e.getCause()));
+				}
+			}
+
+			return aResults;
+		}
+		finally {
+			aExecutor.shutdownNow();
+		}
+	}
+}
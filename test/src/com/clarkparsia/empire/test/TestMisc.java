@@ -15,40 +15,71 @@
 
 package com.clarkparsia.empire.test;
 
+import com.clarkparsia.empire.impl.EntityCache;
 import com.clarkparsia.empire.impl.EntityManagerFactoryImpl;
+import com.clarkparsia.empire.impl.EntityManagerImpl;
+import com.clarkparsia.empire.impl.MergeStats;
+import com.clarkparsia.empire.impl.NamedQueryRegistry;
+import com.clarkparsia.empire.impl.RdfQuery;
+import com.clarkparsia.empire.impl.RdfQueryFactory;
+import com.clarkparsia.empire.impl.sparql.SPARQLDialect;
+import com.clarkparsia.empire.test.api.MutableTestDataSource;
+import com.clarkparsia.empire.test.api.TestPerson;
 import com.clarkparsia.empire.test.api.TestDataSourceFactory;
+import com.clarkparsia.empire.test.api.nasa.Spacecraft;
 import org.junit.Test;
 import org.junit.BeforeClass;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.openrdf.model.Resource;
 import org.openrdf.model.BNode;
 import org.openrdf.model.Graph;
 import org.openrdf.model.Statement;
+import org.openrdf.model.Value;
 import org.openrdf.model.util.GraphUtil;
 import org.openrdf.model.vocabulary.RDF;
 import org.openrdf.model.impl.ValueFactoryImpl;
 import org.openrdf.model.impl.GraphImpl;
 import org.openrdf.repository.RepositoryResult;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.query.QueryLanguage;
 import com.clarkparsia.empire.codegen.InstanceGenerator;
 import com.clarkparsia.empire.test.api.TestInterface;
 import com.clarkparsia.empire.test.api.BaseTestClass;
 import com.clarkparsia.empire.test.util.TestModule;
 import com.clarkparsia.empire.SupportsRdfId;
 import com.clarkparsia.empire.Empire;
+import com.clarkparsia.empire.EmpireOptions;
+import com.clarkparsia.empire.EmpireEntityManager;
 import com.clarkparsia.empire.ds.TripleSource;
+import com.clarkparsia.empire.ds.DataSource;
+import com.clarkparsia.empire.ds.DataSourceException;
+import com.clarkparsia.empire.ds.DataSourceUtil;
 import com.clarkparsia.empire.ds.MutableDataSource;
+import com.clarkparsia.empire.ds.QueryException;
+import com.clarkparsia.empire.ds.ResultSet;
+import com.clarkparsia.empire.ds.SupportsNamedGraphs;
+import com.clarkparsia.empire.ds.impl.CachingDataSource;
+import com.clarkparsia.empire.ds.impl.QueryResultCache;
+import com.clarkparsia.empire.ds.impl.TransactionalDataSource;
 import com.clarkparsia.empire.jena.JenaEmpireModule;
 import com.clarkparsia.empire.sesametwo.OpenRdfEmpireModule;
 import com.clarkparsia.empire.sesametwo.RepositoryDataSourceFactory;
+import com.clarkparsia.empire.sesametwo.TupleQueryResultSet;
 import com.clarkparsia.empire.util.EmpireUtil;
+import com.clarkparsia.empire.util.EmpireAnnotationProvider;
 import com.clarkparsia.empire.util.DefaultEmpireModule;
 import com.clarkparsia.empire.annotation.SupportsRdfIdImpl;
 import com.clarkparsia.empire.annotation.RdfsClass;
 import com.clarkparsia.empire.annotation.RdfProperty;
 import com.clarkparsia.empire.annotation.RdfGenerator;
 import com.clarkparsia.empire.annotation.InvalidRdfException;
+import com.clarkparsia.empire.annotation.runtime.LazyCollection;
+import com.clarkparsia.empire.annotation.runtime.LazyList;
+import com.clarkparsia.empire.annotation.runtime.LazySet;
 import com.clarkparsia.openrdf.ExtGraph;
 import com.clarkparsia.openrdf.Graphs;
 import com.clarkparsia.openrdf.OpenRdfUtil;
@@ -56,23 +87,35 @@ import com.clarkparsia.openrdf.ExtRepository;
 import com.clarkparsia.common.util.PrefixMapping;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import javax.persistence.OneToOne;
 import javax.persistence.CascadeType;
 import javax.persistence.Persistence;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityExistsException;
+import javax.persistence.PersistenceException;
 import javax.persistence.Entity;
 import javax.persistence.OneToMany;
+import javax.persistence.FetchType;
+import javax.persistence.FlushModeType;
 import javax.persistence.MappedSuperclass;
 import javax.persistence.Query;
+import javax.persistence.NamedQuery;
+
+import java.lang.annotation.Annotation;
 
 import java.net.URI;
 import java.net.URL;
 import java.util.Collection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * <p>Various miscellaneous tests for non-JPA parts of the Empire API.</p>
@@ -147,6 +190,850 @@ public class TestMisc {
 		assertEquals(1, aResult);
 	}
 
+	@Test
+	public void testSingleQueryFind() throws Exception {
+		TestPerson aPerson = new TestPerson();
+		aPerson.setMBox("mailto:bob@example.org");
+		aPerson.setFirstName("Bob");
+
+		CountingDataSource aSource = new CountingDataSource(RdfGenerator.asRdf(aPerson));
+
+		EntityManager aManager = new EntityManagerImpl(aSource);
+
+		assertEquals(aPerson, aManager.find(TestPerson.class, aPerson.getRdfId()));
+
+		// existence, type and values all come from the one describe
+		assertEquals(1, aSource.graphQueries);
+		assertEquals(0, aSource.selectQueries);
+
+		assertTrue(aManager.find(TestPerson.class, URI.create("urn:not:there")) == null);
+
+		aSource = new CountingDataSource(RdfGenerator.asRdf(aPerson));
+
+		aManager = new EntityManagerImpl(aSource, false);
+
+		assertEquals(aPerson, aManager.find(TestPerson.class, aPerson.getRdfId()));
+
+		assertEquals(1, aSource.graphQueries);
+		assertEquals(2, aSource.selectQueries);
+
+		assertTrue(aManager.find(TestPerson.class, URI.create("urn:not:there")) == null);
+	}
+
+	@Test
+	public void testPersistenceContext() throws Exception {
+		TestPerson aPerson = new TestPerson();
+		aPerson.setMBox("mailto:bob@example.org");
+		aPerson.setFirstName("Bob");
+
+		CountingDataSource aSource = new CountingDataSource(RdfGenerator.asRdf(aPerson));
+
+		EntityManager aManager = new EntityManagerImpl(aSource);
+
+		TestPerson aFound = aManager.find(TestPerson.class, aPerson.getRdfId());
+
+		// the managed instance is returned without going back to the data source
+		assertSame(aFound, aManager.find(TestPerson.class, aPerson.getRdfId()));
+		assertSame(aFound, aManager.getReference(TestPerson.class, aPerson.getRdfId().value()));
+		assertTrue(aManager.contains(aFound));
+		assertEquals(1, aSource.graphQueries);
+		assertEquals(0, aSource.selectQueries);
+
+		aManager.clear();
+
+		TestPerson aReloaded = aManager.find(TestPerson.class, aPerson.getRdfId());
+
+		assertFalse(aFound == aReloaded);
+		assertEquals(aFound, aReloaded);
+		assertEquals(2, aSource.graphQueries);
+
+		aManager.remove(aReloaded);
+
+		assertTrue(aManager.find(TestPerson.class, aPerson.getRdfId()) == null);
+
+		TestPerson aNewPerson = new TestPerson();
+		aNewPerson.setMBox("mailto:jane@example.org");
+
+		aManager.persist(aNewPerson);
+
+		assertSame(aNewPerson, aManager.find(TestPerson.class, aNewPerson.getRdfId()));
+	}
+
+	@Test
+	public void testEntityCache() throws Exception {
+		TestPerson aPerson = new TestPerson();
+		aPerson.setMBox("mailto:bob@example.org");
+		aPerson.setFirstName("Bob");
+
+		CountingDataSource aSource = new CountingDataSource(RdfGenerator.asRdf(aPerson));
+
+		EntityCache aCache = new EntityCache(EntityCache.DEFAULT_SIZE, 0, Collections.singleton(TestPerson.class.getName()));
+
+		assertTrue(aCache.isCacheable(TestPerson.class));
+		assertFalse(aCache.isCacheable(TestDoubleImpl.class));
+
+		EntityManager aFirst = new EntityManagerImpl(aSource, true, aCache);
+		EntityManager aSecond = new EntityManagerImpl(aSource, true, aCache);
+
+		TestPerson aFound = aFirst.find(TestPerson.class, aPerson.getRdfId());
+		TestPerson aCached = aSecond.find(TestPerson.class, aPerson.getRdfId());
+
+		// the second manager gets its own instance, created from the cached description
+		assertFalse(aFound == aCached);
+		assertEquals(aFound, aCached);
+		assertEquals(1, aSource.graphQueries);
+		assertEquals(1, aCache.stats().hitCount());
+		assertEquals(1, aCache.stats().missCount());
+
+		aFound.setFirstName("Robert");
+		aFirst.merge(aFound);
+
+		assertEquals(0, aCache.size());
+
+		EntityManager aThird = new EntityManagerImpl(aSource, true, aCache);
+
+		assertEquals("Robert", aThird.find(TestPerson.class, aPerson.getRdfId()).getFirstName());
+	}
+
+	@Test
+	public void testEntityCacheRollback() throws Exception {
+		TestPerson aPerson = new TestPerson();
+		aPerson.setMBox("mailto:bob@example.org");
+		aPerson.setFirstName("Bob");
+
+		TransactionalDataSource aSource = new TransactionalDataSource(new SparqlDataSource(RdfGenerator.asRdf(aPerson)));
+
+		EntityCache aCache = new EntityCache(EntityCache.DEFAULT_SIZE, 0, Collections.singleton(TestPerson.class.getName()));
+
+		EntityManager aWriter = new EntityManagerImpl(aSource, true, aCache);
+
+		aWriter.getTransaction().begin();
+
+		TestPerson aFound = aWriter.find(TestPerson.class, aPerson.getRdfId());
+		aFound.setFirstName("Robert");
+		aWriter.merge(aFound);
+
+		// the uncommitted change is visible to readers of the data source, but it is not cached
+		assertEquals("Robert", new EntityManagerImpl(aSource, true, aCache).find(TestPerson.class, aPerson.getRdfId()).getFirstName());
+		assertEquals(0, aCache.size());
+
+		aWriter.getTransaction().rollback();
+
+		assertEquals("Bob", new EntityManagerImpl(aSource, true, aCache).find(TestPerson.class, aPerson.getRdfId()).getFirstName());
+
+		// caching resumes once the transaction has ended
+		assertEquals(1, aCache.size());
+	}
+
+	@Test
+	public void testMergeWritesChanges() throws Exception {
+		TestPerson aPerson = new TestPerson();
+		aPerson.setMBox("mailto:bob@example.org");
+		aPerson.setFirstName("Bob");
+		aPerson.setWeight(70f);
+
+		MutableTestDataSource aSource = new MutableTestDataSource(RdfGenerator.asRdf(aPerson));
+
+		EntityManagerImpl aManager = new EntityManagerImpl(aSource);
+
+		TestPerson aFound = aManager.find(TestPerson.class, aPerson.getRdfId());
+		aFound.setFirstName("Robert");
+
+		MergeStats aBefore = aManager.mergeStats();
+
+		aManager.merge(aFound);
+
+		// only the changed name is rewritten
+		assertEquals(new MergeStats(1, 1, 1), aManager.mergeStats().minus(aBefore));
+
+		TestPerson aMerged = new EntityManagerImpl(aSource).find(TestPerson.class, aPerson.getRdfId());
+
+		assertEquals("Robert", aMerged.getFirstName());
+		assertEquals(70f, aMerged.getWeight(), 0f);
+		assertEquals("mailto:bob@example.org", aMerged.getMBox());
+
+		// nothing changed since the last merge
+		aBefore = aManager.mergeStats();
+		aManager.merge(aFound);
+
+		assertEquals(new MergeStats(1, 0, 0), aManager.mergeStats().minus(aBefore));
+
+		// changing it back is checked against what was last written, not what was loaded
+		aFound.setFirstName("Bob");
+		aBefore = aManager.mergeStats();
+		aManager.merge(aFound);
+
+		assertEquals(new MergeStats(1, 1, 1), aManager.mergeStats().minus(aBefore));
+		assertEquals("Bob", new EntityManagerImpl(aSource).find(TestPerson.class, aPerson.getRdfId()).getFirstName());
+	}
+
+	@Test
+	public void testCommitFlushMode() throws Exception {
+		CountingDataSource aSource = new CountingDataSource(new GraphImpl());
+
+		EntityManager aManager = new EntityManagerImpl(aSource);
+		aManager.setFlushMode(FlushModeType.COMMIT);
+
+		assertEquals(FlushModeType.COMMIT, aManager.getFlushMode());
+
+		aManager.getTransaction().begin();
+
+		for (int i = 0; i < 50; i++) {
+			TestPerson aPerson = new TestPerson();
+			aPerson.setMBox("mailto:person" + i + "@example.org");
+			aPerson.setFirstName("Person " + i);
+
+			aManager.persist(aPerson);
+		}
+
+		TestPerson aRemoved = new TestPerson();
+		aRemoved.setMBox("mailto:removed@example.org");
+		aRemoved.setFirstName("Removed");
+
+		// persisted and removed in the same transaction, it never gets added
+		aManager.persist(aRemoved);
+		aManager.remove(aRemoved);
+
+		assertEquals(0, aSource.adds);
+		assertEquals(0, aSource.removes);
+
+		aManager.getTransaction().commit();
+
+		// all the changes are written in one batch
+		assertEquals(1, aSource.adds);
+		assertEquals(1, aSource.removes);
+
+		EntityManager aReader = new EntityManagerImpl(aSource);
+
+		assertEquals("Person 7", aReader.find(TestPerson.class, URI.create("mailto:person7@example.org")).getFirstName());
+		assertFalse(aReader.contains(aRemoved));
+
+		// changes in a transaction which is rolled back are never written
+		aManager.getTransaction().begin();
+
+		TestPerson aRolledBack = new TestPerson();
+		aRolledBack.setMBox("mailto:rolledback@example.org");
+		aManager.persist(aRolledBack);
+
+		aManager.getTransaction().rollback();
+
+		assertEquals(1, aSource.adds);
+
+		// a generated bean persisted and then merged in the same transaction keeps only its new value
+		EntityManagerTestSuite.EntityTest aBean = InstanceGenerator.generateInstanceClass(EntityManagerTestSuite.EntityTest.class).newInstance();
+		aBean.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:merged")));
+		aBean.setLabel("old");
+
+		aManager.getTransaction().begin();
+
+		aManager.persist(aBean);
+
+		aBean.setLabel("new");
+		aManager.merge(aBean);
+
+		aManager.getTransaction().commit();
+
+		assertEquals(Collections.singletonList("new"), labels(aSource, aBean));
+
+		// queued changes are written when the manager is closed
+		aManager.getTransaction().begin();
+
+		aBean.setLabel("closed");
+		aManager.merge(aBean);
+
+		aManager.close();
+
+		assertEquals(Collections.singletonList("closed"), labels(aSource, aBean));
+	}
+
+	/**
+	 * Return the labels of the entity in the data source
+	 */
+	private static List<String> labels(final DataSource theSource, final Object theObj) throws Exception {
+		List<String> aLabels = new ArrayList<String>();
+
+		for (Value aValue : GraphUtil.getObjects(DataSourceUtil.describe(theSource, theObj), EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theObj)), ValueFactoryImpl.getInstance().createURI("urn:label"))) {
+			aLabels.add(aValue.stringValue());
+		}
+
+		return aLabels;
+	}
+
+	@Test
+	public void testPersistAll() throws Exception {
+		CountingDataSource aSource = new CountingDataSource(new GraphImpl());
+
+		// the writes are not verified so that only the queries of persistAll itself are counted
+		EmpireEntityManager aManager = new EntityManagerImpl(aSource, true, null, false);
+
+		List<TestPerson> aPeople = new ArrayList<TestPerson>();
+		for (int i = 0; i < 250; i++) {
+			TestPerson aPerson = new TestPerson();
+			aPerson.setMBox("mailto:person" + i + "@example.org");
+			aPerson.setFirstName("Person " + i);
+			aPerson.setRdfId(new SupportsRdfId.URIKey(URI.create(aPerson.getMBox())));
+
+			aPeople.add(aPerson);
+		}
+
+		aManager.persistAll(aPeople, 100, true);
+
+		// one existence check and one write per chunk
+		assertEquals(3, aSource.selectQueries);
+		assertEquals(3, aSource.adds);
+
+		for (TestPerson aPerson : aPeople) {
+			assertTrue(aManager.contains(aPerson));
+		}
+
+		EntityManager aReader = new EntityManagerImpl(aSource);
+
+		assertEquals(aPeople.get(123), aReader.find(TestPerson.class, aPeople.get(123).getRdfId()));
+
+		TestPerson aNew = new TestPerson();
+		aNew.setMBox("mailto:new@example.org");
+
+		try {
+			new EntityManagerImpl(aSource).persistAll(Arrays.asList(aNew, aPeople.get(42)));
+			fail("EntityExistsException expected");
+		}
+		catch (EntityExistsException e) {
+			// expected
+		}
+
+		assertFalse(aReader.contains(aNew));
+
+		// without the check, nothing is queried
+		aSource.selectQueries = 0;
+		new EntityManagerImpl(aSource, true, null, false).persistAll(Collections.singleton(aNew), 100, false);
+
+		assertEquals(0, aSource.selectQueries);
+		assertTrue(aReader.contains(aNew));
+
+		// the same key twice in a chunk is caught before anything is written
+		TestPerson aCopy = new TestPerson();
+		aCopy.setMBox("mailto:copy@example.org");
+
+		TestPerson aOtherCopy = new TestPerson();
+		aOtherCopy.setMBox("mailto:copy@example.org");
+
+		try {
+			new EntityManagerImpl(aSource).persistAll(Arrays.asList(aCopy, aOtherCopy), 100, false);
+			fail("EntityExistsException expected");
+		}
+		catch (EntityExistsException e) {
+			// expected
+		}
+
+		assertFalse(aReader.contains(aCopy));
+
+		// a bean without an identifier referred to from entities converted on different threads gets one identifier
+		LazyItem aShared = new LazyItem();
+		aShared.mName = "shared";
+
+		List<CascadeHolder> aHolders = new ArrayList<CascadeHolder>();
+		for (int i = 0; i < 200; i++) {
+			CascadeHolder aHolder = new CascadeHolder();
+			aHolder.mItems.add(aShared);
+
+			aHolders.add(aHolder);
+		}
+
+		new EntityManagerImpl(aSource).persistAll(aHolders, 200, false);
+
+		assertTrue(aReader.contains(aShared));
+
+		for (CascadeHolder aHolder : aHolders) {
+			assertEquals(Collections.<Value>singleton(EmpireUtil.asResource(aShared)),
+						 GraphUtil.getObjects(DataSourceUtil.describe(aSource, aHolder), EmpireUtil.asResource(aHolder),
+											  ValueFactoryImpl.getInstance().createURI("http://empire.clarkparsia.com/item")));
+		}
+	}
+
+	@Test
+	public void testVerifyWrites() throws Exception {
+		CountingDataSource aSource = new CountingDataSource(new GraphImpl());
+
+		EmpireEntityManager aManager = new EntityManagerImpl(aSource, true, null, true);
+
+		List<TestPerson> aPeople = new ArrayList<TestPerson>();
+		for (int i = 0; i < 10; i++) {
+			TestPerson aPerson = new TestPerson();
+			aPerson.setMBox("mailto:person" + i + "@example.org");
+			aPerson.setRdfId(new SupportsRdfId.URIKey(URI.create(aPerson.getMBox())));
+
+			aPeople.add(aPerson);
+		}
+
+		aManager.persistAll(aPeople, 100, false);
+
+		// all the entities written are verified with one query
+		assertEquals(1, aSource.selectQueries);
+
+		// a data source which drops writes is caught
+		CountingDataSource aDropping = new CountingDataSource(new GraphImpl()) {
+			@Override
+			public void add(final Graph theGraph) {
+			}
+		};
+
+		try {
+			new EntityManagerImpl(aDropping, true, null, true).persistAll(aPeople, 100, false);
+			fail("PersistenceException expected");
+		}
+		catch (PersistenceException e) {
+			// expected
+		}
+
+		assertEquals(1, aDropping.selectQueries);
+
+		// verified by default
+		try {
+			new EntityManagerImpl(aDropping).persistAll(aPeople, 100, false);
+			fail("PersistenceException expected");
+		}
+		catch (PersistenceException e) {
+			// expected
+		}
+
+		assertEquals(2, aDropping.selectQueries);
+
+		// not verified when turned off
+		new EntityManagerImpl(aDropping, true, null, false).persistAll(aPeople, 100, false);
+
+		assertEquals(2, aDropping.selectQueries);
+	}
+
+	@Test
+	public void testExisting() throws Exception {
+		TestPerson aBob = new TestPerson();
+		aBob.setMBox("mailto:bob@example.org");
+
+		TestPerson aJane = new TestPerson();
+		aJane.setMBox("mailto:jane@example.org");
+
+		Graph aGraph = new GraphImpl();
+		aGraph.addAll(RdfGenerator.asRdf(aBob));
+		aGraph.addAll(RdfGenerator.asRdf(aJane));
+
+		CountingDataSource aSource = new CountingDataSource(aGraph);
+
+		Resource aMissing = ValueFactoryImpl.getInstance().createURI("urn:missing");
+		Resource aBNode = ValueFactoryImpl.getInstance().createBNode();
+
+		assertEquals(Sets.newHashSet(EmpireUtil.asResource(aBob), EmpireUtil.asResource(aJane)),
+					 DataSourceUtil.existing(aSource, Arrays.asList(EmpireUtil.asResource(aBob), aMissing, aBNode, EmpireUtil.asResource(aJane))));
+
+		// the blank node is kept out of the query for the others and looked for on its own
+		assertEquals(2, aSource.selectQueries);
+
+		CountingDataSource aSparqlSource = new SparqlDataSource(aGraph);
+
+		Set<Resource> aExisting = DataSourceUtil.existing(aSparqlSource, Arrays.asList(EmpireUtil.asResource(aBob), aMissing, aBNode, EmpireUtil.asResource(aJane)));
+
+		// sparql has no stable blank node ids, so only the uris can be told apart; the blank node is asked for
+		// separately rather than breaking the query for the others
+		assertTrue(aExisting.contains(EmpireUtil.asResource(aBob)));
+		assertTrue(aExisting.contains(EmpireUtil.asResource(aJane)));
+		assertFalse(aExisting.contains(aMissing));
+
+		assertEquals(1, aSparqlSource.selectQueries);
+	}
+
+	@Test
+	public void testCascadeQueries() throws Exception {
+		// the number of queries made by a cascade does not depend on the number of entities it reaches, up to the
+		// number described per query
+		assertEquals(cascadeQueries(3), cascadeQueries(DataSourceUtil.DESCRIBE_CHUNK_SIZE));
+
+		// past that, the entities are described a chunk per query
+		List<Integer> aQueries = cascadeQueries(3);
+		List<Integer> aChunkedQueries = cascadeQueries(3 * DataSourceUtil.DESCRIBE_CHUNK_SIZE);
+
+		for (int i = 0; i < aQueries.size(); i++) {
+			assertTrue(aChunkedQueries.get(i) <= aQueries.get(i) + 2);
+		}
+	}
+
+	/**
+	 * Persist, merge and remove an aggregate with the given number of children, returning the number of queries made
+	 * for each operation
+	 */
+	private List<Integer> cascadeQueries(final int theChildren) throws Exception {
+		CountingDataSource aSource = new CountingDataSource(new GraphImpl());
+
+		EntityManager aManager = new EntityManagerImpl(aSource);
+
+		CascadeHolder aHolder = new CascadeHolder();
+		aHolder.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:holder")));
+
+		for (int i = 0; i < theChildren; i++) {
+			LazyItem aItem = new LazyItem();
+			aItem.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:item" + i)));
+			aItem.mName = "item " + i;
+
+			aHolder.mItems.add(aItem);
+		}
+
+		List<Integer> aQueries = new ArrayList<Integer>();
+
+		aManager.persist(aHolder);
+		aQueries.add(aSource.graphQueries + aSource.selectQueries);
+
+		for (LazyItem aItem : aHolder.mItems) {
+			assertTrue(aManager.contains(aItem));
+		}
+
+		aHolder.mItems.get(0).mName = "first";
+
+		int aCount = aSource.graphQueries + aSource.selectQueries;
+		aManager.merge(aHolder);
+		aQueries.add(aSource.graphQueries + aSource.selectQueries - aCount);
+
+		aCount = aSource.graphQueries + aSource.selectQueries;
+		aManager.remove(aHolder);
+		aQueries.add(aSource.graphQueries + aSource.selectQueries - aCount);
+
+		for (LazyItem aItem : aHolder.mItems) {
+			assertFalse(aManager.contains(aItem));
+		}
+
+		return aQueries;
+	}
+
+	@Test
+	public void testSharedTypes() throws Exception {
+		TestPerson aPerson = new TestPerson();
+		aPerson.setMBox("mailto:bob@example.org");
+		aPerson.setFirstName("Bob");
+
+		CountingDataSource aSource = new CountingDataSource(RdfGenerator.asRdf(aPerson));
+
+		// no class is cacheable, only the types are shared
+		EntityCache aCache = new EntityCache(EntityCache.DEFAULT_SIZE, 0, Collections.<String>emptyList());
+
+		EntityManager aFirst = new EntityManagerImpl(aSource, false, aCache);
+
+		assertEquals(aPerson, aFirst.find(TestPerson.class, aPerson.getRdfId()));
+		assertEquals(2, aSource.selectQueries);
+		assertTrue(aCache.getTypes().containsKey(EmpireUtil.asResource(aPerson)));
+
+		// the second manager only checks for existence, the types come from the cache
+		assertEquals(aPerson, new EntityManagerImpl(aSource, false, aCache).find(TestPerson.class, aPerson.getRdfId()));
+		assertEquals(3, aSource.selectQueries);
+
+		aFirst.merge(aPerson);
+
+		assertFalse(aCache.getTypes().containsKey(EmpireUtil.asResource(aPerson)));
+	}
+
+	@Test
+	public void testCachingDataSource() throws Exception {
+		TestPerson aPerson = new TestPerson();
+		aPerson.setMBox("mailto:bob@example.org");
+		aPerson.setFirstName("Bob");
+
+		CountingDataSource aSource = new CountingDataSource(RdfGenerator.asRdf(aPerson));
+		QueryResultCache aCache = new QueryResultCache(QueryResultCache.DEFAULT_SIZE, 0);
+
+		MutableDataSource aCaching = CachingDataSource.wrap(aSource, aCache);
+
+		// the wrapper does not claim capabilities the source does not have
+		assertFalse(aCaching instanceof TripleSource);
+		assertFalse(aCaching instanceof SupportsNamedGraphs);
+
+		assertEquals(aPerson, new EntityManagerImpl(aCaching).find(TestPerson.class, aPerson.getRdfId()));
+		assertEquals(aPerson, new EntityManagerImpl(aCaching).find(TestPerson.class, aPerson.getRdfId()));
+		assertEquals(1, aSource.graphQueries);
+
+		String aQuery = "select distinct result from {result} <" + RDF.TYPE + "> {<http://xmlns.com/foaf/0.1/Person>}";
+
+		assertEquals(Lists.newArrayList(aCaching.selectQuery(aQuery)), Lists.newArrayList(aCaching.selectQuery(aQuery)));
+		assertEquals(1, aSource.selectQueries);
+
+		TestPerson aJane = new TestPerson();
+		aJane.setMBox("mailto:jane@example.org");
+
+		new EntityManagerImpl(aCaching, true, null, false).persist(aJane);
+
+		// the write dropped the cached results
+		assertEquals(2, Lists.newArrayList(aCaching.selectQuery(aQuery)).size());
+		assertEquals(2, aSource.selectQueries);
+		assertEquals(2, aCache.stats().hitCount());
+	}
+
+	@Test
+	public void testBatchHydration() throws Exception {
+		Graph aGraph = new GraphImpl();
+		List<TestPerson> aPeople = new ArrayList<TestPerson>();
+
+		for (int i = 0; i < 5; i++) {
+			TestPerson aPerson = new TestPerson();
+			aPerson.setMBox("mailto:person" + i + "@example.org");
+			aPerson.setFirstName("Person " + i);
+
+			aGraph.addAll(RdfGenerator.asRdf(aPerson));
+			aPeople.add(aPerson);
+		}
+
+		CountingDataSource aSource = new CountingDataSource(aGraph);
+
+		Query aQuery = new EntityManagerImpl(aSource).createNativeQuery("select distinct result from {result} <" + RDF.TYPE + "> {<http://xmlns.com/foaf/0.1/Person>}", TestPerson.class);
+		aQuery.setHint(RdfQuery.HINT_BATCH_HYDRATION, true);
+		aQuery.setHint(RdfQuery.HINT_BATCH_SIZE, 2);
+
+		List aResults = aQuery.getResultList();
+
+		assertEquals(5, aResults.size());
+		assertTrue(aResults.containsAll(aPeople));
+
+		// the results were described two at a time, with no per-result queries
+		assertEquals(1, aSource.selectQueries);
+		assertEquals(3, aSource.graphQueries);
+	}
+
+	@Test
+	public void testEagerFetchDepth() throws Exception {
+		TestPerson aJoe = new TestPerson();
+		aJoe.setMBox("mailto:joe@example.org");
+		aJoe.setFirstName("Joe");
+
+		TestPerson aJane = new TestPerson();
+		aJane.setMBox("mailto:jane@example.org");
+		aJane.setFirstName("Jane");
+
+		TestPerson aBob = new TestPerson();
+		aBob.setMBox("mailto:bob@example.org");
+		aBob.setFirstName("Bob");
+		aBob.getKnows().add(aJoe);
+		aBob.getKnows().add(aJane);
+		aBob.setSpouse(aJane);
+		aJane.setSpouse(aBob);
+
+		Graph aGraph = new GraphImpl();
+		aGraph.addAll(RdfGenerator.asRdf(aBob));
+		aGraph.addAll(RdfGenerator.asRdf(aJoe));
+		aGraph.addAll(RdfGenerator.asRdf(aJane));
+
+		CountingDataSource aSource = new CountingDataSource(aGraph);
+
+		TestPerson aPerson = RdfGenerator.fromRdf(TestPerson.class, aBob.getRdfId(), aSource);
+
+		// a type lookup and a describe for bob and for each of the people he refers to, jane is described twice but
+		// her types are only looked up once
+		assertEquals(4, aSource.graphQueries);
+		assertEquals(3, aSource.selectQueries);
+
+		EmpireOptions.EAGER_FETCH_DEPTH = 1;
+
+		try {
+			aSource = new CountingDataSource(aGraph);
+
+			TestPerson aFetched = RdfGenerator.fromRdf(TestPerson.class, aBob.getRdfId(), aSource);
+
+			// the type lookup and describe of bob, and a single describe of everyone he refers to
+			assertEquals(2, aSource.graphQueries);
+			assertEquals(1, aSource.selectQueries);
+
+			assertEquals(aPerson, aFetched);
+			assertEquals(aPerson.getKnows(), aFetched.getKnows());
+			assertTrue(aFetched.getSpouse().getSpouse() == aFetched);
+		}
+		finally {
+			EmpireOptions.EAGER_FETCH_DEPTH = 0;
+		}
+	}
+
+	@Test
+	public void testLazyCollections() throws Exception {
+		LazyHolder aHolder = new LazyHolder();
+		aHolder.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:holder")));
+
+		Graph aGraph = new GraphImpl();
+
+		for (int i = 0; i < 5; i++) {
+			LazyItem aItem = new LazyItem();
+			aItem.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:item" + i)));
+			aItem.mName = "Item " + i;
+
+			aHolder.mItems.add(aItem);
+			aHolder.mItemSet.add(aItem);
+			aGraph.addAll(RdfGenerator.asRdf(aItem));
+		}
+
+		aGraph.addAll(RdfGenerator.asRdf(aHolder));
+
+		CountingDataSource aSource = new CountingDataSource(aGraph);
+
+		LazyHolder aLoaded = RdfGenerator.fromRdf(LazyHolder.class, aHolder.getRdfId(), aSource);
+
+		int aGraphQueries = aSource.graphQueries;
+		int aSelectQueries = aSource.selectQueries;
+
+		assertTrue(aLoaded.mItems instanceof LazyList);
+		assertTrue(aLoaded.mItemSet instanceof LazySet);
+
+		// size, membership and conversion back to rdf only need the keys
+		assertEquals(5, aLoaded.mItems.size());
+		assertEquals(5, aLoaded.mItemSet.size());
+		assertTrue(aLoaded.mItems.contains(aHolder.mItems.get(3)));
+		assertTrue(aLoaded.mItemSet.contains(aHolder.mItems.get(3).getRdfId()));
+		assertFalse(aLoaded.mItems.contains(aHolder));
+		assertEquals(new HashSet<Statement>(RdfGenerator.asRdf(aHolder)), new HashSet<Statement>(RdfGenerator.asRdf(aLoaded)));
+
+		assertFalse(((LazyCollection) aLoaded.mItems).isLoaded());
+		assertEquals(aGraphQueries, aSource.graphQueries);
+		assertEquals(aSelectQueries, aSource.selectQueries);
+
+		// the first access loads all of the elements with a single query
+		assertTrue(aLoaded.mItems.get(2).mName.startsWith("Item "));
+		assertEquals(aGraphQueries + 1, aSource.graphQueries);
+		assertEquals(aSelectQueries, aSource.selectQueries);
+
+		Set<String> aNames = new HashSet<String>();
+
+		for (LazyItem aItem : aLoaded.mItems) {
+			aNames.add(aItem.mName);
+		}
+
+		assertEquals(5, aNames.size());
+		assertTrue(aNames.contains("Item 4"));
+		assertEquals(aGraphQueries + 1, aSource.graphQueries);
+
+		aLoaded.mItems.remove(0);
+		assertEquals(4, aLoaded.mItems.size());
+	}
+
+	@Test
+	public void testNamedQueryRegistry() {
+		NamedQueryRegistry aRegistry = new NamedQueryRegistry(new EmpireAnnotationProvider() {
+			public Collection<Class<?>> getClassesWithAnnotation(final Class<? extends Annotation> theAnnotation) {
+				return theAnnotation.equals(NamedQuery.class)
+					   ? Collections.<Class<?>>singleton(Spacecraft.class)
+					   : Collections.<Class<?>>emptySet();
+			}
+		});
+
+		assertEquals(Collections.singleton("sovietSpacecraft"), aRegistry.getNames());
+
+		// the table is built once at startup and shared rather than rebuilt for each query factory
+		assertSame(Empire.get().getNamedQueries(), Empire.get().getNamedQueries());
+	}
+
+	private static class CountingDataSource extends MutableTestDataSource {
+		private int graphQueries = 0;
+		private int selectQueries = 0;
+		private int adds = 0;
+		private int removes = 0;
+
+		private CountingDataSource(final Graph theGraph) {
+			super(theGraph);
+		}
+
+		@Override
+		public Graph graphQuery(final String theQuery) throws QueryException {
+			graphQueries++;
+			return super.graphQuery(theQuery);
+		}
+
+		@Override
+		public ResultSet selectQuery(final String theQuery) throws QueryException {
+			selectQueries++;
+			return super.selectQuery(theQuery);
+		}
+
+		@Override
+		public void add(final Graph theGraph) throws DataSourceException {
+			adds++;
+			super.add(theGraph);
+		}
+
+		@Override
+		public void remove(final Graph theGraph) throws DataSourceException {
+			removes++;
+			super.remove(theGraph);
+		}
+	}
+
+	/**
+	 * A data source like {@link CountingDataSource} which is queried with SPARQL rather than SeRQL
+	 */
+	private static class SparqlDataSource extends CountingDataSource {
+		private SparqlDataSource(final Graph theGraph) {
+			super(theGraph);
+
+			setQueryFactory(new RdfQueryFactory(this, SPARQLDialect.instance()));
+		}
+
+		@Override
+		public ResultSet selectQuery(final String theQuery) throws QueryException {
+			((CountingDataSource) this).selectQueries++;
+
+			try {
+				return new TupleQueryResultSet(getRepository().selectQuery(QueryLanguage.SPARQL, theQuery));
+			}
+			catch (Exception e) {
+				throw new QueryException(e);
+			}
+		}
+
+		@Override
+		public Graph graphQuery(final String theQuery) throws QueryException {
+			((CountingDataSource) this).graphQueries++;
+
+			try {
+				return getRepository().constructQuery(QueryLanguage.SPARQL, theQuery);
+			}
+			catch (Exception e) {
+				throw new QueryException(e);
+			}
+		}
+
+		@Override
+		public boolean ask(final String theQuery) throws QueryException {
+			try {
+				RepositoryConnection aConn = getRepository().getConnection();
+
+				try {
+					return aConn.prepareBooleanQuery(QueryLanguage.SPARQL, theQuery).evaluate();
+				}
+				finally {
+					aConn.close();
+				}
+			}
+			catch (Exception e) {
+				throw new QueryException(e);
+			}
+		}
+	}
+
+	@Entity
+	@RdfsClass("http://empire.clarkparsia.com/LazyHolder")
+	public static class LazyHolder extends BaseTestClass {
+		@RdfProperty("http://empire.clarkparsia.com/item")
+		@OneToMany(fetch = FetchType.LAZY)
+		private List<LazyItem> mItems = new ArrayList<LazyItem>();
+
+		@RdfProperty("http://empire.clarkparsia.com/setItem")
+		@OneToMany(fetch = FetchType.LAZY)
+		private Set<LazyItem> mItemSet = new HashSet<LazyItem>();
+	}
+
+	@Entity
+	@RdfsClass("http://empire.clarkparsia.com/CascadeHolder")
+	public static class CascadeHolder extends BaseTestClass {
+		@RdfProperty("http://empire.clarkparsia.com/item")
+		@OneToMany(cascade = { CascadeType.ALL })
+		private List<LazyItem> mItems = new ArrayList<LazyItem>();
+	}
+
+	@Entity
+	@RdfsClass("http://empire.clarkparsia.com/LazyItem")
+	public static class LazyItem extends BaseTestClass {
+		@RdfProperty("http://empire.clarkparsia.com/name")
+		private String mName;
+	}
+
 	@MappedSuperclass
 	public interface TestDouble extends SupportsRdfId {
 		@RdfProperty("test:foo")
@@ -30,13 +30,22 @@ import org.openrdf.model.impl.GraphImpl;
 import org.openrdf.model.impl.ValueFactoryImpl;
 
 import org.openrdf.model.Graph;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Statement;
 
 import org.openrdf.model.util.GraphUtil;
+import org.openrdf.model.util.ModelUtil;
+import org.openrdf.rio.helpers.StatementCollector;
+import org.openrdf.model.vocabulary.RDF;
 import org.openrdf.model.vocabulary.RDFS;
+import org.openrdf.model.vocabulary.XMLSchema;
 
 import com.clarkparsia.empire.EmpireOptions;
 
+import com.clarkparsia.empire.annotation.EntityMapping;
 import com.clarkparsia.empire.annotation.InvalidRdfException;
+import com.clarkparsia.empire.annotation.LiteralCodec;
+import com.clarkparsia.empire.annotation.LiteralCodecs;
 import com.clarkparsia.empire.annotation.RdfGenerator;
 import com.clarkparsia.empire.annotation.Namespaces;
 import com.clarkparsia.empire.annotation.RdfsClass;
@@ -48,13 +57,16 @@ import com.clarkparsia.empire.test.api.BaseTestClass;
 import com.clarkparsia.empire.test.api.TestPerson;
 import com.clarkparsia.empire.SupportsRdfId;
 import com.clarkparsia.empire.ds.DataSourceException;
+import com.clarkparsia.empire.ds.impl.MutableDataSourceHandler;
 import static com.clarkparsia.empire.util.EmpireUtil.asPrimaryKey;
 import com.clarkparsia.empire.test.api.TestDataSource;
+import com.clarkparsia.empire.test.api.MutableTestDataSource;
 import com.clarkparsia.empire.test.api.TestVocab;
 
 import java.net.URI;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 import com.clarkparsia.openrdf.vocabulary.FOAF;
 import com.clarkparsia.openrdf.vocabulary.DC;
@@ -125,6 +137,106 @@ public class TestRdfConvert {
 		assertFalse(RdfGenerator.fromRdf(TestPerson.class, URI.create("urn:foo"), new TestDataSource()) == null);
 	}
 
+	@Test
+	public void testStreamingRdf() throws Exception {
+		List<TestPerson> aPeople = Lists.newArrayList();
+		Graph aExpected = Graphs.newGraph();
+
+		for (int i = 0; i < 5; i++) {
+			TestPerson aPerson = new TestPerson();
+			aPerson.setMBox("mailto:person" + i + "@example.org");
+			aPerson.setFirstName("Person " + i);
+
+			aPeople.add(aPerson);
+			aExpected.addAll(RdfGenerator.asRdf(aPerson));
+		}
+
+		final List<String> aEvents = Lists.newArrayList();
+		final Graph aWritten = Graphs.newGraph();
+
+		RdfGenerator.asRdf(aPeople, new StatementCollector(aWritten) {
+			@Override
+			public void startRDF() {
+				aEvents.add("start");
+			}
+
+			@Override
+			public void endRDF() {
+				aEvents.add("end");
+			}
+		});
+
+		assertEquals(Lists.newArrayList("start", "end"), aEvents);
+		assertTrue(ModelUtil.equals(aExpected, aWritten));
+
+		// written to a data source in batches
+		final List<Graph> aBatches = Lists.newArrayList();
+
+		RdfGenerator.asRdf(aPeople, new MutableDataSourceHandler(new MutableTestDataSource() {
+			@Override
+			public void add(final Graph theGraph) {
+				aBatches.add(theGraph);
+			}
+		}, 5));
+
+		Graph aAdded = Graphs.newGraph();
+		for (Graph aBatch : aBatches) {
+			assertTrue(aBatch.size() <= 5);
+			aAdded.addAll(aBatch);
+		}
+
+		assertEquals((aExpected.size() + 4) / 5, aBatches.size());
+		assertTrue(ModelUtil.equals(aExpected, aAdded));
+	}
+
+	@Test
+	public void testFromGraph() throws Exception {
+		TestPerson aJoe = new TestPerson();
+		aJoe.setMBox("mailto:joe@example.org");
+		aJoe.setFirstName("Joe");
+
+		TestPerson aJane = new TestPerson();
+		aJane.setMBox("mailto:jane@example.org");
+		aJane.setFirstName("Jane");
+
+		aJoe.setSpouse(aJane);
+		aJoe.getKnows().add(aJane);
+
+		Graph aGraph = Graphs.union(RdfGenerator.asRdf(aJoe), RdfGenerator.asRdf(aJane));
+
+		// the references are resolved from the graph, there is no data source to query
+		TestPerson aPerson = RdfGenerator.fromGraph(TestPerson.class, aJoe.getRdfId(), aGraph);
+
+		assertEquals(aJoe, aPerson);
+		assertEquals("Jane", aPerson.getSpouse().getFirstName());
+		assertEquals(Lists.newArrayList(aJane), aPerson.getKnows());
+
+		List<TestPerson> aPeople = RdfGenerator.fromGraph(TestPerson.class, aGraph);
+
+		assertEquals(2, aPeople.size());
+		assertTrue(aPeople.containsAll(Lists.newArrayList(aJoe, aJane)));
+
+		// an rdf:List is walked in the graph
+		EntityManagerTestSuite.OneWithList aOne = new EntityManagerTestSuite.OneWithList();
+		aOne.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:one")));
+
+		Graph aListGraph = Graphs.newGraph();
+		for (String aName : new String[] { "c", "a", "b" }) {
+			EntityManagerTestSuite.Elem aElem = new EntityManagerTestSuite.Elem();
+			aElem.name = aName;
+			aElem.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:elem:" + aName)));
+
+			aOne.list.add(aElem);
+			aListGraph.addAll(RdfGenerator.asRdf(aElem));
+		}
+
+		aListGraph.addAll(RdfGenerator.asRdf(aOne));
+
+		EntityManagerTestSuite.OneWithList aCopy = RdfGenerator.fromGraph(EntityManagerTestSuite.OneWithList.class, aOne.getRdfId(), aListGraph);
+
+		assertEquals(Lists.newArrayList(aOne.list), Lists.newArrayList(aCopy.list));
+	}
+
 	@Test
 	public void testUnbalancedNamespaces() {
 		try {
@@ -337,6 +449,124 @@ public class TestRdfConvert {
 		}
 	}
 
+	@Test
+	public void testEntityMapping() {
+		EntityMapping aMapping = EntityMapping.of(TestPerson.class);
+
+		// mappings are built once and shared
+		assertTrue(aMapping == EntityMapping.of(TestPerson.class));
+
+		assertEquals(FOAF.ontology().Person, aMapping.getType());
+
+		EntityMapping.PropertyMapping aKnows = aMapping.getProperty(FOAF.ontology().knows, null);
+
+		assertTrue(aKnows.isCollection());
+		assertEquals(TestPerson.class, aKnows.getElementType());
+		assertFalse(aKnows.isLazy());
+
+		// the setter for the title is annotated, the getter is not, but both are mapped
+		assertTrue(aMapping.getProperty(DC.ontology().title, null) != null);
+
+		int aTitles = 0;
+		for (EntityMapping.PropertyMapping aProperty : aMapping.getProperties()) {
+			if (DC.ontology().title.equals(aProperty.getProperty())) {
+				aTitles++;
+			}
+		}
+
+		assertEquals(1, aTitles);
+
+		assertNull(aMapping.getProperty(ValueFactoryImpl.getInstance().createURI("urn:not:mapped"), null));
+
+		EntityMapping aTransient = EntityMapping.of(TransientTest.class);
+		for (EntityMapping.PropertyMapping aProperty : aTransient.getProperties()) {
+			assertEquals(!aProperty.getProperty().stringValue().equals("urn:foo"), aProperty.isTransient());
+		}
+	}
+
+	@Test
+	public void testLiteralCodecs() throws Exception {
+		LiteralCodecs.register(TEMPERATURE, Temperature.CODEC);
+		LiteralCodecs.register(Temperature.class, Temperature.CODEC);
+
+		LiteralTest aObj = new LiteralTest();
+		aObj.setRdfId(asPrimaryKey(URI.create("urn:test:literals")));
+		aObj.anInt = 42;
+		aObj.aLong = 1L << 40;
+		aObj.aDouble = 2.5;
+		aObj.aFloat = 1.5f;
+		aObj.aBoolean = true;
+		aObj.aShort = 7;
+		aObj.aByte = 3;
+		aObj.aTemperature = new Temperature(21.5);
+
+		ExtGraph aGraph = Graphs.extend(RdfGenerator.asRdf(aObj));
+
+		org.openrdf.model.URI aId = ValueFactoryImpl.getInstance().createURI("urn:test:literals");
+
+		assertEquals(XMLSchema.BYTE, aGraph.getLiteral(aId, ValueFactoryImpl.getInstance().createURI("urn:byte")).get().getDatatype());
+		assertEquals(TEMPERATURE, aGraph.getLiteral(aId, ValueFactoryImpl.getInstance().createURI("urn:temperature")).get().getDatatype());
+
+		LiteralTest aCopy = RdfGenerator.fromRdf(LiteralTest.class, aObj.getRdfId(), new TestDataSource(aGraph));
+
+		assertEquals(aObj.anInt, aCopy.anInt);
+		assertEquals(aObj.aLong, aCopy.aLong);
+		assertEquals(aObj.aDouble, aCopy.aDouble, 0);
+		assertEquals(aObj.aFloat, aCopy.aFloat, 0);
+		assertEquals(aObj.aBoolean, aCopy.aBoolean);
+		assertEquals(aObj.aShort, aCopy.aShort);
+		assertEquals(aObj.aByte, aCopy.aByte);
+		assertEquals(aObj.aTemperature.celsius, aCopy.aTemperature.celsius, 0);
+
+		// a literal of a narrower datatype is widened when assigned to a primitive property
+		org.openrdf.model.URI aLong = ValueFactoryImpl.getInstance().createURI("urn:long");
+
+		Graph aWidened = new GraphImpl();
+		for (Statement aStmt : aGraph) {
+			if (!aStmt.getPredicate().equals(aLong)) {
+				aWidened.add(aStmt);
+			}
+		}
+		aWidened.add(aId, aLong, ValueFactoryImpl.getInstance().createLiteral(5));
+
+		assertEquals(5L, RdfGenerator.fromRdf(LiteralTest.class, aObj.getRdfId(), new TestDataSource(aWidened)).aLong);
+	}
+
+	@Test
+	public void testLanguageSelection() throws Exception {
+		ValueFactoryImpl aFactory = ValueFactoryImpl.getInstance();
+
+		org.openrdf.model.URI aId = aFactory.createURI("urn:test:label");
+		org.openrdf.model.URI aLabel = aFactory.createURI("urn:label");
+
+		String aLocale = Locale.getDefault().getLanguage().equals("") ? "en" : Locale.getDefault().getLanguage();
+		String aOther = aLocale.equals("de") ? "it" : "de";
+
+		Graph aGraph = new GraphImpl();
+		aGraph.add(aId, RDF.TYPE, aFactory.createURI("urn:LabelTest"));
+		aGraph.add(aId, aLabel, aFactory.createLiteral("bonjour", "fr"));
+		aGraph.add(aId, aLabel, aFactory.createLiteral("local", aLocale));
+		aGraph.add(aId, aLabel, aFactory.createLiteral("other", aOther));
+
+		// no untagged literals, the literal in the language of the locale is used
+		assertEquals("local", RdfGenerator.fromRdf(LabelTest.class, asPrimaryKey(URI.create("urn:test:label")), new TestDataSource(aGraph)).label);
+
+		// an untagged literal is preferred to any of the tagged ones
+		aGraph.add(aId, aLabel, aFactory.createLiteral("plain"));
+
+		assertEquals("plain", RdfGenerator.fromRdf(LabelTest.class, asPrimaryKey(URI.create("urn:test:label")), new TestDataSource(aGraph)).label);
+
+		EmpireOptions.ENABLE_LANG_AWARE = true;
+
+		try {
+			// only the language of the property is acceptable
+			assertEquals("bonjour", RdfGenerator.fromRdf(LabelTest.class, asPrimaryKey(URI.create("urn:test:label")), new TestDataSource(aGraph)).label);
+		}
+		finally {
+			EmpireOptions.ENABLE_LANG_AWARE = false;
+		}
+	}
+
 	@RdfsClass("urn:TestClass")
 	@Entity
 	private static class NoDefaultConstructor extends BaseTestClass {
@@ -387,6 +617,61 @@ public class TestRdfConvert {
 		public String name;
 	}
 
+	@RdfsClass("urn:LabelTest")
+	@Entity
+	public static class LabelTest extends BaseTestClass {
+		@RdfProperty(value="urn:label", language="fr")
+		public String label;
+	}
+
+	private static final org.openrdf.model.URI TEMPERATURE = ValueFactoryImpl.getInstance().createURI("urn:celsius");
+
+	public static class Temperature {
+		static final LiteralCodec<Temperature> CODEC = new LiteralCodec<Temperature>() {
+			public Temperature decode(final Literal theLiteral) {
+				return new Temperature(Double.parseDouble(theLiteral.getLabel()));
+			}
+
+			public Literal encode(final Temperature theValue) {
+				return ValueFactoryImpl.getInstance().createLiteral(String.valueOf(theValue.celsius), TEMPERATURE);
+			}
+		};
+
+		final double celsius;
+
+		Temperature(final double theCelsius) {
+			celsius = theCelsius;
+		}
+	}
+
+	@RdfsClass("urn:LiteralTest")
+	@Entity
+	public static class LiteralTest extends BaseTestClass {
+		@RdfProperty("urn:int")
+		public int anInt;
+
+		@RdfProperty("urn:long")
+		public long aLong;
+
+		@RdfProperty("urn:double")
+		public double aDouble;
+
+		@RdfProperty("urn:float")
+		public float aFloat;
+
+		@RdfProperty("urn:boolean")
+		public boolean aBoolean;
+
+		@RdfProperty("urn:short")
+		public short aShort;
+
+		@RdfProperty("urn:byte")
+		public byte aByte;
+
+		@RdfProperty("urn:temperature")
+		public Temperature aTemperature;
+	}
+
 	@RdfsClass("urn:TestClass")
 	@Entity
 	public static class TransientTest extends BaseTestClass {
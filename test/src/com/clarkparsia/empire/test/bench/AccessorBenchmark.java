@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.test.bench;
+
+import com.clarkparsia.empire.codegen.AccessorGenerator;
+import com.clarkparsia.empire.codegen.PropertyAccessor;
+import com.clarkparsia.empire.util.BeanReflectUtil;
+
+import java.lang.reflect.Field;
+
+/**
+ * <p>Micro-benchmark comparing the reflective get/set path used by RdfGenerator previously, toggling accessibility
+ * around every call, with the accessors created by {@link AccessorGenerator}.  Run it with {@link #main}, it is not
+ * part of the test suite.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+public final class AccessorBenchmark {
+	private static final int BEANS = 10000;
+	private static final int ROUNDS = 20;
+
+	public static void main(String[] args) throws Exception {
+		Field[] aFields = WideBean.class.getDeclaredFields();
+		PropertyAccessor[] aAccessors = new PropertyAccessor[aFields.length];
+
+		for (int i = 0; i < aFields.length; i++) {
+			aAccessors[i] = AccessorGenerator.accessorFor(aFields[i]);
+
+			if (!(aAccessors[i] instanceof AccessorGenerator.GeneratedAccessor)) {
+				throw new IllegalStateException("No accessor was generated for " + aFields[i]);
+			}
+		}
+
+		WideBean[] aBeans = new WideBean[BEANS];
+		for (int i = 0; i < aBeans.length; i++) {
+			aBeans[i] = new WideBean();
+		}
+
+		// warm up both paths before measuring
+		for (int i = 0; i < 5; i++) {
+			reflective(aFields, aBeans);
+			generated(aAccessors, aBeans);
+		}
+
+		long aReflective = 0;
+		long aGenerated = 0;
+
+		for (int i = 0; i < ROUNDS; i++) {
+			aReflective += reflective(aFields, aBeans);
+			aGenerated += generated(aAccessors, aBeans);
+		}
+
+		long aOps = (long) ROUNDS * BEANS * aFields.length * 2;
+
+		System.out.println(aFields.length + " properties, " + BEANS + " beans, " + ROUNDS + " rounds");
+		System.out.println("reflective: " + (aReflective / aOps) + " ns/op");
+		System.out.println("generated:  " + (aGenerated / aOps) + " ns/op");
+	}
+
+	private static long reflective(final Field[] theFields, final WideBean[] theBeans) throws Exception {
+		long aStart = System.nanoTime();
+
+		for (WideBean aBean : theBeans) {
+			for (Field aField : theFields) {
+				boolean aOldAccess = aField.isAccessible();
+				BeanReflectUtil.setAccessible(aField, true);
+				try {
+					BeanReflectUtil.set(aField, aBean, BeanReflectUtil.get(aField, aBean));
+				}
+				finally {
+					BeanReflectUtil.setAccessible(aField, aOldAccess);
+				}
+			}
+		}
+
+		return System.nanoTime() - aStart;
+	}
+
+	private static long generated(final PropertyAccessor[] theAccessors, final WideBean[] theBeans) throws Exception {
+		long aStart = System.nanoTime();
+
+		for (WideBean aBean : theBeans) {
+			for (PropertyAccessor aAccessor : theAccessors) {
+				aAccessor.set(aBean, aAccessor.get(aBean));
+			}
+		}
+
+		return System.nanoTime() - aStart;
+	}
+
+	/**
+	 * A bean with forty properties, roughly the size of a wide entity.  Like the entities in the tests, it keeps
+	 * its properties in private fields behind public getters and setters.
+	 */
+	public static class WideBean {
+		private String p00 = "v";
+		private String p01 = "v";
+		private String p02 = "v";
+		private String p03 = "v";
+		private String p04 = "v";
+		private String p05 = "v";
+		private String p06 = "v";
+		private String p07 = "v";
+		private String p08 = "v";
+		private String p09 = "v";
+		private String p10 = "v";
+		private String p11 = "v";
+		private String p12 = "v";
+		private String p13 = "v";
+		private String p14 = "v";
+		private String p15 = "v";
+		private String p16 = "v";
+		private String p17 = "v";
+		private String p18 = "v";
+		private String p19 = "v";
+		private Integer p20 = 1;
+		private Integer p21 = 1;
+		private Integer p22 = 1;
+		private Integer p23 = 1;
+		private Integer p24 = 1;
+		private Integer p25 = 1;
+		private Integer p26 = 1;
+		private Integer p27 = 1;
+		private Integer p28 = 1;
+		private Integer p29 = 1;
+		private int p30 = 1;
+		private int p31 = 1;
+		private int p32 = 1;
+		private int p33 = 1;
+		private int p34 = 1;
+		private long p35 = 1L;
+		private long p36 = 1L;
+		private long p37 = 1L;
+		private long p38 = 1L;
+		private long p39 = 1L;
+
+		public String getP00() { return p00; }
+		public void setP00(final String theValue) { p00 = theValue; }
+		public String getP01() { return p01; }
+		public void setP01(final String theValue) { p01 = theValue; }
+		public String getP02() { return p02; }
+		public void setP02(final String theValue) { p02 = theValue; }
+		public String getP03() { return p03; }
+		public void setP03(final String theValue) { p03 = theValue; }
+		public String getP04() { return p04; }
+		public void setP04(final String theValue) { p04 = theValue; }
+		public String getP05() { return p05; }
+		public void setP05(final String theValue) { p05 = theValue; }
+		public String getP06() { return p06; }
+		public void setP06(final String theValue) { p06 = theValue; }
+		public String getP07() { return p07; }
+		public void setP07(final String theValue) { p07 = theValue; }
+		public String getP08() { return p08; }
+		public void setP08(final String theValue) { p08 = theValue; }
+		public String getP09() { return p09; }
+		public void setP09(final String theValue) { p09 = theValue; }
+		public String getP10() { return p10; }
+		public void setP10(final String theValue) { p10 = theValue; }
+		public String getP11() { return p11; }
+		public void setP11(final String theValue) { p11 = theValue; }
+		public String getP12() { return p12; }
+		public void setP12(final String theValue) { p12 = theValue; }
+		public String getP13() { return p13; }
+		public void setP13(final String theValue) { p13 = theValue; }
+		public String getP14() { return p14; }
+		public void setP14(final String theValue) { p14 = theValue; }
+		public String getP15() { return p15; }
+		public void setP15(final String theValue) { p15 = theValue; }
+		public String getP16() { return p16; }
+		public void setP16(final String theValue) { p16 = theValue; }
+		public String getP17() { return p17; }
+		public void setP17(final String theValue) { p17 = theValue; }
+		public String getP18() { return p18; }
+		public void setP18(final String theValue) { p18 = theValue; }
+		public String getP19() { return p19; }
+		public void setP19(final String theValue) { p19 = theValue; }
+		public Integer getP20() { return p20; }
+		public void setP20(final Integer theValue) { p20 = theValue; }
+		public Integer getP21() { return p21; }
+		public void setP21(final Integer theValue) { p21 = theValue; }
+		public Integer getP22() { return p22; }
+		public void setP22(final Integer theValue) { p22 = theValue; }
+		public Integer getP23() { return p23; }
+		public void setP23(final Integer theValue) { p23 = theValue; }
+		public Integer getP24() { return p24; }
+		public void setP24(final Integer theValue) { p24 = theValue; }
+		public Integer getP25() { return p25; }
+		public void setP25(final Integer theValue) { p25 = theValue; }
+		public Integer getP26() { return p26; }
+		public void setP26(final Integer theValue) { p26 = theValue; }
+		public Integer getP27() { return p27; }
+		public void setP27(final Integer theValue) { p27 = theValue; }
+		public Integer getP28() { return p28; }
+		public void setP28(final Integer theValue) { p28 = theValue; }
+		public Integer getP29() { return p29; }
+		public void setP29(final Integer theValue) { p29 = theValue; }
+		public int getP30() { return p30; }
+		public void setP30(final int theValue) { p30 = theValue; }
+		public int getP31() { return p31; }
+		public void setP31(final int theValue) { p31 = theValue; }
+		public int getP32() { return p32; }
+		public void setP32(final int theValue) { p32 = theValue; }
+		public int getP33() { return p33; }
+		public void setP33(final int theValue) { p33 = theValue; }
+		public int getP34() { return p34; }
+		public void setP34(final int theValue) { p34 = theValue; }
+		public long getP35() { return p35; }
+		public void setP35(final long theValue) { p35 = theValue; }
+		public long getP36() { return p36; }
+		public void setP36(final long theValue) { p36 = theValue; }
+		public long getP37() { return p37; }
+		public void setP37(final long theValue) { p37 = theValue; }
+		public long getP38() { return p38; }
+		public void setP38(final long theValue) { p38 = theValue; }
+		public long getP39() { return p39; }
+		public void setP39(final long theValue) { p39 = theValue; }
+	}
+}
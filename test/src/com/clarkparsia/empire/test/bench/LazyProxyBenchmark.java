@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.test.bench;
+
+import com.clarkparsia.empire.SupportsRdfId;
+import com.clarkparsia.empire.annotation.RdfGenerator;
+import com.clarkparsia.empire.annotation.RdfProperty;
+import com.clarkparsia.empire.annotation.RdfsClass;
+import com.clarkparsia.empire.test.api.BaseTestClass;
+import com.clarkparsia.empire.test.api.MutableTestDataSource;
+
+import com.clarkparsia.openrdf.Graphs;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.OneToMany;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Benchmark loading an entity with 100k lazily fetched references, reporting the time taken per reference and the
+ * number of classes loaded while doing so, which should not grow with the number of references.  Run it with
+ * {@link #main}, it is not part of the test suite.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+public final class LazyProxyBenchmark {
+	private static final int REFERENCES = 100000;
+	private static final int ROUNDS = 5;
+
+	private static final String NS = "http://empire.clarkparsia.com/bench/";
+
+	public static void main(String[] args) throws Exception {
+		ValueFactory aFactory = ValueFactoryImpl.getInstance();
+		URI aHolder = aFactory.createURI(NS + "holder");
+
+		Graph aGraph = Graphs.newGraph();
+		aGraph.add(aHolder, RDF.TYPE, aFactory.createURI(NS + "Holder"));
+
+		for (int i = 0; i < REFERENCES; i++) {
+			aGraph.add(aHolder, aFactory.createURI(NS + "item"), aFactory.createURI(NS + "item" + i));
+		}
+
+		MutableTestDataSource aSource = new MutableTestDataSource(aGraph);
+		SupportsRdfId.RdfKey aKey = new SupportsRdfId.URIKey(java.net.URI.create(aHolder.stringValue()));
+
+		// warm up, this also creates the proxy class
+		RdfGenerator.fromRdf(Holder.class, aKey, aGraph, aSource);
+
+		ClassLoadingMXBean aClassLoading = ManagementFactory.getClassLoadingMXBean();
+		long aClasses = aClassLoading.getTotalLoadedClassCount();
+		long aTime = 0;
+
+		for (int i = 0; i < ROUNDS; i++) {
+			long aStart = System.nanoTime();
+
+			Holder aLoaded = RdfGenerator.fromRdf(Holder.class, aKey, aGraph, aSource);
+
+			aTime += System.nanoTime() - aStart;
+
+			if (aLoaded.mItems.size() != REFERENCES) {
+				throw new IllegalStateException("Expected " + REFERENCES + " references, got " + aLoaded.mItems.size());
+			}
+		}
+
+		System.out.println(REFERENCES + " lazy references, " + ROUNDS + " rounds");
+		System.out.println("per reference:  " + (aTime / ((long) ROUNDS * REFERENCES)) + " ns");
+		System.out.println("classes loaded: " + (aClassLoading.getTotalLoadedClassCount() - aClasses));
+	}
+
+	@Entity
+	@RdfsClass(NS + "Holder")
+	public static class Holder extends BaseTestClass {
+		@RdfProperty(NS + "item")
+		@OneToMany(fetch = FetchType.LAZY)
+		List<Item> mItems = new ArrayList<Item>();
+	}
+
+	@Entity
+	@RdfsClass(NS + "Item")
+	public static class Item extends BaseTestClass {
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.test.bench;
+
+import com.clarkparsia.common.base.Dates;
+import com.clarkparsia.empire.EmpireOptions;
+import com.clarkparsia.empire.SupportsRdfId;
+import com.clarkparsia.empire.annotation.LiteralCodecs;
+import com.clarkparsia.empire.annotation.RdfGenerator;
+import com.clarkparsia.empire.ds.DataSource;
+import com.clarkparsia.empire.ds.impl.CachingDataSource;
+import com.clarkparsia.empire.ds.impl.QueryResultCache;
+import com.clarkparsia.empire.test.TestRdfConvert;
+import com.clarkparsia.empire.test.api.MutableTestDataSource;
+import com.clarkparsia.empire.test.api.TestPerson;
+
+import org.openrdf.model.Graph;
+
+import java.net.URI;
+
+import static com.clarkparsia.empire.util.EmpireUtil.asPrimaryKey;
+
+/**
+ * <p>Micro-benchmark of the conversion of literal valued properties to and from RDF with {@link RdfGenerator}, using
+ * the beans of {@link TestRdfConvert}: a {@link TestPerson}, whose properties are strings, dates, floats and booleans,
+ * and a bean whose properties are all primitive and are therefore assigned through {@link LiteralCodecs} without
+ * boxing.  Run it with {@link #main}, it is not part of the test suite.</p>
+ *
+ * @author	Michael Grove
+ * @since	0.7.3
+ * @version	0.7.3
+ */
+public final class LiteralConversionBenchmark {
+	private static final int CONVERSIONS = 2000;
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) throws Exception {
+		EmpireOptions.STRONG_TYPING = true;
+
+		TestPerson aPerson = new TestPerson();
+		aPerson.setMBox("mailto:bob@example.org");
+		aPerson.setBirthday(Dates.asDate("1980-01-01"));
+		aPerson.setFirstName("Bob");
+		aPerson.setLastName("Smith");
+		aPerson.setLikesVideoGames(false);
+		aPerson.setWeight(200.1f);
+		aPerson.setTitle("Mr");
+
+		TestRdfConvert.LiteralTest aPrimitives = new TestRdfConvert.LiteralTest();
+		aPrimitives.setRdfId(asPrimaryKey(URI.create("urn:bench:literals")));
+		aPrimitives.anInt = 42;
+		aPrimitives.aLong = 1L << 40;
+		aPrimitives.aDouble = 2.5;
+		aPrimitives.aFloat = 1.5f;
+		aPrimitives.aBoolean = true;
+		aPrimitives.aShort = 7;
+		aPrimitives.aByte = 3;
+
+		run("person", aPerson);
+		run("primitives", aPrimitives);
+	}
+
+	private static <T extends SupportsRdfId> void run(final String theName, final T theObj) throws Exception {
+		// cache the query results so that the conversion, rather than the queries, is measured
+		DataSource aSource = CachingDataSource.wrap(new MutableTestDataSource(RdfGenerator.asRdf(theObj)),
+													new QueryResultCache(QueryResultCache.DEFAULT_SIZE, 0));
+
+		// warm up both directions before measuring
+		for (int i = 0; i < 5; i++) {
+			toRdf(theObj);
+			fromRdf(theObj, aSource);
+		}
+
+		long aToRdf = 0;
+		long aFromRdf = 0;
+
+		for (int i = 0; i < ROUNDS; i++) {
+			aToRdf += toRdf(theObj);
+			aFromRdf += fromRdf(theObj, aSource);
+		}
+
+		long aOps = (long) ROUNDS * CONVERSIONS;
+
+		System.out.println(theName + ", " + CONVERSIONS + " conversions, " + ROUNDS + " rounds");
+		System.out.println("  asRdf:   " + (aToRdf / aOps) + " ns/op");
+		System.out.println("  fromRdf: " + (aFromRdf / aOps) + " ns/op");
+	}
+
+	private static long toRdf(final Object theObj) throws Exception {
+		long aStart = System.nanoTime();
+
+		for (int i = 0; i < CONVERSIONS; i++) {
+			Graph aGraph = RdfGenerator.asRdf(theObj);
+
+			if (aGraph.isEmpty()) {
+				throw new IllegalStateException();
+			}
+		}
+
+		return System.nanoTime() - aStart;
+	}
+
+	private static long fromRdf(final SupportsRdfId theObj, final DataSource theSource) throws Exception {
+		long aStart = System.nanoTime();
+
+		for (int i = 0; i < CONVERSIONS; i++) {
+			if (RdfGenerator.fromRdf(theObj.getClass(), theObj.getRdfId(), theSource) == null) {
+				throw new IllegalStateException();
+			}
+		}
+
+		return System.nanoTime() - aStart;
+	}
+}
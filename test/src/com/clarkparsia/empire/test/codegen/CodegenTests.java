@@ -15,22 +15,51 @@
 
 package com.clarkparsia.empire.test.codegen;
 
+import java.io.File;
+
 import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import javax.persistence.CascadeType;
 import javax.persistence.EntityManager;
+import javax.persistence.FetchType;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.OneToOne;
 import javax.persistence.Persistence;
 
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import com.clarkparsia.empire.codegen.AccessorGenerator;
 import com.clarkparsia.empire.codegen.InstanceGenerator;
+import com.clarkparsia.empire.codegen.MethodDispatcher;
+import com.clarkparsia.empire.codegen.PropertyAccessor;
+import com.clarkparsia.empire.EmpireGenerated;
 import com.clarkparsia.empire.SupportsRdfId;
 import com.clarkparsia.empire.Empire;
+import com.clarkparsia.empire.annotation.RdfProperty;
 import com.clarkparsia.empire.test.EmpireTestSuite;
+import com.clarkparsia.empire.util.apt.EmpireAnnotationProcessor;
 
 import com.clarkparsia.empire.test.api.TestInterface;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -143,6 +172,270 @@ public class CodegenTests {
 		assertTrue(aFoo.isDereferenced());
 	}
 
+	@Test
+	public void testGeneratedFieldAccessor() throws Exception {
+		PropertyAccessor aAccessor = AccessorGenerator.accessorFor(AccessorBean.class.getDeclaredField("mName"));
+
+		assertTrue(aAccessor instanceof AccessorGenerator.GeneratedAccessor);
+		assertSame(aAccessor, AccessorGenerator.accessorFor(AccessorBean.class.getDeclaredField("mName")));
+
+		AccessorBean aBean = new AccessorBean();
+		aAccessor.set(aBean, "foo");
+
+		assertEquals("foo", aBean.mName);
+		assertEquals("foo", aAccessor.get(aBean));
+	}
+
+	@Test
+	public void testGeneratedMethodAccessor() throws Exception {
+		PropertyAccessor aGetter = AccessorGenerator.accessorFor(AccessorBean.class.getMethod("getCount"));
+		PropertyAccessor aSetter = AccessorGenerator.accessorFor(AccessorBean.class.getMethod("setCount", long.class));
+
+		assertTrue(aGetter instanceof AccessorGenerator.GeneratedAccessor);
+		assertTrue(aSetter instanceof AccessorGenerator.GeneratedAccessor);
+
+		AccessorBean aBean = new AccessorBean();
+		aSetter.set(aBean, 42L);
+
+		assertEquals(42L, aBean.getCount());
+		assertEquals(42L, aGetter.get(aBean));
+
+		// widening an int into the long parameter falls back to reflection, which allows it
+		aSetter.set(aBean, 7);
+		assertEquals(7L, aBean.getCount());
+	}
+
+	@Test
+	public void testPrivateFieldAccessor() throws Exception {
+		PropertyAccessor aAccessor = AccessorGenerator.accessorFor(AccessorBean.class.getDeclaredField("mSecret"));
+
+		assertFalse(aAccessor instanceof AccessorGenerator.GeneratedAccessor);
+
+		AccessorBean aBean = new AccessorBean();
+		aAccessor.set(aBean, 3);
+
+		assertEquals(3, aAccessor.get(aBean));
+		assertFalse(AccessorBean.class.getDeclaredField("mSecret").isAccessible());
+	}
+
+	@Test
+	public void testPrivateFieldPropertyAccessor() throws Exception {
+		PropertyAccessor aAccessor = AccessorGenerator.accessorFor(AccessorBean.class.getDeclaredField("mCount"));
+
+		// the private field is accessed through getCount and setCount
+		assertTrue(aAccessor instanceof AccessorGenerator.GeneratedAccessor);
+
+		AccessorBean aBean = new AccessorBean();
+		aAccessor.set(aBean, 42L);
+
+		assertEquals(42L, aBean.getCount());
+		assertEquals(42L, aAccessor.get(aBean));
+
+		aAccessor.setLong(aBean, 7L);
+		assertEquals(7L, aBean.getCount());
+
+		// widening falls back to reflection on the field, as with the field itself
+		aAccessor.set(aBean, 3);
+		assertEquals(3L, aBean.getCount());
+
+		assertFalse(AccessorBean.class.getDeclaredField("mCount").isAccessible());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testAccessorTypeMismatch() throws Exception {
+		AccessorGenerator.accessorFor(AccessorBean.class.getDeclaredField("mName")).set(new AccessorBean(), 12);
+	}
+
+	@Test
+	public void testMethodDispatcher() throws Throwable {
+		MethodDispatcher aDispatcher = MethodDispatcher.dispatcherFor(AccessorBean.class);
+
+		assertSame(aDispatcher, MethodDispatcher.dispatcherFor(AccessorBean.class));
+		assertTrue(aDispatcher.getClass().getName().startsWith(AccessorBean.class.getName() + "$$EmpireDispatcher"));
+
+		AccessorBean aBean = new AccessorBean();
+
+		assertEquals(null, aDispatcher.invoke(AccessorBean.class.getMethod("setCount", long.class), aBean, new Object[] { 42L }));
+		assertEquals(42L, aDispatcher.invoke(AccessorBean.class.getMethod("getCount"), aBean, new Object[0]));
+		assertEquals(aBean.toString(), aDispatcher.invoke(Object.class.getMethod("toString"), aBean, new Object[0]));
+
+		try {
+			aDispatcher.invoke(AccessorBean.class.getMethod("setCount", long.class), aBean, new Object[] { "not a long" });
+			fail("the argument should not have been accepted");
+		}
+		catch (ClassCastException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testConcurrentInstGen() throws Exception {
+		final CyclicBarrier aBarrier = new CyclicBarrier(8);
+
+		ExecutorService aExecutor = Executors.newFixedThreadPool(8);
+
+		try {
+			List<Future<Class<ConcurrentInterface>>> aResults = new ArrayList<Future<Class<ConcurrentInterface>>>();
+
+			for (int i = 0; i < 8; i++) {
+				aResults.add(aExecutor.submit(new Callable<Class<ConcurrentInterface>>() {
+					public Class<ConcurrentInterface> call() throws Exception {
+						aBarrier.await();
+						return InstanceGenerator.generateInstanceClass(ConcurrentInterface.class);
+					}
+				}));
+			}
+
+			// every thread gets the same class, rather than a failure from trying to define it a second time
+			Class<ConcurrentInterface> aClass = aResults.get(0).get();
+
+			for (Future<Class<ConcurrentInterface>> aResult : aResults) {
+				assertSame(aClass, aResult.get());
+			}
+
+			assertSame(ConcurrentInterface.class.getClassLoader(), aClass.getClassLoader());
+		}
+		finally {
+			aExecutor.shutdown();
+		}
+	}
+
+	@Test
+	public void testBuildTimeInstGen() throws Exception {
+		JavaCompiler aCompiler = ToolProvider.getSystemJavaCompiler();
+
+		if (aCompiler == null) {
+			// running on a JRE, there's no compiler to run the annotation processor with
+			return;
+		}
+
+		File aDir = File.createTempFile("empire", "apt");
+		aDir.delete();
+		aDir.mkdirs();
+
+		File aSource = new File(aDir, "com/example/BuildTimeBean.java");
+		aSource.getParentFile().mkdirs();
+
+		Files.write("package com.example;\n" +
+					"@javax.persistence.Entity\n" +
+					"@com.clarkparsia.empire.annotation.RdfsClass(\"urn:BuildTimeBean\")\n" +
+					"public interface BuildTimeBean extends com.clarkparsia.empire.SupportsRdfId {\n" +
+					"  @com.clarkparsia.empire.annotation.RdfProperty(\"urn:name\")\n" +
+					"  public String getName();\n" +
+					"  public void setName(String theName);\n" +
+					"  public boolean isActive();\n" +
+					"  public void setActive(boolean theActive);\n" +
+					"  public java.util.List<? extends BuildTimeBean> getFriends();\n" +
+					"  public void setFriends(java.util.List<? extends BuildTimeBean> theFriends);\n" +
+					"}\n", aSource, Charsets.UTF_8);
+
+		int aResult = aCompiler.run(null, null, null,
+									"-d", aDir.getPath(),
+									"-classpath", System.getProperty("java.class.path"),
+									"-processor", EmpireAnnotationProcessor.class.getName(),
+									"-A" + EmpireAnnotationProcessor.INDEX_OPTION + "=" + new File(aDir, "empire.index").getPath(),
+									aSource.getPath());
+
+		assertEquals(0, aResult);
+		assertTrue(new File(aDir, "com/example/impl/BuildTimeBeanImpl.class").exists());
+
+		ClassLoader aLoader = new URLClassLoader(new URL[] { aDir.toURI().toURL() }, getClass().getClassLoader());
+
+		Class<?> aInterface = aLoader.loadClass("com.example.BuildTimeBean");
+		Class<?> aImpl = InstanceGenerator.generateInstanceClass(aInterface);
+
+		// the implementation from the build is used, rather than a new one being generated
+		assertSame(aLoader.loadClass("com.example.impl.BuildTimeBeanImpl"), aImpl);
+		assertTrue(EmpireGenerated.class.isAssignableFrom(aImpl));
+		assertEquals("urn:name", aImpl.getMethod("getName").getAnnotation(RdfProperty.class).value());
+
+		Object aBean = aImpl.newInstance();
+		aImpl.getMethod("setName", String.class).invoke(aBean, "Bob");
+		aImpl.getMethod("setActive", boolean.class).invoke(aBean, true);
+		((SupportsRdfId) aBean).setRdfId(new SupportsRdfId.URIKey(URI.create("urn:bob")));
+
+		assertEquals("Bob", aImpl.getMethod("getName").invoke(aBean));
+		assertEquals(Boolean.TRUE, aImpl.getMethod("isActive").invoke(aBean));
+		assertEquals("urn:bob", aBean.toString());
+		assertSame(aInterface, ((EmpireGenerated) aBean).getInterfaceClass());
+	}
+
+	@Test
+	public void testBuildTimeInstGenAnnotationValues() throws Exception {
+		JavaCompiler aCompiler = ToolProvider.getSystemJavaCompiler();
+
+		if (aCompiler == null) {
+			// running on a JRE, there's no compiler to run the annotation processor with
+			return;
+		}
+
+		File aDir = File.createTempFile("empire", "apt");
+		aDir.delete();
+		aDir.mkdirs();
+
+		File aSource = new File(aDir, "com/example/AnnotatedBean.java");
+		aSource.getParentFile().mkdirs();
+
+		Files.write("package com.example;\n" +
+					"import javax.persistence.CascadeType;\n" +
+					"import javax.persistence.FetchType;\n" +
+					"@javax.persistence.Entity\n" +
+					"@com.clarkparsia.empire.annotation.RdfsClass(\"urn:AnnotatedBean\")\n" +
+					"public interface AnnotatedBean extends com.clarkparsia.empire.SupportsRdfId {\n" +
+					"  @com.clarkparsia.empire.annotation.RdfProperty(value=\"urn:\\\"friend\\\"\", language=\"en\")\n" +
+					"  @javax.persistence.OneToOne(cascade={CascadeType.PERSIST, CascadeType.MERGE}, fetch=FetchType.LAZY, targetEntity=AnnotatedBean.class)\n" +
+					"  public AnnotatedBean getFriend();\n" +
+					"  public void setFriend(AnnotatedBean theFriend);\n" +
+					"}\n", aSource, Charsets.UTF_8);
+
+		int aResult = aCompiler.run(null, null, null,
+									"-d", aDir.getPath(),
+									"-classpath", System.getProperty("java.class.path"),
+									"-processor", EmpireAnnotationProcessor.class.getName(),
+									"-A" + EmpireAnnotationProcessor.INDEX_OPTION + "=" + new File(aDir, "empire.index").getPath(),
+									aSource.getPath());
+
+		// the enum constants of the annotations have to be qualified for the implementation to compile
+		assertEquals(0, aResult);
+
+		ClassLoader aLoader = new URLClassLoader(new URL[] { aDir.toURI().toURL() }, getClass().getClassLoader());
+
+		Class<?> aInterface = aLoader.loadClass("com.example.AnnotatedBean");
+		Class<?> aImpl = aLoader.loadClass("com.example.impl.AnnotatedBeanImpl");
+
+		OneToOne aOneToOne = aImpl.getMethod("getFriend").getAnnotation(OneToOne.class);
+
+		assertEquals(Lists.newArrayList(CascadeType.PERSIST, CascadeType.MERGE), Lists.newArrayList(aOneToOne.cascade()));
+		assertEquals(FetchType.LAZY, aOneToOne.fetch());
+		assertSame(aInterface, aOneToOne.targetEntity());
+
+		RdfProperty aProperty = aImpl.getMethod("getFriend").getAnnotation(RdfProperty.class);
+
+		assertEquals("urn:\"friend\"", aProperty.value());
+		assertEquals("en", aProperty.language());
+	}
+
+	public static class AccessorBean {
+		String mName;
+
+		private int mSecret;
+
+		private long mCount;
+
+		public long getCount() {
+			return mCount;
+		}
+
+		public void setCount(final long theCount) {
+			mCount = theCount;
+		}
+	}
+
+	public interface ConcurrentInterface extends SupportsRdfId {
+		public String getName();
+		public void setName(String theName);
+	}
+
 	public interface NoSupportsTestInterface {
 		public String getBar();
 		public void setBar(String theStr);